@@ -30,9 +30,7 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.Map;
 import java.util.stream.Collectors;
-import org.bson.BsonArray;
 import org.bson.BsonDocument;
-import org.bson.BsonInt32;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonMode;
@@ -57,6 +55,11 @@ public class BsonRequest extends Request<BsonValue> {
 
     private final String[] pathTokens;
 
+    /**
+     * the type is computed once, getType() is invoked many times per request
+     */
+    private final TYPE type;
+
     private BsonDocument dbProps;
     private BsonDocument collectionProps;
 
@@ -74,6 +77,10 @@ public class BsonRequest extends Request<BsonValue> {
     private Deque<String> keys = null;
     private Deque<String> sortBy = null;
     private Deque<String> hint = null;
+    private ParsedQuery parsedFilter = null;
+    private ParsedQuery parsedSortBy = null;
+    private ParsedQuery parsedHint = null;
+    private ParsedQuery parsedKeys = null;
     private DOC_ID_TYPE docIdType = DOC_ID_TYPE.STRING_OID;
 
     private REPRESENTATION_FORMAT representationFormat;
@@ -104,6 +111,8 @@ public class BsonRequest extends Request<BsonValue> {
 
     private final long requestStartTime = System.currentTimeMillis();
 
+    private final long requestStartNanoTime = System.nanoTime();
+
     // path template match
     private final PathTemplateMatch pathTemplateMatch;
 
@@ -142,6 +151,8 @@ public class BsonRequest extends Request<BsonValue> {
         // "/db/collection/document" --> { "", "mappedDbName", "collection", "document" }
         this.pathTokens = this.unmappedUri.split(SLASH);
 
+        this.type = selectRequestType(pathTokens);
+
         // etag
         HeaderValues etagHvs = exchange.getRequestHeaders() == null
                 ? null : exchange.getRequestHeaders().get(Headers.IF_MATCH);
@@ -300,7 +311,7 @@ public class BsonRequest extends Request<BsonValue> {
      * @return type
      */
     public TYPE getType() {
-        return selectRequestType(pathTokens);
+        return type;
     }
 
     public BsonValue getContent() {
@@ -829,117 +840,70 @@ public class BsonRequest extends Request<BsonValue> {
     }
 
     /**
+     * the filter qparam values are parsed once, each call returns a copy of
+     * the parsed document that the caller can modify without affecting the
+     * request
      *
      * @return the $and composed filter qparam values
      */
     public BsonDocument getFiltersDocument() throws JsonParseException {
-        final BsonDocument filterQuery = new BsonDocument();
-
-        if (filter != null) {
-            if (filter.size() > 1) {
-                BsonArray _filters = new BsonArray();
-
-                filter.stream().forEach((String f) -> {
-                    _filters.add(BsonDocument.parse(f));
-                });
-
-                filterQuery.put("$and", _filters);
-            } else if (filter.size() == 1) {
-                filterQuery.putAll(BsonDocument.parse(filter.getFirst()));  // this can throw JsonParseException for invalid filter parameters
-            } else {
-                return filterQuery;
-            }
+        if (parsedFilter == null
+                || !parsedFilter.isOf(ParsedQuery.TYPE.FILTER, filter)) {
+            parsedFilter = ParsedQuery.of(ParsedQuery.TYPE.FILTER, filter);
         }
 
-        return filterQuery;
+        return parsedFilter.getDocument();
     }
 
     /**
+     * the sort_by qparam values are parsed once, each call returns a copy of
+     * the parsed document that the caller can modify without affecting the
+     * request
      *
-     * @return @throws JsonParseException
+     * @return the sort document, {_id: -1} if no sort_by qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getSortByDocument() throws JsonParseException {
-        BsonDocument sort = new BsonDocument();
-
-        if (sortBy == null) {
-            sort.put("_id", new BsonInt32(-1));
-        } else {
-            sortBy.stream().forEach((s) -> {
-
-                String _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where sort_by is a json object
-                try {
-                    BsonDocument _sort = BsonDocument.parse(_s);
-
-                    sort.putAll(_sort);
-                } catch (JsonParseException e) {
-                    // sort_by is just a string, i.e. a property name
-                    if (_s.startsWith("-")) {
-                        sort.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        sort.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        sort.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
+        if (parsedSortBy == null
+                || !parsedSortBy.isOf(ParsedQuery.TYPE.SORT_BY, sortBy)) {
+            parsedSortBy = ParsedQuery.of(ParsedQuery.TYPE.SORT_BY, sortBy);
         }
 
-        return sort;
+        return parsedSortBy.getDocument();
     }
 
     /**
+     * the hint qparam values are parsed once, each call returns a copy of
+     * the parsed document that the caller can modify without affecting the
+     * request
      *
-     * @return @throws JsonParseException
+     * @return the hint document or null if no hint qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getHintDocument() throws JsonParseException {
-        BsonDocument ret = new BsonDocument();
-
-        if (hint == null || hint.isEmpty()) {
-            return null;
-        } else {
-            hint.stream().forEach((s) -> {
-
-                String _s = s.trim(); // the + sign is decoded into a space, in case remove it
-
-                // manage the case where hint is a json object
-                try {
-                    BsonDocument _hint = BsonDocument.parse(_s);
-
-                    ret.putAll(_hint);
-                } catch (JsonParseException e) {
-                    // ret is just a string, i.e. an index name
-                    if (_s.startsWith("-")) {
-                        ret.put(_s.substring(1), new BsonInt32(-1));
-                    } else if (_s.startsWith("+")) {
-                        ret.put(_s.substring(1), new BsonInt32(11));
-                    } else {
-                        ret.put(_s, new BsonInt32(1));
-                    }
-                }
-            });
+        if (parsedHint == null
+                || !parsedHint.isOf(ParsedQuery.TYPE.HINT, hint)) {
+            parsedHint = ParsedQuery.of(ParsedQuery.TYPE.HINT, hint);
         }
 
-        return ret;
+        return parsedHint.getDocument();
     }
 
     /**
+     * the keys qparam values are parsed once, each call returns a copy of
+     * the parsed document that the caller can modify without affecting the
+     * request
      *
-     * @return @throws JsonParseException
+     * @return the projection document or null if no keys qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getProjectionDocument() throws JsonParseException {
-        final BsonDocument projection = new BsonDocument();
-
-        if (keys == null || keys.isEmpty()) {
-            return null;
-        } else {
-            keys.stream().forEach((String f) -> {
-                projection.putAll(BsonDocument.parse(f));  // this can throw JsonParseException for invalid keys parameters
-            });
+        if (parsedKeys == null
+                || !parsedKeys.isOf(ParsedQuery.TYPE.KEYS, keys)) {
+            parsedKeys = ParsedQuery.of(ParsedQuery.TYPE.KEYS, keys);
         }
 
-        return projection;
+        return parsedKeys.getDocument();
     }
 
     /**
@@ -1179,6 +1143,15 @@ public class BsonRequest extends Request<BsonValue> {
         return requestStartTime;
     }
 
+    /**
+     *
+     * @return the value of System.nanoTime() when the request was received,
+     * to measure its duration
+     */
+    public long getRequestStartNanoTime() {
+        return requestStartNanoTime;
+    }
+
     /**
      * @param dbName
      * @see https://docs.mongodb.org/v3.2/reference/limits/#naming-restrictions
@@ -632,6 +632,12 @@ public interface ExchangeKeys {
          *
          */
         PJ, // Aliases for SHAL
+
+        /**
+         *
+         */
+        NDJSON, // newline delimited json, one document per line
+        // only for GET requests of collections and aggregations
     }
     
     /**
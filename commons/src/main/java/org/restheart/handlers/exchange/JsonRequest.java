@@ -61,7 +61,8 @@ public class JsonRequest extends ProxableRequest<JsonElement> {
             return JsonNull.INSTANCE;
         } else {
             try {
-                return JsonParser.parseString(BuffersUtils.toString(getRawContent(),
+                return JsonParser.parseReader(BuffersUtils.toReader(
+                        getRawContent(),
                         StandardCharsets.UTF_8));
             } catch (JsonParseException ex) {
                 // dump bufferd content
@@ -63,11 +63,9 @@ public class JsonResponse extends ProxableResponse<JsonElement> {
             return JsonNull.INSTANCE;
         } else {
             try {
-                String rawContentAsString = BuffersUtils.toString(
+                return JsonParser.parseReader(BuffersUtils.toReader(
                         getRawContent(),
-                        StandardCharsets.UTF_8);
-
-                return JsonParser.parseString(rawContentAsString);
+                        StandardCharsets.UTF_8));
             } catch (JsonParseException ex) {
                 throw new IOException("Error parsing json", ex);
             }
@@ -0,0 +1,265 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.handlers.exchange;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.json.JsonParseException;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * A filter, sort_by, hint or keys query parameter of a request parsed to a
+ * BsonDocument.
+ *
+ * The parsed document is shared by all the handlers of a request and, when
+ * the query cache is enabled, by all the requests with the same query
+ * parameter values, so it is never handed out: getDocument() returns a copy
+ * of it.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class ParsedQuery {
+
+    enum TYPE {
+        FILTER, SORT_BY, HINT, KEYS
+    }
+
+    private static final BsonDocument EMPTY = new BsonDocument();
+
+    private static final BsonDocument DEFAULT_SORT_BY
+            = new BsonDocument("_id", new BsonInt32(-1));
+
+    private static volatile Cache<List<String>, ParsedQuery> CACHE = null;
+
+    /**
+     * sets the size of the cache of the parsed query parameters shared by the
+     * requests, the least recently used entries are evicted when the size is
+     * exceeded
+     *
+     * @param size the maximum number of cached entries, 0 disables the cache
+     */
+    public static void setCacheSize(long size) {
+        CACHE = size > 0
+                ? CacheFactory.createLocalCache(size,
+                        Cache.EXPIRE_POLICY.NEVER, -1)
+                : null;
+    }
+
+    private final TYPE type;
+    private final List<String> values;
+    private final BsonDocument document;
+
+    private ParsedQuery(TYPE type, List<String> values, BsonDocument document) {
+        this.type = type;
+        this.values = values;
+        this.document = document;
+    }
+
+    /**
+     * @param type
+     * @param values the query parameter values, can be null
+     * @return the parsed query parameter
+     * @throws JsonParseException if a value is not valid json
+     */
+    static ParsedQuery of(TYPE type, Deque<String> values)
+            throws JsonParseException {
+        if (values == null) {
+            return new ParsedQuery(type, null, parse(type, null));
+        }
+
+        var key = new ArrayList<String>(values.size() + 1);
+
+        key.add(type.name());
+        key.addAll(values);
+
+        var cache = CACHE;
+
+        if (cache != null) {
+            var cached = cache.get(key);
+
+            if (cached != null && cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        var ret = new ParsedQuery(type, key, parse(type, values));
+
+        if (cache != null) {
+            cache.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param type
+     * @param values
+     * @return true if this has been parsed from the given query parameter
+     * values
+     */
+    boolean isOf(TYPE type, Deque<String> values) {
+        if (this.type != type) {
+            return false;
+        }
+
+        if (values == null) {
+            return this.values == null;
+        }
+
+        if (this.values == null || this.values.size() != values.size() + 1) {
+            return false;
+        }
+
+        Iterator<String> it = this.values.listIterator(1);
+
+        for (String value : values) {
+            if (!value.equals(it.next())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Copying the parsed document is much cheaper than parsing the query
+     * parameter again, and the caller can modify it
+     *
+     * @return a copy of the parsed document, null for missing hint and keys
+     */
+    public BsonDocument getDocument() {
+        return document == null ? null : document.clone();
+    }
+
+    private static BsonDocument parse(TYPE type, Deque<String> values)
+            throws JsonParseException {
+        switch (type) {
+            case FILTER:
+                return parseFilter(values);
+            case SORT_BY:
+                return parseSortBy(values);
+            case HINT:
+                return parseHint(values);
+            default:
+                return parseKeys(values);
+        }
+    }
+
+    /**
+     * @return the $and composed filter qparam values
+     */
+    private static BsonDocument parseFilter(Deque<String> filter)
+            throws JsonParseException {
+        if (filter == null || filter.isEmpty()) {
+            return EMPTY;
+        } else if (filter.size() > 1) {
+            BsonArray _filters = new BsonArray();
+
+            filter.stream().forEach((String f) -> {
+                _filters.add(BsonDocument.parse(f));
+            });
+
+            return new BsonDocument("$and", _filters);
+        } else {
+            return BsonDocument.parse(filter.getFirst());  // this can throw JsonParseException for invalid filter parameters
+        }
+    }
+
+    private static BsonDocument parseSortBy(Deque<String> sortBy)
+            throws JsonParseException {
+        if (sortBy == null) {
+            return DEFAULT_SORT_BY;
+        }
+
+        BsonDocument sort = new BsonDocument();
+
+        sortBy.stream().forEach((s) -> {
+            String _s = s.trim(); // the + sign is decoded into a space, in case remove it
+
+            // manage the case where sort_by is a json object
+            try {
+                BsonDocument _sort = BsonDocument.parse(_s);
+
+                sort.putAll(_sort);
+            } catch (JsonParseException e) {
+                // sort_by is just a string, i.e. a property name
+                if (_s.startsWith("-")) {
+                    sort.put(_s.substring(1), new BsonInt32(-1));
+                } else if (_s.startsWith("+")) {
+                    sort.put(_s.substring(1), new BsonInt32(11));
+                } else {
+                    sort.put(_s, new BsonInt32(1));
+                }
+            }
+        });
+
+        return sort;
+    }
+
+    private static BsonDocument parseHint(Deque<String> hint)
+            throws JsonParseException {
+        if (hint == null || hint.isEmpty()) {
+            return null;
+        }
+
+        BsonDocument ret = new BsonDocument();
+
+        hint.stream().forEach((s) -> {
+            String _s = s.trim(); // the + sign is decoded into a space, in case remove it
+
+            // manage the case where hint is a json object
+            try {
+                BsonDocument _hint = BsonDocument.parse(_s);
+
+                ret.putAll(_hint);
+            } catch (JsonParseException e) {
+                // ret is just a string, i.e. an index name
+                if (_s.startsWith("-")) {
+                    ret.put(_s.substring(1), new BsonInt32(-1));
+                } else if (_s.startsWith("+")) {
+                    ret.put(_s.substring(1), new BsonInt32(11));
+                } else {
+                    ret.put(_s, new BsonInt32(1));
+                }
+            }
+        });
+
+        return ret;
+    }
+
+    private static BsonDocument parseKeys(Deque<String> keys)
+            throws JsonParseException {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+
+        final BsonDocument projection = new BsonDocument();
+
+        keys.stream().forEach((String f) -> {
+            projection.putAll(BsonDocument.parse(f));  // this can throw JsonParseException for invalid keys parameters
+        });
+
+        return projection;
+    }
+}
@@ -353,32 +353,44 @@ public class RequestContext {
     }
 
     /**
+     * each call returns a copy of the parsed filter qparam values, that the
+     * caller can modify without affecting the request
      *
      * @return the $and composed filter qparam values
+     * @throws JsonParseException
      */
     public BsonDocument getFiltersDocument() throws JsonParseException {
         return this.bsonRequest.getFiltersDocument();
     }
 
     /**
+     * each call returns a copy of the parsed sort_by qparam values, that the
+     * caller can modify without affecting the request
      *
-     * @return @throws JsonParseException
+     * @return the sort document, {_id: -1} if no sort_by qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getSortByDocument() throws JsonParseException {
         return this.bsonRequest.getSortByDocument();
     }
 
     /**
+     * each call returns a copy of the parsed hint qparam values, that the
+     * caller can modify without affecting the request
      *
-     * @return @throws JsonParseException
+     * @return the hint document or null if no hint qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getHintDocument() throws JsonParseException {
         return this.bsonRequest.getHintDocument();
     }
 
     /**
+     * each call returns a copy of the parsed keys qparam values, that the
+     * caller can modify without affecting the request
      *
-     * @return @throws JsonParseException
+     * @return the projection document or null if no keys qparam is specified
+     * @throws JsonParseException
      */
     public BsonDocument getProjectionDocument() throws JsonParseException {
         return this.bsonRequest.getProjectionDocument();
@@ -96,18 +96,39 @@ public interface PluginsRegistry {
      * @return the globalCheckers
      */
     public Set<PluginRecord<Checker>> getCheckers();
+
+    /**
+     *
+     * @param name the name of the checker
+     * @return the checker with the given name or null if not registered
+     */
+    public PluginRecord<Checker> getChecker(String name);
     
     /**
      *
      * @return the transformers
      */
     public Set<PluginRecord<Transformer>> getTransformers();
+
+    /**
+     *
+     * @param name the name of the transformer
+     * @return the transformer with the given name or null if not registered
+     */
+    public PluginRecord<Transformer> getTransformer(String name);
     
     /**
      *
      * @return the hooks
      */
     public Set<PluginRecord<Hook>> getHooks();
+
+    /**
+     *
+     * @param name the name of the hook
+     * @return the hook with the given name or null if not registered
+     */
+    public PluginRecord<Hook> getHook(String name);
     
     /**
      *
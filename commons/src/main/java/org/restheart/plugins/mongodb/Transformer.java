@@ -18,6 +18,7 @@
 package org.restheart.plugins.mongodb;
 
 import io.undertow.server.HttpServerExchange;
+import java.util.Set;
 import org.bson.BsonValue;
 import org.restheart.handlers.exchange.RequestContext;
 import org.restheart.plugins.Plugin;
@@ -100,4 +101,19 @@ public interface Transformer extends Plugin {
             BsonValue confArgs) {
         transform(exchange, context, contentToTransform, args);
     }
+
+    /**
+     * Transformers that just remove top level properties from the content can
+     * declare them, so that in the RESPONSE phase they can be excluded by the
+     * query projection and not fetched from the db at all. The transformer
+     * still applies to the response.
+     *
+     * @param args the args sepcified in the collection metadata via args
+     * property
+     * @return the names of the removed properties or null if the transformer
+     * does not just remove properties (the default)
+     */
+    default Set<String> removedProperties(final BsonValue args) {
+        return null;
+    }
 }
@@ -19,7 +19,11 @@ package org.restheart.utils;
 
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ImmediatePooledByteBuffer;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import static org.restheart.handlers.exchange.AbstractExchange.MAX_CONTENT_SIZE;
@@ -38,8 +42,8 @@ public class BuffersUtils {
 
     /**
      * @param srcs
-     * @return
-     * @throws IOException
+     * @return a ByteBuffer of the exact size of the content of srcs
+     * @throws IOException if the content exceeds MAX_CONTENT_SIZE
      */
     public static ByteBuffer toByteBuffer(final PooledByteBuffer[] srcs)
             throws IOException {
@@ -47,41 +51,69 @@ public class BuffersUtils {
             return null;
         }
 
-        ByteBuffer dst = ByteBuffer.allocate(MAX_CONTENT_SIZE);
+        return ByteBuffer.wrap(toByteArray(srcs));
+    }
 
-        for (int i = 0; i < srcs.length; i++) {
-            PooledByteBuffer src = srcs[i];
-            if (src != null) {
-                final ByteBuffer srcBuffer = src.getBuffer();
+    /**
+     * @param srcs
+     * @return a byte array of the exact size of the content of srcs
+     * @throws IOException if the content exceeds MAX_CONTENT_SIZE
+     */
+    public static byte[] toByteArray(final PooledByteBuffer[] srcs)
+            throws IOException {
+        int size = size(srcs);
 
-                if (srcBuffer.remaining() > dst.remaining()) {
-                    LOGGER.error("Request content exceeeded {} bytes limit",
-                            MAX_CONTENT_SIZE);
-                    throw new IOException("Request content exceeeded "
-                            + MAX_CONTENT_SIZE + " bytes limit");
-                }
+        if (size > MAX_CONTENT_SIZE) {
+            LOGGER.error("Request content exceeeded {} bytes limit",
+                    MAX_CONTENT_SIZE);
+            throw new IOException("Request content exceeeded "
+                    + MAX_CONTENT_SIZE + " bytes limit");
+        }
 
-                if (srcBuffer.hasRemaining()) {
-                    Buffers.copy(dst, srcBuffer);
+        byte[] ret = new byte[size];
+        int off = 0;
 
-                    // very important, I lost a day for this!
-                    srcBuffer.flip();
-                }
+        for (PooledByteBuffer src : srcs) {
+            if (src != null) {
+                // duplicate() leaves the position of src unchanged
+                var _src = src.getBuffer().duplicate();
+                int n = _src.remaining();
+
+                _src.get(ret, off, n);
+                off += n;
             }
         }
 
-        return dst.flip();
+        return ret;
     }
 
-    public static byte[] toByteArray(final PooledByteBuffer[] srcs)
-            throws IOException {
-        ByteBuffer content = toByteBuffer(srcs);
+    /**
+     * @param srcs
+     * @return the number of bytes of the content of srcs
+     */
+    public static int size(final PooledByteBuffer[] srcs) {
+        int size = 0;
 
-        byte[] ret = new byte[content.limit()];
+        if (srcs != null) {
+            for (PooledByteBuffer src : srcs) {
+                if (src != null) {
+                    size += src.getBuffer().remaining();
+                }
+            }
+        }
 
-        content.get(ret);
+        return size;
+    }
 
-        return ret;
+    /**
+     * Returns an InputStream that reads the content of srcs without copying
+     * it. The position of the buffers is not modified.
+     *
+     * @param srcs
+     * @return an InputStream over the content of srcs
+     */
+    public static InputStream toInputStream(final PooledByteBuffer[] srcs) {
+        return new PooledByteBuffersInputStream(srcs);
     }
 
     public static String toString(final PooledByteBuffer[] srcs, Charset cs)
@@ -89,6 +121,15 @@ public class BuffersUtils {
         return new String(toByteArray(srcs), cs);
     }
 
+    /**
+     * @param srcs
+     * @param cs
+     * @return a Reader that decodes the content of srcs without copying it
+     */
+    public static Reader toReader(final PooledByteBuffer[] srcs, Charset cs) {
+        return new InputStreamReader(toInputStream(srcs), cs);
+    }
+
     public static String toString(final byte[] src, Charset cs)
             throws IOException {
         return new String(src, cs);
@@ -112,7 +153,7 @@ public class BuffersUtils {
         while (src.hasRemaining() && pidx < dest.length) {
             ByteBuffer _dest;
 
-            if (dest[pidx] == null) {
+            if (dest[pidx] == null || isReadOnly(dest[pidx])) {
                 dest[pidx] = exchange.getConnection()
                         .getByteBufferPool().allocate();
                 _dest = dest[pidx].getBuffer();
@@ -157,7 +198,11 @@ public class BuffersUtils {
     }
 
     /**
-     * append the src data to the pooled buffers
+     * append the src data to the pooled buffers.
+     *
+     * If src is a read-only buffer, its content is not expected to change and
+     * it is appended without copying it; otherwise the data is copied into
+     * buffers allocated from the exchange's pool.
      *
      * @param src
      * @param dest
@@ -167,10 +212,28 @@ public class BuffersUtils {
     public static int append(final ByteBuffer src,
             final PooledByteBuffer[] dest,
             HttpServerExchange exchange) {
-        int copied = 0;
-        int pidx = 0;
+        int free = firstFree(dest);
 
         src.rewind();
+
+        if (src.isReadOnly()) {
+            if (!src.hasRemaining() || free >= dest.length) {
+                return 0;
+            }
+
+            int appended = src.remaining();
+
+            dest[free] = new ImmediatePooledByteBuffer(src.slice());
+            src.position(src.limit());
+
+            return appended;
+        }
+
+        int copied = 0;
+
+        // buffers are filled in order, start from the last one in use
+        int pidx = free > 0 ? free - 1 : 0;
+
         while (src.hasRemaining() && pidx < dest.length) {
             ByteBuffer _dest;
 
@@ -178,9 +241,13 @@ public class BuffersUtils {
                 dest[pidx] = exchange.getConnection()
                         .getByteBufferPool().allocate();
                 _dest = dest[pidx].getBuffer();
+            } else if (isReadOnly(dest[pidx])) {
+                pidx++;
+                continue;
             } else {
                 _dest = dest[pidx].getBuffer();
                 _dest.position(_dest.limit());
+                _dest.limit(_dest.capacity());
             }
 
             copied += Buffers.copy(_dest, src);
@@ -191,13 +258,33 @@ public class BuffersUtils {
             pidx++;
         }
 
-        // clean up remaining destination buffers
-        while (pidx < dest.length) {
-            dest[pidx] = null;
-            pidx++;
+        return copied;
+    }
+
+    /**
+     * @param dest
+     * @return the index of the first null element of dest, whose elements are
+     * filled in order
+     */
+    private static int firstFree(final PooledByteBuffer[] dest) {
+        int low = 0;
+        int high = dest.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (dest[mid] == null) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
         }
 
-        return copied;
+        return low;
+    }
+
+    private static boolean isReadOnly(PooledByteBuffer buffer) {
+        return buffer.getBuffer().isReadOnly();
     }
 
     public static int transfer(final PooledByteBuffer[] src,
@@ -208,7 +295,7 @@ public class BuffersUtils {
 
         while (idx < src.length && idx < dest.length) {
             if (src[idx] != null) {
-                if (dest[idx] == null) {
+                if (dest[idx] == null || isReadOnly(dest[idx])) {
                     dest[idx] = exchange.getConnection()
                             .getByteBufferPool().allocate();
                 }
@@ -234,4 +321,71 @@ public class BuffersUtils {
 
         return copied;
     }
+
+    private static class PooledByteBuffersInputStream extends InputStream {
+        private final PooledByteBuffer[] srcs;
+        private int idx = 0;
+        private ByteBuffer current = null;
+
+        PooledByteBuffersInputStream(PooledByteBuffer[] srcs) {
+            this.srcs = srcs == null ? new PooledByteBuffer[0] : srcs;
+        }
+
+        /**
+         * @return the next buffer with remaining data or null if the stream is
+         * exhausted
+         */
+        private ByteBuffer current() {
+            while (current == null || !current.hasRemaining()) {
+                if (idx >= srcs.length) {
+                    return null;
+                }
+
+                var next = srcs[idx++];
+
+                current = next == null ? null : next.getBuffer().duplicate();
+            }
+
+            return current;
+        }
+
+        @Override
+        public int read() {
+            var buf = current();
+
+            return buf == null ? -1 : buf.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            var buf = current();
+
+            if (buf == null) {
+                return -1;
+            }
+
+            int n = Math.min(len, buf.remaining());
+
+            buf.get(b, off, n);
+
+            return n;
+        }
+
+        @Override
+        public int available() {
+            int available = current == null ? 0 : current.remaining();
+
+            for (int i = idx; i < srcs.length; i++) {
+                if (srcs[i] != null) {
+                    available += srcs[i].getBuffer().remaining();
+                }
+            }
+
+            return available;
+        }
+    }
 }
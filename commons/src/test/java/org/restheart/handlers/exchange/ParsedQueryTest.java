@@ -0,0 +1,131 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.handlers.exchange;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.json.JsonParseException;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.restheart.handlers.exchange.ParsedQuery.TYPE.*;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ParsedQueryTest {
+
+    @After
+    public void disableCache() {
+        ParsedQuery.setCacheSize(0);
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(new BsonDocument(),
+                ParsedQuery.of(FILTER, null).getDocument());
+
+        assertEquals(BsonDocument.parse("{'$and':[{'a':1},{'b':2}]}"),
+                ParsedQuery.of(FILTER, deque("{'a':1}", "{'b':2}"))
+                        .getDocument());
+
+        assertEquals(BsonDocument.parse("{'_id':-1}"),
+                ParsedQuery.of(SORT_BY, null).getDocument());
+
+        assertEquals(BsonDocument.parse("{'a':-1,'b':1,'c':1}"),
+                ParsedQuery.of(SORT_BY, deque("-a", "b", "{'c':1}"))
+                        .getDocument());
+
+        assertNull(ParsedQuery.of(HINT, null).getDocument());
+        assertNull(ParsedQuery.of(KEYS, deque()).getDocument());
+
+        assertEquals(BsonDocument.parse("{'a':1,'b':0}"),
+                ParsedQuery.of(KEYS, deque("{'a':1}", "{'b':0}"))
+                        .getDocument());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testInvalidFilter() {
+        ParsedQuery.of(FILTER, deque("{'a':"));
+    }
+
+    @Test
+    public void testCopies() {
+        ParsedQuery.setCacheSize(10);
+
+        var parsed = ParsedQuery.of(FILTER, deque("{'a':{'$in':[1,2]}}"));
+
+        // the caller can modify the document without affecting the others
+        parsed.getDocument().put("b", new BsonInt32(1));
+        parsed.getDocument().getDocument("a").getArray("$in")
+                .add(new BsonInt32(3));
+
+        assertEquals(BsonDocument.parse("{'a':{'$in':[1,2]}}"),
+                parsed.getDocument());
+        assertEquals(BsonDocument.parse("{'a':{'$in':[1,2]}}"), ParsedQuery
+                .of(FILTER, deque("{'a':{'$in':[1,2]}}")).getDocument());
+
+        var sortBy = ParsedQuery.of(SORT_BY, null).getDocument();
+        sortBy.put("b", new BsonInt32(1));
+
+        assertEquals(BsonDocument.parse("{'_id':-1}"),
+                ParsedQuery.of(SORT_BY, null).getDocument());
+    }
+
+    @Test
+    public void testIsOf() {
+        var filter = deque("{'a':1}");
+
+        var parsed = ParsedQuery.of(FILTER, filter);
+
+        assertTrue(parsed.isOf(FILTER, filter));
+        assertTrue(parsed.isOf(FILTER, deque("{'a':1}")));
+        assertFalse(parsed.isOf(KEYS, filter));
+        assertFalse(parsed.isOf(FILTER, null));
+
+        // the values of the query parameter can change after parsing
+        filter.add("{'b':1}");
+
+        assertFalse(parsed.isOf(FILTER, filter));
+
+        assertTrue(ParsedQuery.of(SORT_BY, null).isOf(SORT_BY, null));
+        assertFalse(ParsedQuery.of(SORT_BY, null).isOf(SORT_BY, deque()));
+    }
+
+    @Test
+    public void testCache() {
+        assertNotSame(ParsedQuery.of(FILTER, deque("{'a':1}")),
+                ParsedQuery.of(FILTER, deque("{'a':1}")));
+
+        ParsedQuery.setCacheSize(10);
+
+        var parsed = ParsedQuery.of(FILTER, deque("{'a':1}"));
+
+        assertSame(parsed, ParsedQuery.of(FILTER, deque("{'a':1}")));
+        assertNotSame(parsed, ParsedQuery.of(KEYS, deque("{'a':1}")));
+        assertNotSame(parsed, ParsedQuery.of(FILTER, deque("{'a':1}", "{}")));
+    }
+
+    private static Deque<String> deque(String... values) {
+        return new ArrayDeque<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.utils;
+
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.util.ImmediatePooledByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class BuffersUtilsTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuffersUtilsTest.class);
+
+    @Rule
+    public TestRule watcher = new TestWatcher() {
+        @Override
+        protected void starting(Description description) {
+            LOG.info("executing test {}", description.toString());
+        }
+    };
+
+    public BuffersUtilsTest() {
+    }
+
+    @Test
+    public void testAppendReadOnlyDoesNotCopy() throws Exception {
+        var first = "{\"a\":".getBytes(StandardCharsets.UTF_8);
+        var second = "1}".getBytes(StandardCharsets.UTF_8);
+
+        var dest = new PooledByteBuffer[4];
+
+        assertEquals(first.length, BuffersUtils.append(
+                ByteBuffer.wrap(first).asReadOnlyBuffer(), dest, null));
+
+        assertEquals(second.length, BuffersUtils.append(
+                ByteBuffer.wrap(second).asReadOnlyBuffer(), dest, null));
+
+        assertNotNull(dest[0]);
+        assertNotNull(dest[1]);
+        assertNull(dest[2]);
+
+        assertEquals("{\"a\":1}",
+                BuffersUtils.toString(dest, StandardCharsets.UTF_8));
+
+        // the buffered content shares the appended data
+        second[0] = '2';
+
+        assertEquals("{\"a\":2}",
+                BuffersUtils.toString(dest, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAppendReadOnlyNoFreeBuffers() throws Exception {
+        var dest = new PooledByteBuffer[1];
+
+        var src = ByteBuffer.wrap("a".getBytes(StandardCharsets.UTF_8))
+                .asReadOnlyBuffer();
+
+        assertEquals(1, BuffersUtils.append(src, dest, null));
+        assertEquals(0, BuffersUtils.append(src, dest, null));
+    }
+
+    @Test
+    public void testToByteArray() throws Exception {
+        var dest = buffers("{\"a\":", "\"caf\u00e8\"}");
+
+        var content = BuffersUtils.toByteArray(dest);
+
+        assertEquals("{\"a\":\"caf\u00e8\"}",
+                new String(content, StandardCharsets.UTF_8));
+
+        assertEquals(content.length, BuffersUtils.size(dest));
+        assertEquals(content.length, BuffersUtils.toByteBuffer(dest).capacity());
+
+        // the buffers can be read again
+        assertEquals(0, dest[0].getBuffer().position());
+        assertArrayEquals(content, BuffersUtils.toByteArray(dest));
+    }
+
+    @Test
+    public void testToInputStream() throws Exception {
+        var dest = buffers("ab", "", "cd");
+
+        var is = BuffersUtils.toInputStream(dest);
+
+        assertEquals(4, is.available());
+        assertEquals('a', is.read());
+
+        var b = new byte[8];
+
+        assertEquals(1, is.read(b, 0, 8));
+        assertEquals('b', b[0]);
+        assertEquals(2, is.read(b, 0, 8));
+        assertEquals('c', b[0]);
+        assertEquals('d', b[1]);
+        assertEquals(-1, is.read());
+
+        // the buffers are not consumed
+        assertEquals("abcd", BuffersUtils.toString(dest,
+                StandardCharsets.UTF_8));
+    }
+
+    private static PooledByteBuffer[] buffers(String... contents) {
+        var ret = new PooledByteBuffer[contents.length + 1];
+
+        for (int i = 0; i < contents.length; i++) {
+            ret[i] = new ImmediatePooledByteBuffer(ByteBuffer
+                    .wrap(contents[i].getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return ret;
+    }
+}
@@ -33,6 +33,7 @@ import static io.undertow.Handlers.resource;
 import io.undertow.Undertow;
 import io.undertow.Undertow.Builder;
 import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.AllowedMethodsHandler;
 import io.undertow.server.handlers.BlockingHandler;
 import io.undertow.server.handlers.GracefulShutdownHandler;
@@ -75,6 +76,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
@@ -100,6 +102,7 @@ import org.restheart.handlers.RequestLogger;
 import org.restheart.handlers.RequestNotManagedHandler;
 import org.restheart.handlers.ResponseSender;
 import org.restheart.handlers.TracingInstrumentationHandler;
+import org.restheart.handlers.WorkerExecutorHandler;
 import org.restheart.handlers.exchange.AbstractExchange;
 import static org.restheart.handlers.exchange.AbstractExchange.MAX_CONTENT_SIZE;
 import org.restheart.handlers.exchange.AbstractExchange.METHOD;
@@ -114,12 +117,14 @@ import org.restheart.handlers.injectors.XPoweredByInjector;
 import static org.restheart.plugins.InterceptPoint.REQUEST_AFTER_AUTH;
 import static org.restheart.plugins.InterceptPoint.REQUEST_BEFORE_AUTH;
 import org.restheart.plugins.PluginRecord;
+import org.restheart.plugins.PluginsFactory;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.plugins.security.AuthMechanism;
 import org.restheart.plugins.security.Authorizer;
 import org.restheart.plugins.security.TokenManager;
 import org.restheart.security.handlers.SecurityHandler;
 import org.restheart.security.plugins.authorizers.FullAuthorizer;
+import org.restheart.utils.ExecutorServiceSingleton;
 import org.restheart.utils.FileUtils;
 import org.restheart.utils.LoggingInitializer;
 import org.restheart.utils.OSChecker;
@@ -509,7 +514,11 @@ public class Bootstrapper {
             logErrorAndExit(ex.getMessage() + EXITING, ex, false, -1);
         }
 
+        var startupStart = System.currentTimeMillis();
+
         // run pre startup initializers
+        var phaseStart = System.currentTimeMillis();
+
         PluginsRegistryImpl.getInstance()
                 .getPreStartupInitializers()
                 .stream()
@@ -521,6 +530,11 @@ public class Bootstrapper {
                     }
                 });
 
+        LOGGER.debug("Pre startup initializers executed in {} msecs",
+                System.currentTimeMillis() - phaseStart);
+
+        phaseStart = System.currentTimeMillis();
+
         try {
             startCoreSystem();
         } catch (Throwable t) {
@@ -530,6 +544,9 @@ public class Bootstrapper {
                     !pidFileAlreadyExists, -2);
         }
 
+        LOGGER.debug("Core system started in {} msecs",
+                System.currentTimeMillis() - phaseStart);
+
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
@@ -548,6 +565,8 @@ public class Bootstrapper {
         }
 
         // run initializers
+        phaseStart = System.currentTimeMillis();
+
         PluginsRegistryImpl.getInstance()
                 .getInitializers()
                 .stream()
@@ -559,7 +578,18 @@ public class Bootstrapper {
                     }
                 });
 
-        LOGGER.info(ansi().fg(GREEN).bold().a("RESTHeart started").reset().toString());
+        LOGGER.debug("Initializers executed in {} msecs",
+                System.currentTimeMillis() - phaseStart);
+
+        // create the plugins not yet instantiated
+        // and release the classpath scan result
+        PluginsRegistryImpl.getInstance().getCheckers();
+        PluginsRegistryImpl.getInstance().getTransformers();
+        PluginsRegistryImpl.getInstance().getHooks();
+        PluginsFactory.releaseScanResult();
+
+        LOGGER.info(ansi().fg(GREEN).bold().a("RESTHeart started").reset().toString()
+                + " in {} msecs", System.currentTimeMillis() - startupStart);
     }
 
     private static String getInstanceName() {
@@ -895,25 +925,62 @@ public class Bootstrapper {
     /**
      * buildGracefulShutdownHandler
      *
+     * The requests-limit is not applied when the blocking tasks are executed
+     * by virtual threads: it would cap the concurrent exchanges as the pool of
+     * worker threads does, defeating the purpose of the virtual threads.
+     *
      * @param paths
      * @return
      */
     private static GracefulShutdownHandler buildGracefulShutdownHandler(
             PathHandler paths) {
-        return new GracefulShutdownHandler(
-                new RequestLimitingHandler(
-                        new RequestLimit(configuration.getRequestsLimit()),
-                        new AllowedMethodsHandler(
-                                new BlockingHandler(
-                                        new ErrorHandler(
-                                                new HttpContinueAcceptingHandler(paths))),
-                                // allowed methods
-                                HttpString.tryFromString(METHOD.GET.name()),
-                                HttpString.tryFromString(METHOD.POST.name()),
-                                HttpString.tryFromString(METHOD.PUT.name()),
-                                HttpString.tryFromString(METHOD.DELETE.name()),
-                                HttpString.tryFromString(METHOD.PATCH.name()),
-                                HttpString.tryFromString(METHOD.OPTIONS.name()))));
+        var executor = workerExecutor();
+
+        HttpHandler handler = new WorkerExecutorHandler(executor,
+                new AllowedMethodsHandler(
+                        new BlockingHandler(
+                                new ErrorHandler(
+                                        new HttpContinueAcceptingHandler(paths))),
+                        // allowed methods
+                        HttpString.tryFromString(METHOD.GET.name()),
+                        HttpString.tryFromString(METHOD.POST.name()),
+                        HttpString.tryFromString(METHOD.PUT.name()),
+                        HttpString.tryFromString(METHOD.DELETE.name()),
+                        HttpString.tryFromString(METHOD.PATCH.name()),
+                        HttpString.tryFromString(METHOD.OPTIONS.name())));
+
+        if (executor == null) {
+            handler = new RequestLimitingHandler(
+                    new RequestLimit(configuration.getRequestsLimit()),
+                    handler);
+        } else {
+            LOGGER.info("requests-limit not applied with virtual threads");
+        }
+
+        return new GracefulShutdownHandler(handler);
+    }
+
+    /**
+     * @return the virtual-thread-per-task executor if worker-virtual-threads
+     * is true and the JVM supports virtual threads, null to use the worker
+     * threads
+     */
+    private static Executor workerExecutor() {
+        if (!configuration.isWorkerVirtualThreads()) {
+            return null;
+        }
+
+        var executorService = ExecutorServiceSingleton.getInstance();
+
+        if (executorService.isVirtualThreads()) {
+            LOGGER.info("Blocking tasks executed by virtual threads");
+            return executorService.getExecutorService();
+        } else {
+            LOGGER.warn("worker-virtual-threads is true but this JVM "
+                    + "does not support virtual threads, using {} worker threads",
+                    configuration.getWorkerThreads());
+            return null;
+        }
     }
 
     /**
@@ -83,6 +83,7 @@ import static org.restheart.ConfigurationKeys.STATIC_RESOURCES_MOUNTS_KEY;
 import static org.restheart.ConfigurationKeys.TOKEN_MANAGER_KEY;
 import static org.restheart.ConfigurationKeys.USE_EMBEDDED_KEYSTORE_KEY;
 import static org.restheart.ConfigurationKeys.WORKER_THREADS_KEY;
+import static org.restheart.ConfigurationKeys.WORKER_VIRTUAL_THREADS_KEY;
 import org.restheart.utils.URLUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -139,6 +140,7 @@ public class Configuration {
     private final int requestsLimit;
     private final int ioThreads;
     private final int workerThreads;
+    private final boolean workerVirtualThreads;
     private final int bufferSize;
     private final boolean directBuffers;
     private final boolean forceGzipEncoding;
@@ -208,6 +210,7 @@ public class Configuration {
         defaultConf.put(REQUESTS_LIMIT_KEY, 100);
         defaultConf.put(IO_THREADS_KEY, 2);
         defaultConf.put(WORKER_THREADS_KEY, 32);
+        defaultConf.put(WORKER_VIRTUAL_THREADS_KEY, false);
         defaultConf.put(BUFFER_SIZE_KEY, 16384);
         defaultConf.put(DIRECT_BUFFERS_KEY, true);
         defaultConf.put(FORCE_GZIP_ENCODING_KEY, false);
@@ -367,6 +370,7 @@ public class Configuration {
         requestsLimit = getAsInteger(conf, REQUESTS_LIMIT_KEY, 100);
         ioThreads = getAsInteger(conf, IO_THREADS_KEY, 2);
         workerThreads = getAsInteger(conf, WORKER_THREADS_KEY, 32);
+        workerVirtualThreads = getAsBoolean(conf, WORKER_VIRTUAL_THREADS_KEY, false);
         bufferSize = getAsInteger(conf, BUFFER_SIZE_KEY, 16384);
         directBuffers = getAsBoolean(conf, DIRECT_BUFFERS_KEY, true);
         forceGzipEncoding = getAsBoolean(conf, FORCE_GZIP_ENCODING_KEY, false);
@@ -453,6 +457,7 @@ public class Configuration {
                 + ", requestsLimit=" + requestsLimit
                 + ", ioThreads=" + ioThreads
                 + ", workerThreads=" + workerThreads
+                + ", workerVirtualThreads=" + workerVirtualThreads
                 + ", bufferSize=" + bufferSize
                 + ", directBuffers=" + directBuffers
                 + ", forceGzipEncoding=" + forceGzipEncoding
@@ -652,6 +657,14 @@ public class Configuration {
         return workerThreads;
     }
 
+    /**
+     * @return true if the blocking handlers should be executed by virtual
+     * threads
+     */
+    public boolean isWorkerVirtualThreads() {
+        return workerVirtualThreads;
+    }
+
     /**
      * @return the bufferSize
      */
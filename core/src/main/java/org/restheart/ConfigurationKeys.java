@@ -141,6 +141,11 @@ public interface ConfigurationKeys {
      */
     public static final String WORKER_THREADS_KEY = "worker-threads";
 
+    /**
+     * the key for the worker-virtual-threads property.
+     */
+    public static final String WORKER_VIRTUAL_THREADS_KEY = "worker-virtual-threads";
+
     /**
      * the key for the io-threads property.
      */
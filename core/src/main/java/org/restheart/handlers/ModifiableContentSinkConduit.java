@@ -33,7 +33,6 @@ import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.BuffersUtils;
 import org.restheart.utils.HttpStatus;
-import static org.restheart.utils.PluginUtils.interceptPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.IoUtils;
@@ -47,6 +46,9 @@ import org.xnio.conduits.StreamSinkConduit;
  * a conduit that buffers data allowing to modify it it also responsible of
  * executing response interceptors when terminateWrites() is called
  *
+ * Data written with read-only buffers is buffered without copying it, see
+ * BuffersUtils.append()
+ *
  * @author Andrea Di Cesare <andrea@softinstigate.com>
  */
 public class ModifiableContentSinkConduit
@@ -54,6 +56,12 @@ public class ModifiableContentSinkConduit
 
     static final Logger LOGGER = LoggerFactory.getLogger(ModifiableContentSinkConduit.class);
 
+    /**
+     * ServerFixedLengthStreamSinkConduit.reset(long, HttpServerExchange) is
+     * used to update the content length after response interceptors execution
+     */
+    private static final Method RESET_FIXED_LENGTH = resetFixedLengthMethod();
+
     //private ByteBuffer data = null;
     private final HttpServerExchange exchange;
 
@@ -148,88 +156,92 @@ public class ModifiableContentSinkConduit
     private void executeResponseInterceptor(HttpServerExchange exchange) {
         var resp = ByteArrayResponse.wrap(exchange);
 
-        PluginsRegistryImpl.getInstance()
-                .getInterceptors()
-                .stream()
-                .filter(ri -> ri.isEnabled())
-                .map(ri -> ri.getInstance())
-                .filter(ri -> ri.resolve(exchange))
-                .filter(ri -> interceptPoint(ri) == InterceptPoint.RESPONSE)
-                .forEachOrdered(ri -> {
-                    LOGGER.debug("Executing response interceptor {} for {}",
-                            ri.getClass().getSimpleName(),
-                            exchange.getRequestPath());
-
-                    try {
-                        ri.handle(exchange);
-                    }
-                    catch (Exception ex) {
-                        LOGGER.error("Error executing response interceptor {} for {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath(),
-                                ex);
-                        AbstractExchange.setInError(exchange);
-                        // set error message
-                        ByteArrayResponse response = ByteArrayResponse
-                                .wrap(exchange);
-
-                        // dump bufferd content
-                        BuffersUtils.dump("content buffer "
-                                + exchange.getRequestPath(),
-                                resp.getRawContent());
-
-                        response.endExchangeWithMessage(
-                                HttpStatus.SC_INTERNAL_SERVER_ERROR,
-                                "Error executing response interceptor "
-                                + ri.getClass().getSimpleName(),
-                                ex);
-                    }
-                });
+        var interceptors = PluginsRegistryImpl.getInstance()
+                .getInterceptors(InterceptPoint.RESPONSE);
+
+        for (var entry : interceptors) {
+            var ri = entry.getInterceptor();
+
+            if (!ri.resolve(exchange)) {
+                continue;
+            }
+
+            LOGGER.debug("Executing response interceptor {} for {}",
+                    ri.getClass().getSimpleName(),
+                    exchange.getRequestPath());
+
+            try {
+                ri.handle(exchange);
+            }
+            catch (Exception ex) {
+                LOGGER.error("Error executing response interceptor {} for {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath(),
+                        ex);
+                AbstractExchange.setInError(exchange);
+                // set error message
+                ByteArrayResponse response = ByteArrayResponse
+                        .wrap(exchange);
+
+                // dump bufferd content
+                BuffersUtils.dump("content buffer "
+                        + exchange.getRequestPath(),
+                        resp.getRawContent());
+
+                response.endExchangeWithMessage(
+                        HttpStatus.SC_INTERNAL_SERVER_ERROR,
+                        "Error executing response interceptor "
+                        + ri.getClass().getSimpleName(),
+                        ex);
+            }
+        }
     }
 
     private void executeResponseAsyncInterceptor(HttpServerExchange exchange) {
         var resp = ByteArrayResponse.wrap(exchange);
 
-        PluginsRegistryImpl.getInstance()
-                .getInterceptors()
-                .stream()
-                .filter(ri -> ri.isEnabled())
-                .map(ri -> ri.getInstance())
-                .filter(ri -> ri.resolve(exchange))
-                .filter(ri -> interceptPoint(ri) == InterceptPoint.RESPONSE_ASYNC)
-                .forEachOrdered(ri -> {
-                    exchange.getConnection().getWorker().execute(() -> {
-
-                        LOGGER.debug("Executing response interceptor {} for {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath());
-
-                        try {
-                            ri.handle(exchange);
-                        }
-                        catch (Exception ex) {
-                            LOGGER.error("Error executing response interceptor {} for {}",
-                                    ri.getClass().getSimpleName(),
-                                    exchange.getRequestPath(),
-                                    ex);
-                            AbstractExchange.setInError(exchange);
-                            // set error message
-                            ByteArrayResponse response = ByteArrayResponse
-                                    .wrap(exchange);
-
-                            // dump bufferd content
-                            BuffersUtils.dump("content buffer "
-                                    + exchange.getRequestPath(),
-                                    resp.getRawContent());
-
-                            response.endExchangeWithMessage(
-                                    HttpStatus.SC_INTERNAL_SERVER_ERROR,
-                                    "Error executing response interceptor "
-                                    + ri.getClass().getSimpleName(),
-                                    ex);
-                        }
-                    });
-                });
+        var interceptors = PluginsRegistryImpl.getInstance()
+                .getInterceptors(InterceptPoint.RESPONSE_ASYNC);
+
+        for (var entry : interceptors) {
+            var ri = entry.getInterceptor();
+
+            if (!ri.resolve(exchange)) {
+                continue;
+            }
+
+            WorkerExecutorHandler.executor(exchange).execute(() -> {
+
+                LOGGER.debug("Executing response interceptor {} for {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath());
+
+                try {
+                    ri.handle(exchange);
+                }
+                catch (Exception ex) {
+                    LOGGER.error("Error executing response interceptor {} for {}",
+                            ri.getClass().getSimpleName(),
+                            exchange.getRequestPath(),
+                            ex);
+                    AbstractExchange.setInError(exchange);
+                    // set error message
+                    ByteArrayResponse response = ByteArrayResponse
+                            .wrap(exchange);
+
+                    // dump bufferd content
+                    BuffersUtils.dump("content buffer "
+                            + exchange.getRequestPath(),
+                            resp.getRawContent());
+
+                    response.endExchangeWithMessage(
+                            HttpStatus.SC_INTERNAL_SERVER_ERROR,
+                            "Error executing response interceptor "
+                            + ri.getClass().getSimpleName(),
+                            ex);
+                }
+            });
+        }
     }
 
     private void updateContentLenght(HttpServerExchange exchange, PooledByteBuffer[] dests) {
@@ -245,29 +257,34 @@ public class ModifiableContentSinkConduit
 
         // need also to update lenght of ServerFixedLengthStreamSinkConduit
         if (next instanceof ServerFixedLengthStreamSinkConduit) {
-            Method m;
-
-            try {
-                m = ServerFixedLengthStreamSinkConduit.class.getDeclaredMethod(
-                        "reset",
-                        long.class,
-                        HttpServerExchange.class);
-                m.setAccessible(true);
-            }
-            catch (NoSuchMethodException | SecurityException ex) {
-                LOGGER.error("could not find ServerFixedLengthStreamSinkConduit.reset method", ex);
-                throw new RuntimeException("could not find ServerFixedLengthStreamSinkConduit.reset method", ex);
+            if (RESET_FIXED_LENGTH == null) {
+                throw new RuntimeException("could not find ServerFixedLengthStreamSinkConduit.reset method");
             }
 
             try {
-                m.invoke(next, length, exchange);
+                RESET_FIXED_LENGTH.invoke(next, length, exchange);
             }
             catch (Throwable ex) {
-                LOGGER.error("could not access BUFFERED_REQUEST_DATA field", ex);
-                throw new RuntimeException("could not access BUFFERED_REQUEST_DATA field", ex);
+                LOGGER.error("could not invoke ServerFixedLengthStreamSinkConduit.reset method", ex);
+                throw new RuntimeException("could not invoke ServerFixedLengthStreamSinkConduit.reset method", ex);
             }
         } else {
             LOGGER.warn("updateContentLenght() next is {}", next.getClass().getSimpleName());
         }
     }
+
+    private static Method resetFixedLengthMethod() {
+        try {
+            var m = ServerFixedLengthStreamSinkConduit.class.getDeclaredMethod(
+                    "reset",
+                    long.class,
+                    HttpServerExchange.class);
+            m.setAccessible(true);
+            return m;
+        }
+        catch (NoSuchMethodException | SecurityException ex) {
+            LOGGER.error("could not find ServerFixedLengthStreamSinkConduit.reset method", ex);
+            return null;
+        }
+    }
 }
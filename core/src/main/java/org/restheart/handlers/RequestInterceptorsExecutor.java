@@ -23,8 +23,6 @@ import org.restheart.handlers.exchange.ByteArrayResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.PluginsRegistryImpl;
 import org.restheart.utils.HttpStatus;
-import org.restheart.utils.LambdaUtils;
-import static org.restheart.utils.PluginUtils.interceptPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,33 +65,35 @@ public class RequestInterceptorsExecutor extends PipelinedHandler {
      */
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        PluginsRegistryImpl
+        var interceptors = PluginsRegistryImpl
                 .getInstance()
-                .getInterceptors()
-                .stream()
-                .filter(ri -> ri.isEnabled())
-                .map(ri -> ri.getInstance())
-                .filter(ri -> ri.resolve(exchange))
-                .filter(ri -> interceptPoint == interceptPoint(ri))
-                .forEachOrdered(ri -> {
-                    try {
-                        LOGGER.debug("Executing request interceptor {} for {} on intercept point {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath(),
-                                interceptPoint);
+                .getInterceptors(interceptPoint);
 
-                        ri.handle(exchange);
-                    }
-                    catch (Exception ex) {
-                        LOGGER.error("Error executing request interceptor {} for {} on intercept point {}",
-                                ri.getClass().getSimpleName(),
-                                exchange.getRequestPath(),
-                                interceptPoint,
-                                ex);
-                        AbstractExchange.setInError(exchange);
-                        LambdaUtils.throwsSneakyExcpetion(ex);
-                    }
-                });
+        for (var entry : interceptors) {
+            var ri = entry.getInterceptor();
+
+            if (!ri.resolve(exchange)) {
+                continue;
+            }
+
+            try {
+                LOGGER.debug("Executing request interceptor {} for {} on intercept point {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath(),
+                        interceptPoint);
+
+                ri.handle(exchange);
+            }
+            catch (Exception ex) {
+                LOGGER.error("Error executing request interceptor {} for {} on intercept point {}",
+                        ri.getClass().getSimpleName(),
+                        exchange.getRequestPath(),
+                        interceptPoint,
+                        ex);
+                AbstractExchange.setInError(exchange);
+                throw ex;
+            }
+        }
 
         // if an interceptor sets the response as errored
         // stop processing the request and send the response
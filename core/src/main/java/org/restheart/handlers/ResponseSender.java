@@ -52,6 +52,11 @@ public class ResponseSender extends PipelinedHandler {
      */
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
+        // the service dispatched the exchange to complete it asynchronously
+        if (exchange.isDispatched()) {
+            return;
+        }
+
         var response = ByteArrayResponse.wrap(exchange);
 
         if (!exchange.isResponseStarted() && response.getStatusCode() > 0) {
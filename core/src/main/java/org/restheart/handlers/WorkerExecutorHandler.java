@@ -0,0 +1,97 @@
+/*
+ * RESTHeart Security
+ * 
+ * Copyright (C) SoftInstigate Srl
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.handlers;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.SharedMetricRegistries;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sets the executor used to dispatch the exchange to the blocking handlers,
+ * e.g. by BlockingHandler, and counts the in-flight exchanges, exposed by the
+ * gauge EXCHANGES.in-flight of the default metrics registry.
+ *
+ * If the executor is null, the exchange is dispatched to the XNIO worker
+ * threads.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class WorkerExecutorHandler implements HttpHandler {
+
+    private static final String DEFAULT_REGISTRY = "default";
+
+    private static final AtomicLong IN_FLIGHT = new AtomicLong(0);
+
+    private final HttpHandler next;
+
+    private final Executor executor;
+
+    /**
+     * Creates a new instance of WorkerExecutorHandler
+     *
+     * @param executor the executor, null to use the worker threads
+     * @param next
+     */
+    public WorkerExecutorHandler(Executor executor, HttpHandler next) {
+        this.executor = executor;
+        this.next = next;
+
+        // initialize default metrics registry name, if not already set
+        if (SharedMetricRegistries.tryGetDefault() == null) {
+            SharedMetricRegistries.setDefault(DEFAULT_REGISTRY);
+        }
+
+        SharedMetricRegistries.tryGetDefault().gauge("EXCHANGES.in-flight",
+                () -> (Gauge<Long>) IN_FLIGHT::get);
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (executor != null) {
+            exchange.setDispatchExecutor(executor);
+        }
+
+        IN_FLIGHT.incrementAndGet();
+
+        exchange.addExchangeCompleteListener((ex, nextListener) -> {
+            IN_FLIGHT.decrementAndGet();
+            nextListener.proceed();
+        });
+
+        next.handleRequest(exchange);
+    }
+
+    /**
+     * @param exchange
+     * @return the executor for the tasks of the exchange that run after the
+     * handlers, as the async response interceptors
+     */
+    public static Executor executor(HttpServerExchange exchange) {
+        return exchange.getDispatchExecutor() != null
+                ? exchange.getDispatchExecutor()
+                : exchange.getConnection().getWorker();
+    }
+}
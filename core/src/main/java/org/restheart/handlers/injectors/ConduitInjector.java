@@ -27,8 +27,7 @@ import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.ResponseInterceptorsStreamSinkConduit;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.PluginsRegistryImpl;
-import static org.restheart.utils.PluginUtils.interceptPoint;
-import static org.restheart.utils.PluginUtils.requiresContent;
+import org.restheart.plugins.PluginsRegistryImpl.InterceptorEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.conduits.StreamSinkConduit;
@@ -79,14 +78,8 @@ public class ConduitInjector extends PipelinedHandler {
         // and requires the content from the backend
         exchange.addResponseWrapper((ConduitFactory<StreamSinkConduit> factory,
                 HttpServerExchange cexchange) -> {
-            if (PluginsRegistryImpl.getInstance()
-                    .getInterceptors()
-                    .stream()
-                    .filter(ri -> ri.isEnabled())
-                    .map(ri -> ri.getInstance())
-                    .filter(ri -> interceptPoint(ri) == InterceptPoint.RESPONSE)
-                    .filter(ri -> ri.resolve(cexchange))
-                    .anyMatch(ri -> requiresContent(ri))) {
+            if (anyResolvesRequiringContent(PluginsRegistryImpl.getInstance()
+                    .getInterceptors(InterceptPoint.RESPONSE), cexchange)) {
                 var mcsc = new ModifiableContentSinkConduit(factory.create(),
                         cexchange);
                 cexchange.putAttachment(MCSC_KEY, mcsc);
@@ -111,13 +104,8 @@ public class ConduitInjector extends PipelinedHandler {
      */
     private static void forceIdentityEncodingForInterceptors(
             HttpServerExchange exchange) {
-        if (PluginsRegistryImpl.getInstance()
-                .getInterceptors()
-                .stream()
-                .filter(ri -> ri.isEnabled())
-                .map(ri -> ri.getInstance())
-                .filter(ri -> ri.resolve(exchange))
-                .anyMatch(ri -> requiresContent(ri))) {
+        if (anyResolvesRequiringContent(PluginsRegistryImpl.getInstance()
+                .getContentRequiringInterceptors(), exchange)) {
             var _before = exchange.getRequestHeaders()
                     .get(Headers.ACCEPT_ENCODING);
 
@@ -138,4 +126,17 @@ public class ConduitInjector extends PipelinedHandler {
                     "identity");
         }
     }
+
+    private static boolean anyResolvesRequiringContent(
+            InterceptorEntry[] interceptors,
+            HttpServerExchange exchange) {
+        for (var entry : interceptors) {
+            if (entry.requiresContent()
+                    && entry.getInterceptor().resolve(exchange)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
@@ -28,8 +28,6 @@ import static org.restheart.handlers.injectors.RequestContentInjector.Policy.ON_
 import static org.restheart.handlers.injectors.RequestContentInjector.Policy.ON_REQUIRES_CONTENT_BEFORE_AUTH;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.PluginsRegistryImpl;
-import static org.restheart.utils.PluginUtils.interceptPoint;
-import static org.restheart.utils.PluginUtils.requiresContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -117,14 +115,18 @@ public class RequestContentInjector extends PipelinedHandler {
 
     private boolean isContentRequired(HttpServerExchange exchange, 
             InterceptPoint interceptPoint) {
-        return PluginsRegistryImpl
+        var interceptors = PluginsRegistryImpl
                 .getInstance()
-                .getInterceptors().stream()
-                .filter(ri -> ri.isEnabled())
-                .map(ri -> ri.getInstance())
-                .filter(ri -> interceptPoint == interceptPoint(ri))
-                .filter(ri -> ri.resolve(exchange))
-                .anyMatch(ri -> requiresContent(ri));
+                .getInterceptors(interceptPoint);
+
+        for (var entry : interceptors) {
+            if (entry.requiresContent()
+                    && entry.getInterceptor().resolve(exchange)) {
+                return true;
+            }
+        }
+
+        return false;
     }
     
     private static final AttachmentKey<Boolean> INJECTED_KEY
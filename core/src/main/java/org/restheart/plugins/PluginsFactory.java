@@ -20,6 +20,7 @@ package org.restheart.plugins;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ClassInfoList;
+import io.github.classgraph.ScanResult;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -62,6 +63,12 @@ public class PluginsFactory {
     private static final Map<String, Map<String, Object>> PLUGINS_CONFS
             = consumePluginsConfiguration();
 
+    /**
+     * the result of the classpath scan is shared between all plugin types
+     * and released via releaseScanResult() once all plugins are created
+     */
+    private static ScanResult SCAN_RESULT = null;
+
     /**
      *
      * @return the AuthenticationMechanisms
@@ -164,100 +171,135 @@ public class PluginsFactory {
         return createPlugins(Hook.class, PLUGINS_CONFS);
     }
 
+    /**
+     * @return the result of the scan of the classpath and of the plugins jars,
+     * performed once and shared between all plugin types
+     */
+    private static synchronized ScanResult scanResult() {
+        if (SCAN_RESULT == null) {
+            var start = System.currentTimeMillis();
+
+            SCAN_RESULT = new ClassGraph()
+                    .addClassLoader(getPluginsClassloader())
+                    .enableAnnotationInfo()
+                    .enableMethodInfo()
+                    .initializeLoadedClasses()
+                    .scan();
+
+            LOGGER.info("Scanned classpath for plugins in {} msecs",
+                    System.currentTimeMillis() - start);
+        }
+
+        return SCAN_RESULT;
+    }
+
+    /**
+     * releases the classpath scan result. To be called once all plugins have
+     * been created, plugins created afterwards require a new scan
+     */
+    public static synchronized void releaseScanResult() {
+        if (SCAN_RESULT != null) {
+            SCAN_RESULT.close();
+            SCAN_RESULT = null;
+        }
+    }
+
     /**
      * @param type the class of the plugin , e.g. Initializer.class
      */
     @SuppressWarnings("unchecked")
-    private static <T extends Plugin> Set<PluginRecord<T>> createPlugins(
+    private static synchronized <T extends Plugin> Set<PluginRecord<T>> createPlugins(
             Class type, Map<String, Map<String, Object>> confs) {
         Set<PluginRecord<T>> ret = new LinkedHashSet<>();
 
         var _type = type.getSimpleName();
 
-        try (var scanResult = new ClassGraph()
-                .addClassLoader(getPluginsClassloader())
-                .enableAnnotationInfo()
-                .enableMethodInfo()
-                .initializeLoadedClasses()
-                .scan()) {
-            var registeredPlugins = scanResult
-                    .getClassesWithAnnotation(REGISTER_PLUGIN_CLASS_NAME);
+        var start = System.currentTimeMillis();
 
-            ClassInfoList listOfType;
+        var scanResult = scanResult();
 
-            if (type.isInterface()) {
-                if (type.equals(Authenticator.class)) {
-                    var tms = scanResult.getClassesImplementing(TokenManager.class.getName());
+        var registeredPlugins = scanResult
+                .getClassesWithAnnotation(REGISTER_PLUGIN_CLASS_NAME);
 
-                    listOfType = scanResult
-                            .getClassesImplementing(type.getName())
-                            .exclude(tms);
-                } else {
-                    listOfType = scanResult.getClassesImplementing(type.getName());
-                }
-            } else {
-                listOfType = scanResult.getSubclasses(type.getName());
-            }
+        ClassInfoList listOfType;
 
-            var plugins = registeredPlugins.intersect(listOfType);
+        if (type.isInterface()) {
+            if (type.equals(Authenticator.class)) {
+                var tms = scanResult.getClassesImplementing(TokenManager.class.getName());
 
-            // sort by priority
-            plugins.sort((ClassInfo ci1, ClassInfo ci2) -> {
-                return Integer.compare(annotationParam(ci1, "priority"),
-                        annotationParam(ci2, "priority"));
-            });
-
-            plugins.stream().forEachOrdered(plugin -> {
-                Object i;
+                listOfType = scanResult
+                        .getClassesImplementing(type.getName())
+                        .exclude(tms);
+            } else {
+                listOfType = scanResult.getClassesImplementing(type.getName());
+            }
+        } else {
+            listOfType = scanResult.getSubclasses(type.getName());
+        }
 
-                try {
-                    String name = annotationParam(plugin,
-                            "name");
-                    String description = annotationParam(plugin,
-                            "description");
-                    Boolean enabledByDefault = annotationParam(plugin,
-                            "enabledByDefault");
+        var plugins = registeredPlugins.intersect(listOfType);
 
-                    var enabled = PluginRecord.isEnabled(enabledByDefault,
-                            confs != null ? confs.get(name) : null);
+        // sort by priority
+        plugins.sort((ClassInfo ci1, ClassInfo ci2) -> {
+            return Integer.compare(annotationParam(ci1, "priority"),
+                    annotationParam(ci2, "priority"));
+        });
 
-                    if (enabled) {
-                        i = instantiatePlugin(plugin, _type, name, confs);
+        plugins.stream().forEachOrdered(plugin -> {
+            Object i;
 
-                        var pr = new PluginRecord(
+            try {
+                String name = annotationParam(plugin,
+                        "name");
+                String description = annotationParam(plugin,
+                        "description");
+                Boolean enabledByDefault = annotationParam(plugin,
+                        "enabledByDefault");
+
+                var enabled = PluginRecord.isEnabled(enabledByDefault,
+                        confs != null ? confs.get(name) : null);
+
+                if (enabled) {
+                    i = instantiatePlugin(plugin, _type, name, confs);
+
+                    var pr = new PluginRecord(
+                            name,
+                            description,
+                            enabledByDefault,
+                            plugin.getName(),
+                            (T) i,
+                            confs != null
+                                    ? confs.get(name)
+                                    : null);
+
+                    if (pr.isEnabled()) {
+                        ret.add(pr);
+                        LOGGER.debug("Registered {} {}: {}",
+                                _type,
                                 name,
-                                description,
-                                enabledByDefault,
-                                plugin.getName(),
-                                (T) i,
-                                confs != null
-                                        ? confs.get(name)
-                                        : null);
-
-                        if (pr.isEnabled()) {
-                            ret.add(pr);
-                            LOGGER.debug("Registered {} {}: {}",
-                                    _type,
-                                    name,
-                                    description);
-                        }
-                    } else {
-                        LOGGER.debug("{} {} is disabled", _type, name);
+                                description);
                     }
-                } catch (ConfigurationException
-                        | InstantiationException
-                        | IllegalAccessException
-                        | InvocationTargetException t) {
-                    LOGGER.error("Error registering {} {}: {}",
-                            _type,
-                            annotationParam(plugin, "name") != null
-                            ? (String) annotationParam(plugin, "name")
-                            : plugin.getSimpleName(),
-                            getRootException(t).getMessage(),
-                            t);
+                } else {
+                    LOGGER.debug("{} {} is disabled", _type, name);
                 }
-            });
-        }
+            } catch (ConfigurationException
+                    | InstantiationException
+                    | IllegalAccessException
+                    | InvocationTargetException t) {
+                LOGGER.error("Error registering {} {}: {}",
+                        _type,
+                        annotationParam(plugin, "name") != null
+                        ? (String) annotationParam(plugin, "name")
+                        : plugin.getSimpleName(),
+                        getRootException(t).getMessage(),
+                        t);
+            }
+        });
+
+        LOGGER.debug("Created {} {} plugins in {} msecs",
+                ret.size(),
+                _type,
+                System.currentTimeMillis() - start);
 
         return ret;
     }
@@ -24,13 +24,19 @@ import org.restheart.plugins.mongodb.GlobalTransformer;
 import org.restheart.plugins.mongodb.GlobalChecker;
 import org.restheart.plugins.mongodb.Checker;
 import io.undertow.predicate.Predicate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.restheart.ConfigurationException;
 import org.restheart.plugins.security.AuthMechanism;
 import org.restheart.plugins.security.Authenticator;
 import org.restheart.plugins.security.Authorizer;
 import org.restheart.plugins.security.TokenManager;
+import static org.restheart.utils.PluginUtils.interceptPoint;
+import static org.restheart.utils.PluginUtils.requiresContent;
 
 /**
  *
@@ -53,6 +59,10 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
     private Set<PluginRecord<Interceptor>> interceptors;
 
+    private volatile InterceptorEntry[][] interceptorsByInterceptPoint;
+
+    private volatile InterceptorEntry[] contentRequiringInterceptors;
+
     private final Set<Predicate> globalSecurityPredicates
             = new LinkedHashSet<>();
     
@@ -64,6 +74,12 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
     private Set<PluginRecord<Hook>> hooks;
 
+    private volatile Map<String, PluginRecord<Checker>> checkersByName;
+
+    private volatile Map<String, PluginRecord<Transformer>> transformersByName;
+
+    private volatile Map<String, PluginRecord<Hook>> hooksByName;
+
     private final Set<GlobalChecker> globalCheckers
             = new LinkedHashSet<>();
     
@@ -199,6 +215,78 @@ public class PluginsRegistryImpl implements PluginsRegistry {
         return this.interceptors;
     }
 
+    /**
+     * The dispatch table of the interceptors is built once, the first time it
+     * is requested, so that the request pipeline can execute them with a plain
+     * loop, without filtering the interceptors set and without reading the
+     * RegisterPlugin annotation via reflection
+     *
+     * @param interceptPoint
+     * @return the enabled interceptors with the given intercept point, in
+     * registration order
+     */
+    public InterceptorEntry[] getInterceptors(InterceptPoint interceptPoint) {
+        if (this.interceptorsByInterceptPoint == null) {
+            buildInterceptorsTables();
+        }
+
+        return this.interceptorsByInterceptPoint[interceptPoint.ordinal()];
+    }
+
+    /**
+     * @return the enabled interceptors that require the request or response
+     * content, whatever their intercept point, in registration order
+     */
+    public InterceptorEntry[] getContentRequiringInterceptors() {
+        if (this.contentRequiringInterceptors == null) {
+            buildInterceptorsTables();
+        }
+
+        return this.contentRequiringInterceptors;
+    }
+
+    private synchronized void buildInterceptorsTables() {
+        if (this.interceptorsByInterceptPoint != null) {
+            return;
+        }
+
+        var points = InterceptPoint.values();
+        var byPoint = new ArrayList<List<InterceptorEntry>>(points.length);
+        var requiringContent = new ArrayList<InterceptorEntry>();
+
+        for (var point : points) {
+            byPoint.add(new ArrayList<>());
+        }
+
+        for (var ir : getInterceptors()) {
+            var point = interceptPoint(ir.getInstance());
+
+            if (!ir.isEnabled() || point == null) {
+                continue;
+            }
+
+            var entry = new InterceptorEntry(ir.getInstance(),
+                    requiresContent(ir.getInstance()));
+
+            byPoint.get(point.ordinal()).add(entry);
+
+            if (entry.requiresContent()) {
+                requiringContent.add(entry);
+            }
+        }
+
+        var table = new InterceptorEntry[points.length][];
+
+        for (var point : points) {
+            table[point.ordinal()] = byPoint.get(point.ordinal())
+                    .toArray(new InterceptorEntry[0]);
+        }
+
+        this.contentRequiringInterceptors = requiringContent
+                .toArray(new InterceptorEntry[0]);
+        this.interceptorsByInterceptPoint = table;
+    }
+
     /**
      * @return the services
      */
@@ -236,6 +324,20 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
         return this.checkers;
     }
+
+    /**
+     *
+     * @param name the name of the checker
+     * @return the checker with the given name or null if not registered
+     */
+    @Override
+    public PluginRecord<Checker> getChecker(String name) {
+        if (this.checkersByName == null) {
+            this.checkersByName = byName(getCheckers());
+        }
+
+        return this.checkersByName.get(name);
+    }
     
     /**
      *
@@ -250,6 +352,20 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
         return this.transformers;
     }
+
+    /**
+     *
+     * @param name the name of the transformer
+     * @return the transformer with the given name or null if not registered
+     */
+    @Override
+    public PluginRecord<Transformer> getTransformer(String name) {
+        if (this.transformersByName == null) {
+            this.transformersByName = byName(getTransformers());
+        }
+
+        return this.transformersByName.get(name);
+    }
     
     /**
      *
@@ -264,6 +380,20 @@ public class PluginsRegistryImpl implements PluginsRegistry {
 
         return this.hooks;
     }
+
+    /**
+     *
+     * @param name the name of the hook
+     * @return the hook with the given name or null if not registered
+     */
+    @Override
+    public PluginRecord<Hook> getHook(String name) {
+        if (this.hooksByName == null) {
+            this.hooksByName = byName(getHooks());
+        }
+
+        return this.hooksByName.get(name);
+    }
     
     
     /**
@@ -290,4 +420,45 @@ public class PluginsRegistryImpl implements PluginsRegistry {
     public synchronized Set<GlobalHook> getGlobalHooks() {
         return globalHooks;
     }
+
+    /**
+     * @return the plugin records by name; in case of duplicate names, the first
+     * one applies
+     */
+    private static <T extends Plugin> Map<String, PluginRecord<T>> byName(
+            Set<PluginRecord<T>> records) {
+        var ret = new HashMap<String, PluginRecord<T>>();
+
+        records.forEach(record -> ret.putIfAbsent(record.getName(), record));
+
+        return ret;
+    }
+
+    /**
+     * An enabled interceptor with the requiresContent attribute of its
+     * RegisterPlugin annotation
+     */
+    public static final class InterceptorEntry {
+        private final Interceptor interceptor;
+        private final boolean requiresContent;
+
+        InterceptorEntry(Interceptor interceptor, boolean requiresContent) {
+            this.interceptor = interceptor;
+            this.requiresContent = requiresContent;
+        }
+
+        /**
+         * @return the interceptor
+         */
+        public Interceptor getInterceptor() {
+            return interceptor;
+        }
+
+        /**
+         * @return true if the interceptor requires the content
+         */
+        public boolean requiresContent() {
+            return requiresContent;
+        }
+    }
 }
@@ -17,8 +17,10 @@
  */
 package org.restheart.utils;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import org.restheart.Bootstrapper;
 
 /**
  *
@@ -36,8 +38,18 @@ public class ExecutorServiceSingleton {
 
     private final ExecutorService executorService;
 
+    private final boolean virtualThreads;
+
     private ExecutorServiceSingleton() {
-        this.executorService = Executors.newFixedThreadPool(100);
+        var conf = Bootstrapper.getConfiguration();
+
+        var vtExecutor = conf != null && conf.isWorkerVirtualThreads()
+                ? newVirtualThreadPerTaskExecutor()
+                : Optional.<ExecutorService>empty();
+
+        this.virtualThreads = vtExecutor.isPresent();
+        this.executorService = vtExecutor
+                .orElseGet(() -> Executors.newFixedThreadPool(100));
     }
 
     /**
@@ -47,6 +59,31 @@ public class ExecutorServiceSingleton {
         return executorService;
     }
 
+    /**
+     * @return true if the executorService executes each task in a new virtual
+     * thread
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * virtual threads are available from Java 21, the executor is looked up
+     * via reflection since the code targets Java 11
+     *
+     * @return the virtual-thread-per-task executor or empty if the JVM does
+     * not support virtual threads
+     */
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            return Optional.empty();
+        }
+    }
+
     private static class ExecutorServiceSingletonHolder {
 
         private static final ExecutorServiceSingleton INSTANCE = new ExecutorServiceSingleton();
@@ -0,0 +1,165 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.security.test.performance;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.junit.Assume;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.utils.ExecutorServiceSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the throughput of the blocking handlers executed by the worker
+ * threads and by the virtual threads (worker-virtual-threads: true), with and
+ * without the requests-limit, when each request waits for BLOCKING_TIME msecs
+ * as a db call does
+ *
+ * the requests-limit is modeled by a semaphore, the exchanges exceeding it
+ * wait as the ones queued by RequestLimitingHandler do; the handlers are not
+ * executed by Undertow since the test classpath mocks HttpServerExchange
+ *
+ * the virtual threads cases require a JVM supporting them (Java 21+)
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class WorkerVirtualThreadsTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(WorkerVirtualThreadsTest.class);
+
+    private static final int WORKER_THREADS = 16 * Runtime.getRuntime()
+            .availableProcessors();
+
+    private static final int REQUESTS_LIMIT = 100;
+
+    private static final int REQUESTS = 20_000;
+
+    private static final long BLOCKING_TIME = 20;
+
+    /**
+     *
+     */
+    public WorkerVirtualThreadsTest() {
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWorkerThreads() throws Exception {
+        var executor = Executors.newFixedThreadPool(WORKER_THREADS);
+
+        try {
+            LOGGER.info("worker threads: {} requests/sec",
+                    run(executor, REQUESTS_LIMIT));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVirtualThreadsWithRequestsLimit() throws Exception {
+        var executor = virtualThreadsExecutor();
+
+        try {
+            LOGGER.info("virtual threads with requests-limit: {} requests/sec",
+                    run(executor, REQUESTS_LIMIT));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVirtualThreads() throws Exception {
+        var executor = virtualThreadsExecutor();
+
+        try {
+            LOGGER.info("virtual threads: {} requests/sec",
+                    run(executor, REQUESTS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService virtualThreadsExecutor() {
+        var executor = ExecutorServiceSingleton
+                .newVirtualThreadPerTaskExecutor();
+
+        Assume.assumeTrue("JVM does not support virtual threads",
+                executor.isPresent());
+
+        return executor.get();
+    }
+
+    /**
+     * @param executor the executor of the blocking handlers
+     * @param requestsLimit the maximum number of concurrent requests
+     * @return the requests per second
+     */
+    private static long run(ExecutorService executor, int requestsLimit)
+            throws InterruptedException {
+        // warm up
+        send(executor, requestsLimit, REQUESTS / 10);
+
+        long start = System.currentTimeMillis();
+        send(executor, requestsLimit, REQUESTS);
+        long time = System.currentTimeMillis() - start;
+
+        return REQUESTS * 1000L / Math.max(time, 1);
+    }
+
+    private static void send(ExecutorService executor, int requestsLimit,
+            int requests) throws InterruptedException {
+        var limit = new Semaphore(requestsLimit);
+        var done = new CountDownLatch(requests);
+
+        for (int cont = 0; cont < requests; cont++) {
+            limit.acquire();
+
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(BLOCKING_TIME);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    limit.release();
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+    }
+}
@@ -28,9 +28,12 @@ import static org.fusesource.jansi.Ansi.ansi;
 import org.restheart.ConfigurationException;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.PipelinedWrappingHandler;
+import org.restheart.handlers.exchange.ParsedQuery;
 import static org.restheart.mongodb.MongoServiceConfigurationKeys.MONGO_MOUNT_WHAT_KEY;
 import static org.restheart.mongodb.MongoServiceConfigurationKeys.MONGO_MOUNT_WHERE_KEY;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.mongodb.db.MongoDBClientSingleton;
+import org.restheart.mongodb.db.MongoDBReactiveClientSingleton;
 import org.restheart.mongodb.handlers.CORSHandler;
 import org.restheart.mongodb.handlers.OptionsHandler;
 import org.restheart.mongodb.handlers.RequestDispatcherHandler;
@@ -120,9 +123,27 @@ public class MongoService implements Service {
             throw new ConfigurationException("\"Error connecting to MongoDB.");
         }
 
+        // initialize MongoDBReactiveClientSingleton
+        if (MongoServiceConfiguration.get().isAsyncDataPath()) {
+            MongoDBReactiveClientSingleton.init(MongoServiceConfiguration.get()
+                    .getMongoUri());
+
+            // force the creation of the reactive client
+            MongoDBReactiveClientSingleton.getInstance().getClient();
+
+            LOGGER.info("Async data path enabled, the CRUD requests "
+                    + "outside sessions use the reactive streams driver");
+        }
+
         // initialize LocalCachesSingleton
         LocalCachesSingleton.init(MongoServiceConfiguration.get());
 
+        ParsedQuery.setCacheSize(MongoServiceConfiguration.get()
+                .getQueryCacheSize());
+
+        EtagCache.init(MongoServiceConfiguration.get().getEtagCacheSize(),
+                MongoServiceConfiguration.get().getEtagCacheTtl());
+
         ClientSessionInjector.build(PipelinedHandler.pipe(
                 new DbPropsInjector(),
                 new CollectionPropsInjector(),
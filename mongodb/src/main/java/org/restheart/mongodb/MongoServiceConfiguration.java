@@ -73,6 +73,11 @@ public class MongoServiceConfiguration {
     private final long localCacheTtl;
     private final boolean schemaCacheEnabled;
     private final long schemaCacheTtl;
+    private final long queryCacheSize;
+    private final long etagCacheSize;
+    private final long etagCacheTtl;
+    private final boolean streamingResponses;
+    private final boolean asyncDataPath;
     private final int requestsLimit;
     private final int eagerPoolSize;
     private final int eagerLinearSliceWidht;
@@ -213,7 +218,14 @@ public class MongoServiceConfiguration {
         REPRESENTATION_FORMAT rf = REPRESENTATION_FORMAT.STANDARD;
 
         try {
-            rf = REPRESENTATION_FORMAT.valueOf(_representationFormat);
+            var _rf = REPRESENTATION_FORMAT.valueOf(_representationFormat);
+
+            if (_rf == REPRESENTATION_FORMAT.NDJSON) {
+                // NDJSON is only available for collections and aggregations
+                throw new IllegalArgumentException();
+            }
+
+            rf = _rf;
         } catch (IllegalArgumentException iar) {
             LOGGER.warn("wrong value for {}. allowed values are {}; "
                     + "setting it to {}",
@@ -252,6 +264,13 @@ public class MongoServiceConfiguration {
         schemaCacheEnabled = getAsBooleanOrDefault(conf, SCHEMA_CACHE_ENABLED_KEY, true);
         schemaCacheTtl = getAsLongOrDefault(conf, SCHEMA_CACHE_TTL_KEY, (long) 1000);
 
+        queryCacheSize = getAsLongOrDefault(conf, QUERY_CACHE_SIZE_KEY, (long) 1000);
+
+        etagCacheSize = getAsLongOrDefault(conf, ETAG_CACHE_SIZE_KEY, (long) 0);
+        etagCacheTtl = getAsLongOrDefault(conf, ETAG_CACHE_TTL_KEY, (long) 60000);
+        streamingResponses = getAsBooleanOrDefault(conf, STREAMING_RESPONSES_KEY, false);
+        asyncDataPath = getAsBooleanOrDefault(conf, ASYNC_DATA_PATH_KEY, false);
+
         eagerPoolSize = getAsIntegerOrDefault(conf, EAGER_POOL_SIZE, 100);
         eagerLinearSliceWidht = getAsIntegerOrDefault(conf, EAGER_LINEAR_SLICE_WIDHT, 1000);
         eagerLinearSliceDelta = getAsIntegerOrDefault(conf, EAGER_LINEAR_SLICE_DELTA, 100);
@@ -354,6 +373,11 @@ public class MongoServiceConfiguration {
                 + ", localCacheTtl=" + localCacheTtl
                 + ", schemaCacheEnabled=" + schemaCacheEnabled
                 + ", schemaCacheTtl=" + schemaCacheTtl
+                + ", queryCacheSize=" + queryCacheSize
+                + ", etagCacheSize=" + etagCacheSize
+                + ", etagCacheTtl=" + etagCacheTtl
+                + ", streamingResponses=" + streamingResponses
+                + ", asyncDataPath=" + asyncDataPath
                 + ", requestsLimit=" + requestsLimit
                 + ", metricsGatheringLevel=" + metricsGatheringLevel
                 + ", eagerPoolSize=" + eagerPoolSize
@@ -842,6 +866,42 @@ public class MongoServiceConfiguration {
         return schemaCacheTtl;
     }
 
+    /**
+     * @return the queryCacheSize
+     */
+    public long getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    /**
+     * @return the etagCacheSize
+     */
+    public long getEtagCacheSize() {
+        return etagCacheSize;
+    }
+
+    /**
+     * @return the etagCacheTtl
+     */
+    public long getEtagCacheTtl() {
+        return etagCacheTtl;
+    }
+
+    /**
+     * @return true if the responses of GET collection and aggregation
+     * requests can be streamed
+     */
+    public boolean isStreamingResponses() {
+        return streamingResponses;
+    }
+
+    /**
+     * @return true if the CRUD requests outside sessions use the async driver
+     */
+    public boolean isAsyncDataPath() {
+        return asyncDataPath;
+    }
+
     /**
      * @return the dbEtagCheckPolicy
      */
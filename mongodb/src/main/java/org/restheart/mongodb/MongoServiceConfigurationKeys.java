@@ -100,6 +100,31 @@ public interface MongoServiceConfigurationKeys {
      */
     public static final String SCHEMA_CACHE_TTL_KEY = "schema-cache-ttl";
 
+    /**
+     * the key for the query-cache-size property.
+     */
+    public static final String QUERY_CACHE_SIZE_KEY = "query-cache-size";
+
+    /**
+     * the key for the etag-cache-size property.
+     */
+    public static final String ETAG_CACHE_SIZE_KEY = "etag-cache-size";
+
+    /**
+     * the key for the etag-cache-ttl property.
+     */
+    public static final String ETAG_CACHE_TTL_KEY = "etag-cache-ttl";
+
+    /**
+     * the key for the streaming-responses property.
+     */
+    public static final String STREAMING_RESPONSES_KEY = "streaming-responses";
+
+    /**
+     * the key for the async-data-path property.
+     */
+    public static final String ASYNC_DATA_PATH_KEY = "async-data-path";
+
     /**
      * the key for the requests-limit property.
      */
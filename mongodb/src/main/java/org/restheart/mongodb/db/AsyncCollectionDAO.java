@@ -0,0 +1,125 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_CURSOR_BATCH_SIZE;
+
+/**
+ * reads the collections with the reactive streams driver, the queries are the
+ * ones of CollectionDAO
+ *
+ * the cursor pool is not used: each page is read by a new query that skips
+ * the previous pages on the server
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AsyncCollectionDAO {
+
+    private static final int BATCH_SIZE = MongoServiceConfiguration
+            .get() != null
+                    ? MongoServiceConfiguration
+                            .get()
+                            .getCursorBatchSize()
+                    : DEFAULT_CURSOR_BATCH_SIZE;
+
+    private final Supplier<MongoClient> client;
+
+    /**
+     *
+     */
+    public AsyncCollectionDAO() {
+        this(Suppliers.memoize(() -> MongoDBReactiveClientSingleton
+                .getInstance().getClient()));
+    }
+
+    /**
+     *
+     * @param client
+     */
+    @VisibleForTesting
+    AsyncCollectionDAO(Supplier<MongoClient> client) {
+        this.client = client;
+    }
+
+    MongoCollection<BsonDocument> getCollection(
+            final String dbName,
+            final String collName) {
+        return client.get()
+                .getDatabase(dbName)
+                .getCollection(collName, BsonDocument.class);
+    }
+
+    /**
+     * @param dbName
+     * @param collName
+     * @param filters the filters to apply
+     * @return the number of documents in the given collection (taking into
+     * account the filters in case)
+     */
+    public CompletableFuture<Long> getCollectionSize(
+            final String dbName,
+            final String collName,
+            final BsonDocument filters) {
+        return Publishers.first(getCollection(dbName, collName)
+                .countDocuments(filters));
+    }
+
+    /**
+     * @param dbName
+     * @param collName
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filters
+     * @param hint
+     * @param keys
+     * @return the documents of the page
+     */
+    public CompletableFuture<ArrayList<BsonDocument>> getCollectionData(
+            final String dbName,
+            final String collName,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys) {
+        var find = getCollection(dbName, collName)
+                .find(filters)
+                .projection(keys)
+                .sort(sortBy)
+                .batchSize(BATCH_SIZE)
+                .hint(hint)
+                .maxTime(MongoServiceConfiguration.get()
+                        .getQueryTimeLimit(), TimeUnit.MILLISECONDS)
+                .skip(pagesize * (page - 1))
+                .limit(pagesize);
+
+        return Publishers.list(find).thenApply(ArrayList::new);
+    }
+}
@@ -0,0 +1,573 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.mongodb.MongoCommandException;
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.restheart.handlers.exchange.OperationResult;
+import static org.restheart.mongodb.db.DAOUtils.DUPLICATE_KEY_ERROR;
+import static org.restheart.mongodb.db.DAOUtils.FAU_UPSERT_OPS;
+import static org.restheart.mongodb.db.DAOUtils.FOR_AFTER_UPSERT_OPS;
+import static org.restheart.mongodb.db.DAOUtils.FOR_BEFORE_UPSERT_OPS;
+import static org.restheart.mongodb.db.DAOUtils.IMPOSSIBLE_CONDITION;
+import static org.restheart.mongodb.db.DAOUtils.R_NOT_UPSERT_OPS;
+import org.restheart.mongodb.utils.ResponseHelper;
+import org.restheart.utils.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * reads and writes the documents with the reactive streams driver, the
+ * operations and their results are the ones of DocumentDAO
+ *
+ * client sessions are not supported: the requests in a session use
+ * DocumentDAO
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AsyncDocumentDAO {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(AsyncDocumentDAO.class);
+
+    private final Supplier<MongoClient> client;
+
+    /**
+     *
+     */
+    public AsyncDocumentDAO() {
+        this(Suppliers.memoize(() -> MongoDBReactiveClientSingleton
+                .getInstance().getClient()));
+    }
+
+    /**
+     *
+     * @param client
+     */
+    @VisibleForTesting
+    AsyncDocumentDAO(Supplier<MongoClient> client) {
+        this.client = client;
+    }
+
+    MongoCollection<BsonDocument> getCollection(
+            final String dbName,
+            final String collName) {
+        return client.get()
+                .getDatabase(dbName)
+                .getCollection(collName, BsonDocument.class);
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param query
+     * @param projection
+     * @return the first document matching the query, null if none
+     */
+    public CompletableFuture<BsonDocument> getDocument(
+            final String dbName,
+            final String collName,
+            final Bson query,
+            final BsonDocument projection) {
+        return Publishers.first(getCollection(dbName, collName)
+                .find(query)
+                .projection(projection)
+                .first());
+    }
+
+    /**
+     * @see DocumentDAO#upsertDocument
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @param filter
+     * @param shardKeys
+     * @param newContent
+     * @param requestEtag
+     * @param patching
+     * @param checkEtag
+     * @return
+     */
+    public CompletableFuture<OperationResult> upsertDocument(
+            final String dbName,
+            final String collName,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final BsonDocument newContent,
+            final String requestEtag,
+            final boolean patching,
+            final boolean checkEtag) {
+        var mcoll = getCollection(dbName, collName);
+
+        // genereate new etag
+        ObjectId newEtag = new ObjectId();
+
+        final BsonDocument content = DAOUtils.validContent(newContent);
+
+        content.put("_etag", new BsonObjectId(newEtag));
+
+        return updateDocument(
+                mcoll,
+                documentId,
+                filter,
+                shardKeys,
+                content,
+                !patching)
+                .thenCompose(updateResult -> {
+                    BsonDocument oldDocument = updateResult.getOldData();
+                    BsonDocument newDocument = updateResult.getNewData();
+
+                    if (patching) {
+                        if (oldDocument == null) {
+                            return completedFuture(new OperationResult(
+                                    updateResult.getHttpCode() > 0
+                                    ? updateResult.getHttpCode()
+                                    : HttpStatus.SC_CREATED, newEtag, null, newDocument));
+                        } else if (checkEtag) {
+                            return optimisticCheckEtag(
+                                    mcoll,
+                                    shardKeys,
+                                    oldDocument,
+                                    newDocument,
+                                    newEtag,
+                                    requestEtag,
+                                    HttpStatus.SC_OK,
+                                    false);
+                        } else {
+                            return completedFuture(new OperationResult(
+                                    updateResult.getHttpCode() > 0
+                                    ? updateResult.getHttpCode()
+                                    : HttpStatus.SC_OK, newEtag, oldDocument, newDocument));
+                        }
+                    } else if (oldDocument != null && checkEtag) {
+                        return optimisticCheckEtag(
+                                mcoll,
+                                shardKeys,
+                                oldDocument,
+                                newDocument,
+                                newEtag,
+                                requestEtag,
+                                HttpStatus.SC_OK,
+                                false);
+                    } else if (oldDocument != null) {
+                        return completedFuture(new OperationResult(
+                                updateResult.getHttpCode() > 0
+                                ? updateResult.getHttpCode()
+                                : HttpStatus.SC_OK, newEtag, oldDocument, newDocument));
+                    } else {
+                        return completedFuture(new OperationResult(
+                                updateResult.getHttpCode() > 0
+                                ? updateResult.getHttpCode()
+                                : HttpStatus.SC_CREATED, newEtag, null, newDocument));
+                    }
+                })
+                // after the eventual restore of the old version and also if
+                // the write fails
+                .whenComplete((result, t) -> EtagCache
+                        .invalidate(dbName, collName, documentId));
+    }
+
+    /**
+     * @see DocumentDAO#upsertDocumentPost
+     *
+     * @param dbName
+     * @param collName
+     * @param filter
+     * @param shardKeys
+     * @param newContent
+     * @param requestEtag
+     * @param checkEtag
+     * @return
+     */
+    public CompletableFuture<OperationResult> upsertDocumentPost(
+            final String dbName,
+            final String collName,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final BsonDocument newContent,
+            final String requestEtag,
+            final boolean checkEtag) {
+        var mcoll = getCollection(dbName, collName);
+
+        ObjectId newEtag = new ObjectId();
+
+        final BsonDocument content = DAOUtils.validContent(newContent);
+
+        content.put("_etag", new BsonObjectId(newEtag));
+
+        final Object documentId = content.containsKey("_id")
+                ? content.get("_id")
+                : Optional.empty(); // key _id is not present
+
+        return updateDocument(
+                mcoll,
+                documentId,
+                filter,
+                shardKeys,
+                content,
+                true)
+                .thenCompose(updateResult -> {
+                    BsonDocument oldDocument = updateResult.getOldData();
+                    BsonDocument newDocument = updateResult.getNewData();
+
+                    if (oldDocument == null) {
+                        return completedFuture(new OperationResult(
+                                updateResult.getHttpCode() > 0
+                                ? updateResult.getHttpCode()
+                                : HttpStatus.SC_CREATED,
+                                newEtag,
+                                null,
+                                newDocument));
+                    } else if (checkEtag) {
+                        return optimisticCheckEtag(
+                                mcoll,
+                                shardKeys,
+                                oldDocument,
+                                newDocument,
+                                newEtag,
+                                requestEtag,
+                                HttpStatus.SC_OK,
+                                false);
+                    } else {
+                        return completedFuture(new OperationResult(
+                                updateResult.getHttpCode() > 0
+                                ? updateResult.getHttpCode()
+                                : HttpStatus.SC_OK,
+                                newEtag, oldDocument, newDocument));
+                    }
+                })
+                // after the eventual restore of the old version and also if
+                // the write fails
+                .whenComplete((result, t) -> EtagCache
+                        .invalidate(dbName, collName, documentId));
+    }
+
+    /**
+     * @see DocumentDAO#deleteDocument
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @param filter
+     * @param shardedKeys
+     * @param requestEtag
+     * @param checkEtag
+     * @return
+     */
+    public CompletableFuture<OperationResult> deleteDocument(
+            final String dbName,
+            final String collName,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardedKeys,
+            final String requestEtag,
+            final boolean checkEtag) {
+        var mcoll = getCollection(dbName, collName);
+
+        return Publishers.first(mcoll.findOneAndDelete(
+                getIdFilter(documentId, filter, shardedKeys)))
+                .thenCompose(oldDocument -> {
+                    if (oldDocument == null) {
+                        return completedFuture(
+                                new OperationResult(HttpStatus.SC_NOT_FOUND));
+                    } else if (checkEtag) {
+                        // check the old etag (in case restore the old document version)
+                        return optimisticCheckEtag(
+                                mcoll,
+                                null,
+                                oldDocument,
+                                null,
+                                null,
+                                requestEtag,
+                                HttpStatus.SC_NO_CONTENT,
+                                true);
+                    } else {
+                        return completedFuture(
+                                new OperationResult(HttpStatus.SC_NO_CONTENT));
+                    }
+                })
+                // after the eventual restore of the old version and also if
+                // the write fails
+                .whenComplete((result, t) -> EtagCache
+                        .invalidate(dbName, collName, documentId));
+    }
+
+    private Bson getIdFilter(
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardedKeys) {
+        Bson q = eq("_id", documentId);
+
+        if (shardedKeys != null) {
+            q = and(q, shardedKeys);
+        }
+
+        if (filter != null && !filter.isEmpty()) {
+            q = and(q, filter);
+        }
+
+        return q;
+    }
+
+    /**
+     * @see DAOUtils#updateDocument, with upsert allowed and without deep
+     * patching
+     */
+    @SuppressWarnings("rawtypes")
+    private CompletableFuture<OperationResult> updateDocument(
+            final MongoCollection<BsonDocument> coll,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument shardKeys,
+            final BsonDocument data,
+            final boolean replace) {
+        Objects.requireNonNull(coll);
+        Objects.requireNonNull(data);
+
+        Bson query;
+
+        boolean idPresent = true;
+
+        if (documentId instanceof Optional
+                && !((Optional) documentId).isPresent()) {
+            query = IMPOSSIBLE_CONDITION;
+            idPresent = false;
+        } else {
+            query = eq("_id", documentId);
+        }
+
+        if (shardKeys != null) {
+            query = and(query, shardKeys);
+        }
+
+        // replacing a document with a known id, the write itself returns
+        // the old document and the new one is the replacement document
+        final boolean oldFromWrite = replace
+                && idPresent
+                && documentId instanceof BsonValue;
+
+        CompletableFuture<BsonDocument> oldDocument = idPresent && !oldFromWrite
+                ? Publishers.first(coll.find(query).first())
+                : completedFuture(null);
+
+        final Bson _query = filter != null && !filter.isEmpty()
+                ? and(query, filter)
+                : query;
+
+        return oldDocument.thenCompose(old -> {
+            CompletableFuture<OperationResult> write;
+
+            if (replace) {
+                BsonDocument replacement;
+
+                try {
+                    replacement = DAOUtils.getReplaceDocument(data);
+                } catch (IllegalArgumentException iae) {
+                    return completedFuture(new OperationResult(
+                            HttpStatus.SC_BAD_REQUEST, old, null));
+                }
+
+                if (oldFromWrite) {
+                    write = Publishers.first(coll.findOneAndReplace(_query,
+                            replacement, FOR_BEFORE_UPSERT_OPS))
+                            .thenApply(_old -> new OperationResult(-1, _old,
+                            DAOUtils.replacedDocument((BsonValue) documentId,
+                                    replacement)));
+                } else {
+                    write = Publishers.first(coll.findOneAndReplace(_query,
+                            replacement, FOR_AFTER_UPSERT_OPS))
+                            .thenApply(_new -> new OperationResult(-1, old,
+                            _new));
+                }
+            } else {
+                write = Publishers.first(coll.findOneAndUpdate(_query,
+                        DAOUtils.getUpdateDocument(data, false),
+                        FAU_UPSERT_OPS))
+                        .thenApply(_new -> new OperationResult(-1, old, _new));
+            }
+
+            return write.handle((result, t) -> t == null
+                    ? result
+                    : writeError(t, documentId, filter, old, replace));
+        });
+    }
+
+    /**
+     * @return the result of the write failed with the duplicate key error
+     * or the bad request error of replace, as DAOUtils.updateDocument()
+     */
+    private static OperationResult writeError(
+            final Throwable t,
+            final Object documentId,
+            final BsonDocument filter,
+            final BsonDocument oldDocument,
+            final boolean replace) {
+        var cause = t instanceof CompletionException && t.getCause() != null
+                ? t.getCause()
+                : t;
+
+        if (replace && cause instanceof IllegalArgumentException) {
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST,
+                    oldDocument, null);
+        } else if (cause instanceof MongoCommandException
+                && ((MongoCommandException) cause).getErrorCode()
+                == DUPLICATE_KEY_ERROR) {
+            var mce = (MongoCommandException) cause;
+
+            LOGGER.debug("document {} not updated, "
+                    + "might be due to a duplicate keys. "
+                    + "errorCode: {}, errorMessage: {}",
+                    documentId,
+                    mce.getErrorCode(),
+                    mce.getErrorMessage());
+
+            if (filter != null
+                    && !filter.isEmpty()
+                    && mce.getErrorMessage().contains("_id_ dup key")) {
+                // the _id and a filter are specified, the document exists
+                // but does not match the filter
+                return new OperationResult(ResponseHelper
+                        .getHttpStatusFromErrorCode(mce.getErrorCode()),
+                        oldDocument,
+                        null);
+            } else {
+                return new OperationResult(HttpStatus.SC_CONFLICT,
+                        oldDocument,
+                        null);
+            }
+        } else {
+            throw t instanceof CompletionException
+                    ? (CompletionException) t
+                    : new CompletionException(t);
+        }
+    }
+
+    /**
+     * @see DAOUtils#restoreDocument
+     */
+    private CompletableFuture<Boolean> restoreDocument(
+            final MongoCollection<BsonDocument> coll,
+            final Object documentId,
+            final BsonDocument shardKeys,
+            final BsonDocument data,
+            final Object etag) {
+        Objects.requireNonNull(coll);
+        Objects.requireNonNull(documentId);
+        Objects.requireNonNull(data);
+
+        Bson query = etag == null
+                ? eq("_id", documentId)
+                : and(eq("_id", documentId), eq("_etag", etag));
+
+        if (shardKeys != null) {
+            query = and(query, shardKeys);
+        }
+
+        return Publishers.first(coll.replaceOne(query, data, R_NOT_UPSERT_OPS))
+                .thenApply(result -> result.getModifiedCount() == 1);
+    }
+
+    /**
+     * restores the old document, deleted or overwritten by the write
+     */
+    private CompletableFuture<?> restore(
+            final MongoCollection<BsonDocument> coll,
+            final BsonDocument shardKeys,
+            final BsonDocument oldDocument,
+            final Object newEtag,
+            final boolean deleting) {
+        return deleting
+                ? updateDocument(
+                        coll,
+                        oldDocument.get("_id"),
+                        null,
+                        shardKeys,
+                        oldDocument,
+                        true)
+                : restoreDocument(
+                        coll,
+                        oldDocument.get("_id"),
+                        shardKeys,
+                        oldDocument,
+                        newEtag);
+    }
+
+    private CompletableFuture<OperationResult> optimisticCheckEtag(
+            final MongoCollection<BsonDocument> coll,
+            final BsonDocument shardKeys,
+            final BsonDocument oldDocument,
+            final BsonDocument newDocument,
+            final Object newEtag,
+            final String requestEtag,
+            final int httpStatusIfOk,
+            final boolean deleting) {
+        BsonValue oldEtag = oldDocument.get("_etag");
+
+        if (oldEtag != null && requestEtag == null) {
+            // oopps, we need to restore old document
+            // they call it optimistic lock strategy
+            return restore(coll, shardKeys, oldDocument, newEtag, deleting)
+                    .thenApply(restored -> new OperationResult(
+                    HttpStatus.SC_CONFLICT, oldEtag, oldDocument, null));
+        }
+
+        BsonValue _requestEtag;
+
+        if (ObjectId.isValid(requestEtag)) {
+            _requestEtag = new BsonObjectId(new ObjectId(requestEtag));
+        } else {
+            // restheart generates ObjectId etags, but here we support
+            // strings as well
+            _requestEtag = new BsonString(requestEtag);
+        }
+
+        if (Objects.equals(_requestEtag, oldEtag)) {
+            return completedFuture(new OperationResult(
+                    httpStatusIfOk, newEtag, oldDocument, newDocument));
+        } else {
+            // oopps, we need to restore old document
+            // they call it optimistic lock strategy
+            return restore(coll, shardKeys, oldDocument, newEtag, deleting)
+                    .thenApply(restored -> new OperationResult(
+                    HttpStatus.SC_PRECONDITION_FAILED,
+                    oldEtag,
+                    oldDocument,
+                    null));
+        }
+    }
+}
@@ -27,8 +27,13 @@ import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
 import org.bson.BsonObjectId;
@@ -180,6 +185,41 @@ class CollectionDAO {
                         .getQueryTimeLimit(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * passes all the documents of the collection, applying sorting, filtering
+     * and projection, to the consumer iterating a single cursor to the end
+     *
+     * the next batch is fetched only when the consumer has accepted the
+     * documents of the previous one. The query-time-limit is not applied,
+     * otherwise the export of a large collection would be interrupted after
+     * the response has started, and the cursor does not time out while the
+     * client is slow to read; it is always closed at the end.
+     */
+    void exportCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final Consumer<BsonDocument> consumer)
+            throws JsonParseException {
+        var find = cs == null
+                ? coll.find(filters)
+                : coll.find(cs, filters);
+
+        try (var mc = find.projection(keys)
+                .sort(sortBy)
+                .batchSize(BATCH_SIZE)
+                .hint(hint)
+                .noCursorTimeout(true)
+                .iterator()) {
+            while (mc.hasNext()) {
+                consumer.accept(mc.next());
+            }
+        }
+    }
+
     ArrayList<BsonDocument> getCollectionData(
             final ClientSession cs,
             final MongoCollection<BsonDocument> coll,
@@ -194,6 +234,28 @@ class CollectionDAO {
 
         ArrayList<BsonDocument> ret = new ArrayList<>();
 
+        getCollectionData(cs, coll, page, pagesize, sortBy, filters, hint,
+                keys, eager, ret::add);
+
+        return ret;
+    }
+
+    /**
+     * passes the documents of the page to the consumer as they are fetched
+     * from the cursor
+     */
+    void getCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final EAGER_CURSOR_ALLOCATION_POLICY eager,
+            final Consumer<BsonDocument> consumer)
+            throws JsonParseException {
         int toskip = pagesize * (page - 1);
 
         SkippedFindIterable _cursor = null;
@@ -206,8 +268,8 @@ class CollectionDAO {
                             coll,
                             sortBy,
                             filters,
-                            hint,
                             keys,
+                            hint,
                             toskip,
                             0),
                     eager);
@@ -223,7 +285,7 @@ class CollectionDAO {
             MongoCursor<BsonDocument> mc = cursor.iterator();
 
             while (mc.hasNext()) {
-                ret.add(mc.next());
+                consumer.accept(mc.next());
             }
         } else {
             int alreadySkipped;
@@ -257,17 +319,15 @@ class CollectionDAO {
             }
 
             for (int cont = pagesize; cont > 0 && mc.hasNext(); cont--) {
-                ret.add(mc.next());
+                consumer.accept(mc.next());
             }
         }
 
         // the pool is populated here because, skipping with cursor.next() is heavy operation
         // and we want to minimize the chances that pool cursors are allocated in parallel
         CursorPool.getInstance().populateCache(
-                new CursorPoolEntryKey(cs, coll, sortBy, filters, hint, keys, toskip, 0),
+                new CursorPoolEntryKey(cs, coll, sortBy, filters, keys, hint, toskip, 0),
                 eager);
-
-        return ret;
     }
 
     /**
@@ -301,6 +361,54 @@ class CollectionDAO {
         return props;
     }
 
+    /**
+     * Returns the properties of the collections with a single query. The
+     * collections are expected to exist, e.g. the names are got from
+     * getCollectionNames(); the properties of a collection without metadata
+     * are {_id: collName}
+     *
+     * @param cs the client session
+     * @param dbName the database name of the collections
+     * @param collNames the collections names
+     * @return a map collName -> collection properties document, with the
+     * order of collNames
+     */
+    public Map<String, BsonDocument> getCollectionsProps(
+            final ClientSession cs,
+            final String dbName,
+            final List<String> collNames) {
+        var ret = new LinkedHashMap<String, BsonDocument>();
+
+        if (collNames.isEmpty()) {
+            return ret;
+        }
+
+        var ids = new BsonArray();
+
+        collNames.forEach(collName -> {
+            ids.add(new BsonString(COLL_META_DOCID_PREFIX.concat(collName)));
+            ret.put(collName, new BsonDocument("_id", new BsonString(collName)));
+        });
+
+        MongoCollection<BsonDocument> propsColl
+                = getCollection(dbName, META_COLLNAME);
+
+        var query = new BsonDocument("_id", new BsonDocument("$in", ids));
+
+        var props = cs == null
+                ? propsColl.find(query)
+                : propsColl.find(cs, query);
+
+        props.forEach((Consumer<BsonDocument>) p -> {
+            var collName = p.getString("_id").getValue()
+                    .substring(COLL_META_DOCID_PREFIX.length());
+
+            ret.put(collName, p.append("_id", new BsonString(collName)));
+        });
+
+        return ret;
+    }
+
     /**
      * Returns true if the collection exists
      *
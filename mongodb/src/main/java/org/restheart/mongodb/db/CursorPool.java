@@ -17,19 +17,21 @@
  */
 package org.restheart.mongodb.db;
 
+import com.codahale.metrics.Counter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.client.FindIterable;
 import static java.lang.Thread.MIN_PRIORITY;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.bson.BsonDocument;
 import static org.fusesource.jansi.Ansi.Color.GREEN;
@@ -41,6 +43,7 @@ import org.restheart.cache.CacheFactory;
 import org.restheart.cache.LoadingCache;
 import org.restheart.handlers.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -107,13 +110,45 @@ public class CursorPool {
     private final Cache<CursorPoolEntryKey, FindIterable<BsonDocument>> cache;
     private final LoadingCache<CursorPoolEntryKey, Long> collSizes;
 
+    /**
+     * the keys of the cursors in the pool indexed by query shape and ordered
+     * by skips, so that the best cursor for a request is found with a floor()
+     * lookup. Entries are removed when a cursor is taken from the pool or
+     * removed from the cache.
+     */
+    private final Map<QueryShape, ConcurrentSkipListSet<CursorPoolEntryKey>> index
+            = new ConcurrentHashMap<>();
+
+    private static final Comparator<CursorPoolEntryKey> BY_SKIPS
+            = Comparator.comparingInt(CursorPoolEntryKey::getSkipped)
+                    .thenComparingLong(CursorPoolEntryKey::getCursorId);
+
+    /**
+     * the counters CURSOR_POOL.hits, CURSOR_POOL.misses and
+     * CURSOR_POOL.saved-skips of the default metrics registry
+     */
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter savedSkips;
+
     private CursorPool(DatabaseImpl dbsDAO) {
+        this(dbsDAO, POOL_SIZE, TTL);
+    }
+
+    CursorPool(DatabaseImpl dbsDAO, long poolSize, long ttl) {
         this.dbsDAO = dbsDAO;
 
+        var registry = new SharedMetricRegistryProxy().registry();
+
+        hits = registry.counter("CURSOR_POOL.hits");
+        misses = registry.counter("CURSOR_POOL.misses");
+        savedSkips = registry.counter("CURSOR_POOL.saved-skips");
+
         cache = CacheFactory.createLocalCache(
-                POOL_SIZE,
+                poolSize,
                 Cache.EXPIRE_POLICY.AFTER_READ,
-                TTL);
+                ttl,
+                entry -> unindex(entry.getKey()));
 
         collSizes = CacheFactory.createLocalLoadingCache(100,
                 org.restheart.cache.Cache.EXPIRE_POLICY.AFTER_WRITE,
@@ -134,6 +169,12 @@ public class CursorPool {
                             LOGGER.debug("db cursor pool size: {}\t{}", s, c);
                         });
 
+                        LOGGER.debug("db cursor pool hits: {}, misses: {}, "
+                                + "saved skips: {}",
+                                getHits(),
+                                getMisses(),
+                                getSavedSkips());
+
                         LOGGER.trace(""
                                 + "db cursor pool entries: {}",
                                 cache.asMap().keySet());
@@ -147,7 +188,7 @@ public class CursorPool {
      * @param allocationPolicy
      * @return
      */
-    public synchronized SkippedFindIterable get(
+    public SkippedFindIterable get(
             CursorPoolEntryKey key,
             EAGER_CURSOR_ALLOCATION_POLICY allocationPolicy) {
         if (key.getSkipped() < SKIP_SLICE_LINEAR_WIDTH) {
@@ -158,43 +199,102 @@ public class CursorPool {
             return null;
         }
 
-        // return the dbcursor with the closest skips to the request
-        Optional<CursorPoolEntryKey> _bestKey = cache.asMap().keySet().stream()
-                .filter(cursorsPoolFilterGte(key))
-                .sorted(Comparator.comparingInt(CursorPoolEntryKey::getSkipped).reversed())
-                .findFirst();
-
-        SkippedFindIterable ret;
-
-        if (_bestKey.isPresent()) {
-            Optional<FindIterable<BsonDocument>> _dbcur
-                    = cache.get(_bestKey.get());
-
-            if (_dbcur != null && _dbcur.isPresent()) {
-                ret = new SkippedFindIterable(
-                        _dbcur.get(),
-                        _bestKey.get().getSkipped());
-                cache.invalidate(_bestKey.get());
-
-                LOGGER.debug("{} cursor in pool. id {}, saving {} skips",
-                        ansi().fg(GREEN).bold().a("found").reset().toString(),
-                        _bestKey.get().getCursorId(),
-                        key.getSkipped(),
-                        _bestKey.get().getSkipped());
-            } else {
-                ret = null;
-
-                LOGGER.debug("{} cursor in pool.",
-                        ansi().fg(RED).bold().a("no").reset().toString());
-            }
-        } else {
-            ret = null;
+        var candidates = index.get(new QueryShape(key));
+
+        if (candidates != null) {
+            // the cursor with the closest skips to the request
+            var probe = new CursorPoolEntryKey(key.getSession(),
+                    key.getCollection(),
+                    key.getSort(),
+                    key.getFilter(),
+                    key.getKeys(),
+                    key.getHint(),
+                    key.getSkipped(),
+                    Long.MAX_VALUE);
+
+            var minSkips = key.getSkipped()
+                    - MIN_SKIP_DISTANCE_PERCENTAGE * key.getSkipped();
+
+            CursorPoolEntryKey bestKey;
+
+            while ((bestKey = candidates.floor(probe)) != null
+                    && bestKey.getSkipped() >= minSkips) {
+                // removing the key from the index makes sure that
+                // the cursor is given to one request only
+                if (!candidates.remove(bestKey)) {
+                    continue;
+                }
+
+                var _dbcur = cache.get(bestKey);
+                cache.invalidate(bestKey);
 
-            LOGGER.debug(ansi().fg(RED).bold().a("no").reset().toString()
-                    + " cursor in pool.");
+                if (_dbcur != null && _dbcur.isPresent()) {
+                    hits.inc();
+                    savedSkips.inc(bestKey.getSkipped());
+
+                    LOGGER.debug("{} cursor in pool. id {}, saving {} skips",
+                            ansi().fg(GREEN).bold().a("found").reset().toString(),
+                            bestKey.getCursorId(),
+                            bestKey.getSkipped());
+
+                    return new SkippedFindIterable(
+                            _dbcur.get(),
+                            bestKey.getSkipped());
+                }
+            }
         }
 
-        return ret;
+        misses.inc();
+
+        LOGGER.debug(ansi().fg(RED).bold().a("no").reset().toString()
+                + " cursor in pool.");
+
+        return null;
+    }
+
+    /**
+     * @return the number of requests served with a cursor from the pool
+     */
+    public long getHits() {
+        return hits.getCount();
+    }
+
+    /**
+     * @return the number of requests that could use a cursor from the pool
+     * but none was found
+     */
+    public long getMisses() {
+        return misses.getCount();
+    }
+
+    /**
+     * @return the total number of skips saved using cursors from the pool
+     */
+    public long getSavedSkips() {
+        return savedSkips.getCount();
+    }
+
+    void put(CursorPoolEntryKey key, FindIterable<BsonDocument> cursor) {
+        // the key is indexed before the cursor is put in the cache, so that
+        // its eviction, that can happen as soon as it is in the cache,
+        // always finds the key to unindex
+        index.compute(new QueryShape(key), (k, keys) -> {
+            var ret = keys == null
+                    ? new ConcurrentSkipListSet<>(BY_SKIPS)
+                    : keys;
+
+            ret.add(key);
+            return ret;
+        });
+
+        cache.put(key, cursor);
+    }
+
+    private void unindex(CursorPoolEntryKey key) {
+        index.computeIfPresent(new QueryShape(key), (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
     }
 
     void populateCache(
@@ -260,12 +360,12 @@ public class CursorPool {
                                 key.getCollection(),
                                 key.getSort(),
                                 key.getFilter(),
-                                key.getHint(),
                                 key.getKeys(),
+                                key.getHint(),
                                 sliceSkips,
                                 System.nanoTime());
 
-                        cache.put(newkey, cursor);
+                        put(newkey, cursor);
 
                         LOGGER.debug("{} cursor in pool: {}",
                                 ansi().fg(YELLOW).bold().a("new").reset()
@@ -305,7 +405,15 @@ public class CursorPool {
                 for (int slice = 1; slice < slices; slice++) {
                     int sliceSkips = slice * sliceWidht;
 
-                    CursorPoolEntryKey sliceKey = new CursorPoolEntryKey(key);
+                    CursorPoolEntryKey sliceKey = new CursorPoolEntryKey(
+                            key.getSession(),
+                            key.getCollection(),
+                            key.getSort(),
+                            key.getFilter(),
+                            key.getKeys(),
+                            key.getHint(),
+                            sliceSkips,
+                            -1);
 
                     LOGGER.debug("{} cursor in pool: {}",
                             ansi().fg(YELLOW).bold().a("new").reset()
@@ -333,11 +441,12 @@ public class CursorPool {
                                 key.getCollection(),
                                 key.getSort(),
                                 key.getFilter(),
-                                key.getHint(),
                                 key.getKeys(),
+                                key.getHint(),
                                 sliceSkips,
                                 System.nanoTime());
-                        cache.put(newkey, cursor);
+
+                        put(newkey, cursor);
 
                         LOGGER.debug("{} cursor in pool (copied): {}",
                                 ansi().fg(YELLOW).bold().a("new").reset()
@@ -353,10 +462,29 @@ public class CursorPool {
 
     }
 
-    private long getSliceHeight(CursorPoolEntryKey key) {
-        long ret = cache.asMap().keySet().stream()
-                .filter(cursorsPoolFilterEq(key))
-                .count();
+    long getSliceHeight(CursorPoolEntryKey key) {
+        var keys = index.get(new QueryShape(key));
+
+        long ret = keys == null
+                ? 0
+                : keys.subSet(
+                        new CursorPoolEntryKey(key.getSession(),
+                                key.getCollection(),
+                                key.getSort(),
+                                key.getFilter(),
+                                key.getKeys(),
+                                key.getHint(),
+                                key.getSkipped(),
+                                Long.MIN_VALUE), true,
+                        new CursorPoolEntryKey(key.getSession(),
+                                key.getCollection(),
+                                key.getSort(),
+                                key.getFilter(),
+                                key.getKeys(),
+                                key.getHint(),
+                                key.getSkipped(),
+                                Long.MAX_VALUE), true)
+                        .size();
 
         LOGGER.trace(
                 "cursor in pool with skips {} are {}",
@@ -366,38 +494,6 @@ public class CursorPool {
         return ret;
     }
 
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterEq(
-            CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.getCollection()
-                        .getNamespace(),
-                        requestCursor.getCollection().getNamespace())
-                && Objects.equals(poolCursor.getFilter(),
-                        requestCursor.getFilter())
-                && Objects.equals(poolCursor.getSort(),
-                        requestCursor.getSort())
-                && Objects.equals(poolCursor.getKeys(),
-                        requestCursor.getKeys())
-                && poolCursor.getSkipped() == requestCursor.getSkipped();
-    }
-
-    private Predicate<? super CursorPoolEntryKey> cursorsPoolFilterGte(
-            CursorPoolEntryKey requestCursor) {
-        return poolCursor
-                -> Objects.equals(poolCursor.getCollection().getNamespace(),
-                        requestCursor.getCollection().getNamespace())
-                && Objects.equals(poolCursor.getFilter(),
-                        requestCursor.getFilter())
-                && Objects.equals(poolCursor.getSort(),
-                        requestCursor.getSort())
-                && Objects.equals(poolCursor.getKeys(),
-                        requestCursor.getKeys())
-                && poolCursor.getSkipped() <= requestCursor.getSkipped()
-                && requestCursor.getSkipped() - poolCursor.getSkipped()
-                <= MIN_SKIP_DISTANCE_PERCENTAGE
-                * requestCursor.getSkipped();
-    }
-
     private TreeMap<String, Long> getCacheSizes() {
         return new TreeMap<>(cache.asMap()
                 .keySet()
@@ -407,6 +503,51 @@ public class CursorPool {
                         Collectors.counting())));
     }
 
+    /**
+     * identifies the cursors that can be reused for a request: same collection,
+     * filter, sort, keys and hint
+     */
+    private static final class QueryShape {
+        private final String namespace;
+        private final BsonDocument filter;
+        private final BsonDocument sort;
+        private final BsonDocument keys;
+        private final BsonDocument hint;
+        private final int hash;
+
+        QueryShape(CursorPoolEntryKey key) {
+            this.namespace = key.getCollection().getNamespace().getFullName();
+            this.filter = key.getFilter();
+            this.sort = key.getSort();
+            this.keys = key.getKeys();
+            this.hint = key.getHint();
+            this.hash = Objects.hash(namespace, filter, sort, keys, hint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof QueryShape)) {
+                return false;
+            }
+            final QueryShape other = (QueryShape) obj;
+
+            return hash == other.hash
+                    && Objects.equals(namespace, other.namespace)
+                    && Objects.equals(filter, other.filter)
+                    && Objects.equals(sort, other.sort)
+                    && Objects.equals(keys, other.keys)
+                    && Objects.equals(hint, other.hint);
+        }
+    }
+
     private static class DBCursorPoolSingletonHolder {
 
         private static final CursorPool INSTANCE
@@ -95,6 +95,12 @@ public class DAOUtils {
     public final static FindOneAndReplaceOptions FOR_AFTER_UPSERT_OPS = new FindOneAndReplaceOptions()
             .upsert(true).returnDocument(ReturnDocument.AFTER);
 
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_UPSERT_OPS = new FindOneAndReplaceOptions()
+            .upsert(true).returnDocument(ReturnDocument.BEFORE);
+
     /**
      *
      */
@@ -131,7 +137,7 @@ public class DAOUtils {
     public final static BulkWriteOptions BWO_NOT_ORDERED = new BulkWriteOptions()
             .ordered(false);
 
-    private static final Bson IMPOSSIBLE_CONDITION = eq("_etag", new ObjectId());
+    static final Bson IMPOSSIBLE_CONDITION = eq("_etag", new ObjectId());
 
     /**
      *
@@ -246,9 +252,16 @@ public class DAOUtils {
             query = and(query, shardKeys);
         }
 
+        // replacing a document with a known id, the write itself returns
+        // the old document and the new one is the replacement document
+        final boolean oldFromWrite = replace
+                && allowUpsert
+                && idPresent
+                && documentId instanceof BsonValue;
+
         BsonDocument oldDocument;
 
-        if (idPresent) {
+        if (idPresent && !oldFromWrite) {
             oldDocument = cs == null
                     ? coll.find(query).first()
                     : coll.find(cs, query).first();
@@ -268,13 +281,26 @@ public class DAOUtils {
             BsonDocument newDocument;
 
             try {
-                newDocument = cs == null
-                        ? coll.findOneAndReplace(query,
-                                getReplaceDocument(data),
-                                allowUpsert ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS)
-                        : coll.findOneAndReplace(cs, query,
-                                getReplaceDocument(data),
-                                allowUpsert ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS);
+                var replacement = getReplaceDocument(data);
+
+                if (oldFromWrite) {
+                    oldDocument = cs == null
+                            ? coll.findOneAndReplace(query, replacement,
+                                    FOR_BEFORE_UPSERT_OPS)
+                            : coll.findOneAndReplace(cs, query, replacement,
+                                    FOR_BEFORE_UPSERT_OPS);
+
+                    newDocument = replacedDocument((BsonValue) documentId,
+                            replacement);
+                } else {
+                    newDocument = cs == null
+                            ? coll.findOneAndReplace(query,
+                                    replacement,
+                                    allowUpsert ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS)
+                            : coll.findOneAndReplace(cs, query,
+                                    replacement,
+                                    allowUpsert ? FOR_AFTER_UPSERT_OPS : FOR_AFTER_NOT_UPSERT_OPS);
+                }
             } catch (IllegalArgumentException iae) {
                 return new OperationResult(HttpStatus.SC_BAD_REQUEST, oldDocument, null);
             } catch (MongoCommandException mce) {
@@ -548,6 +574,24 @@ public class DAOUtils {
         }
     }
 
+    /**
+     * @param documentId
+     * @param replacement
+     * @return the document stored by replacing the document with the given id
+     * with the replacement document
+     */
+    static BsonDocument replacedDocument(
+            final BsonValue documentId,
+            final BsonDocument replacement) {
+        var ret = new BsonDocument("_id", documentId);
+
+        replacement.entrySet().stream()
+                .filter(e -> !"_id".equals(e.getKey()))
+                .forEachOrdered(e -> ret.put(e.getKey(), e.getValue()));
+
+        return ret;
+    }
+
     /**
      *
      * @param data
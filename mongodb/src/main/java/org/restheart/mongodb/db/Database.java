@@ -23,6 +23,7 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.bson.BsonDocument;
 import org.bson.json.JsonParseException;
 import org.restheart.handlers.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
@@ -122,6 +123,52 @@ public interface Database {
             final BsonDocument keys,
             final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy);
 
+    /**
+     *
+     * @param cs the client session
+     * @param collection
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param cursorAllocationPolicy
+     * @param consumer receives the documents as they are fetched from the
+     * cursor
+     */
+    void getCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> collection,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy,
+            final Consumer<BsonDocument> consumer);
+
+    /**
+     *
+     * @param cs the client session
+     * @param collection
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param consumer receives all the documents of the collection, iterating
+     * a single cursor without paging
+     */
+    void exportCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> collection,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final Consumer<BsonDocument> consumer);
+
     /**
      *
      * @param cs the client session
@@ -24,8 +24,11 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
@@ -248,33 +251,54 @@ public class DatabaseImpl implements Database {
                         ? _colls.size()
                         : (page - 1) * pagesize + pagesize);
 
-        List<BsonDocument> data = new ArrayList<>();
+        Map<String, BsonDocument> collsProps;
 
-        _colls.stream().map(
-                (collName) -> {
-                    BsonDocument properties
-                    = new BsonDocument("_id", new BsonString(collName));
+        if (LocalCachesSingleton.isEnabled()) {
+            var cache = LocalCachesSingleton.getInstance();
 
-                    BsonDocument collProperties;
+            collsProps = new HashMap<>();
 
-                    if (LocalCachesSingleton.isEnabled()) {
-                        collProperties = LocalCachesSingleton.getInstance()
-                                .getCollectionProperties(dbName, collName);
-                    } else {
-                        collProperties = collectionDAO.getCollectionProps(
-                                cs,
-                                dbName,
-                                collName);
-                    }
+            var notCached = new ArrayList<String>();
 
-                    if (collProperties != null) {
-                        properties.putAll(collProperties);
-                    }
+            _colls.forEach(collName -> {
+                var cached = cache.getCachedCollectionProperties(dbName,
+                        collName);
 
-                    return properties;
+                if (cached == null) {
+                    notCached.add(collName);
+                } else if (cached.isPresent()) {
+                    collsProps.put(collName, cached.get());
                 }
-        ).forEach((item) -> {
-            data.add(item);
+            });
+
+            // load the properties of the collections not cached
+            // with a single query and warm the cache
+            collectionDAO.getCollectionsProps(
+                    null, // no client session, as the cache loader
+                    dbName,
+                    notCached)
+                    .forEach((collName, collProps) -> {
+                        cache.putCollectionProperties(dbName, collName,
+                                collProps);
+                        collsProps.put(collName, collProps);
+                    });
+        } else {
+            collsProps = collectionDAO.getCollectionsProps(cs, dbName, _colls);
+        }
+
+        List<BsonDocument> data = new ArrayList<>();
+
+        _colls.forEach(collName -> {
+            BsonDocument properties
+                    = new BsonDocument("_id", new BsonString(collName));
+
+            BsonDocument collProperties = collsProps.get(collName);
+
+            if (collProperties != null) {
+                properties.putAll(collProperties);
+            }
+
+            data.add(properties);
         });
 
         return data;
@@ -614,6 +638,73 @@ public class DatabaseImpl implements Database {
                 cursorAllocationPolicy);
     }
 
+    /**
+     *
+     * @param cs the client session
+     * @param coll
+     * @param page
+     * @param pagesize
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param cursorAllocationPolicy
+     * @param consumer
+     */
+    @Override
+    public void getCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final EAGER_CURSOR_ALLOCATION_POLICY cursorAllocationPolicy,
+            final Consumer<BsonDocument> consumer) {
+        collectionDAO.getCollectionData(
+                cs,
+                coll,
+                page,
+                pagesize,
+                sortBy,
+                filter,
+                hint,
+                keys,
+                cursorAllocationPolicy,
+                consumer);
+    }
+
+    /**
+     *
+     * @param cs the client session
+     * @param coll
+     * @param sortBy
+     * @param filter
+     * @param hint
+     * @param keys
+     * @param consumer
+     */
+    @Override
+    public void exportCollectionData(
+            final ClientSession cs,
+            final MongoCollection<BsonDocument> coll,
+            final BsonDocument sortBy,
+            final BsonDocument filter,
+            final BsonDocument hint,
+            final BsonDocument keys,
+            final Consumer<BsonDocument> consumer) {
+        collectionDAO.exportCollectionData(
+                cs,
+                coll,
+                sortBy,
+                filter,
+                hint,
+                keys,
+                consumer);
+    }
+
     /**
      *
      * @param cs the client session
@@ -126,71 +126,70 @@ public class DocumentDAO implements DocumentRepository {
 
         content.put("_etag", new BsonObjectId(newEtag));
 
-        OperationResult updateResult = DAOUtils.updateDocument(
-                cs,
-                mcoll,
-                documentId,
-                filter,
-                shardKeys,
-                content,
-                !patching);
-        
-        BsonDocument oldDocument = updateResult.getOldData();
-
-        if (patching) {
-            if (oldDocument == null) {
-                return new OperationResult(
-                        updateResult.getHttpCode() > 0
-                        ? updateResult.getHttpCode()
-                        : HttpStatus.SC_CREATED, newEtag, null, updateResult.getNewData());
-            } else if (checkEtag) {
-                // check the old etag (in case restore the old document version)
+        try {
+            OperationResult updateResult = DAOUtils.updateDocument(
+                    cs,
+                    mcoll,
+                    documentId,
+                    filter,
+                    shardKeys,
+                    content,
+                    !patching);
+
+            // the write returns the new document, no need to read it again
+            BsonDocument oldDocument = updateResult.getOldData();
+            BsonDocument newDocument = updateResult.getNewData();
+
+            if (patching) {
+                if (oldDocument == null) {
+                    return new OperationResult(
+                            updateResult.getHttpCode() > 0
+                            ? updateResult.getHttpCode()
+                            : HttpStatus.SC_CREATED, newEtag, null, newDocument);
+                } else if (checkEtag) {
+                    // check the old etag (in case restore the old document version)
+                    return optimisticCheckEtag(
+                            cs,
+                            mcoll,
+                            shardKeys,
+                            oldDocument,
+                            newDocument,
+                            newEtag,
+                            requestEtag,
+                            HttpStatus.SC_OK,
+                            false);
+                } else {
+                    return new OperationResult(updateResult.getHttpCode() > 0
+                            ? updateResult.getHttpCode()
+                            : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
+                }
+            } else if (oldDocument != null && checkEtag) { // upsertDocument
+                // check the old etag (in case restore the old document)
                 return optimisticCheckEtag(
                         cs,
                         mcoll,
                         shardKeys,
                         oldDocument,
+                        newDocument,
                         newEtag,
                         requestEtag,
                         HttpStatus.SC_OK,
                         false);
-            } else {
-                var query = eq("_id", documentId);
-                BsonDocument newDocument = cs == null
-                        ? mcoll.find(query).first()
-                        : mcoll.find(cs, query).first();
-
-                return new OperationResult(updateResult.getHttpCode() > 0
+            } else if (oldDocument != null) {  // insert
+                return new OperationResult(
+                        updateResult.getHttpCode() > 0
                         ? updateResult.getHttpCode()
                         : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
+            } else {
+                return new OperationResult(
+                        updateResult.getHttpCode() > 0
+                        ? updateResult.getHttpCode()
+                        : HttpStatus.SC_CREATED, newEtag, null, newDocument);
             }
-        } else if (oldDocument != null && checkEtag) { // upsertDocument
-            // check the old etag (in case restore the old document)
-            return optimisticCheckEtag(
-                    cs,
-                    mcoll,
-                    shardKeys,
-                    oldDocument,
-                    newEtag,
-                    requestEtag,
-                    HttpStatus.SC_OK,
-                    false);
-        } else if (oldDocument != null) {  // insert
-            BsonDocument newDocument = mcoll.find(
-                    eq("_id", documentId)).first();
-
-            return new OperationResult(
-                    updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_OK, newEtag, oldDocument, newDocument);
-        } else {
-            BsonDocument newDocument = mcoll.find(
-                    eq("_id", documentId)).first();
-
-            return new OperationResult(
-                    updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_CREATED, newEtag, null, newDocument);
+        } finally {
+            // after the eventual restore of the old version and also if the
+            // write fails
+            EtagCache.invalidate(cs, dbName, collName, documentId);
         }
     }
 
@@ -234,43 +233,50 @@ public class DocumentDAO implements DocumentRepository {
             documentId = Optional.empty(); // key _id is not present
         }
 
-        // new document since the id is missing ()
-        OperationResult updateResult = DAOUtils.updateDocument(
-                cs,
-                mcoll,
-                documentId,
-                filter,
-                shardKeys,
-                content,
-                true);
-
-        BsonDocument oldDocument = updateResult.getOldData();
-        BsonDocument newDocument = updateResult.getNewData();
-
-        if (oldDocument == null) {
-            return new OperationResult(
-                    updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_CREATED,
-                    newEtag,
-                    null,
-                    newDocument);
-        } else if (checkEtag) {  // upsertDocument
-            // check the old etag (in case restore the old document version)
-            return optimisticCheckEtag(
+        try {
+            // new document since the id is missing ()
+            OperationResult updateResult = DAOUtils.updateDocument(
                     cs,
                     mcoll,
+                    documentId,
+                    filter,
                     shardKeys,
-                    oldDocument,
-                    newEtag,
-                    requestEtag,
-                    HttpStatus.SC_OK,
-                    false);
-        } else {
-            return new OperationResult(updateResult.getHttpCode() > 0
-                    ? updateResult.getHttpCode()
-                    : HttpStatus.SC_OK,
-                    newEtag, oldDocument, newDocument);
+                    content,
+                    true);
+
+            BsonDocument oldDocument = updateResult.getOldData();
+            BsonDocument newDocument = updateResult.getNewData();
+
+            if (oldDocument == null) {
+                return new OperationResult(
+                        updateResult.getHttpCode() > 0
+                        ? updateResult.getHttpCode()
+                        : HttpStatus.SC_CREATED,
+                        newEtag,
+                        null,
+                        newDocument);
+            } else if (checkEtag) {  // upsertDocument
+                // check the old etag (in case restore the old document version)
+                return optimisticCheckEtag(
+                        cs,
+                        mcoll,
+                        shardKeys,
+                        oldDocument,
+                        newDocument,
+                        newEtag,
+                        requestEtag,
+                        HttpStatus.SC_OK,
+                        false);
+            } else {
+                return new OperationResult(updateResult.getHttpCode() > 0
+                        ? updateResult.getHttpCode()
+                        : HttpStatus.SC_OK,
+                        newEtag, oldDocument, newDocument);
+            }
+        } finally {
+            // after the eventual restore of the old version and also if the
+            // write fails
+            EtagCache.invalidate(cs, dbName, collName, documentId);
         }
     }
 
@@ -309,12 +315,17 @@ public class DocumentDAO implements DocumentRepository {
                             .put("_etag", newEtag);
                 });
 
-        return DAOUtils.bulkUpsertDocuments(
-                cs,
-                mcoll,
-                documents,
-                filter,
-                shardKeys);
+        try {
+            return DAOUtils.bulkUpsertDocuments(
+                    cs,
+                    mcoll,
+                    documents,
+                    filter,
+                    shardKeys);
+        } finally {
+            // also in case of partial failure
+            EtagCache.invalidateCollection(cs, dbName, collName);
+        }
     }
 
     /**
@@ -344,26 +355,33 @@ public class DocumentDAO implements DocumentRepository {
         MongoCollection<BsonDocument> mcoll
                 = mdb.getCollection(collName, BsonDocument.class);
 
-        BsonDocument oldDocument = cs == null
-                ? mcoll.findOneAndDelete(
-                        getIdFilter(documentId, filter, shardedKeys))
-                : mcoll.findOneAndDelete(cs,
-                        getIdFilter(documentId, filter, shardedKeys));
-
-        if (oldDocument == null) {
-            return new OperationResult(HttpStatus.SC_NOT_FOUND);
-        } else if (checkEtag) {
-            // check the old etag (in case restore the old document version)
-            return optimisticCheckEtag(
-                    cs,
-                    mcoll,
-                    null,
-                    oldDocument,
-                    null,
-                    requestEtag,
-                    HttpStatus.SC_NO_CONTENT, true);
-        } else {
-            return new OperationResult(HttpStatus.SC_NO_CONTENT);
+        try {
+            BsonDocument oldDocument = cs == null
+                    ? mcoll.findOneAndDelete(
+                            getIdFilter(documentId, filter, shardedKeys))
+                    : mcoll.findOneAndDelete(cs,
+                            getIdFilter(documentId, filter, shardedKeys));
+
+            if (oldDocument == null) {
+                return new OperationResult(HttpStatus.SC_NOT_FOUND);
+            } else if (checkEtag) {
+                // check the old etag (in case restore the old document version)
+                return optimisticCheckEtag(
+                        cs,
+                        mcoll,
+                        null,
+                        oldDocument,
+                        null,
+                        null,
+                        requestEtag,
+                        HttpStatus.SC_NO_CONTENT, true);
+            } else {
+                return new OperationResult(HttpStatus.SC_NO_CONTENT);
+            }
+        } finally {
+            // after the eventual restore of the old version and also if the
+            // write fails
+            EtagCache.invalidate(cs, dbName, collName, documentId);
         }
     }
 
@@ -416,9 +434,15 @@ public class DocumentDAO implements DocumentRepository {
 
         deletes.add(new DeleteManyModel<>(_filter));
 
-        BulkWriteResult result = cs == null
-                ? mcoll.bulkWrite(deletes)
-                : mcoll.bulkWrite(cs, deletes);
+        BulkWriteResult result;
+
+        try {
+            result = cs == null
+                    ? mcoll.bulkWrite(deletes)
+                    : mcoll.bulkWrite(cs, deletes);
+        } finally {
+            EtagCache.invalidateCollection(cs, dbName, collName);
+        }
 
         return new BulkOperationResult(HttpStatus.SC_OK, null, result);
     }
@@ -460,9 +484,15 @@ public class DocumentDAO implements DocumentRepository {
                 DAOUtils.getUpdateDocument(data),
                 DAOUtils.U_NOT_UPSERT_OPS));
 
-        BulkWriteResult result = cs == null
-                ? mcoll.bulkWrite(patches)
-                : mcoll.bulkWrite(cs, patches);
+        BulkWriteResult result;
+
+        try {
+            result = cs == null
+                    ? mcoll.bulkWrite(patches)
+                    : mcoll.bulkWrite(cs, patches);
+        } finally {
+            EtagCache.invalidateCollection(cs, dbName, collName);
+        }
 
         return new BulkOperationResult(HttpStatus.SC_OK, null, result);
     }
@@ -472,6 +502,7 @@ public class DocumentDAO implements DocumentRepository {
             final MongoCollection<BsonDocument> coll,
             final BsonDocument shardKeys,
             final BsonDocument oldDocument,
+            final BsonDocument newDocument,
             final Object newEtag,
             final String requestEtag,
             final int httpStatusIfOk,
@@ -518,12 +549,6 @@ public class DocumentDAO implements DocumentRepository {
         }
 
         if (Objects.equals(_requestEtag, oldEtag)) {
-            var query = eq("_id", oldDocument.get("_id"));
-
-            BsonDocument newDocument = cs == null
-                    ? coll.find(query).first()
-                    : coll.find(cs, query).first();
-
             return new OperationResult(
                     httpStatusIfOk, newEtag, oldDocument, newDocument);
         } else {
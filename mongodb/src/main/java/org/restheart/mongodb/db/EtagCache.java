@@ -0,0 +1,344 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.client.ClientSession;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDouble;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * A bounded cache of the etags of the documents, used to reply 304 Not
+ * Modified to conditional GET requests without querying the db.
+ *
+ * The entries are invalidated by the writes executed via DocumentDAO and by
+ * the deletion of the collection or db, and expire after the ttl. Writes that
+ * don't go through this instance are not seen, so the cache is disabled by
+ * default.
+ *
+ * A read must get the generation of the document before querying the db and
+ * pass it to put(): the invalidations increment it, so that an etag read
+ * before a concurrent write is not cached. Writes in a transaction are not
+ * visible until the commit, so they also leave a tombstone that prevents
+ * caching the document (or the collection for bulk writes) for
+ * TOMBSTONE_TTL.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class EtagCache {
+
+    /**
+     * the default transactionLifetimeLimitSeconds of MongoDB, after which
+     * the transaction is aborted
+     */
+    static final long TOMBSTONE_TTL = 60 * 1000;
+
+    /**
+     * the generations of the keys, striped by hash
+     */
+    private static final int STRIPES = 1024;
+    private static final AtomicLongArray GENERATIONS
+            = new AtomicLongArray(STRIPES);
+
+    private static volatile Cache<Key, BsonObjectId> CACHE = null;
+    private static volatile Cache<Key, Boolean> TOMBSTONES = null;
+
+    /**
+     * @param size the maximum number of cached etags, 0 disables the cache
+     * @param ttl Time To Live in milliseconds, a value &lt;= 0 never expires
+     * the entries
+     */
+    public static void init(long size, long ttl) {
+        TOMBSTONES = size > 0
+                ? CacheFactory.createLocalCache(size,
+                        Cache.EXPIRE_POLICY.AFTER_WRITE, TOMBSTONE_TTL)
+                : null;
+        CACHE = size > 0
+                ? CacheFactory.createLocalCache(size,
+                        Cache.EXPIRE_POLICY.AFTER_WRITE, ttl)
+                : null;
+    }
+
+    /**
+     * @return true if the cache is enabled
+     */
+    public static boolean isEnabled() {
+        return CACHE != null;
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @return the cached etag of the document or null if not cached
+     */
+    public static BsonObjectId get(String dbName, String collName,
+            BsonValue documentId) {
+        var cache = CACHE;
+
+        if (cache == null || documentId == null) {
+            return null;
+        }
+
+        var cached = cache.get(new Key(dbName, collName, documentId));
+
+        return cached == null ? null : cached.orElse(null);
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @return the generation of the document, to get before reading it
+     */
+    public static long generation(String dbName, String collName,
+            BsonValue documentId) {
+        return documentId == null
+                ? 0
+                : GENERATIONS.get(stripe(new Key(dbName, collName, documentId)));
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     * @param etag only ObjectId etags are cached
+     * @param generation the generation of the document before reading it,
+     * the etag is not cached if it was invalidated meanwhile
+     */
+    public static void put(String dbName, String collName,
+            BsonValue documentId, BsonValue etag, long generation) {
+        var cache = CACHE;
+        var tombstones = TOMBSTONES;
+
+        if (cache == null || tombstones == null || documentId == null
+                || etag == null || !etag.isObjectId()) {
+            return;
+        }
+
+        var key = new Key(dbName, collName, documentId);
+        var stripe = stripe(key);
+
+        if (GENERATIONS.get(stripe) != generation
+                || tombstones.get(key) != null
+                || tombstones.get(new Key(dbName, collName, null)) != null) {
+            return;
+        }
+
+        cache.put(key, etag.asObjectId());
+
+        // the document was invalidated while putting it
+        if (GENERATIONS.get(stripe) != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param documentId
+     */
+    public static void invalidate(String dbName, String collName,
+            Object documentId) {
+        invalidate(null, dbName, collName, documentId);
+    }
+
+    /**
+     *
+     * @param cs the client session of the write
+     * @param dbName
+     * @param collName
+     * @param documentId
+     */
+    public static void invalidate(ClientSession cs, String dbName,
+            String collName, Object documentId) {
+        var cache = CACHE;
+        var tombstones = TOMBSTONES;
+
+        if (cache != null && tombstones != null
+                && documentId instanceof BsonValue) {
+            var key = new Key(dbName, collName, (BsonValue) documentId);
+
+            if (cs != null && cs.hasActiveTransaction()) {
+                tombstones.put(key, true);
+            }
+
+            GENERATIONS.incrementAndGet(stripe(key));
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     */
+    public static void invalidateCollection(String dbName, String collName) {
+        invalidateCollection(null, dbName, collName);
+    }
+
+    /**
+     *
+     * @param cs the client session of the write
+     * @param dbName
+     * @param collName
+     */
+    public static void invalidateCollection(ClientSession cs, String dbName,
+            String collName) {
+        var cache = CACHE;
+        var tombstones = TOMBSTONES;
+
+        if (cache != null && tombstones != null) {
+            if (cs != null && cs.hasActiveTransaction()) {
+                tombstones.put(new Key(dbName, collName, null), true);
+            }
+
+            nextGenerations();
+            cache.asMap().keySet().removeIf(k -> k.isOf(dbName, collName));
+        }
+    }
+
+    /**
+     *
+     * @param dbName
+     */
+    public static void invalidateDb(String dbName) {
+        var cache = CACHE;
+
+        if (cache != null) {
+            nextGenerations();
+            cache.asMap().keySet().removeIf(k -> k.isOf(dbName, null));
+        }
+    }
+
+    private static int stripe(Key key) {
+        return (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private static void nextGenerations() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            GENERATIONS.incrementAndGet(stripe);
+        }
+    }
+
+    private EtagCache() {
+    }
+
+    private static class Key {
+        private final String dbName;
+        private final String collName;
+        private final BsonValue documentId;
+
+        /**
+         * @param documentId null for the tombstone of a collection
+         */
+        Key(String dbName, String collName, BsonValue documentId) {
+            this.dbName = dbName;
+            this.collName = collName;
+            this.documentId = documentId == null
+                    ? null
+                    : numericId(documentId);
+        }
+
+        /**
+         * the numeric ids 1, 1L, 1.0 and 1.00 identify the same document:
+         * integral values are normalized to BsonInt64 and the other ones to
+         * BsonDouble, when it represents them exactly
+         *
+         * @return the normalized id, or id itself if not numeric
+         */
+        private static BsonValue numericId(BsonValue id) {
+            switch (id.getBsonType()) {
+                case INT32:
+                    return new BsonInt64(id.asInt32().longValue());
+                case INT64:
+                    return id;
+                case DOUBLE:
+                    var d = id.asDouble().getValue();
+
+                    return d == Math.rint(d)
+                            && d >= Long.MIN_VALUE
+                            && d < (double) Long.MAX_VALUE
+                            ? new BsonInt64((long) d)
+                            : id;
+                case DECIMAL128:
+                    var dec = id.asDecimal128().getValue();
+
+                    if (dec.isNaN() || dec.isInfinite()) {
+                        return id;
+                    } else if (dec.equals(Decimal128.NEGATIVE_ZERO)) {
+                        return new BsonInt64(0);
+                    }
+
+                    var bd = dec.bigDecimalValue();
+
+                    try {
+                        return new BsonInt64(bd.longValueExact());
+                    } catch (ArithmeticException ae) {
+                        var _d = bd.doubleValue();
+
+                        return new BigDecimal(_d).compareTo(bd) == 0
+                                ? new BsonDouble(_d)
+                                : new BsonDecimal128(
+                                        new Decimal128(bd.stripTrailingZeros()));
+                    }
+                default:
+                    return id;
+            }
+        }
+
+        boolean isOf(String dbName, String collName) {
+            return this.dbName.equals(dbName)
+                    && (collName == null || this.collName.equals(collName));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            var other = (Key) o;
+
+            return dbName.equals(other.dbName)
+                    && collName.equals(other.collName)
+                    && Objects.equals(documentId, other.documentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dbName, collName, documentId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientURI;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the client of the reactive streams driver used by the async data path, it
+ * connects to the same mongo-uri of MongoDBClientSingleton
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class MongoDBReactiveClientSingleton {
+
+    private static boolean initialized = false;
+    private static MongoClientURI mongoUri;
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MongoDBReactiveClientSingleton.class);
+
+    /**
+     *
+     * @param uri
+     */
+    public static void init(MongoClientURI uri) {
+        mongoUri = uri;
+        initialized = true;
+    }
+
+    /**
+     * @return the initialized
+     */
+    public static boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public static MongoDBReactiveClientSingleton getInstance() {
+        return MongoDBReactiveClientSingletonHolder.INSTANCE;
+    }
+
+    private MongoClient mongoClient;
+
+    private MongoDBReactiveClientSingleton() {
+        if (!initialized) {
+            throw new IllegalStateException("not initialized");
+        }
+
+        try {
+            mongoClient = MongoClients.create(
+                    new ConnectionString(mongoUri.getURI()));
+        } catch (Throwable tr) {
+            LOGGER.error("error initializing reactive mongodb client", tr);
+        }
+    }
+
+    /**
+     *
+     * @return
+     */
+    public MongoClient getClient() {
+        if (this.mongoClient == null) {
+            throw new IllegalStateException("reactive mongo client not initialized");
+        }
+
+        return this.mongoClient;
+    }
+
+    private static class MongoDBReactiveClientSingletonHolder {
+
+        private static final MongoDBReactiveClientSingleton INSTANCE
+                = new MongoDBReactiveClientSingleton();
+
+        private MongoDBReactiveClientSingletonHolder() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * subscribes to the publishers of the reactive streams driver, completing a
+ * CompletableFuture with the published items
+ *
+ * the futures are completed by the threads of the driver: the stages
+ * depending on them must not block
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+class Publishers {
+
+    /**
+     * @param <T>
+     * @param publisher
+     * @return a future completed with the first item published, or null if
+     * the publisher completes without items
+     */
+    static <T> CompletableFuture<T> first(Publisher<T> publisher) {
+        return list(publisher)
+                .thenApply(items -> items.isEmpty() ? null : items.get(0));
+    }
+
+    /**
+     * @param <T>
+     * @param publisher
+     * @return a future completed with all the items published
+     */
+    static <T> CompletableFuture<List<T>> list(Publisher<T> publisher) {
+        var future = new CompletableFuture<List<T>>();
+
+        publisher.subscribe(new Subscriber<T>() {
+            private final List<T> items = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(items);
+            }
+        });
+
+        return future;
+    }
+
+    private Publishers() {
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ * executes the db operations of the CRUD handlers with the sync driver or,
+ * when async-data-path is true and the request is not in a session, with the
+ * reactive streams driver
+ *
+ * in the latter case the exchange is dispatched, so that it is not ended when
+ * the handlers return and the worker thread is released while the operation
+ * runs; when the operation completes, the continuation (the rest of the
+ * handler and the next handlers) is executed by a worker thread, errors are
+ * replied by ErrorHandler
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AsyncDataPath {
+
+    private static final Recovery RETHROW = e -> false;
+
+    /**
+     * @param exchange
+     * @return true if the db operations of the exchange are executed with the
+     * reactive streams driver
+     */
+    public static boolean isEnabled(HttpServerExchange exchange) {
+        var conf = MongoServiceConfiguration.get();
+
+        return conf != null
+                && conf.isAsyncDataPath()
+                && BsonRequest.wrap(exchange).getClientSession() == null;
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param exchange
+     * @param blocking the operation executed with the sync driver
+     * @param async the operation executed with the reactive streams driver
+     * @param continuation receives the result of the operation
+     * @throws Exception
+     */
+    public static <T> void execute(
+            HttpServerExchange exchange,
+            Callable<T> blocking,
+            Supplier<CompletableFuture<T>> async,
+            Continuation<T> continuation) throws Exception {
+        execute(exchange, blocking, async, continuation, RETHROW);
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param exchange
+     * @param blocking the operation executed with the sync driver
+     * @param async the operation executed with the reactive streams driver
+     * @param continuation receives the result of the operation
+     * @param recovery receives the error of the operation, the errors it does
+     * not recover are rethrown
+     * @throws Exception
+     */
+    public static <T> void execute(
+            HttpServerExchange exchange,
+            Callable<T> blocking,
+            Supplier<CompletableFuture<T>> async,
+            Continuation<T> continuation,
+            Recovery recovery) throws Exception {
+        if (!isEnabled(exchange)) {
+            T result;
+
+            try {
+                result = blocking.call();
+            } catch (Exception e) {
+                if (recovery.recover(e)) {
+                    return;
+                }
+
+                throw e;
+            }
+
+            continuation.resume(result);
+            return;
+        }
+
+        dispatch(exchange, async, continuation, recovery);
+    }
+
+    /**
+     * executes the operation with the reactive streams driver, to be used
+     * when isEnabled() is true
+     *
+     * @param <T>
+     * @param exchange
+     * @param async the operation executed with the reactive streams driver
+     * @param continuation receives the result of the operation
+     * @param recovery receives the error of the operation, the errors it does
+     * not recover are rethrown
+     */
+    public static <T> void dispatch(
+            HttpServerExchange exchange,
+            Supplier<CompletableFuture<T>> async,
+            Continuation<T> continuation,
+            Recovery recovery) {
+        // the operation starts after the handlers return,
+        // the exchange is resumed by a worker thread when it completes
+        exchange.dispatch(SameThreadExecutor.INSTANCE, ()
+                -> start(async).whenComplete((result, t)
+                        -> exchange.dispatch(new ErrorHandler(ex -> {
+                            if (t == null) {
+                                continuation.resume(result);
+                            } else {
+                                var e = cause(t);
+
+                                if (!recovery.recover(e)) {
+                                    throw e;
+                                }
+                            }
+                        }))));
+    }
+
+    private static <T> CompletableFuture<T> start(
+            Supplier<CompletableFuture<T>> async) {
+        try {
+            return async.get();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    private static Exception cause(Throwable t) {
+        var cause = t instanceof CompletionException && t.getCause() != null
+                ? t.getCause()
+                : t;
+
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        } else if (cause instanceof Exception) {
+            return (Exception) cause;
+        } else {
+            return new CompletionException(cause);
+        }
+    }
+
+    /**
+     * the code executed with the result of the operation
+     *
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface Continuation<T> {
+        /**
+         * @param result
+         * @throws Exception
+         */
+        void resume(T result) throws Exception;
+    }
+
+    /**
+     * the code executed with the error of the operation
+     */
+    @FunctionalInterface
+    public interface Recovery {
+        /**
+         * @param e
+         * @return true if the error has been handled
+         * @throws Exception
+         */
+        boolean recover(Exception e) throws Exception;
+    }
+
+    private AsyncDataPath() {
+    }
+}
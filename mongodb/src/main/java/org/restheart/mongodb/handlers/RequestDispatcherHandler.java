@@ -18,8 +18,6 @@
 package org.restheart.mongodb.handlers;
 
 import io.undertow.server.HttpServerExchange;
-import java.util.HashMap;
-import java.util.Map;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.AbstractExchange.METHOD;
 import org.restheart.handlers.exchange.BsonRequest;
@@ -98,7 +96,10 @@ public class RequestDispatcherHandler extends PipelinedHandler {
         return RequestDispatcherHandlerHolder.INSTANCE;
     }
 
-    private final Map<TYPE, Map<METHOD, PipelinedHandler>> handlersMultimap;
+    /**
+     * the handlers indexed by TYPE.ordinal() and METHOD.ordinal()
+     */
+    private final PipelinedHandler[][] handlers;
     private final ResponseSenderHandler responseSenderHandler
             = new ResponseSenderHandler(null);
 
@@ -113,11 +114,11 @@ public class RequestDispatcherHandler extends PipelinedHandler {
      * Used for testing. By passing a <code>false</code> parameter then handlers
      * are not initialized and you can put your own (e.g. mocks)
      *
-     * @param initialize if false then do not initialize the handlersMultimap
+     * @param initialize if false then do not initialize the handlers
      */
-    RequestDispatcherHandler(boolean initialize) {
+    public RequestDispatcherHandler(boolean initialize) {
         super(null);
-        this.handlersMultimap = new HashMap<>();
+        this.handlers = new PipelinedHandler[TYPE.values().length][METHOD.values().length];
         if (initialize) {
             defaultInit();
         }
@@ -197,8 +198,9 @@ public class RequestDispatcherHandler extends PipelinedHandler {
      * @return the PipelinedHandler
      */
     public PipelinedHandler getPipedHttpHandler(TYPE type, METHOD method) {
-        Map<METHOD, PipelinedHandler> methodsMap = handlersMultimap.get(type);
-        return methodsMap != null ? methodsMap.get(method) : null;
+        return type != null && method != null
+                ? handlers[type.ordinal()][method.ordinal()]
+                : null;
     }
 
     /**
@@ -209,16 +211,11 @@ public class RequestDispatcherHandler extends PipelinedHandler {
      * @param handler the PipelinedHandler
      */
     public void putHandler(TYPE type, METHOD method, PipelinedHandler handler) {
-        Map<METHOD, PipelinedHandler> methodsMap = handlersMultimap.get(type);
-        if (methodsMap == null) {
-            methodsMap = new HashMap<>();
-            handlersMultimap.put(type, methodsMap);
-        }
-        methodsMap.put(method, handler);
+        handlers[type.ordinal()][method.ordinal()] = handler;
     }
 
     /**
-     * Put into handlersMultimap all the default combinations of types, methods
+     * Put into handlers all the default combinations of types, methods
      * and PipelinedHandler objects
      */
     private void defaultInit() {
@@ -119,7 +119,8 @@ public class ResponseSenderHandler extends PipelinedHandler {
 
         if (responseContent != null) {
             exchange.getResponseSender().send(
-                    JsonUtils.toJson(responseContent, request.getJsonMode()));
+                    JsonUtils.toJsonBytes(responseContent,
+                            request.getJsonMode()));
         }
 
         exchange.endExchange();
@@ -0,0 +1,262 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.handlers.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.handlers.metadata.ResponseTransformersExecutor;
+import org.restheart.mongodb.representation.Resource;
+import org.restheart.mongodb.utils.JsonUtils;
+import org.restheart.mongodb.utils.ResponseHelper;
+import org.restheart.utils.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+
+/**
+ * Sends the STANDARD representation of GET /db/coll and GET
+ * /db/coll/_aggrs/aggr, i.e. the json array of the documents, writing each
+ * document as it is read from the cursor instead of building the whole page
+ * in memory.
+ *
+ * With the NDJSON representation the documents are written one per line.
+ *
+ * The response is started when the first document is written, so that errors
+ * occurring executing the query are still sent as error responses. After that
+ * an error can only close the connection. As with the buffered
+ * representation, the response of an empty page has no content.
+ *
+ * Only requests whose response content is not needed by response transformers
+ * or hooks are streamed, see isStreamable()
+ *
+ * The writes block when the client does not keep up, so the documents are
+ * not read from the cursor faster than they are sent
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class StreamingResponseSender implements Consumer<BsonDocument> {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(StreamingResponseSender.class);
+
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] NEWLINE = {'\n'};
+
+    /**
+     * maps a document to the item of the response array
+     */
+    @FunctionalInterface
+    public interface Representation {
+        /**
+         * @param doc
+         * @return the item of the response array or null to skip the document
+         * @throws IllegalQueryParamenterException
+         */
+        BsonDocument of(BsonDocument doc)
+                throws IllegalQueryParamenterException;
+    }
+
+    private final HttpServerExchange exchange;
+    private final BsonDocument etagProps;
+    private final Representation representation;
+    private final JsonMode jsonMode;
+    private final boolean ndjson;
+
+    private OutputStream os = null;
+    private boolean first = true;
+
+    /**
+     *
+     * @param exchange
+     * @param etagProps the properties whose _etag is sent in the ETag header,
+     * can be null
+     * @param representation
+     */
+    public StreamingResponseSender(HttpServerExchange exchange,
+            BsonDocument etagProps,
+            Representation representation) {
+        this.exchange = exchange;
+        this.etagProps = etagProps;
+        this.representation = representation;
+        this.jsonMode = BsonRequest.wrap(exchange).getJsonMode();
+        this.ndjson = isNdjson(exchange);
+    }
+
+    /**
+     * @param exchange
+     * @return true if the NDJSON representation or the streaming responses
+     * are enabled and the response of the request can be streamed
+     */
+    public static boolean isStreamable(HttpServerExchange exchange) {
+        var request = BsonRequest.wrap(exchange);
+
+        if (request.isInError()
+                || !request.isGet()
+                || !(request.isCollection() || request.isAggregation())) {
+            return false;
+        }
+
+        if (isNdjson(exchange)) {
+            return !ResponseTransformersExecutor
+                    .isResponseContentRequired(exchange);
+        }
+
+        var conf = MongoServiceConfiguration.get();
+
+        if (conf == null || !conf.isStreamingResponses()) {
+            return false;
+        }
+
+        var rf = request.getRepresentationFormat() != null
+                ? request.getRepresentationFormat()
+                : conf.getDefaultRepresentationFormat();
+
+        return (rf == REPRESENTATION_FORMAT.STANDARD
+                || rf == REPRESENTATION_FORMAT.S)
+                && !ResponseTransformersExecutor
+                        .isResponseContentRequired(exchange);
+    }
+
+    /**
+     * @param exchange
+     * @return true if the NDJSON representation is requested
+     */
+    public static boolean isNdjson(HttpServerExchange exchange) {
+        return BsonRequest.wrap(exchange).getRepresentationFormat()
+                == REPRESENTATION_FORMAT.NDJSON;
+    }
+
+    /**
+     * writes the document to the response, starting it if this is the first
+     * document
+     *
+     * @param doc
+     */
+    @Override
+    public void accept(BsonDocument doc) {
+        try {
+            var item = representation.of(doc);
+
+            if (item == null) {
+                return;
+            }
+
+            if (first) {
+                start();
+                first = false;
+            } else if (!ndjson) {
+                os.write(SEPARATOR);
+            }
+
+            JsonUtils.writeJson(item, jsonMode, os);
+
+            if (ndjson) {
+                os.write(NEWLINE);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } catch (IllegalQueryParamenterException iqpe) {
+            throw new IllegalStateException(iqpe);
+        }
+    }
+
+    /**
+     * runs the query that feeds this sender and completes the response
+     *
+     * An exception is rethrown only if the response is not started yet,
+     * otherwise the connection is closed since the status code and part of
+     * the content are already sent.
+     *
+     * @param query
+     * @throws IOException
+     */
+    public void send(Runnable query) throws IOException {
+        try {
+            query.run();
+        } catch (RuntimeException re) {
+            if (os == null) {
+                throw re;
+            }
+
+            LOGGER.error("Error streaming response of {}, closing connection",
+                    exchange.getRequestPath(), re);
+
+            IoUtils.safeClose(exchange.getConnection());
+            return;
+        }
+
+        if (first) {
+            // as the buffered representation, an empty page has no content
+            startResponse();
+        } else if (!ndjson) {
+            os.write(ARRAY_END);
+        }
+
+        exchange.endExchange();
+    }
+
+    private void start() throws IOException {
+        startResponse();
+
+        os = exchange.getOutputStream();
+
+        if (!ndjson) {
+            os.write(ARRAY_START);
+        }
+    }
+
+    /**
+     * sets the status code and the headers of the response
+     */
+    private void startResponse() {
+        var response = BsonResponse.wrap(exchange);
+
+        if (ndjson) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE,
+                    Resource.NDJSON_MEDIA_TYPE);
+        } else if (jsonMode == JsonMode.SHELL) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE,
+                    Resource.JAVACRIPT_MEDIA_TYPE);
+        } else {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE,
+                    Resource.JSON_MEDIA_TYPE);
+        }
+
+        response.setContentType(ndjson
+                ? Resource.NDJSON_MEDIA_TYPE
+                : Resource.JSON_MEDIA_TYPE);
+        response.setStatusCode(HttpStatus.SC_OK);
+        exchange.setStatusCode(HttpStatus.SC_OK);
+
+        if (etagProps != null) {
+            ResponseHelper.injectEtagHeader(exchange, etagProps);
+        }
+    }
+}
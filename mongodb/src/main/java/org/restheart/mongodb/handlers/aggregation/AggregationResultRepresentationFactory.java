@@ -107,6 +107,18 @@ public class AggregationResultRepresentationFactory
         });
     }
 
+    /**
+     *
+     * @param d
+     * @return the result in the STANDARD representation, as embedded by
+     * getRepresentation()
+     */
+    static BsonDocument result(BsonDocument d) {
+        Resource nrep = new Resource();
+        nrep.addProperties(d);
+        return nrep.asBsonDocument();
+    }
+
     /**
      *
      * @param size
@@ -67,7 +67,12 @@ public class AggregationTransformer extends PipelinedHandler {
         next(exchange);
     }
 
-    private void transform(BsonRequest request, BsonDocument contentToTransform) {
+    /**
+     *
+     * @param request
+     * @param contentToTransform the document to transform in place
+     */
+    public void transform(BsonRequest request, BsonDocument contentToTransform) {
         if (!contentToTransform.isDocument()) {
             throw new IllegalStateException(
                     "content to transform is not a document");
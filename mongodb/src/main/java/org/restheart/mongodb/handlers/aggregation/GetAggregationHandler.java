@@ -22,8 +22,6 @@ import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MapReduceIterable;
 import io.undertow.server.HttpServerExchange;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
@@ -33,7 +31,9 @@ import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.db.DatabaseImpl;
 import org.restheart.mongodb.handlers.IllegalQueryParamenterException;
+import org.restheart.mongodb.handlers.StreamingResponseSender;
 import org.restheart.mongodb.handlers.metadata.InvalidMetadataException;
+import org.restheart.mongodb.metadata.CollectionMetadata;
 import org.restheart.mongodb.representation.Resource;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
@@ -76,17 +76,24 @@ public class GetAggregationHandler extends PipelinedHandler {
             return;
         }
 
-        String queryUri = request.getAggregationOperation();
+        if (StreamingResponseSender.isNdjson(exchange)
+                && !StreamingResponseSender.isStreamable(exchange)) {
+            ResponseHelper.endExchangeWithMessage(
+                    exchange,
+                    HttpStatus.SC_BAD_REQUEST,
+                    "NDJSON representation not available, "
+                    + "response transformers or hooks apply to the collection");
+            next(exchange);
+            return;
+        }
 
-        List<AbstractAggregationOperation> aggregations
-                = AbstractAggregationOperation
-                        .getFromJson(request.getCollectionProps());
+        String queryUri = request.getAggregationOperation();
 
-        Optional<AbstractAggregationOperation> _query
-                = aggregations.stream().filter(q
-                        -> q.getUri().equals(queryUri)).findFirst();
+        AbstractAggregationOperation query = CollectionMetadata
+                .of(request)
+                .getAggregation(queryUri);
 
-        if (!_query.isPresent()) {
+        if (query == null) {
             ResponseHelper.endExchangeWithMessage(
                     exchange,
                     HttpStatus.SC_NOT_FOUND, "query does not exist");
@@ -96,7 +103,12 @@ public class GetAggregationHandler extends PipelinedHandler {
 
         ArrayList<BsonDocument> data = new ArrayList<>();
 
-        AbstractAggregationOperation query = _query.get();
+        // the STANDARD representation is an array of the results
+        // and can be streamed, the NDJSON representation is always streamed
+        var sender = StreamingResponseSender.isStreamable(exchange)
+                ? new StreamingResponseSender(exchange, null,
+                        AggregationResultRepresentationFactory::result)
+                : null;
 
         if (null == query.getType()) {
             ResponseHelper.endExchangeWithMessage(
@@ -150,8 +162,12 @@ public class GetAggregationHandler extends PipelinedHandler {
                         return;
                     }
                     // ***** get data
-                    for (BsonDocument obj : mrOutput) {
-                        data.add(obj);
+                    if (sender != null) {
+                        sender.send(() -> mrOutput.forEach(sender));
+                    } else {
+                        for (BsonDocument obj : mrOutput) {
+                            data.add(obj);
+                        }
                     }
                     break;
                 case AGGREGATION_PIPELINE:
@@ -187,8 +203,12 @@ public class GetAggregationHandler extends PipelinedHandler {
                         return;
                     }
                     // ***** get data
-                    for (BsonDocument obj : agrOutput) {
-                        data.add(obj);
+                    if (sender != null) {
+                        sender.send(() -> agrOutput.forEach(sender));
+                    } else {
+                        for (BsonDocument obj : agrOutput) {
+                            data.add(obj);
+                        }
                     }
                     break;
                 default:
@@ -200,8 +220,9 @@ public class GetAggregationHandler extends PipelinedHandler {
             }
         }
 
-        if (exchange.isComplete()) {
+        if (exchange.isComplete() || sender != null) {
             // if an error occured getting data, the exchange is already closed
+            // the streamed response is already sent
             return;
         }
 
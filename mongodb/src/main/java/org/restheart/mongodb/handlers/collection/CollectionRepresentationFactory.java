@@ -27,8 +27,9 @@ import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.types.ObjectId;
 import org.restheart.mongodb.handlers.IllegalQueryParamenterException;
-import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.handlers.StreamingResponseSender;
 import org.restheart.mongodb.handlers.aggregation.AbstractAggregationOperation;
+import org.restheart.mongodb.handlers.aggregation.AggregationTransformer;
 import org.restheart.mongodb.handlers.document.DocumentRepresentationFactory;
 import org.restheart.handlers.exchange.BsonRequest;
 import static org.restheart.handlers.exchange.ExchangeKeys.FS_FILES_SUFFIX;
@@ -36,11 +37,11 @@ import org.restheart.handlers.exchange.ExchangeKeys.TYPE;
 import static org.restheart.handlers.exchange.ExchangeKeys._AGGREGATIONS;
 import static org.restheart.handlers.exchange.ExchangeKeys._STREAMS;
 import org.restheart.mongodb.handlers.metadata.InvalidMetadataException;
+import org.restheart.mongodb.metadata.CollectionMetadata;
 import org.restheart.mongodb.metadata.CheckerMetadata;
 import org.restheart.mongodb.plugins.checkers.JsonSchemaChecker;
 import org.restheart.mongodb.representation.AbstractRepresentationFactory;
 import org.restheart.mongodb.representation.Link;
-import org.restheart.mongodb.representation.RepUtils;
 import org.restheart.mongodb.representation.Resource;
 import org.restheart.mongodb.representation.UnsupportedDocumentIdException;
 import org.restheart.mongodb.utils.URLUtils;
@@ -71,13 +72,15 @@ public class CollectionRepresentationFactory
     private static final String RHCOLL = "rh:coll";
     private static final String RHDOCUMENT = "rh:document";
 
-    private static final String _ID = "_id";
     private static final String RHFILE = "rh:file";
     private static final String RHSCHEMA = "rh:schema";
     private static final String RHDOC = "rh:doc";
     
     private static final String STREAMS_ELEMENT_NAME = "streams";
 
+    private static final AggregationTransformer AGGREGATION_TRANSFORMER
+            = new AggregationTransformer(false);
+
     /**
      *
      * @param rep
@@ -107,7 +110,7 @@ public class CollectionRepresentationFactory
             BsonRequest request) {
         try {
             List<CheckerMetadata> checkers
-                    = CheckerMetadata.getFromJson(request.getCollectionProps());
+                    = CollectionMetadata.of(request).getCheckers();
 
             if (checkers != null) {
                 checkers
@@ -344,75 +347,76 @@ public class CollectionRepresentationFactory
             Resource rep)
             throws IllegalQueryParamenterException {
         var request = BsonRequest.wrap(exchange);
-        
+        var factory = new DocumentRepresentationFactory(exchange, requestPath);
+        var rel = childRel(request);
+
         for (BsonDocument d : embeddedData) {
-            BsonValue _id = d.get(_ID);
-
-            if (_id != null
-                    && RequestContext.isReservedResourceCollection(
-                            _id.toString())) {
-                rep.addWarning("filtered out reserved resource "
-                        + requestPath + "/"
-                        + _id.toString());
-            } else {
-                Resource nrep;
-
-                if (_id == null) {
-                    nrep = new DocumentRepresentationFactory()
-                            .getRepresentation(
-                                    requestPath + "/_null",
-                                    exchange,
-                                    d);
-                } else {
-                    nrep = new DocumentRepresentationFactory()
-                            .getRepresentation(
-                                    RepUtils.getReferenceLink(requestPath, _id),
-                                    exchange,
-                                    d);
-                }
+            rep.addChild(rel, embeddedDocument(d, factory, request));
+        }
+    }
 
-                if (null == request.getType()) {
-                    if (request.isFullHalMode()) {
-                        DocumentRepresentationFactory.addSpecialProperties(
-                                nrep,
-                                TYPE.DOCUMENT,
-                                d);
-                    }
+    /**
+     *
+     * @param exchange
+     * @return the representation of the documents in the STANDARD
+     * representation, as embedded by getRepresentation()
+     */
+    StreamingResponseSender.Representation standardRepresentation(
+            HttpServerExchange exchange) {
+        var request = BsonRequest.wrap(exchange);
+        var factory = new DocumentRepresentationFactory(exchange,
+                buildRequestPath(exchange));
 
-                    rep.addChild(RHDOC, nrep);
-                } else {
-                    switch (request.getType()) {
-                        case FILES_BUCKET:
-                            if (request.isFullHalMode()) {
-                                DocumentRepresentationFactory.addSpecialProperties(
-                                        nrep,
-                                        TYPE.FILE,
-                                        d);
-                            }
-                            rep.addChild(RHFILE, nrep);
-                            break;
-                        case SCHEMA_STORE:
-                            if (request.isFullHalMode()) {
-                                DocumentRepresentationFactory.addSpecialProperties(
-                                        nrep,
-                                        TYPE.SCHEMA,
-                                        d);
-                            }
-                            rep.addChild(RHSCHEMA, nrep);
-                            break;
-                        default:
-                            if (request.isFullHalMode()) {
-                                DocumentRepresentationFactory.addSpecialProperties(
-                                        nrep,
-                                        TYPE.DOCUMENT,
-                                        d);
-                            }
-                            rep.addChild(RHDOC, nrep);
-                            break;
-                    }
-                }
-            }
+        return d -> {
+            var item = embeddedDocument(d, factory, request)
+                    .asBsonDocument();
+
+            // as AggregationTransformer does in the response phase
+            AGGREGATION_TRANSFORMER.transform(request, item);
+
+            return item;
+        };
+    }
+
+    private Resource embeddedDocument(
+            BsonDocument d,
+            DocumentRepresentationFactory factory,
+            BsonRequest request) {
+        var nrep = factory.getEmbeddedRepresentation(d);
+
+        if (request.isFullHalMode()) {
+            DocumentRepresentationFactory.addSpecialProperties(
+                    nrep,
+                    childType(request),
+                    d);
         }
+
+        return nrep;
     }
 
+    private static TYPE childType(BsonRequest request) {
+        if (null == request.getType()) {
+            return TYPE.DOCUMENT;
+        }
+
+        switch (request.getType()) {
+            case FILES_BUCKET:
+                return TYPE.FILE;
+            case SCHEMA_STORE:
+                return TYPE.SCHEMA;
+            default:
+                return TYPE.DOCUMENT;
+        }
+    }
+
+    private static String childRel(BsonRequest request) {
+        switch (childType(request)) {
+            case FILE:
+                return RHFILE;
+            case SCHEMA:
+                return RHSCHEMA;
+            default:
+                return RHDOC;
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.restheart.mongodb.handlers.collection;
 
 import io.undertow.server.HttpServerExchange;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
@@ -81,6 +82,9 @@ public class DeleteCollectionHandler extends PipelinedHandler {
         LocalCachesSingleton.getInstance()
                 .invalidateCollection(request.getDBName(), request.getCollectionName());
 
+        EtagCache.invalidateCollection(request.getDBName(),
+                request.getCollectionName());
+
         next(exchange);
     }
 }
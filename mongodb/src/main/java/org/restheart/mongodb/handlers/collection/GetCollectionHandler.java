@@ -22,11 +22,17 @@ import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import io.undertow.server.HttpServerExchange;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.bson.BsonDocument;
 import org.bson.json.JsonParseException;
+import org.restheart.mongodb.db.AsyncCollectionDAO;
 import org.restheart.mongodb.db.Database;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.handlers.AsyncDataPath;
 import org.restheart.mongodb.handlers.IllegalQueryParamenterException;
+import org.restheart.mongodb.handlers.StreamingResponseSender;
+import org.restheart.mongodb.handlers.metadata.ResponseTransformersExecutor;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
@@ -41,7 +47,9 @@ import org.slf4j.LoggerFactory;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class GetCollectionHandler extends PipelinedHandler {
-    private Database dbsDAO = new DatabaseImpl();
+    private final Database dbsDAO;
+
+    private final AsyncCollectionDAO asyncCollectionDAO;
 
     private static final Logger LOGGER = LoggerFactory
             .getLogger(GetCollectionHandler.class);
@@ -50,7 +58,7 @@ public class GetCollectionHandler extends PipelinedHandler {
      *
      */
     public GetCollectionHandler() {
-        super();
+        this(null);
     }
 
     /**
@@ -58,7 +66,7 @@ public class GetCollectionHandler extends PipelinedHandler {
      * @param next
      */
     public GetCollectionHandler(PipelinedHandler next) {
-        super(next);
+        this(next, new DatabaseImpl());
     }
 
     /**
@@ -68,8 +76,21 @@ public class GetCollectionHandler extends PipelinedHandler {
      */
     @VisibleForTesting
     public GetCollectionHandler(PipelinedHandler next, Database dbsDAO) {
+        this(next, dbsDAO, new AsyncCollectionDAO());
+    }
+
+    /**
+     *
+     * @param next
+     * @param dbsDAO
+     * @param asyncCollectionDAO
+     */
+    @VisibleForTesting
+    public GetCollectionHandler(PipelinedHandler next, Database dbsDAO,
+            AsyncCollectionDAO asyncCollectionDAO) {
         super(next);
         this.dbsDAO = dbsDAO;
+        this.asyncCollectionDAO = asyncCollectionDAO;
     }
 
     /**
@@ -87,14 +108,44 @@ public class GetCollectionHandler extends PipelinedHandler {
             return;
         }
 
+        var ndjson = StreamingResponseSender.isNdjson(exchange);
+
+        if (ndjson && !StreamingResponseSender.isStreamable(exchange)) {
+            ResponseHelper.endExchangeWithMessage(
+                    exchange,
+                    HttpStatus.SC_BAD_REQUEST,
+                    "NDJSON representation not available, "
+                    + "response transformers or hooks apply to the collection");
+            next(exchange);
+            return;
+        }
+
         MongoCollection<BsonDocument> coll = dbsDAO
                 .getCollection(
                         request.getDBName(),
                         request.getCollectionName());
 
+        // the STANDARD representation is an array of the documents
+        // and can be streamed, the NDJSON representation is always streamed
+        var sender = (request.getPagesize() > 0 || ndjson)
+                && StreamingResponseSender.isStreamable(exchange)
+                ? new StreamingResponseSender(exchange,
+                        request.getCollectionProps(),
+                        new CollectionRepresentationFactory()
+                                .standardRepresentation(exchange))
+                : null;
+
+        if (sender == null
+                && request.getPagesize() > 0
+                && AsyncDataPath.isEnabled(exchange)) {
+            getCollectionDataAsync(exchange);
+            return;
+        }
+
         long size = -1;
 
-        if (request.isCount()) {
+        // the size is not part of the streamed representation
+        if (request.isCount() && sender == null) {
             size = dbsDAO
                     .getCollectionSize(request.getClientSession(), 
                             coll, request.getFiltersDocument());
@@ -103,56 +154,116 @@ public class GetCollectionHandler extends PipelinedHandler {
         // ***** get data
         ArrayList<BsonDocument> data = null;
 
-        if (request.getPagesize() > 0) {
+        if (request.getPagesize() > 0 || ndjson) {
 
             try {
-                data = dbsDAO.getCollectionData(
-                        request.getClientSession(), 
-                        coll,
-                        request.getPage(),
-                        request.getPagesize(),
-                        request.getSortByDocument(),
-                        request.getFiltersDocument(),
-                        request.getHintDocument(),
+                // the properties removed by the response transformers
+                // are not fetched
+                var keys = ResponseTransformersExecutor.excludeFromProjection(
                         request.getProjectionDocument(),
-                        request.getCursorAllocationPolicy());
-            } catch (JsonParseException jpe) {
-                // the filter expression is not a valid json string
-                LOGGER.debug("invalid filter expression {}",
-                        request.getFilter(), jpe);
-                ResponseHelper.endExchangeWithMessage(
-                        exchange,
-                        HttpStatus.SC_BAD_REQUEST,
-                        "wrong request, filter expression is invalid",
-                        jpe);
-                next(exchange);
-                return;
-            } catch (MongoException me) {
-                if (me.getMessage().matches(".*Can't canonicalize query.*")) {
-                    // error with the filter expression during query execution
-                    LOGGER.debug(
-                            "invalid filter expression {}",
-                            request.getFilter(),
-                            me);
-
-                    ResponseHelper.endExchangeWithMessage(
-                            exchange,
-                            HttpStatus.SC_BAD_REQUEST,
-                            "wrong request, filter expression is invalid",
-                            me);
-                    next(exchange);
-                    return;
+                        ResponseTransformersExecutor
+                                .excludedProperties(exchange));
+
+                if (ndjson) {
+                    // all the documents, iterating a single cursor
+                    sender.send(() -> dbsDAO.exportCollectionData(
+                            request.getClientSession(),
+                            coll,
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            keys,
+                            sender));
+                } else if (sender != null) {
+                    sender.send(() -> dbsDAO.getCollectionData(
+                            request.getClientSession(),
+                            coll,
+                            request.getPage(),
+                            request.getPagesize(),
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            keys,
+                            request.getCursorAllocationPolicy(),
+                            sender));
                 } else {
-                    throw me;
+                    data = dbsDAO.getCollectionData(
+                            request.getClientSession(),
+                            coll,
+                            request.getPage(),
+                            request.getPagesize(),
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            keys,
+                            request.getCursorAllocationPolicy());
+                }
+            } catch (JsonParseException | MongoException e) {
+                if (invalidFilter(exchange, e)) {
+                    return;
                 }
+
+                throw e;
             }
         }
 
-        if (exchange.isComplete()) {
+        if (exchange.isComplete() || sender != null) {
             // if an error occured getting data, the exchange is already closed
+            // the streamed response is already sent
             return;
         }
 
+        sendRepresentation(exchange, data, size);
+    }
+
+    /**
+     * the documents of the page and the count are queried concurrently with
+     * the reactive streams driver
+     *
+     * @param exchange
+     */
+    private void getCollectionDataAsync(HttpServerExchange exchange) {
+        var request = BsonRequest.wrap(exchange);
+
+        // the properties removed by the response transformers
+        // are not fetched
+        var keys = ResponseTransformersExecutor.excludeFromProjection(
+                request.getProjectionDocument(),
+                ResponseTransformersExecutor
+                        .excludedProperties(exchange));
+
+        AsyncDataPath.dispatch(exchange,
+                () -> {
+                    var size = request.isCount()
+                            ? asyncCollectionDAO.getCollectionSize(
+                                    request.getDBName(),
+                                    request.getCollectionName(),
+                                    request.getFiltersDocument())
+                            : CompletableFuture.completedFuture(-1L);
+
+                    return asyncCollectionDAO.getCollectionData(
+                            request.getDBName(),
+                            request.getCollectionName(),
+                            request.getPage(),
+                            request.getPagesize(),
+                            request.getSortByDocument(),
+                            request.getFiltersDocument(),
+                            request.getHintDocument(),
+                            keys)
+                            .thenCombine(size, Map::entry);
+                },
+                page -> sendRepresentation(exchange,
+                        page.getKey(),
+                        page.getValue()),
+                e -> invalidFilter(exchange, e));
+    }
+
+    private void sendRepresentation(HttpServerExchange exchange,
+            ArrayList<BsonDocument> data,
+            long size) throws Exception {
+        var request = BsonRequest.wrap(exchange);
+        var response = BsonResponse.wrap(exchange);
+
         try {
             response.setContent(new CollectionRepresentationFactory()
                     .getRepresentation(exchange, data, size)
@@ -175,4 +286,40 @@ public class GetCollectionHandler extends PipelinedHandler {
             next(exchange);
         }
     }
+
+    /**
+     * @param exchange
+     * @param e
+     * @return true if the error is due to an invalid filter expression, that
+     * is replied with 400 Bad Request
+     * @throws Exception
+     */
+    private boolean invalidFilter(HttpServerExchange exchange, Exception e)
+            throws Exception {
+        var request = BsonRequest.wrap(exchange);
+
+        if (e instanceof JsonParseException) {
+            // the filter expression is not a valid json string
+            LOGGER.debug("invalid filter expression {}",
+                    request.getFilter(), e);
+        } else if (e instanceof MongoException
+                && e.getMessage() != null
+                && e.getMessage().matches(".*Can't canonicalize query.*")) {
+            // error with the filter expression during query execution
+            LOGGER.debug(
+                    "invalid filter expression {}",
+                    request.getFilter(),
+                    e);
+        } else {
+            return false;
+        }
+
+        ResponseHelper.endExchangeWithMessage(
+                exchange,
+                HttpStatus.SC_BAD_REQUEST,
+                "wrong request, filter expression is invalid",
+                e);
+        next(exchange);
+        return true;
+    }
 }
@@ -22,13 +22,14 @@ import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
 import org.restheart.mongodb.db.DocumentDAO;
-import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.RequestContext;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.handlers.exchange.ExchangeKeys.DOC_ID_TYPE;
+import org.restheart.mongodb.handlers.AsyncDataPath;
 import org.restheart.mongodb.representation.RepUtils;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -41,6 +42,8 @@ import org.restheart.mongodb.utils.URLUtils;
 public class PostCollectionHandler extends PipelinedHandler {
     private final DocumentDAO documentDAO;
 
+    private final AsyncDocumentDAO asyncDocumentDAO = new AsyncDocumentDAO();
+
     /**
      * Creates a new instance of PostCollectionHandler
      */
@@ -138,58 +141,69 @@ public class PostCollectionHandler extends PipelinedHandler {
             }
         }
 
-        OperationResult result = this.documentDAO
-                .upsertDocumentPost(
-                        request.getClientSession(),
-                        request.getDBName(),
-                        request.getCollectionName(),
-                        request.getFiltersDocument(),
-                        request.getShardKey(),
-                        content,
-                        request.getETag(),
-                        request.isETagCheckRequired());
-
-        response.setDbOperationResult(result);
-
-        // inject the etag
-        if (result.getEtag() != null) {
-            ResponseHelper.injectEtagHeader(exchange, result.getEtag());
-        }
-
-        if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
-            ResponseHelper.endExchangeWithMessage(
-                    exchange,
-                    HttpStatus.SC_CONFLICT,
-                    "The document's ETag must be provided using the '"
-                    + Headers.IF_MATCH
-                    + "' header.");
-
-            next(exchange);
-            return;
-        }
-        
-        // handle the case of duplicate key error
-        if (result.getHttpCode() == HttpStatus.SC_EXPECTATION_FAILED) {
-            ResponseHelper.endExchangeWithMessage(
-                    exchange,
-                    HttpStatus.SC_EXPECTATION_FAILED,
-                    ResponseHelper.getMessageFromErrorCode(11000));
-            next(exchange);
-            return;
-        }
-
-        response.setStatusCode(result.getHttpCode());
-
-        // insert the Location handler for new documents
-        // note, next handlers might change the status code
-        if (result.getHttpCode() == HttpStatus.SC_CREATED) {
-            exchange.getResponseHeaders()
-                    .add(HttpString.tryFromString("Location"),
-                            RepUtils.getReferenceLink(
-                                    URLUtils.getRemappedRequestURL(exchange),
-                                    result.getNewData().get("_id")));
-        }
-
-        next(exchange);
+        AsyncDataPath.execute(exchange,
+                () -> this.documentDAO
+                        .upsertDocumentPost(
+                                request.getClientSession(),
+                                request.getDBName(),
+                                request.getCollectionName(),
+                                request.getFiltersDocument(),
+                                request.getShardKey(),
+                                content,
+                                request.getETag(),
+                                request.isETagCheckRequired()),
+                () -> this.asyncDocumentDAO
+                        .upsertDocumentPost(
+                                request.getDBName(),
+                                request.getCollectionName(),
+                                request.getFiltersDocument(),
+                                request.getShardKey(),
+                                content,
+                                request.getETag(),
+                                request.isETagCheckRequired()),
+                result -> {
+                    response.setDbOperationResult(result);
+
+                    // inject the etag
+                    if (result.getEtag() != null) {
+                        ResponseHelper.injectEtagHeader(exchange, result.getEtag());
+                    }
+
+                    if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
+                        ResponseHelper.endExchangeWithMessage(
+                                exchange,
+                                HttpStatus.SC_CONFLICT,
+                                "The document's ETag must be provided using the '"
+                                + Headers.IF_MATCH
+                                + "' header.");
+
+                        next(exchange);
+                        return;
+                    }
+
+                    // handle the case of duplicate key error
+                    if (result.getHttpCode() == HttpStatus.SC_EXPECTATION_FAILED) {
+                        ResponseHelper.endExchangeWithMessage(
+                                exchange,
+                                HttpStatus.SC_EXPECTATION_FAILED,
+                                ResponseHelper.getMessageFromErrorCode(11000));
+                        next(exchange);
+                        return;
+                    }
+
+                    response.setStatusCode(result.getHttpCode());
+
+                    // insert the Location handler for new documents
+                    // note, next handlers might change the status code
+                    if (result.getHttpCode() == HttpStatus.SC_CREATED) {
+                        exchange.getResponseHeaders()
+                                .add(HttpString.tryFromString("Location"),
+                                        RepUtils.getReferenceLink(
+                                                URLUtils.getRemappedRequestURL(exchange),
+                                                result.getNewData().get("_id")));
+                    }
+
+                    next(exchange);
+                });
     }
 }
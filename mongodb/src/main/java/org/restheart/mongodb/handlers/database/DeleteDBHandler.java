@@ -20,6 +20,7 @@ package org.restheart.mongodb.handlers.database;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
@@ -99,6 +100,7 @@ public class DeleteDBHandler extends PipelinedHandler {
         response.setStatusCode(result.getHttpCode());
 
         LocalCachesSingleton.getInstance().invalidateDb(request.getDBName());
+        EtagCache.invalidateDb(request.getDBName());
 
         next(exchange);
     }
@@ -19,11 +19,12 @@ package org.restheart.mongodb.handlers.document;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
 import org.restheart.mongodb.db.DocumentDAO;
-import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.handlers.AsyncDataPath;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.ResponseHelper;
 
@@ -35,6 +36,8 @@ public class DeleteDocumentHandler extends PipelinedHandler {
 
     private final DocumentDAO documentDAO;
 
+    private final AsyncDocumentDAO asyncDocumentDAO = new AsyncDocumentDAO();
+
     /**
      * Creates a new instance of DeleteDocumentHandler
      *
@@ -89,8 +92,8 @@ public class DeleteDocumentHandler extends PipelinedHandler {
             return;
         }
         
-        OperationResult result = this.documentDAO
-                .deleteDocument(
+        AsyncDataPath.execute(exchange,
+                () -> this.documentDAO.deleteDocument(
                         request.getClientSession(),
                         request.getDBName(),
                         request.getCollectionName(),
@@ -98,28 +101,37 @@ public class DeleteDocumentHandler extends PipelinedHandler {
                         request.getFiltersDocument(),
                         request.getShardKey(),
                         request.getETag(),
-                        request.isETagCheckRequired());
-
-        response.setDbOperationResult(result);
+                        request.isETagCheckRequired()),
+                () -> this.asyncDocumentDAO.deleteDocument(
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        request.getDocumentId(),
+                        request.getFiltersDocument(),
+                        request.getShardKey(),
+                        request.getETag(),
+                        request.isETagCheckRequired()),
+                result -> {
+                    response.setDbOperationResult(result);
 
-        // inject the etag
-        if (result.getEtag() != null) {
-            ResponseHelper.injectEtagHeader(exchange, result.getEtag());
-        }
+                    // inject the etag
+                    if (result.getEtag() != null) {
+                        ResponseHelper.injectEtagHeader(exchange, result.getEtag());
+                    }
 
-        if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
-            ResponseHelper.endExchangeWithMessage(
-                    exchange,
-                    HttpStatus.SC_CONFLICT,
-                    "The document's ETag must be provided using the '"
-                    + Headers.IF_MATCH
-                    + "' header");
-            next(exchange);
-            return;
-        }
+                    if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
+                        ResponseHelper.endExchangeWithMessage(
+                                exchange,
+                                HttpStatus.SC_CONFLICT,
+                                "The document's ETag must be provided using the '"
+                                + Headers.IF_MATCH
+                                + "' header");
+                        next(exchange);
+                        return;
+                    }
 
-        response.setStatusCode(result.getHttpCode());
+                    response.setStatusCode(result.getHttpCode());
 
-        next(exchange);
+                    next(exchange);
+                });
     }
 }
@@ -13,8 +13,10 @@ import org.restheart.handlers.exchange.BsonResponse;
 import static org.restheart.handlers.exchange.ExchangeKeys.BINARY_CONTENT;
 import org.restheart.handlers.exchange.ExchangeKeys.TYPE;
 import org.restheart.mongodb.handlers.metadata.InvalidMetadataException;
+import org.restheart.mongodb.metadata.CollectionMetadata;
 import org.restheart.mongodb.metadata.Relationship;
 import org.restheart.mongodb.representation.Link;
+import org.restheart.mongodb.representation.ReferenceLinkTemplate;
 import org.restheart.mongodb.representation.RepUtils;
 import org.restheart.mongodb.representation.Resource;
 import org.restheart.mongodb.representation.UnsupportedDocumentIdException;
@@ -68,18 +70,28 @@ public class DocumentRepresentationFactory {
             HttpServerExchange exchange,
             BsonDocument data) {
         var request = BsonRequest.wrap(exchange);
-        var response = BsonResponse.wrap(exchange);
 
         List<Relationship> rels = null;
 
         try {
-            rels = Relationship.getFromJson(request.getCollectionProps());
+            rels = CollectionMetadata.of(request).getRelationships();
         } catch (InvalidMetadataException ex) {
-            rep.addWarning("collection " + request.getDBName()
-                    + "/" + request.getCollectionName()
-                    + " has invalid relationships definition");
+            rep.addWarning(invalidRelationshipsWarning(request));
         }
 
+        addRelationshipsLinks(rep, request, rels, data);
+    }
+
+    private static String invalidRelationshipsWarning(BsonRequest request) {
+        return "collection " + request.getDBName()
+                + "/" + request.getCollectionName()
+                + " has invalid relationships definition";
+    }
+
+    private static void addRelationshipsLinks(Resource rep,
+            BsonRequest request,
+            List<Relationship> rels,
+            BsonDocument data) {
         if (rels != null) {
             for (Relationship rel : rels) {
                 try {
@@ -98,11 +110,104 @@ public class DocumentRepresentationFactory {
         }
     }
 
+    private final HttpServerExchange exchange;
+    private final String parentPath;
+    private final ReferenceLinkTemplate links;
+    private final List<Relationship> rels;
+    private final boolean invalidRels;
+
     /**
      *
      */
     public DocumentRepresentationFactory() {
+        this.exchange = null;
+        this.parentPath = null;
+        this.links = null;
+        this.rels = null;
+        this.invalidRels = false;
+    }
+
+    /**
+     * Creates a factory of the documents embedded in the representation of
+     * the collection or bucket of the exchange, see
+     * getEmbeddedRepresentation().
+     *
+     * The reference links are generated from a template and the
+     * relationships are read once, so the same instance is meant to be used
+     * for all the documents of the page.
+     *
+     * @param exchange
+     * @param parentPath the path of the collection or bucket
+     */
+    public DocumentRepresentationFactory(HttpServerExchange exchange,
+            String parentPath) {
+        var request = BsonRequest.wrap(exchange);
+
+        this.exchange = exchange;
+        this.parentPath = parentPath;
+        this.links = new ReferenceLinkTemplate(parentPath);
+
+        List<Relationship> _rels;
+        boolean _invalidRels;
+
+        try {
+            _rels = CollectionMetadata.of(request).getRelationships();
+            _invalidRels = false;
+        } catch (InvalidMetadataException ex) {
+            _rels = null;
+            _invalidRels = true;
+        }
+
+        this.rels = _rels;
+        this.invalidRels = _invalidRels;
+    }
+
+    /**
+     * the same representation returned by getRepresentation() for the
+     * documents embedded in the collection or bucket, for factories created
+     * with DocumentRepresentationFactory(exchange, parentPath)
+     *
+     * @param data
+     * @return
+     */
+    public Resource getEmbeddedRepresentation(BsonDocument data) {
+        if (exchange == null) {
+            throw new IllegalStateException("not a factory of embedded documents");
+        }
+
+        var request = BsonRequest.wrap(exchange);
+
+        BsonValue id = data.get("_id");
+
+        Resource rep;
+
+        if (request.isFullHalMode()) {
+            // null if the _id type is not supported
+            var self = links.of(id);
 
+            rep = new Resource(self != null
+                    ? self
+                    : RepUtils.getReferenceLink(BsonResponse.wrap(exchange),
+                            parentPath, id));
+        } else {
+            rep = new Resource();
+        }
+
+        rep.addProperties(data);
+
+        if (invalidRels) {
+            rep.addWarning(invalidRelationshipsWarning(request));
+        }
+
+        addRelationshipsLinks(rep, request, rels, data);
+
+        if (isBinaryFile(data)) {
+            rep.addLink(new Link("rh:data",
+                    RepUtils.getReferenceLink(parentPath, id)
+                            .concat("/").concat(BINARY_CONTENT)));
+        }
+
+        return rep;
     }
 
     /**
@@ -152,7 +257,7 @@ public class DocumentRepresentationFactory {
 
         if (isBinaryFile(data)) {
             rep.addLink(new Link("rh:data",
-                    String.format("%s/%s", href, BINARY_CONTENT)));
+                    href.concat("/").concat(BINARY_CONTENT)));
         }
 
         // link templates
@@ -17,17 +17,26 @@
  */
 package org.restheart.mongodb.handlers.document;
 
+import com.google.common.annotations.VisibleForTesting;
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.bson.BsonObjectId;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.conversions.Bson;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
+import org.restheart.mongodb.db.Database;
 import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
@@ -42,6 +51,9 @@ import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.FILE;
 import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.FILES_BUCKET_META;
 import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.SCHEMA;
 import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.SCHEMA_STORE_META;
+import org.restheart.mongodb.handlers.AsyncDataPath;
+import org.restheart.mongodb.handlers.metadata.ResponseTransformersExecutor;
+import org.restheart.mongodb.handlers.metrics.EtagMetrics;
 import org.restheart.mongodb.representation.Resource;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.JsonUtils;
@@ -56,7 +68,13 @@ import org.slf4j.LoggerFactory;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class GetDocumentHandler extends PipelinedHandler {
-    private final DatabaseImpl dbsDAO = new DatabaseImpl();
+    private final Database dbsDAO;
+
+    private final AsyncDocumentDAO asyncDocumentDAO;
+
+    private static final BsonDocument ETAG_PROJECTION = new BsonDocument()
+            .append("_etag", new BsonInt32(1))
+            .append("metadata._etag", new BsonInt32(1));
     
     private static final Logger LOGGER =
             LoggerFactory.getLogger(GetDocumentHandler.class);
@@ -65,7 +83,7 @@ public class GetDocumentHandler extends PipelinedHandler {
      * Default ctor
      */
     public GetDocumentHandler() {
-        super();
+        this(null);
     }
 
     /**
@@ -74,7 +92,31 @@ public class GetDocumentHandler extends PipelinedHandler {
      * @param next
      */
     public GetDocumentHandler(PipelinedHandler next) {
+        this(next, new DatabaseImpl());
+    }
+
+    /**
+     *
+     * @param next
+     * @param dbsDAO
+     */
+    @VisibleForTesting
+    public GetDocumentHandler(PipelinedHandler next, Database dbsDAO) {
+        this(next, dbsDAO, new AsyncDocumentDAO());
+    }
+
+    /**
+     *
+     * @param next
+     * @param dbsDAO
+     * @param asyncDocumentDAO
+     */
+    @VisibleForTesting
+    public GetDocumentHandler(PipelinedHandler next, Database dbsDAO,
+            AsyncDocumentDAO asyncDocumentDAO) {
         super(next);
+        this.dbsDAO = dbsDAO;
+        this.asyncDocumentDAO = asyncDocumentDAO;
     }
 
     /**
@@ -132,7 +174,7 @@ public class GetDocumentHandler extends PipelinedHandler {
             query = and(terms);
         }
 
-        final BsonDocument fieldsToReturn = new BsonDocument();
+        final BsonDocument keysToReturn = new BsonDocument();
 
         Deque<String> keys = request.getKeys();
 
@@ -140,25 +182,122 @@ public class GetDocumentHandler extends PipelinedHandler {
             keys.stream().forEach((String f) -> {
                 BsonDocument keyQuery = BsonDocument.parse(f);
 
-                fieldsToReturn.putAll(keyQuery);  // this can throw JsonParseException for invalid filter parameters
+                keysToReturn.putAll(keyQuery);  // this can throw JsonParseException for invalid filter parameters
             });
         }
 
+        // the properties removed by the response transformers are not fetched
+        final BsonDocument fieldsToReturn = ResponseTransformersExecutor
+                .excludeFromProjection(keysToReturn,
+                        ResponseTransformersExecutor
+                                .excludedProperties(exchange));
+
         var cs = request.getClientSession();
         var coll = dbsDAO.getCollection(
                 request.getDBName(),
                 collName);
 
-        BsonDocument document = cs == null
+        // the etag cache is used for documents read without filters
+        // and outside transactions
+        final boolean cacheable = request.getType() == DOCUMENT
+                && cs == null
+                && request.getShardKey() == null
+                && (request.getFiltersDocument() == null
+                || request.getFiltersDocument().isEmpty());
+
+        // taken before querying the db, so that an etag read before a
+        // concurrent write is not cached
+        final long generation = cacheable
+                ? EtagCache.generation(request.getDBName(), collName, docId)
+                : 0;
+
+        final Bson _query = query;
+
+        final Callable<BsonDocument> find = () -> cs == null
                 ? coll
-                        .find(query)
+                        .find(_query)
                         .projection(fieldsToReturn)
                         .first()
                 : coll
-                        .find(cs, query)
+                        .find(cs, _query)
                         .projection(fieldsToReturn)
                         .first();
 
+        final Supplier<CompletableFuture<BsonDocument>> asyncFind
+                = () -> asyncDocumentDAO.getDocument(
+                        request.getDBName(),
+                        collName,
+                        _query,
+                        fieldsToReturn);
+
+        final AsyncDataPath.Continuation<BsonDocument> onDocument
+                = document -> sendDocument(exchange, collName, docId,
+                        cacheable, generation, document);
+
+        // conditional request, check the etag before fetching the document
+        if (exchange.getRequestHeaders().contains(Headers.IF_NONE_MATCH)) {
+            if (cacheable && RequestHelper.checkReadEtag(exchange,
+                    EtagCache.get(request.getDBName(), collName, docId))) {
+                EtagMetrics.update(request, true, true);
+                response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                next(exchange);
+                return;
+            }
+
+            AsyncDataPath.execute(exchange,
+                    () -> cs == null
+                            ? coll
+                                    .find(_query)
+                                    .projection(ETAG_PROJECTION)
+                                    .first()
+                            : coll
+                                    .find(cs, _query)
+                                    .projection(ETAG_PROJECTION)
+                                    .first(),
+                    () -> asyncDocumentDAO.getDocument(
+                            request.getDBName(),
+                            collName,
+                            _query,
+                            ETAG_PROJECTION),
+                    etagOnly -> {
+                        if (etagOnly != null) {
+                            var etag = getEtag(request.getType(), etagOnly);
+
+                            if (cacheable) {
+                                EtagCache.put(request.getDBName(), collName,
+                                        docId, etag, generation);
+                            }
+
+                            if (RequestHelper.checkReadEtag(exchange,
+                                    asObjectId(etag))) {
+                                EtagMetrics.update(request, true, false);
+                                response.setStatusCode(
+                                        HttpStatus.SC_NOT_MODIFIED);
+                                next(exchange);
+                                return;
+                            }
+                        }
+
+                        EtagMetrics.update(request, false, false);
+
+                        AsyncDataPath.execute(exchange, find, asyncFind,
+                                onDocument);
+                    });
+        } else {
+            AsyncDataPath.execute(exchange, find, asyncFind, onDocument);
+        }
+    }
+
+    private void sendDocument(
+            HttpServerExchange exchange,
+            String collName,
+            BsonValue docId,
+            boolean cacheable,
+            long generation,
+            BsonDocument document) throws Exception {
+        var request = BsonRequest.wrap(exchange);
+        var response = BsonResponse.wrap(exchange);
+
         if (document == null) {
             String errMsg = request.getDocumentId() == null
                     ? " does not exist"
@@ -207,26 +346,16 @@ public class GetDocumentHandler extends PipelinedHandler {
             return;
         }
 
-        Object etag;
+        var etag = getEtag(request.getType(), document);
 
-        if (request.getType() == TYPE.FILE) {
-            if (document.containsKey("metadata")
-                    && document.get("metadata").isDocument()) {
-                etag = document.get("metadata").asDocument().get(("_etag"));
-            } else if (document.containsKey("_etag")) {
-                // backward compatibility. until version 2.0.x, _etag was not
-                // in the metadata sub-document
-                etag = document.get("_etag");
-            } else {
-                etag = null;
-            }
-        } else {
-            etag = document.get("_etag");
+        if (cacheable) {
+            EtagCache.put(request.getDBName(), collName, docId, etag,
+                    generation);
         }
 
         // in case the request contains the IF_NONE_MATCH header with the current etag value,
         // just return 304 NOT_MODIFIED code
-        if (RequestHelper.checkReadEtag(exchange, (BsonObjectId) etag)) {
+        if (RequestHelper.checkReadEtag(exchange, asObjectId(etag))) {
             response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
             next(exchange);
             return;
@@ -249,4 +378,23 @@ public class GetDocumentHandler extends PipelinedHandler {
 
         next(exchange);
     }
+
+    private static BsonValue getEtag(TYPE type, BsonDocument document) {
+        if (type == TYPE.FILE) {
+            if (document.containsKey("metadata")
+                    && document.get("metadata").isDocument()) {
+                return document.get("metadata").asDocument().get(("_etag"));
+            } else {
+                // backward compatibility. until version 2.0.x, _etag was not
+                // in the metadata sub-document
+                return document.get("_etag");
+            }
+        } else {
+            return document.get("_etag");
+        }
+    }
+
+    private static BsonObjectId asObjectId(BsonValue etag) {
+        return etag != null && etag.isObjectId() ? etag.asObjectId() : null;
+    }
 }
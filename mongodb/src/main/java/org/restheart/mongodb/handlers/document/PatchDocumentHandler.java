@@ -20,11 +20,12 @@ package org.restheart.mongodb.handlers.document;
 import io.undertow.server.HttpServerExchange;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
 import org.restheart.mongodb.db.DocumentDAO;
-import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.handlers.AsyncDataPath;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -37,6 +38,8 @@ public class PatchDocumentHandler extends PipelinedHandler {
 
     private final DocumentDAO documentDAO;
 
+    private final AsyncDocumentDAO asyncDocumentDAO = new AsyncDocumentDAO();
+
     /**
      * Creates a new instance of PatchDocumentHandler
      */
@@ -96,26 +99,38 @@ public class PatchDocumentHandler extends PipelinedHandler {
             return;
         }
 
-        OperationResult result = documentDAO.upsertDocument(
-                request.getClientSession(),
-                request.getDBName(),
-                request.getCollectionName(),
-                request.getDocumentId(),
-                request.getFiltersDocument(),
-                request.getShardKey(),
-                content,
-                request.getETag(),
-                true,
-                request.isETagCheckRequired());
-
-        if (RequestHelper.isResponseInConflict(result, exchange)) {
-            next(exchange);
-            return;
-        }
-
-        response.setStatusCode(result.getHttpCode());
-
-        next(exchange);
+        AsyncDataPath.execute(exchange,
+                () -> documentDAO.upsertDocument(
+                        request.getClientSession(),
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        request.getDocumentId(),
+                        request.getFiltersDocument(),
+                        request.getShardKey(),
+                        content,
+                        request.getETag(),
+                        true,
+                        request.isETagCheckRequired()),
+                () -> asyncDocumentDAO.upsertDocument(
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        request.getDocumentId(),
+                        request.getFiltersDocument(),
+                        request.getShardKey(),
+                        content,
+                        request.getETag(),
+                        true,
+                        request.isETagCheckRequired()),
+                result -> {
+                    if (RequestHelper.isResponseInConflict(result, exchange)) {
+                        next(exchange);
+                        return;
+                    }
+
+                    response.setStatusCode(result.getHttpCode());
+
+                    next(exchange);
+                });
     }
 
 }
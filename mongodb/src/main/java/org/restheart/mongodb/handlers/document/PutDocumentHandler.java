@@ -17,15 +17,17 @@
  */
 package org.restheart.mongodb.handlers.document;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
 import org.restheart.mongodb.db.DocumentDAO;
-import org.restheart.handlers.exchange.OperationResult;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.handlers.AsyncDataPath;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.ResponseHelper;
 
@@ -36,6 +38,8 @@ import org.restheart.mongodb.utils.ResponseHelper;
 public class PutDocumentHandler extends PipelinedHandler {
     private final DocumentDAO documentDAO;
 
+    private final AsyncDocumentDAO asyncDocumentDAO;
+
     /**
      * Default ctor
      */
@@ -59,8 +63,21 @@ public class PutDocumentHandler extends PipelinedHandler {
      * @param documentDAO
      */
     public PutDocumentHandler(PipelinedHandler next, DocumentDAO documentDAO) {
+        this(next, documentDAO, new AsyncDocumentDAO());
+    }
+
+    /**
+     *
+     * @param next
+     * @param documentDAO
+     * @param asyncDocumentDAO
+     */
+    @VisibleForTesting
+    public PutDocumentHandler(PipelinedHandler next, DocumentDAO documentDAO,
+            AsyncDocumentDAO asyncDocumentDAO) {
         super(next);
         this.documentDAO = documentDAO;
+        this.asyncDocumentDAO = asyncDocumentDAO;
     }
 
     /**
@@ -111,48 +128,60 @@ public class PutDocumentHandler extends PipelinedHandler {
 
         String etag = request.getETag();
 
-        OperationResult result = this.documentDAO.upsertDocument(
-                request.getClientSession(),
-                request.getDBName(),
-                request.getCollectionName(),
-                request.getDocumentId(),
-                request.getFiltersDocument(),
-                request.getShardKey(),
-                content,
-                etag,
-                false,
-                request.isETagCheckRequired());
-
-        response.setDbOperationResult(result);
-
-        // inject the etag
-        if (result.getEtag() != null) {
-            ResponseHelper.injectEtagHeader(exchange, result.getEtag());
-        }
-        
-        if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
-            ResponseHelper.endExchangeWithMessage(
-                    exchange,
-                    HttpStatus.SC_CONFLICT,
-                    "The document's ETag must be provided using the '"
-                    + Headers.IF_MATCH
-                    + "' header");
-            next(exchange);
-            return;
-        }
-        
-        // handle the case of duplicate key error
-        if (result.getHttpCode() == HttpStatus.SC_EXPECTATION_FAILED) {
-            ResponseHelper.endExchangeWithMessage(
-                    exchange,
-                    HttpStatus.SC_EXPECTATION_FAILED,
-                    ResponseHelper.getMessageFromErrorCode(11000));
-            next(exchange);
-            return;
-        }
-        
-        response.setStatusCode(result.getHttpCode());
-
-        next(exchange);
+        AsyncDataPath.execute(exchange,
+                () -> this.documentDAO.upsertDocument(
+                        request.getClientSession(),
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        request.getDocumentId(),
+                        request.getFiltersDocument(),
+                        request.getShardKey(),
+                        content,
+                        etag,
+                        false,
+                        request.isETagCheckRequired()),
+                () -> this.asyncDocumentDAO.upsertDocument(
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        request.getDocumentId(),
+                        request.getFiltersDocument(),
+                        request.getShardKey(),
+                        content,
+                        etag,
+                        false,
+                        request.isETagCheckRequired()),
+                result -> {
+                    response.setDbOperationResult(result);
+
+                    // inject the etag
+                    if (result.getEtag() != null) {
+                        ResponseHelper.injectEtagHeader(exchange, result.getEtag());
+                    }
+
+                    if (result.getHttpCode() == HttpStatus.SC_CONFLICT) {
+                        ResponseHelper.endExchangeWithMessage(
+                                exchange,
+                                HttpStatus.SC_CONFLICT,
+                                "The document's ETag must be provided using the '"
+                                + Headers.IF_MATCH
+                                + "' header");
+                        next(exchange);
+                        return;
+                    }
+
+                    // handle the case of duplicate key error
+                    if (result.getHttpCode() == HttpStatus.SC_EXPECTATION_FAILED) {
+                        ResponseHelper.endExchangeWithMessage(
+                                exchange,
+                                HttpStatus.SC_EXPECTATION_FAILED,
+                                ResponseHelper.getMessageFromErrorCode(11000));
+                        next(exchange);
+                        return;
+                    }
+
+                    response.setStatusCode(result.getHttpCode());
+
+                    next(exchange);
+                });
     }
 }
@@ -24,12 +24,16 @@ import static com.mongodb.client.model.Filters.eq;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import java.io.IOException;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.bson.BsonObjectId;
+import org.bson.BsonValue;
 import org.bson.types.ObjectId;
 import org.restheart.mongodb.db.MongoDBClientSingleton;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.handlers.metrics.EtagMetrics;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -57,6 +61,9 @@ public class GetFileBinaryHandler extends PipelinedHandler {
     private static final Logger LOGGER
             = LoggerFactory.getLogger(GetFileBinaryHandler.class);
 
+    private static final BsonDocument ETAG_PROJECTION
+            = new BsonDocument("metadata._etag", new BsonInt32(1));
+
     static String extractBucketName(final String collectionName) {
         return collectionName.split("\\.")[0];
     }
@@ -96,10 +103,29 @@ public class GetFileBinaryHandler extends PipelinedHandler {
         LOGGER.trace("GET " + exchange.getRequestURL());
         final String bucket = extractBucketName(request.getCollectionName());
 
-        GridFSBucket gridFSBucket = GridFSBuckets.create(
-                MongoDBClientSingleton.getInstance().getClient()
-                        .getDatabase(request.getDBName()),
-                bucket);
+        var db = MongoDBClientSingleton.getInstance().getClient()
+                .getDatabase(request.getDBName());
+
+        // conditional request, check the etag before fetching the file
+        if (exchange.getRequestHeaders().contains(Headers.IF_NONE_MATCH)) {
+            var etagOnly = db.getCollection(bucket.concat(".files"),
+                    BsonDocument.class)
+                    .find(eq("_id", request.getDocumentId()))
+                    .projection(ETAG_PROJECTION)
+                    .first();
+
+            boolean notModified = etagOnly != null
+                    && checkEtag(exchange, etagOnly.get("metadata"));
+
+            EtagMetrics.update(request, notModified, false);
+
+            if (notModified) {
+                next(exchange);
+                return;
+            }
+        }
+
+        GridFSBucket gridFSBucket = GridFSBuckets.create(db, bucket);
 
         GridFSFile dbsfile = gridFSBucket
                 .find(eq("_id", request.getDocumentId()))
@@ -143,6 +169,23 @@ public class GetFileBinaryHandler extends PipelinedHandler {
         return false;
     }
 
+    private boolean checkEtag(HttpServerExchange exchange, BsonValue metadata) {
+        if (metadata != null && metadata.isDocument()) {
+            var etag = metadata.asDocument().get("_etag");
+
+            // in case the request contains the IF_NONE_MATCH header with the current etag value,
+            // just return 304 NOT_MODIFIED code
+            if (etag != null && etag.isObjectId()
+                    && RequestHelper.checkReadEtag(exchange, etag.asObjectId())) {
+                exchange.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                exchange.endExchange();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void fileNotFound(
             BsonRequest request,
             HttpServerExchange exchange) throws Exception {
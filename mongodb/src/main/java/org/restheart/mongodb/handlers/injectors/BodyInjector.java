@@ -47,6 +47,7 @@ import static org.restheart.handlers.exchange.ExchangeKeys.TRUE_KEY_ID;
 import static org.restheart.handlers.exchange.ExchangeKeys._ID;
 import org.restheart.mongodb.representation.Resource;
 import org.restheart.mongodb.utils.ChannelReader;
+import org.restheart.mongodb.utils.ContentTooLargeException;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -374,7 +375,20 @@ public class BodyInjector extends PipelinedHandler {
         } else {
             if (isHalOrJson(contentType)) {
                 // get the raw content
-                final String contentString = ChannelReader.read(exchange.getRequestChannel());
+                final String contentString;
+
+                try {
+                    contentString = ChannelReader.read(
+                            exchange.getRequestChannel(),
+                            exchange.getRequestContentLength());
+                } catch (ContentTooLargeException ex) {
+                    ResponseHelper.endExchangeWithMessage(
+                            exchange,
+                            HttpStatus.SC_REQUEST_TOO_LONG,
+                            ex.getMessage());
+                    next(exchange);
+                    return;
+                }
 
                 // parse the json content
                 if (contentString != null
@@ -176,6 +176,37 @@ public class LocalCachesSingleton {
         }
     }
 
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @return the cached collection properties, Optional.empty() if cached as
+     * not existing or null if not cached
+     */
+    public Optional<BsonDocument> getCachedCollectionProperties(String dbName,
+            String collName) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        return collectionPropsCache.get(dbName + SEPARATOR + collName);
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param collProps
+     */
+    public void putCollectionProperties(String dbName, String collName,
+            BsonDocument collProps) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        collectionPropsCache.put(dbName + SEPARATOR + collName, collProps);
+    }
+
     /**
      *
      * @param dbName
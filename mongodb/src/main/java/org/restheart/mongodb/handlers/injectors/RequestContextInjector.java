@@ -18,6 +18,7 @@
 package org.restheart.mongodb.handlers.injectors;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.Optional;
@@ -56,6 +57,7 @@ import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.FILES_BUCKET;
 import static org.restheart.handlers.exchange.ExchangeKeys.TYPE.SCHEMA_STORE;
 import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.handlers.aggregation.AggregationPipeline;
+import org.restheart.mongodb.representation.Resource;
 import org.restheart.mongodb.representation.UnsupportedDocumentIdException;
 import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -185,6 +187,19 @@ public class RequestContextInjector extends PipelinedHandler {
                             + " PLAIN_JSON, PJ are aliases for NESTED)");
                 }
             }
+        } else if (isNdjsonAccepted(exchange) && isNdjsonAvailable(request)) {
+            rep = REPRESENTATION_FORMAT.NDJSON;
+        }
+
+        if (rep == REPRESENTATION_FORMAT.NDJSON
+                && !isNdjsonAvailable(request)) {
+            response.addWarning("illegal rep parameter NDJSON"
+                    + " (only available for GET requests"
+                    + " of collections and aggregations)");
+
+            rep = MongoServiceConfiguration
+                    .get()
+                    .getDefaultRepresentationFormat();
         }
 
         request.setRepresentationFormat(rep);
@@ -721,5 +736,19 @@ public class RequestContextInjector extends PipelinedHandler {
         next(exchange);
     }
 
-    
+    private static boolean isNdjsonAccepted(HttpServerExchange exchange) {
+        var accept = exchange.getRequestHeaders().get(Headers.ACCEPT);
+
+        return accept != null && accept.stream()
+                .anyMatch(a -> a.contains(Resource.NDJSON_MEDIA_TYPE));
+    }
+
+    /**
+     * the NDJSON representation is only available for GET requests of
+     * collections and aggregations
+     */
+    private static boolean isNdjsonAvailable(BsonRequest request) {
+        return request.isGet()
+                && (request.isCollection() || request.isAggregation());
+    }
 }
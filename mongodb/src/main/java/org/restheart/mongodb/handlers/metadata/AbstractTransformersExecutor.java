@@ -25,6 +25,8 @@ import org.bson.BsonValue;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.metadata.CollectionMetadata;
+import org.restheart.mongodb.metadata.PluginInvocation;
 import org.restheart.mongodb.metadata.TransformerMetadata;
 import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.mongodb.GlobalTransformer;
@@ -81,15 +83,17 @@ public abstract class AbstractTransformersExecutor extends PipelinedHandler {
 
     abstract void applyGlobalTransformers(HttpServerExchange exchange);
 
-    abstract void applyTransformLogic(HttpServerExchange exchange, List<TransformerMetadata> dbRts) throws InvalidMetadataException;
+    abstract void applyTransformLogic(HttpServerExchange exchange, List<PluginInvocation<Transformer, TransformerMetadata>> rts) throws InvalidMetadataException;
 
     void applyDbTransformer(HttpServerExchange exchange)
             throws InvalidMetadataException {
         var context = RequestContext.wrap(exchange);
 
-        List<TransformerMetadata> dbRts
-                = TransformerMetadata
-                        .getFromJson(context.getDbProps());
+        List<PluginInvocation<Transformer, TransformerMetadata>> dbRts
+                = PluginInvocation.resolve(TransformerMetadata
+                        .getFromJson(context.getDbProps()),
+                        TransformerMetadata::getName,
+                        pluginsRegistry::getTransformer);
 
         applyTransformLogic(exchange, dbRts);
     }
@@ -98,9 +102,10 @@ public abstract class AbstractTransformersExecutor extends PipelinedHandler {
             throws InvalidMetadataException {
         var request = BsonRequest.wrap(exchange);
 
-        List<TransformerMetadata> collRts
-                = TransformerMetadata
-                        .getFromJson(request.getCollectionProps());
+        List<PluginInvocation<Transformer, TransformerMetadata>> collRts
+                = CollectionMetadata
+                        .of(request)
+                        .getTransformerInvocations(pluginsRegistry);
 
         applyTransformLogic(exchange, collRts);
     }
@@ -22,15 +22,15 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import org.bson.BsonArray;
-import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.metadata.CollectionMetadata;
 import org.restheart.mongodb.metadata.CheckerMetadata;
+import org.restheart.mongodb.metadata.PluginInvocation;
 import org.restheart.mongodb.plugins.checkers.CheckersUtils;
-import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.plugins.InjectPluginsRegistry;
 import org.restheart.plugins.Interceptor;
@@ -122,32 +122,22 @@ public class BeforeWriteCheckersExecutor extends PipelinedHandler
         var request = BsonRequest.wrap(exchange);
         var response = BsonResponse.wrap(exchange);
 
-        List<CheckerMetadata> requestCheckers = CheckerMetadata.getFromJson(
-                request.getCollectionProps());
+        List<PluginInvocation<Checker, CheckerMetadata>> requestCheckers
+                = CollectionMetadata
+                        .of(request)
+                        .getCheckerInvocations(pluginsRegistry);
 
         return requestCheckers != null
-                && requestCheckers.stream().allMatch(checkerMetadata -> {
-                    try {
-                        var _checkerRecord = pluginsRegistry
-                                .getCheckers()
-                                .stream()
-                                .filter(t -> checkerMetadata
-                                .getName().equals(t.getName()))
-                                .findFirst();
-
-                        if (_checkerRecord.isPresent()) {
-                            var checkerRecord = _checkerRecord.get();
-
-                            var checker = checkerRecord.getInstance();
-
-                            BsonDocument confArgs = JsonUtils.toBsonDocument(
-                                    checkerRecord.getConfArgs());
+                && requestCheckers.stream().allMatch(invocation -> {
+                    var checkerMetadata = invocation.getMetadata();
 
+                    try {
+                        if (invocation.isRegistered()) {
                             return applyChecker(exchange,
                                     checkerMetadata.skipNotSupported(),
-                                    checker,
+                                    invocation.getInstance(),
                                     checkerMetadata.getArgs(),
-                                    confArgs);
+                                    invocation.getConfArgs());
                         } else {
                             LOGGER.warn("Checker set to apply "
                                     + "but not registered: {}",
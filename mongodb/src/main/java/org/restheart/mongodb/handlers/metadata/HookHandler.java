@@ -23,14 +23,16 @@ import java.util.NoSuchElementException;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.metadata.CollectionMetadata;
 import org.restheart.mongodb.metadata.HookMetadata;
-import org.restheart.mongodb.utils.JsonUtils;
+import org.restheart.mongodb.metadata.PluginInvocation;
 import org.restheart.plugins.InjectPluginsRegistry;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.Interceptor;
 import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
+import org.restheart.plugins.mongodb.Hook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,36 +80,29 @@ public class HookHandler implements Interceptor {
                 && request.getCollectionProps()
                         .containsKey(HookMetadata.ROOT_KEY)) {
 
-            List<HookMetadata> mdHooks = null;
+            List<PluginInvocation<Hook, HookMetadata>> hooks = null;
 
             try {
-                mdHooks = HookMetadata.getFromJson(
-                        request.getCollectionProps());
+                hooks = CollectionMetadata
+                        .of(request)
+                        .getHookInvocations(pluginsRegistry);
             } catch (InvalidMetadataException ime) {
                 response.addWarning(ime.getMessage());
             }
 
-            if (mdHooks != null) {
-                for (HookMetadata mdHook : mdHooks) {
-                    try {
-                        var _hookRecord = pluginsRegistry
-                                .getHooks()
-                                .stream()
-                                .filter(t -> mdHook.getName().equals(t.getName()))
-                                .findFirst();
-
-                        if (_hookRecord.isPresent()) {
-                            var hookRecord = _hookRecord.get();
-                            var hook = hookRecord.getInstance();
+            if (hooks != null) {
+                for (var invocation : hooks) {
+                    var mdHook = invocation.getMetadata();
 
-                            var confArgs = JsonUtils.toBsonDocument(
-                                    hookRecord.getConfArgs());
+                    try {
+                        if (invocation.isRegistered()) {
+                            var hook = invocation.getInstance();
 
                             if (hook.doesSupportRequests(context)) {
                                 hook.hook(exchange,
                                         context,
                                         mdHook.getArgs(),
-                                        confArgs);
+                                        invocation.getConfArgs());
                             }
                         } else {
                             LOGGER.warn("Hook set to apply "
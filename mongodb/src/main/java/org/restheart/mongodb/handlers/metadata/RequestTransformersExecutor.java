@@ -24,13 +24,14 @@ import org.bson.BsonValue;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.metadata.PluginInvocation;
 import org.restheart.mongodb.metadata.TransformerMetadata;
-import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.plugins.InjectPluginsRegistry;
 import org.restheart.plugins.Interceptor;
 import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.mongodb.GlobalTransformer;
+import org.restheart.plugins.mongodb.Transformer;
 import org.restheart.plugins.mongodb.Transformer.PHASE;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -140,7 +141,7 @@ public class RequestTransformersExecutor
     @Override
     void applyTransformLogic(
             HttpServerExchange exchange,
-            List<TransformerMetadata> rts)
+            List<PluginInvocation<Transformer, TransformerMetadata>> rts)
             throws InvalidMetadataException {
         var request = BsonRequest.wrap(exchange);
         var response = BsonResponse.wrap(exchange);
@@ -148,19 +149,14 @@ public class RequestTransformersExecutor
 
         // execute request tranformers
         rts.stream().filter((rt)
-                -> (rt.getPhase() == PHASE.REQUEST))
-                .forEachOrdered((TransformerMetadata rt) -> {
-                    try {
-                        var _tr = pluginsRegistry
-                                .getTransformers()
-                                .stream()
-                                .filter(t -> rt.getName().equals(t.getName()))
-                                .findFirst();
+                -> (rt.getMetadata().getPhase() == PHASE.REQUEST))
+                .forEachOrdered(rt -> {
+                    var mdRt = rt.getMetadata();
 
-                        if (_tr.isPresent()) {
-                            var tr = _tr.get();
-                            var t = tr.getInstance();
-                            var confArgs = JsonUtils.toBsonDocument(tr.getConfArgs());
+                    try {
+                        if (rt.isRegistered()) {
+                            var t = rt.getInstance();
+                            var confArgs = rt.getConfArgs();
 
                             BsonValue requestContent = request.getContent() == null
                                     ? new BsonDocument()
@@ -171,7 +167,7 @@ public class RequestTransformersExecutor
                                         exchange,
                                         context,
                                         requestContent,
-                                        rt.getArgs(),
+                                        mdRt.getArgs(),
                                         confArgs);
                             } else if (request.isPost()
                                     && requestContent.isArray()) {
@@ -181,23 +177,23 @@ public class RequestTransformersExecutor
                                                     exchange,
                                                     context,
                                                     doc,
-                                                    rt.getArgs(),
+                                                    mdRt.getArgs(),
                                                     confArgs);
                                         });
                             }
                         } else {
                             LOGGER.warn("Request Transformer set to apply "
-                                    + "but not registered: {}", rt.getName());
+                                    + "but not registered: {}", mdRt.getName());
                         }
                     } catch (IllegalArgumentException iae) {
                         String err = "Cannot find '"
-                                + rt.getName()
+                                + mdRt.getName()
                                 + "' in singleton group 'transformers'";
                         LOGGER.warn(err);
                         response.addWarning(err);
                     } catch (Throwable t) {
                         String err = "Error executing transformer '"
-                                + rt.getName()
+                                + mdRt.getName()
                                 + "': "
                                 + t.getMessage();
                         LOGGER.warn(err);
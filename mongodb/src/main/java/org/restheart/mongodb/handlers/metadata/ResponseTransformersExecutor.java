@@ -18,13 +18,24 @@
 package org.restheart.mongodb.handlers.metadata;
 
 import io.undertow.server.HttpServerExchange;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonValue;
+import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.metadata.CollectionMetadata;
+import org.restheart.mongodb.metadata.HookMetadata;
+import org.restheart.mongodb.metadata.PluginInvocation;
 import org.restheart.mongodb.metadata.TransformerMetadata;
-import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.mongodb.GlobalTransformer;
+import org.restheart.plugins.mongodb.Transformer;
 import org.restheart.plugins.mongodb.Transformer.PHASE;
 import org.restheart.plugins.mongodb.Transformer.SCOPE;
 import org.slf4j.Logger;
@@ -46,6 +57,226 @@ public class ResponseTransformersExecutor
     static final Logger LOGGER
             = LoggerFactory.getLogger(ResponseTransformersExecutor.class);
 
+    /**
+     * @param exchange
+     * @return true if response transformers or hooks can apply to the
+     * request, so the response content must be available to them
+     */
+    public static boolean isResponseContentRequired(
+            HttpServerExchange exchange) {
+        var context = RequestContext.wrap(exchange);
+
+        if (containsKey(context.getDbProps(),
+                TransformerMetadata.RTS_ELEMENT_NAME)
+                || containsKey(context.getCollectionProps(),
+                        TransformerMetadata.RTS_ELEMENT_NAME)
+                || containsKey(context.getCollectionProps(),
+                        HookMetadata.ROOT_KEY)) {
+            return true;
+        }
+
+        // pluginsRegistry is null until the transformers executors are
+        // initialized
+        return pluginsRegistry == null
+                || !pluginsRegistry.getGlobalHooks().isEmpty()
+                || pluginsRegistry.getGlobalTransformers().stream()
+                        .anyMatch(gt -> gt.getPhase() == PHASE.RESPONSE
+                        && gt.resolve(exchange, context));
+    }
+
+    private static boolean containsKey(BsonDocument props, String key) {
+        return props != null && props.containsKey(key);
+    }
+
+    /**
+     * The properties that the response transformers remove from the
+     * documents of GET /db/coll and GET /db/coll/docid, see
+     * Transformer.removedProperties(), so that the query projection can
+     * exclude them.
+     *
+     * The transformers are considered in the order they are executed up to
+     * the first one that does not declare its removed properties, since it
+     * could read any of them.
+     *
+     * @param exchange
+     * @return the properties to exclude, empty if none
+     */
+    public static Set<String> excludedProperties(HttpServerExchange exchange) {
+        var context = RequestContext.wrap(exchange);
+        var request = BsonRequest.wrap(exchange);
+
+        if (pluginsRegistry == null
+                || context.isInError()
+                || !context.isGet()
+                || !(context.isCollection() || context.isDocument())) {
+            return Collections.emptySet();
+        }
+
+        var ret = new HashSet<String>();
+
+        try {
+            // the relationships links are built from the documents' properties
+            var relationships = CollectionMetadata.of(request)
+                    .getRelationships();
+
+            if (relationships != null && !relationships.isEmpty()) {
+                return Collections.emptySet();
+            }
+
+            for (var gt : pluginsRegistry.getGlobalTransformers()) {
+                if (gt.getPhase() == PHASE.RESPONSE
+                        && gt.resolve(exchange, context)
+                        && !addRemovedProperties(context, gt.getTransformer(),
+                                gt.getScope(), gt.getArgs(), ret)) {
+                    return ret;
+                }
+            }
+
+            if (containsKey(context.getCollectionProps(),
+                    TransformerMetadata.RTS_ELEMENT_NAME)
+                    && !addRemovedProperties(context, CollectionMetadata
+                            .of(request)
+                            .getTransformerInvocations(pluginsRegistry),
+                            ret)) {
+                return ret;
+            }
+
+            if (containsKey(context.getDbProps(),
+                    TransformerMetadata.RTS_ELEMENT_NAME)) {
+                addRemovedProperties(context, PluginInvocation.resolve(
+                        TransformerMetadata.getFromJson(context.getDbProps()),
+                        TransformerMetadata::getName,
+                        pluginsRegistry::getTransformer), ret);
+            }
+        } catch (InvalidMetadataException ime) {
+            return Collections.emptySet();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return false if a transformer does not declare its removed properties
+     */
+    private static boolean addRemovedProperties(RequestContext context,
+            List<PluginInvocation<Transformer, TransformerMetadata>> rts,
+            Set<String> removed) {
+        for (var rt : rts) {
+            var md = rt.getMetadata();
+
+            // not registered transformers are not executed
+            if (md.getPhase() == PHASE.RESPONSE
+                    && rt.isRegistered()
+                    && !addRemovedProperties(context, rt.getInstance(),
+                            md.getScope(), md.getArgs(), removed)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean addRemovedProperties(RequestContext context,
+            Transformer t,
+            SCOPE scope,
+            BsonValue args,
+            Set<String> removed) {
+        var props = t.removedProperties(args);
+
+        if (props == null) {
+            return false;
+        }
+
+        // on collections, the THIS scope applies to the collection
+        // properties, not to the documents
+        if (context.isDocument() || scope == SCOPE.CHILDREN) {
+            props.stream()
+                    .filter(ResponseTransformersExecutor::isExcludable)
+                    .forEach(removed::add);
+        }
+
+        return true;
+    }
+
+    /**
+     * _id and _etag are used to build the representation and the ETag header;
+     * dot notation would exclude a nested property while the transformers
+     * remove the top level property with that name
+     */
+    private static boolean isExcludable(String prop) {
+        return !prop.isEmpty()
+                && !"_id".equals(prop)
+                && !"_etag".equals(prop)
+                && !prop.contains(".")
+                && !prop.startsWith("$");
+    }
+
+    /**
+     * merges the projection with the exclusion of the properties; if the
+     * projection cannot express it, e.g. because it uses projection
+     * operators, the projection is returned unchanged, the properties being
+     * anyway removed by the transformers
+     *
+     * @param projection the projection, null or empty for all the properties
+     * @param excluded the properties to exclude
+     * @return the merged projection
+     */
+    public static BsonDocument excludeFromProjection(BsonDocument projection,
+            Set<String> excluded) {
+        if (excluded == null || excluded.isEmpty()) {
+            return projection;
+        }
+
+        // a copy, the projection is not modified
+        var ret = new BsonDocument();
+
+        if (projection != null) {
+            ret.putAll(projection);
+        }
+
+        var values = ret.entrySet().stream()
+                .filter(e -> !"_id".equals(e.getKey()))
+                .map(e -> e.getValue())
+                .collect(Collectors.toList());
+
+        if (values.isEmpty() && ret.containsKey("_id")
+                && !isExclusion(ret.get("_id"))) {
+            // just the _id is returned
+            return projection;
+        } else if (values.stream()
+                .allMatch(ResponseTransformersExecutor::isExclusion)) {
+            excluded.forEach(prop -> {
+                // a.b: 0 and a: 0 would be a path collision
+                ret.keySet().removeIf(key -> key.startsWith(prop + "."));
+                ret.put(prop, new BsonInt32(0));
+            });
+
+            return ret;
+        } else if (values.stream()
+                .allMatch(ResponseTransformersExecutor::isInclusion)) {
+            ret.keySet().removeIf(key -> !"_id".equals(key)
+                    && excluded.stream().anyMatch(prop -> key.equals(prop)
+                    || key.startsWith(prop + ".")));
+
+            // without included properties all of them would be returned
+            return ret.keySet().stream().anyMatch(key -> !"_id".equals(key))
+                    ? ret
+                    : projection;
+        } else {
+            return projection;
+        }
+    }
+
+    private static boolean isExclusion(BsonValue value) {
+        return (value.isNumber() && value.asNumber().doubleValue() == 0)
+                || (value.isBoolean() && !value.asBoolean().getValue());
+    }
+
+    private static boolean isInclusion(BsonValue value) {
+        return (value.isNumber() && value.asNumber().doubleValue() != 0)
+                || (value.isBoolean() && value.asBoolean().getValue());
+    }
+
     @Override
     boolean doesGlobalTransformerAppy(GlobalTransformer gt,
             HttpServerExchange exchange,
@@ -129,32 +360,27 @@ public class ResponseTransformersExecutor
     @Override
     void applyTransformLogic(
             HttpServerExchange exchange,
-            List<TransformerMetadata> rts)
+            List<PluginInvocation<Transformer, TransformerMetadata>> rts)
             throws InvalidMetadataException {
         var context = RequestContext.wrap(exchange);
 
         // execute request transformers
         rts.stream()
-                .filter(rt -> rt.getPhase() == PHASE.RESPONSE)
+                .filter(rt -> rt.getMetadata().getPhase() == PHASE.RESPONSE)
                 .forEachOrdered(rt -> {
+                    var mdRt = rt.getMetadata();
+
                     try {
-                        var _tr = pluginsRegistry
-                                .getTransformers()
-                                .stream()
-                                .filter(t -> rt.getName().equals(t.getName()))
-                                .findFirst();
-
-                        if (_tr.isPresent()) {
-                            var tr = _tr.get();
-                            var t = tr.getInstance();
-                            var confArgs = JsonUtils.toBsonDocument(tr.getConfArgs());
-
-                            if (rt.getScope() == SCOPE.THIS) {
+                        if (rt.isRegistered()) {
+                            var t = rt.getInstance();
+                            var confArgs = rt.getConfArgs();
+
+                            if (mdRt.getScope() == SCOPE.THIS) {
                                 t.transform(
                                         exchange,
                                         context,
                                         context.getResponseContent(),
-                                        rt.getArgs(),
+                                        mdRt.getArgs(),
                                         confArgs);
                             } else if (context.getResponseContent() != null
                                     && context.getResponseContent().isDocument()
@@ -164,26 +390,26 @@ public class ResponseTransformersExecutor
                                 applyChildrenTransformLogic(exchange,
                                         context,
                                         t,
-                                        rt.getArgs(),
+                                        mdRt.getArgs(),
                                         confArgs);
                             } else if (context.isDocument()) {
                                 t.transform(
                                         exchange,
                                         context,
                                         context.getResponseContent(),
-                                        rt.getArgs(),
+                                        mdRt.getArgs(),
                                         confArgs);
                             }
                         } else {
                             LOGGER.warn("Response Transformer set to apply "
-                                    + "but not registered: {}", rt.getName());
+                                    + "but not registered: {}", mdRt.getName());
                         }
                     } catch (NoSuchElementException iae) {
                         LOGGER.warn(iae.getMessage());
                         context.addWarning(iae.getMessage());
                     } catch (Throwable t) {
                         String err = "Error executing transformer '"
-                                + rt.getName()
+                                + mdRt.getName()
                                 + "': "
                                 + t.getMessage();
                         LOGGER.warn(err);
@@ -0,0 +1,96 @@
+package org.restheart.mongodb.handlers.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.MapMaker;
+import java.util.Map;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.COLLECTION;
+import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.DATABASE;
+import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.ROOT;
+
+/**
+ * Metrics of the conditional GET requests, i.e. with the If-None-Match header,
+ * of documents and files:
+ *
+ * ETAG.GET counts the conditional requests, ETAG.GET.304 the ones replied with
+ * 304 Not Modified, ETAG.GET.cache-hits the ones replied with 304 using the
+ * etag cache, and the gauge ETAG.GET.304-ratio is the 304 hit ratio.
+ */
+public class EtagMetrics {
+
+    private static final SharedMetricRegistryProxy METRICS
+            = new SharedMetricRegistryProxy();
+
+    /**
+     * the counters of each registry, weak keys allow registries to be removed
+     */
+    private static final Map<MetricRegistry, EtagMetrics> COUNTERS
+            = new MapMaker().weakKeys().makeMap();
+
+    private final Counter conditionalReads;
+    private final Counter notModified;
+    private final Counter cacheHits;
+
+    private EtagMetrics(MetricRegistry registry) {
+        this.conditionalReads = registry.counter("ETAG.GET");
+        this.notModified = registry.counter("ETAG.GET.304");
+        this.cacheHits = registry.counter("ETAG.GET.cache-hits");
+
+        registry.gauge("ETAG.GET.304-ratio", () -> (Gauge<Double>) this::ratio);
+    }
+
+    /**
+     * updates the metrics of a conditional GET request
+     *
+     * @param request
+     * @param notModified true if replied with 304 Not Modified
+     * @param cacheHit true if the etag was found in the etag cache
+     */
+    public static void update(BsonRequest request,
+            boolean notModified,
+            boolean cacheHit) {
+        var conf = MongoServiceConfiguration.get();
+
+        if (conf == null || !conf.gatheringAboveOrEqualToLevel(ROOT)) {
+            return;
+        }
+
+        update(METRICS.registry(), notModified, cacheHit);
+
+        if (MetricsInstrumentationHandler.isFilledAndNotMetrics(request.getDBName())
+                && conf.gatheringAboveOrEqualToLevel(DATABASE)) {
+            update(METRICS.registry(request.getDBName()), notModified, cacheHit);
+
+            if (MetricsInstrumentationHandler.isFilledAndNotMetrics(request.getCollectionName())
+                    && conf.gatheringAboveOrEqualToLevel(COLLECTION)) {
+                update(METRICS.registry(request.getDBName(),
+                        request.getCollectionName()), notModified, cacheHit);
+            }
+        }
+    }
+
+    private static void update(MetricRegistry registry,
+            boolean notModified,
+            boolean cacheHit) {
+        var metrics = COUNTERS.computeIfAbsent(registry, EtagMetrics::new);
+
+        metrics.conditionalReads.inc();
+
+        if (notModified) {
+            metrics.notModified.inc();
+        }
+
+        if (cacheHit) {
+            metrics.cacheHits.inc();
+        }
+    }
+
+    private double ratio() {
+        long total = conditionalReads.getCount();
+
+        return total == 0 ? 0d : (double) notModified.getCount() / total;
+    }
+}
@@ -1,11 +1,17 @@
 package org.restheart.mongodb.handlers.metrics;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
 import io.undertow.server.HttpServerExchange;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.restheart.handlers.PipelinedHandler;
+import org.restheart.handlers.exchange.AbstractExchange.METHOD;
 import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.ExchangeKeys.TYPE;
 import static org.restheart.handlers.exchange.ExchangeKeys._METRICS;
 import org.restheart.mongodb.MongoServiceConfiguration;
 import static org.restheart.mongodb.MongoServiceConfiguration.METRICS_GATHERING_LEVEL.COLLECTION;
@@ -34,6 +40,12 @@ public class MetricsInstrumentationHandler extends PipelinedHandler {
     @VisibleForTesting
     SharedMetricRegistryProxy metrics = new SharedMetricRegistryProxy();
 
+    /**
+     * the timers of each registry, weak keys allow registries to be removed
+     */
+    private static final Map<MetricRegistry, RequestTimers> TIMERS
+            = new MapMaker().weakKeys().makeMap();
+
     /**
      *
      */
@@ -58,7 +70,7 @@ public class MetricsInstrumentationHandler extends PipelinedHandler {
     public void handleRequest(HttpServerExchange exchange) throws Exception {
         var request = BsonRequest.wrap(exchange);
         
-        final long requestStartTime = request.getRequestStartTime();
+        final long requestStartTime = request.getRequestStartNanoTime();
 
         if (!exchange.isComplete()) {
             exchange.addExchangeCompleteListener((httpServerExchange, nextListener) -> {
@@ -75,22 +87,24 @@ public class MetricsInstrumentationHandler extends PipelinedHandler {
 
     private void addDefaultMetrics(MetricRegistry registry, long duration, HttpServerExchange exchange) {
         var request = BsonRequest.wrap(exchange);
-        
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString())
-                .update(duration, TimeUnit.MILLISECONDS);
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString() + "." + exchange.getStatusCode())
-                .update(duration, TimeUnit.MILLISECONDS);
-        registry.timer(request.getType().toString() + "." + request.getMethod().toString() + "." + (exchange.getStatusCode() / 100) + "xx")
-                .update(duration, TimeUnit.MILLISECONDS);
+
+        TIMERS.computeIfAbsent(registry, RequestTimers::new)
+                .get(request.getType(), request.getMethod())
+                .update(duration, exchange.getStatusCode());
     }
 
+    /**
+     *
+     * @param startTime the value of System.nanoTime() when the request was
+     * received
+     * @param exchange
+     */
     @VisibleForTesting
     void addMetrics(long startTime, HttpServerExchange exchange) {
         if (configuration.gatheringAboveOrEqualToLevel(ROOT)) {
             var request = BsonRequest.wrap(exchange);
             
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
+            long duration = System.nanoTime() - startTime;
 
             addDefaultMetrics(metrics.registry(), duration, exchange);
 
@@ -105,4 +119,83 @@ public class MetricsInstrumentationHandler extends PipelinedHandler {
             }
         }
     }
+
+    /**
+     * the timers of a registry indexed by request type and method, so that
+     * their names are built and looked up in the registry only once
+     */
+    private static class RequestTimers {
+        private static final int METHODS = METHOD.values().length;
+
+        private final MetricRegistry registry;
+        private final AtomicReferenceArray<MethodTimers> timers
+                = new AtomicReferenceArray<>(TYPE.values().length * METHODS);
+
+        RequestTimers(MetricRegistry registry) {
+            this.registry = registry;
+        }
+
+        MethodTimers get(TYPE type, METHOD method) {
+            int idx = type.ordinal() * METHODS + method.ordinal();
+
+            var ret = timers.get(idx);
+
+            if (ret == null) {
+                timers.compareAndSet(idx, null,
+                        new MethodTimers(registry, type + "." + method));
+                ret = timers.get(idx);
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * the timers type.method, type.method.status and type.method.Nxx
+     */
+    private static class MethodTimers {
+        private static final int MAX_STATUS = 600;
+
+        private final MetricRegistry registry;
+        private final String name;
+        private final Timer timer;
+        private final AtomicReferenceArray<Timer> statusTimers
+                = new AtomicReferenceArray<>(MAX_STATUS);
+        private final AtomicReferenceArray<Timer> statusClassTimers
+                = new AtomicReferenceArray<>(MAX_STATUS / 100);
+
+        MethodTimers(MetricRegistry registry, String name) {
+            this.registry = registry;
+            this.name = name;
+            this.timer = registry.timer(name);
+        }
+
+        void update(long duration, int status) {
+            timer.update(duration, TimeUnit.NANOSECONDS);
+
+            if (status >= 0 && status < MAX_STATUS) {
+                timer(statusTimers, status, "." + status)
+                        .update(duration, TimeUnit.NANOSECONDS);
+                timer(statusClassTimers, status / 100, "." + (status / 100) + "xx")
+                        .update(duration, TimeUnit.NANOSECONDS);
+            } else {
+                registry.timer(name + "." + status)
+                        .update(duration, TimeUnit.NANOSECONDS);
+                registry.timer(name + "." + (status / 100) + "xx")
+                        .update(duration, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer timer(AtomicReferenceArray<Timer> timers, int idx, String suffix) {
+            var ret = timers.get(idx);
+
+            if (ret == null) {
+                // registry.timer() returns the same timer for the same name
+                ret = registry.timer(name + suffix);
+                timers.lazySet(idx, ret);
+            }
+
+            return ret;
+        }
+    }
 }
@@ -57,9 +57,11 @@ public class RepresentationTransformer extends PipelinedHandler {
                 request.getRepresentationFormat()
                 : MongoServiceConfiguration.get().getDefaultRepresentationFormat();
                         
+        // NDJSON responses are streamed, errors are sent as STANDARD
         final boolean isStandardRepresentation = 
                 rf == REPRESENTATION_FORMAT.STANDARD ||
-                rf == REPRESENTATION_FORMAT.S;
+                rf == REPRESENTATION_FORMAT.S ||
+                rf == REPRESENTATION_FORMAT.NDJSON;
 
         if (contentToTransform == null
                 || (!isStandardRepresentation &&
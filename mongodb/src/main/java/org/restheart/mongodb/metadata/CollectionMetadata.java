@@ -0,0 +1,332 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.metadata;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.mongodb.handlers.aggregation.AbstractAggregationOperation;
+import org.restheart.mongodb.handlers.metadata.InvalidMetadataException;
+import org.restheart.plugins.Plugin;
+import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.mongodb.Checker;
+import org.restheart.plugins.mongodb.Hook;
+import org.restheart.plugins.mongodb.Transformer;
+
+/**
+ * The relationships, aggregations, checkers, transformers and hooks metadata
+ * of a collection, parsed from the collection properties.
+ *
+ * Each metadata is parsed on first access; descriptors are cached by
+ * collection and _etag of its properties, so that they are parsed once for
+ * each version of the collection properties. The same applies to the
+ * invocations of checkers, transformers and hooks, that resolve the
+ * registered plugins.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CollectionMetadata {
+
+    private static final String SEPARATOR = "_@_@_";
+    private static final long MAX_CACHE_SIZE = 1_000;
+
+    private static final Cache<String, CollectionMetadata> CACHE = CacheFactory
+            .createLocalCache(MAX_CACHE_SIZE, Cache.EXPIRE_POLICY.NEVER, -1);
+
+    /**
+     *
+     * @param request
+     * @return the metadata of the collection of the request
+     */
+    public static CollectionMetadata of(BsonRequest request) {
+        return of(request.getDBName(),
+                request.getCollectionName(),
+                request.getCollectionProps());
+    }
+
+    /**
+     *
+     * @param dbName
+     * @param collName
+     * @param collProps
+     * @return the metadata of the collection
+     */
+    public static CollectionMetadata of(String dbName,
+            String collName,
+            BsonDocument collProps) {
+        BsonValue etag = collProps == null
+                ? null
+                : collProps.get("_etag");
+
+        // without _etag the version of the properties is unknown
+        if (etag == null) {
+            return new CollectionMetadata(collProps);
+        }
+
+        var key = dbName + SEPARATOR + collName + SEPARATOR + etag.toString();
+
+        var cached = CACHE.get(key);
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        var ret = new CollectionMetadata(collProps);
+
+        CACHE.put(key, ret);
+
+        return ret;
+    }
+
+    private final BsonDocument collProps;
+
+    private volatile Parsed<List<Relationship>> relationships = null;
+    private volatile Parsed<Map<String, AbstractAggregationOperation>> aggregations = null;
+    private volatile Parsed<List<CheckerMetadata>> checkers = null;
+    private volatile Parsed<List<TransformerMetadata>> transformers = null;
+    private volatile Parsed<List<HookMetadata>> hooks = null;
+
+    private volatile Invocations<Checker, CheckerMetadata> checkerInvocations = null;
+    private volatile Invocations<Transformer, TransformerMetadata> transformerInvocations = null;
+    private volatile Invocations<Hook, HookMetadata> hookInvocations = null;
+
+    private CollectionMetadata(BsonDocument collProps) {
+        this.collProps = collProps;
+    }
+
+    /**
+     * @return the relationships, see Relationship.getFromJson()
+     * @throws InvalidMetadataException
+     */
+    public List<Relationship> getRelationships()
+            throws InvalidMetadataException {
+        if (relationships == null) {
+            relationships = Parsed.of(() -> unmodifiable(
+                    Relationship.getFromJson(collProps)));
+        }
+
+        return relationships.get();
+    }
+
+    /**
+     * @return the aggregations by uri, see
+     * AbstractAggregationOperation.getFromJson()
+     * @throws InvalidMetadataException
+     */
+    public Map<String, AbstractAggregationOperation> getAggregations()
+            throws InvalidMetadataException {
+        if (aggregations == null) {
+            aggregations = Parsed.of(() -> {
+                var aggrs = AbstractAggregationOperation
+                        .getFromJson(collProps);
+
+                if (aggrs == null) {
+                    return null;
+                }
+
+                var ret = new LinkedHashMap<String, AbstractAggregationOperation>();
+
+                // in case of duplicate uris, the first one applies
+                aggrs.forEach(aggr -> ret.putIfAbsent(aggr.getUri(), aggr));
+
+                return Collections.unmodifiableMap(ret);
+            });
+        }
+
+        return aggregations.get();
+    }
+
+    /**
+     * @param uri
+     * @return the aggregation with the given uri or null
+     * @throws InvalidMetadataException
+     */
+    public AbstractAggregationOperation getAggregation(String uri)
+            throws InvalidMetadataException {
+        var aggrs = getAggregations();
+
+        return aggrs == null ? null : aggrs.get(uri);
+    }
+
+    /**
+     * @return the checkers, see CheckerMetadata.getFromJson()
+     * @throws InvalidMetadataException
+     */
+    public List<CheckerMetadata> getCheckers()
+            throws InvalidMetadataException {
+        if (checkers == null) {
+            checkers = Parsed.of(() -> unmodifiable(
+                    CheckerMetadata.getFromJson(collProps)));
+        }
+
+        return checkers.get();
+    }
+
+    /**
+     * @return the transformers, see TransformerMetadata.getFromJson()
+     * @throws InvalidMetadataException
+     */
+    public List<TransformerMetadata> getTransformers()
+            throws InvalidMetadataException {
+        if (transformers == null) {
+            transformers = Parsed.of(() -> unmodifiable(
+                    TransformerMetadata.getFromJson(collProps)));
+        }
+
+        return transformers.get();
+    }
+
+    /**
+     * @return the hooks, see HookMetadata.getFromJson()
+     * @throws InvalidMetadataException
+     */
+    public List<HookMetadata> getHooks()
+            throws InvalidMetadataException {
+        if (hooks == null) {
+            hooks = Parsed.of(() -> unmodifiable(
+                    HookMetadata.getFromJson(collProps)));
+        }
+
+        return hooks.get();
+    }
+
+    /**
+     * @param pluginsRegistry
+     * @return the checkers resolved to the registered plugins
+     * @throws InvalidMetadataException
+     */
+    public List<PluginInvocation<Checker, CheckerMetadata>> getCheckerInvocations(
+            PluginsRegistry pluginsRegistry)
+            throws InvalidMetadataException {
+        var ret = checkerInvocations;
+
+        if (ret == null || ret.pluginsRegistry != pluginsRegistry) {
+            ret = new Invocations<>(pluginsRegistry,
+                    PluginInvocation.resolve(getCheckers(),
+                            CheckerMetadata::getName,
+                            pluginsRegistry::getChecker));
+
+            checkerInvocations = ret;
+        }
+
+        return ret.invocations;
+    }
+
+    /**
+     * @param pluginsRegistry
+     * @return the transformers resolved to the registered plugins
+     * @throws InvalidMetadataException
+     */
+    public List<PluginInvocation<Transformer, TransformerMetadata>> getTransformerInvocations(
+            PluginsRegistry pluginsRegistry)
+            throws InvalidMetadataException {
+        var ret = transformerInvocations;
+
+        if (ret == null || ret.pluginsRegistry != pluginsRegistry) {
+            ret = new Invocations<>(pluginsRegistry,
+                    PluginInvocation.resolve(getTransformers(),
+                            TransformerMetadata::getName,
+                            pluginsRegistry::getTransformer));
+
+            transformerInvocations = ret;
+        }
+
+        return ret.invocations;
+    }
+
+    /**
+     * @param pluginsRegistry
+     * @return the hooks resolved to the registered plugins
+     * @throws InvalidMetadataException
+     */
+    public List<PluginInvocation<Hook, HookMetadata>> getHookInvocations(
+            PluginsRegistry pluginsRegistry)
+            throws InvalidMetadataException {
+        var ret = hookInvocations;
+
+        if (ret == null || ret.pluginsRegistry != pluginsRegistry) {
+            ret = new Invocations<>(pluginsRegistry,
+                    PluginInvocation.resolve(getHooks(),
+                            HookMetadata::getName,
+                            pluginsRegistry::getHook));
+
+            hookInvocations = ret;
+        }
+
+        return ret.invocations;
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * the invocations resolved with a plugins registry
+     */
+    private static final class Invocations<P extends Plugin, M> {
+        private final PluginsRegistry pluginsRegistry;
+        private final List<PluginInvocation<P, M>> invocations;
+
+        private Invocations(PluginsRegistry pluginsRegistry,
+                List<PluginInvocation<P, M>> invocations) {
+            this.pluginsRegistry = pluginsRegistry;
+            this.invocations = invocations;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        T parse() throws InvalidMetadataException;
+    }
+
+    /**
+     * the result of parsing a metadata, either its value or the
+     * InvalidMetadataException to throw on each access
+     */
+    private static final class Parsed<T> {
+        private final T value;
+        private final InvalidMetadataException error;
+
+        private Parsed(T value, InvalidMetadataException error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        static <T> Parsed<T> of(Parser<T> parser) {
+            try {
+                return new Parsed<>(parser.parse(), null);
+            } catch (InvalidMetadataException ime) {
+                return new Parsed<>(null, ime);
+            }
+        }
+
+        T get() throws InvalidMetadataException {
+            if (error != null) {
+                throw error;
+            }
+
+            return value;
+        }
+    }
+}
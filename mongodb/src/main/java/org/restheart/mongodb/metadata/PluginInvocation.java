@@ -0,0 +1,113 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.bson.BsonDocument;
+import org.restheart.mongodb.utils.JsonUtils;
+import org.restheart.plugins.Plugin;
+import org.restheart.plugins.PluginRecord;
+
+/**
+ * A checker, transformer or hook declared in the db or collection properties
+ * resolved to the registered plugin, with the plugin conf args converted to
+ * bson.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ * @param <P> the type of the plugin
+ * @param <M> the type of the metadata
+ */
+public class PluginInvocation<P extends Plugin, M> {
+
+    private final M metadata;
+    private final P instance;
+    private final BsonDocument confArgs;
+
+    private PluginInvocation(M metadata, PluginRecord<P> record) {
+        this.metadata = metadata;
+        this.instance = record == null ? null : record.getInstance();
+        this.confArgs = record == null
+                ? null
+                : JsonUtils.toBsonDocument(record.getConfArgs());
+    }
+
+    /**
+     * resolves the plugins of the given metadata
+     *
+     * @param <P>
+     * @param <M>
+     * @param metadata
+     * @param name the function that returns the name of the plugin of a
+     * metadata
+     * @param registry the function that returns the record of the plugin with
+     * the given name or null if not registered, e.g.
+     * pluginsRegistry::getChecker
+     * @return the invocations in the same order of the metadata or null if
+     * metadata is null
+     */
+    public static <P extends Plugin, M> List<PluginInvocation<P, M>> resolve(
+            List<M> metadata,
+            Function<M, String> name,
+            Function<String, PluginRecord<P>> registry) {
+        if (metadata == null) {
+            return null;
+        }
+
+        var ret = new ArrayList<PluginInvocation<P, M>>(metadata.size());
+
+        metadata.forEach(md -> ret.add(new PluginInvocation<>(md,
+                registry.apply(name.apply(md)))));
+
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * @return the metadata
+     */
+    public M getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return true if the plugin is registered
+     */
+    public boolean isRegistered() {
+        return instance != null;
+    }
+
+    /**
+     * @return the plugin instance or null if not registered
+     */
+    public P getInstance() {
+        return instance;
+    }
+
+    /**
+     * The conf args are converted to bson once and shared by all requests,
+     * this returns a copy of them, so that a plugin that modifies its conf
+     * args does not affect other invocations
+     *
+     * @return a copy of the conf args of the plugin or null if not registered
+     */
+    public BsonDocument getConfArgs() {
+        return confArgs == null ? null : confArgs.clone();
+    }
+}
@@ -17,18 +17,23 @@
  */
 package org.restheart.mongodb.plugins.checkers;
 
+import com.google.common.collect.MapMaker;
 import io.undertow.server.HttpServerExchange;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.restheart.handlers.exchange.RequestContext;
 import org.restheart.plugins.mongodb.Checker;
 import org.restheart.plugins.RegisterPlugin;
+import org.restheart.mongodb.utils.JsonPath;
 import org.restheart.mongodb.utils.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,6 +99,15 @@ import org.slf4j.LoggerFactory;
 public class JsonPathConditionsChecker implements Checker {
     static final Logger LOGGER = LoggerFactory.getLogger(JsonPathConditionsChecker.class);
 
+    /**
+     * the compiled conditions by args. The args of a checker are the same
+     * object as long as the collection metadata does not change, so the
+     * conditions are compiled once per metadata version.
+     */
+    private static final Map<BsonValue, Conditions> COMPILED = new MapMaker()
+            .weakKeys()
+            .makeMap();
+
     /**
      *
      * @param s
@@ -118,12 +132,9 @@ public class JsonPathConditionsChecker implements Checker {
             BsonDocument contentToCheck,
             BsonValue args) {
         if (args.isArray()) {
-            BsonArray conditions
-                    = filterMissingOptionalAndNullNullableConditions(
-                            args.asArray(),
-                            contentToCheck);
-
-            return applyConditions(conditions, contentToCheck, context);
+            return COMPILED
+                    .computeIfAbsent(args, a -> new Conditions(a.asArray()))
+                    .check(contentToCheck, context);
         } else {
             context.addWarning(
                     "checker wrong definition: args property must be "
@@ -166,196 +177,8 @@ public class JsonPathConditionsChecker implements Checker {
     protected boolean applyConditions(BsonArray conditions, BsonDocument json, final RequestContext context) {
         return conditions.stream().allMatch(_condition -> {
             if (_condition.isDocument()) {
-                BsonDocument condition = _condition.asDocument();
-
-                String path = null;
-                BsonValue _path = condition.get("path");
-                if (_path != null && _path.isString()) {
-                    path = _path.asString().getValue();
-                }
-
-                String type = null;
-                BsonValue _type = condition.get("type");
-                if (_type != null && _type.isString()) {
-                    type = _type.asString().getValue();
-                }
-
-                Set<Integer> counts = new HashSet<>();
-                BsonValue _count = condition.get("count");
-                if (_count != null) {
-                    if (_count.isInt32()) {
-                        counts.add(_count.asInt32().getValue());
-                    } else if (_count.isArray()) {
-                        BsonArray countsArray = _count.asArray();
-
-                        countsArray.forEach(countElement -> {
-                            if (countElement.isInt32()) {
-                                counts.add(countElement.asInt32().getValue());
-                            }
-                        });
-                    }
-                }
-
-                Set<String> mandatoryFields;
-                BsonValue _mandatoryFields = condition.get("mandatoryFields");
-                if (_mandatoryFields != null) {
-                    mandatoryFields = new HashSet<>();
-                    if (_mandatoryFields.isArray()) {
-                        BsonArray mandatoryFieldsArray = _mandatoryFields
-                                .asArray();
-
-                        mandatoryFieldsArray.forEach(element -> {
-                            if (element.isString()) {
-                                mandatoryFields.add(element
-                                        .asString().getValue());
-                            }
-                        });
-                    }
-                } else {
-                    mandatoryFields = null;
-                }
-
-                Set<String> optionalFields;
-                BsonValue _optionalFields = condition.get("optionalFields");
-                if (_optionalFields != null) {
-                    optionalFields = new HashSet<>();
-                    if (_optionalFields.isArray()) {
-                        BsonArray optionalFieldsArray = _optionalFields
-                                .asArray();
-
-                        optionalFieldsArray.forEach(element -> {
-                            if (element.isString()) {
-                                optionalFields.add(
-                                        element.asString().getValue());
-                            }
-                        });
-                    }
-                } else {
-                    optionalFields = null;
-                }
-                String regex = null;
-
-                BsonValue _regex = condition.get("regex");
-                if (_regex != null && _regex.isString()) {
-                    regex = _regex.asString().getValue();
-                }
-
-                Boolean optional = false;
-                BsonValue _optional = condition.get("optional");
-                if (_optional != null && _optional.isBoolean()) {
-                    optional = _optional.asBoolean().getValue();
-                }
-
-                Boolean nullable = false;
-                BsonValue _nullable = condition.get("nullable");
-                if (_nullable != null && _nullable.isBoolean()) {
-                    nullable = _nullable.asBoolean().getValue();
-                }
-                if (counts.isEmpty() && type == null && regex == null) {
-                    context.addWarning("condition does not have any of "
-                            + "'count', 'type' and 'regex' properties, "
-                            + "specify at least one: " + _condition);
-                    return true;
-                }
-                if (path == null) {
-                    context.addWarning(
-                            "condition in the args list does "
-                            + "not have the 'path' property: " + _condition);
-                    return true;
-                }
-                if (type != null && !counts.isEmpty() && regex != null) {
-                    return checkCount(
-                            json,
-                            path,
-                            counts,
-                            context)
-                            && checkType(
-                                    json,
-                                    path,
-                                    type,
-                                    mandatoryFields,
-                                    optionalFields,
-                                    optional,
-                                    nullable,
-                                    context)
-                            && checkRegex(
-                                    json,
-                                    path,
-                                    regex,
-                                    optional,
-                                    nullable,
-                                    context);
-                } else if (type != null && !counts.isEmpty()) {
-                    return checkCount(
-                            json,
-                            path,
-                            counts,
-                            context)
-                            && checkType(
-                                    json,
-                                    path,
-                                    type,
-                                    mandatoryFields,
-                                    optionalFields,
-                                    optional,
-                                    nullable,
-                                    context);
-                } else if (type != null && regex != null) {
-                    return checkType(
-                            json,
-                            path,
-                            type,
-                            mandatoryFields,
-                            optionalFields,
-                            optional,
-                            nullable,
-                            context)
-                            && checkRegex(
-                                    json,
-                                    path,
-                                    regex,
-                                    optional,
-                                    nullable,
-                                    context);
-                } else if (!counts.isEmpty() && regex != null) {
-                    return checkCount(
-                            json,
-                            path,
-                            counts,
-                            context)
-                            && checkRegex(
-                                    json,
-                                    path,
-                                    regex,
-                                    optional,
-                                    nullable,
-                                    context);
-                } else if (type != null) {
-                    return checkType(
-                            json,
-                            path,
-                            type,
-                            mandatoryFields,
-                            optionalFields,
-                            optional,
-                            nullable,
-                            context);
-                } else if (!counts.isEmpty()) {
-                    return checkCount(
-                            json,
-                            path,
-                            counts,
-                            context);
-                } else if (regex != null) {
-                    return checkRegex(
-                            json,
-                            path,
-                            regex,
-                            optional,
-                            nullable,
-                            context);
-                }
-                return true;
+                return new Condition(_condition.asDocument())
+                        .apply(json, null, context);
             } else {
                 context.addWarning(
                         "property in the args list is not an object: "
@@ -374,80 +197,18 @@ public class JsonPathConditionsChecker implements Checker {
      * @return
      */
     protected BsonArray filterMissingOptionalAndNullNullableConditions(BsonArray conditions, BsonValue content) {
-        Set<String> nullPaths = new HashSet<>();
-        BsonArray ret = new BsonArray();
-
-        conditions.stream().forEach(_condition -> {
-            if (_condition.isDocument()) {
-                BsonDocument condition = _condition.asDocument();
+        var compiled = new Conditions(conditions);
+        var excluded = compiled.excluded(content,
+                new Resolved[compiled.conditions.length]);
 
-                Boolean nullable = false;
-                BsonValue _nullable = condition.get("nullable");
-                if (_nullable != null && _nullable.isBoolean()) {
-                    nullable = _nullable.asBoolean().getValue();
-                }
+        BsonArray ret = new BsonArray();
 
-                Boolean optional = false;
-                BsonValue _optional = condition.get("optional");
-                if (_optional != null && _optional.isBoolean()) {
-                    optional = _optional.asBoolean().getValue();
-                }
-                if (nullable) {
-                    BsonValue _path = condition.get("path");
-                    if (_path != null && _path.isString()) {
-                        String path = _path.asString().getValue();
-                        List<Optional<BsonValue>> props;
-                        try {
-                            props = JsonUtils.getPropsFromPath(content, path);
-                            if (props != null && props.stream().allMatch(
-                                    (Optional<BsonValue> prop) -> {
-                                        return prop != null && !prop.isPresent();
-                                    })) {
-                                LOGGER.debug("ignoring null path {}", path);
-                                nullPaths.add(path);
-                            }
-                        } catch (IllegalArgumentException ex) {
-                            nullPaths.add(path);
-                        }
-                    }
-                }
-                if (optional) {
-                    BsonValue _path = condition.get("path");
-                    if (_path != null && _path.isString()) {
-                        String path = _path.asString().getValue();
-                        List<Optional<BsonValue>> props;
-                        try {
-                            props = JsonUtils.getPropsFromPath(content, path);
-                            if (props == null || props.stream().allMatch(
-                                    (Optional<BsonValue> prop) -> {
-                                        return prop == null;
-                                    })) {
-                                nullPaths.add(path);
-                            }
-                        } catch (IllegalArgumentException ex) {
-                            nullPaths.add(path);
-                        }
-                    }
-                }
+        for (int cont = 0; cont < excluded.length; cont++) {
+            if (!excluded[cont]) {
+                ret.add(compiled.conditions[cont].raw);
             }
-        });
-        conditions.stream().forEach(_condition -> {
-            if (_condition.isDocument()) {
-                BsonDocument condition = _condition.asDocument();
-
-                BsonValue _path = condition.get("path");
-                if (_path != null && _path.isString()) {
-                    String path = _path.asString().getValue();
-                    boolean hasNullParent = nullPaths.stream().anyMatch(
-                            (String nullPath) -> {
-                                return JsonUtils.isAncestorPath(nullPath, path);
-                            });
-                    if (!hasNullParent) {
-                        ret.add(condition);
-                    }
-                }
-            }
-        });
+        }
+
         return ret;
     }
 
@@ -462,16 +223,21 @@ public class JsonPathConditionsChecker implements Checker {
     protected boolean checkCount(BsonValue json,
             String path, Set<Integer> expectedCounts,
             RequestContext context) {
-        Integer count;
-        try {
-            count = JsonUtils.countPropsFromPath(json, path);
-        } catch (IllegalArgumentException ex) {
-            return false;
-        }
+        return checkCount(path,
+                Resolved.of(JsonPath.compile(path), json),
+                expectedCounts,
+                context);
+    }
+
+    private static boolean checkCount(String path,
+            Resolved resolved,
+            Set<Integer> expectedCounts,
+            RequestContext context) {
         // props is null when path does not exist. count is false
-        if (count == null) {
+        if (resolved.error != null || resolved.props == null) {
             return false;
         }
+        int count = resolved.props.size();
         boolean ret = expectedCounts.contains(count);
         LOGGER.debug("checkCount({}, {}) -> {}", path, expectedCounts, ret);
         if (ret == false) {
@@ -504,104 +270,108 @@ public class JsonPathConditionsChecker implements Checker {
             boolean optional,
             boolean nullable,
             RequestContext context) {
-        List<Optional<BsonValue>> props;
-        boolean ret;
-        boolean failedFieldsCheck = false;
-        try {
-            props = JsonUtils.getPropsFromPath(json, path);
-        } catch (IllegalArgumentException ex) {
+        return checkType(path,
+                Resolved.of(JsonPath.compile(path), json),
+                type,
+                mandatoryFields,
+                optionalFields,
+                allFields(mandatoryFields, optionalFields),
+                optional,
+                nullable,
+                context);
+    }
+
+    private static boolean checkType(String path,
+            Resolved resolved,
+            String type,
+            Set<String> mandatoryFields,
+            Set<String> optionalFields,
+            Set<String> allFields,
+            boolean optional,
+            boolean nullable,
+            RequestContext context) {
+        if (resolved.error != null) {
             LOGGER.debug("checkType({}, {}, {}, {}) -> {} -> false",
                     path,
                     type,
                     mandatoryFields,
                     optionalFields,
-                    ex.getMessage());
+                    resolved.error.getMessage());
 
             context.addWarning(
                     "checkType condition failed: path: "
                     + path
                     + ", expected type: "
                     + type + ", error: "
-                    + ex.getMessage());
+                    + resolved.error.getMessage());
             return false;
         }
+
+        var props = resolved.props;
+        boolean ret = true;
+        boolean failedFieldsCheck = false;
+
         // props is null when path does not exist.
         if (props == null) {
             ret = optional;
         } else {
-            ret = props.stream().allMatch((Optional<BsonValue> prop) -> {
+            for (var prop : props) {
                 if (prop == null) {
-                    return optional;
-                }
-                if (prop.isPresent()) {
+                    ret = optional;
+                } else if (prop.isPresent()) {
                     if ("array".equals(type) && prop.get().isDocument()) {
                         // this might be the case of PATCHING an element array using the dot notation
                         // e.g. object.array.2
                         // if so, the array comes as an BsonDocument with all numberic keys
                         // in any case, it might also be the object { "object": { "array": {"2": xxx }}}
-                        return (prop
-                                .get())
-                                .asDocument()
-                                .keySet()
-                                .stream()
-                                .allMatch((String k) -> {
-                                    try {
-                                        Integer.parseInt(k);
-                                        return true;
-                                    } catch (NumberFormatException nfe) {
-                                        return false;
-                                    }
-                                }) || JsonUtils.checkType(prop, type);
+                        ret = allNumericKeys(prop.get().asDocument())
+                                || JsonUtils.checkType(prop, type);
                     } else {
-                        return JsonUtils.checkType(prop, type);
+                        ret = JsonUtils.checkType(prop, type);
                     }
                 } else {
-                    return nullable;
+                    ret = nullable;
                 }
-            });
-            // check object fields
-            if (ret && "object".equals(type)
-                    && (mandatoryFields != null
-                    || optionalFields != null)) {
-                Set<String> allFields = new HashSet<>();
-                if (mandatoryFields != null) {
-                    allFields.addAll(mandatoryFields);
-                }
-                if (optionalFields != null) {
-                    allFields.addAll(optionalFields);
+
+                if (!ret) {
+                    break;
                 }
-                ret = props.stream().allMatch((Optional<BsonValue> prop) -> {
+            }
+
+            // check object fields
+            if (ret && "object".equals(type) && allFields != null) {
+                for (var prop : props) {
                     if (prop == null) {
-                        return optional;
-                    }
-                    if (prop.isPresent()) {
-                        BsonDocument obj = prop.get().asDocument();
-                        if (mandatoryFields != null) {
-                            return obj.keySet()
-                                    .containsAll(mandatoryFields)
-                                    && allFields.containsAll(obj.keySet());
-                        } else {
-                            return allFields.containsAll(obj.keySet());
-                        }
+                        ret = optional;
+                    } else if (prop.isPresent()) {
+                        var keys = prop.get().asDocument().keySet();
+
+                        ret = (mandatoryFields == null
+                                || keys.containsAll(mandatoryFields))
+                                && allFields.containsAll(keys);
                     } else {
-                        return nullable;
+                        ret = nullable;
+                    }
+
+                    if (!ret) {
+                        failedFieldsCheck = true;
+                        break;
                     }
-                });
-                if (ret == false) {
-                    failedFieldsCheck = true;
                 }
             }
         }
 
         if (ret) {
-            LOGGER.trace(
-                    "checkType({}, {}, {}, {}) -> {} -> {}",
-                    path,
-                    type,
-                    mandatoryFields,
-                    optionalFields,
-                    getRootPropsString(props),
-                    ret);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(
+                        "checkType({}, {}, {}, {}) -> {} -> {}",
+                        path,
+                        type,
+                        mandatoryFields,
+                        optionalFields,
+                        getRootPropsString(props),
+                        ret);
+            }
         } else {
             LOGGER.debug(
                     "checkType({}, {}, {}, {}) -> {} -> {}",
@@ -650,15 +420,32 @@ public class JsonPathConditionsChecker implements Checker {
             boolean optional,
             boolean nullable,
             RequestContext context) {
-        List<Optional<BsonValue>> props;
-        try {
-            props = JsonUtils.getPropsFromPath(json, path);
-        } catch (IllegalArgumentException ex) {
+        return checkRegex(path,
+                Resolved.of(JsonPath.compile(path), json),
+                regex,
+                null,
+                optional,
+                nullable,
+                context);
+    }
+
+    /**
+     * @param pattern the compiled regex, if null the regex is compiled when
+     * the path exists
+     */
+    private static boolean checkRegex(String path,
+            Resolved resolved,
+            String regex,
+            Pattern pattern,
+            boolean optional,
+            boolean nullable,
+            RequestContext context) {
+        if (resolved.error != null) {
             LOGGER.debug(
                     "checkRegex({}, {}) -> {}",
                     path,
                     regex,
-                    ex.getMessage());
+                    resolved.error.getMessage());
 
             context.addWarning(
                     "checkRegex condition failed: path: "
@@ -666,40 +453,51 @@ public class JsonPathConditionsChecker implements Checker {
                     + ", regex: "
                     + regex
                     + ", got: "
-                    + ex.getMessage());
+                    + resolved.error.getMessage());
 
             return false;
         }
-        boolean ret;
+
+        var props = resolved.props;
+        boolean ret = true;
+
         // props is null when path does not exist.
         if (props == null) {
             ret = optional;
         } else {
-            Pattern p = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-            ret = props.stream().allMatch((Optional<BsonValue> prop) -> {
+            Pattern p = pattern != null
+                    ? pattern
+                    : Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+
+            for (var prop : props) {
                 if (prop == null) {
-                    return optional;
-                }
-                if (prop.isPresent()) {
+                    ret = optional;
+                } else if (prop.isPresent()) {
                     if (prop.get().isString()) {
-                        return p.matcher(prop.get().asString().getValue())
+                        ret = p.matcher(prop.get().asString().getValue())
                                 .find();
                     } else {
-                        return p.matcher(JsonUtils.toJson(prop.get())).find();
+                        ret = p.matcher(JsonUtils.toJson(prop.get())).find();
                     }
                 } else {
-                    return nullable;
+                    ret = nullable;
                 }
-            });
+
+                if (!ret) {
+                    break;
+                }
+            }
         }
 
         if (ret) {
-            LOGGER.trace(
-                    "checkRegex({}, {}) -> {} -> {}",
-                    path,
-                    regex,
-                    getRootPropsString(props),
-                    ret);
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace(
+                        "checkRegex({}, {}) -> {} -> {}",
+                        path,
+                        regex,
+                        getRootPropsString(props),
+                        ret);
+            }
         } else {
             LOGGER.debug(
                     "checkRegex({}, {}) -> {} -> {}",
@@ -720,7 +518,36 @@ public class JsonPathConditionsChecker implements Checker {
         return ret;
     }
 
-    private String getRootPropsString(List<Optional<BsonValue>> props) {
+    private static Set<String> allFields(Set<String> mandatoryFields,
+            Set<String> optionalFields) {
+        if (mandatoryFields == null && optionalFields == null) {
+            return null;
+        }
+
+        Set<String> allFields = new HashSet<>();
+        if (mandatoryFields != null) {
+            allFields.addAll(mandatoryFields);
+        }
+        if (optionalFields != null) {
+            allFields.addAll(optionalFields);
+        }
+
+        return allFields;
+    }
+
+    private static boolean allNumericKeys(BsonDocument doc) {
+        for (var key : doc.keySet()) {
+            try {
+                Integer.parseInt(key);
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String getRootPropsString(List<Optional<BsonValue>> props) {
         if (props == null) {
             return null;
         }
@@ -787,4 +614,313 @@ public class JsonPathConditionsChecker implements Checker {
 
         return sb.toString();
     }
+
+    /**
+     * the properties identified by the path of a condition or the error if
+     * the path cannot be evaluated
+     */
+    private static final class Resolved {
+        final List<Optional<BsonValue>> props;
+        final IllegalArgumentException error;
+
+        private Resolved(List<Optional<BsonValue>> props,
+                IllegalArgumentException error) {
+            this.props = props;
+            this.error = error;
+        }
+
+        static Resolved of(JsonPath path, BsonValue json) {
+            try {
+                return new Resolved(path.getPropsFrom(json), null);
+            } catch (IllegalArgumentException ex) {
+                return new Resolved(null, ex);
+            }
+        }
+    }
+
+    /**
+     * a condition of the args parsed once, with the path and the regex
+     * compiled
+     */
+    private static final class Condition {
+        final BsonDocument raw;
+        final String path;
+        final JsonPath compiledPath;
+        final String type;
+        final Set<Integer> counts = new HashSet<>();
+        final Set<String> mandatoryFields;
+        final Set<String> optionalFields;
+        final Set<String> allFields;
+        final String regex;
+        final Pattern pattern;
+        final boolean optional;
+        final boolean nullable;
+
+        Condition(BsonDocument condition) {
+            this.raw = condition;
+
+            BsonValue _path = condition.get("path");
+            if (_path != null && _path.isString()) {
+                this.path = _path.asString().getValue();
+                this.compiledPath = JsonPath.compile(this.path);
+            } else {
+                this.path = null;
+                this.compiledPath = null;
+            }
+
+            BsonValue _type = condition.get("type");
+            this.type = _type != null && _type.isString()
+                    ? _type.asString().getValue()
+                    : null;
+
+            BsonValue _count = condition.get("count");
+            if (_count != null) {
+                if (_count.isInt32()) {
+                    counts.add(_count.asInt32().getValue());
+                } else if (_count.isArray()) {
+                    _count.asArray().forEach(countElement -> {
+                        if (countElement.isInt32()) {
+                            counts.add(countElement.asInt32().getValue());
+                        }
+                    });
+                }
+            }
+
+            this.mandatoryFields = strings(condition.get("mandatoryFields"));
+            this.optionalFields = strings(condition.get("optionalFields"));
+            this.allFields = allFields(mandatoryFields, optionalFields);
+
+            BsonValue _regex = condition.get("regex");
+            if (_regex != null && _regex.isString()) {
+                this.regex = _regex.asString().getValue();
+
+                Pattern p;
+                try {
+                    p = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+                } catch (PatternSyntaxException pse) {
+                    // the error is raised when the condition is applied
+                    p = null;
+                }
+                this.pattern = p;
+            } else {
+                this.regex = null;
+                this.pattern = null;
+            }
+
+            BsonValue _optional = condition.get("optional");
+            this.optional = _optional != null && _optional.isBoolean()
+                    && _optional.asBoolean().getValue();
+
+            BsonValue _nullable = condition.get("nullable");
+            this.nullable = _nullable != null && _nullable.isBoolean()
+                    && _nullable.asBoolean().getValue();
+        }
+
+        private static Set<String> strings(BsonValue _fields) {
+            if (_fields == null) {
+                return null;
+            }
+
+            Set<String> ret = new HashSet<>();
+
+            if (_fields.isArray()) {
+                _fields.asArray().forEach(element -> {
+                    if (element.isString()) {
+                        ret.add(element.asString().getValue());
+                    }
+                });
+            }
+
+            return ret;
+        }
+
+        /**
+         * @param resolved the properties identified by the path, if null the
+         * path is evaluated
+         */
+        boolean apply(BsonDocument json, Resolved resolved,
+                RequestContext context) {
+            if (counts.isEmpty() && type == null && regex == null) {
+                context.addWarning("condition does not have any of "
+                        + "'count', 'type' and 'regex' properties, "
+                        + "specify at least one: " + raw);
+                return true;
+            }
+            if (path == null) {
+                context.addWarning(
+                        "condition in the args list does "
+                        + "not have the 'path' property: " + raw);
+                return true;
+            }
+
+            var _resolved = resolved != null
+                    ? resolved
+                    : Resolved.of(compiledPath, json);
+
+            return (counts.isEmpty()
+                    || checkCount(path, _resolved, counts, context))
+                    && (type == null
+                    || checkType(path, _resolved, type, mandatoryFields,
+                            optionalFields, allFields, optional, nullable,
+                            context))
+                    && (regex == null
+                    || checkRegex(path, _resolved, regex, pattern, optional,
+                            nullable, context));
+        }
+    }
+
+    /**
+     * the conditions of the args with a path, compiled once. The ancestor
+     * relations between the paths of the nullable and optional conditions and
+     * the paths of all the conditions are also computed once.
+     */
+    private static final class Conditions {
+        private static final byte NOT_ANCESTOR = 0;
+        private static final byte ANCESTOR = 1;
+        private static final byte WRONG_PATHS = 2;
+
+        final Condition[] conditions;
+
+        /**
+         * ancestors[i][j] tells if the path of the nullable or optional
+         * condition i is an ancestor of the path of condition j
+         */
+        final byte[][] ancestors;
+
+        Conditions(BsonArray args) {
+            var _conditions = new ArrayList<Condition>(args.size());
+
+            args.forEach(arg -> {
+                if (arg.isDocument()) {
+                    var condition = new Condition(arg.asDocument());
+
+                    if (condition.path != null) {
+                        _conditions.add(condition);
+                    }
+                }
+            });
+
+            this.conditions = _conditions.toArray(
+                    new Condition[_conditions.size()]);
+
+            this.ancestors = new byte[conditions.length][];
+
+            for (int i = 0; i < conditions.length; i++) {
+                if (conditions[i].nullable || conditions[i].optional) {
+                    ancestors[i] = new byte[conditions.length];
+
+                    for (int j = 0; j < conditions.length; j++) {
+                        try {
+                            ancestors[i][j] = JsonUtils.isAncestorPath(
+                                    conditions[i].path,
+                                    conditions[j].path)
+                                    ? ANCESTOR
+                                    : NOT_ANCESTOR;
+                        } catch (IllegalArgumentException iae) {
+                            ancestors[i][j] = WRONG_PATHS;
+                        }
+                    }
+                }
+            }
+        }
+
+        boolean check(BsonDocument json, RequestContext context) {
+            var resolved = new Resolved[conditions.length];
+            var excluded = excluded(json, resolved);
+
+            for (int j = 0; j < conditions.length; j++) {
+                if (!excluded[j]
+                        && !conditions[j].apply(json, resolved[j], context)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @param resolved the array where the evaluated paths are stored
+         * @return the conditions excluded because nullable or optional and
+         * their path, or the path of an ancestor, resolves to null
+         */
+        boolean[] excluded(BsonValue content, Resolved[] resolved) {
+            var nullPaths = new boolean[conditions.length];
+            var anyNullPath = false;
+
+            for (int i = 0; i < conditions.length; i++) {
+                var condition = conditions[i];
+
+                if (condition.nullable) {
+                    resolved[i] = Resolved.of(condition.compiledPath, content);
+
+                    if (resolved[i].error != null) {
+                        nullPaths[i] = true;
+                    } else if (resolved[i].props != null
+                            && allNullValues(resolved[i].props)) {
+                        LOGGER.debug("ignoring null path {}", condition.path);
+                        nullPaths[i] = true;
+                    }
+                }
+
+                if (condition.optional) {
+                    if (resolved[i] == null) {
+                        resolved[i] = Resolved.of(condition.compiledPath,
+                                content);
+                    }
+
+                    if (resolved[i].error != null
+                            || resolved[i].props == null
+                            || allMissing(resolved[i].props)) {
+                        nullPaths[i] = true;
+                    }
+                }
+
+                anyNullPath = anyNullPath || nullPaths[i];
+            }
+
+            var ret = new boolean[conditions.length];
+
+            if (!anyNullPath) {
+                return ret;
+            }
+
+            for (int i = 0; i < conditions.length; i++) {
+                if (!nullPaths[i]) {
+                    continue;
+                }
+
+                for (int j = 0; j < conditions.length; j++) {
+                    if (ancestors[i][j] == WRONG_PATHS) {
+                        // throws the IllegalArgumentException
+                        JsonUtils.isAncestorPath(conditions[i].path,
+                                conditions[j].path);
+                    } else if (ancestors[i][j] == ANCESTOR) {
+                        ret[j] = true;
+                    }
+                }
+            }
+
+            return ret;
+        }
+
+        private static boolean allNullValues(List<Optional<BsonValue>> props) {
+            for (var prop : props) {
+                if (prop == null || prop.isPresent()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static boolean allMissing(List<Optional<BsonValue>> props) {
+            for (var prop : props) {
+                if (prop != null) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
 }
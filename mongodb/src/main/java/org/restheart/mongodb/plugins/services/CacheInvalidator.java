@@ -22,6 +22,7 @@ import java.util.Deque;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.mongodb.handlers.injectors.LocalCachesSingleton;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.plugins.RegisterPlugin;
@@ -48,7 +49,8 @@ public class CacheInvalidator implements Service {
         var request = BsonRequest.wrap(exchange);
         var response = BsonResponse.wrap(exchange);
 
-        if (!MongoServiceConfiguration.get().isLocalCacheEnabled()) {
+        if (!MongoServiceConfiguration.get().isLocalCacheEnabled()
+                && !EtagCache.isEnabled()) {
             ResponseHelper.endExchangeWithMessage(
                     exchange,
                     HttpStatus.SC_NOT_MODIFIED,
@@ -72,11 +74,13 @@ public class CacheInvalidator implements Service {
 
                 if (_coll == null || _coll.getFirst() == null) {
                     LocalCachesSingleton.getInstance().invalidateDb(db);
+                    EtagCache.invalidateDb(db);
                 } else {
                     String coll = _coll.getFirst();
 
                     LocalCachesSingleton.getInstance()
                             .invalidateCollection(db, coll);
+                    EtagCache.invalidateCollection(db, coll);
                 }
 
                 response.setStatusCode(HttpStatus.SC_OK);
@@ -17,24 +17,41 @@
  */
 package org.restheart.mongodb.plugins.services;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Sets;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderValues;
 import io.undertow.util.Headers;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
 import org.bson.BsonObjectId;
 import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
-import org.restheart.mongodb.db.MongoDBClientSingleton;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.EtagCache;
 import org.restheart.handlers.exchange.RequestContext;
 import org.restheart.handlers.exchange.BsonRequest;
 import org.restheart.handlers.exchange.BsonResponse;
@@ -42,7 +59,6 @@ import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
 import org.restheart.plugins.mongodb.Transformer;
 import org.restheart.mongodb.representation.Resource;
-import org.restheart.mongodb.utils.ChannelReader;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.utils.JsonUtils;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -50,6 +66,7 @@ import org.restheart.plugins.InjectPluginsRegistry;
 import org.restheart.plugins.PluginsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xnio.streams.ChannelInputStream;
 
 /**
  * service to upload a csv file in a collection<br>
@@ -65,7 +82,13 @@ import org.slf4j.LoggerFactory;
  * props to add to each row<br>
  * - transformer=&lt;tname&gt; optional (default: no transformer). name (as
  * defined in conf file) of a tranformer to apply to imported data - update
- * optional (default: no). use data to update matching documents");
+ * optional (default: no). use data to update matching documents");<br>
+ * - ordered=&lt;value&gt; optional (default: true). if false, the rows of a
+ * batch are written in any order and an error does not stop the import<br>
+ * - batchsize=&lt;value&gt; optional (default: 1000). number of rows written
+ * with each bulk write<br>
+ * The response body reports the number of imported rows and the write
+ * counters.
  *
  * @author Andrea Di Cesare <andrea@softinstigate.com>
  */
@@ -76,10 +99,17 @@ import org.slf4j.LoggerFactory;
 public class CsvLoader implements Service {
 
     private final PluginsRegistry pluginsRegistry;
+    private final Supplier<Database> dbsDAO;
 
     @InjectPluginsRegistry
     public CsvLoader(PluginsRegistry pluginsRegistry) {
+        this(pluginsRegistry, Suppliers.memoize(DatabaseImpl::new));
+    }
+
+    @VisibleForTesting
+    CsvLoader(PluginsRegistry pluginsRegistry, Supplier<Database> dbsDAO) {
         this.pluginsRegistry = pluginsRegistry;
+        this.dbsDAO = dbsDAO;
     }
 
     /**
@@ -102,7 +132,9 @@ public class CsvLoader implements Service {
             + "values=<values> optional (default: no values) values of additional props to add to each row, "
             + "transformer=<tname> optional (default: no transformer). name (as defined in conf file) of a tranformer to apply to imported data, "
             + "update=<value> optional (default: false). if true, update matching documents (requires id to be set), "
-            + "upsert=<value> optional (default: true). when update=true, create new documents when not matching existing ones.";
+            + "upsert=<value> optional (default: true). when update=true, create new documents when not matching existing ones, "
+            + "ordered=<value> optional (default: true). if false, the rows of a batch are written in any order and an error does not stop the import, "
+            + "batchsize=<value> optional (default: 1000). number of rows written with each bulk write.";
 
     private static final String ERROR_NO_ID = "id must be set when update=true";
 
@@ -112,9 +144,14 @@ public class CsvLoader implements Service {
 
     private static final String ERROR_PARSING_DATA = "Error parsing CSV, see logs for more information";
 
-    private final static FindOneAndUpdateOptions FAU_NO_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(false);
+    private static final String ROWS_PROPERTY = "rows";
 
-    private final static FindOneAndUpdateOptions FAU_WITH_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(true);
+    /**
+     * unquoted words that the json parser does not read as strings
+     */
+    private static final Set<String> JSON_KEYWORDS = Sets.newHashSet("true",
+            "false", "null", "undefined", "NaN", "Infinity", "MinKey", "MaxKey",
+            "new");
 
     /**
      *
@@ -145,45 +182,20 @@ public class CsvLoader implements Service {
                             respBodySet = true;
                         } else {
                             try {
-                                final String content = ChannelReader.read(exchange.getRequestChannel());
-
-                                List<BsonDocument> documents = parseCsv(exchange, params, content);
-
-                                if (documents != null && documents.size() > 0) {
-                                    MongoCollection<BsonDocument> mcoll = MongoDBClientSingleton.getInstance().getClient()
-                                            .getDatabase(params.db).getCollection(params.coll, BsonDocument.class);
-
-                                    if (params.update && !params.upsert) {
-                                        documents.stream().forEach(document -> {
-                                            BsonDocument updateQuery = new BsonDocument("_id", document.remove("_id"));
-
-                                            // for upate import, take _filter property into account
-                                            // for instance, a filter allows to use $ positional array operator
-                                            BsonValue _filter = document.remove(FILTER_PROPERTY);
-
-                                            if (_filter != null && _filter.isDocument()) {
-                                                updateQuery.putAll(_filter.asDocument());
-                                            }
-                                            if (params.upsert) {
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", document),
-                                                        FAU_WITH_UPSERT_OPS);
-                                            } else {
-
-                                                mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", document),
-                                                        FAU_NO_UPSERT_OPS);
-                                            }
-                                        });
-                                    } else if (params.update && params.upsert) {
-                                        documents.stream().forEach(document -> {
-                                            BsonDocument updateQuery = new BsonDocument("_id", document.remove("_id"));
-
-                                            mcoll.findOneAndUpdate(updateQuery, new BsonDocument("$set", document),
-                                                    FAU_WITH_UPSERT_OPS);
-                                        });
-                                    } else {
-                                        mcoll.insertMany(documents);
-                                    }
+                                // the request channel is left open, undertow
+                                // drains and closes it when the exchange ends
+                                CsvReader reader = new CsvReader(
+                                        new InputStreamReader(
+                                                new ChannelInputStream(exchange.getRequestChannel()),
+                                                StandardCharsets.UTF_8),
+                                        params.sep);
+
+                                BsonDocument result = importCsv(exchange, params, reader);
+
+                                if (result.getInt64(ROWS_PROPERTY).getValue() > 0) {
+                                    response.setContent(result);
                                     response.setStatusCode(HttpStatus.SC_OK);
+                                    respBodySet = true;
                                 } else {
                                     response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
                                 }
@@ -224,66 +236,156 @@ public class CsvLoader implements Service {
         }
     }
 
-    private List<BsonDocument> parseCsv(HttpServerExchange exchange,
+    /**
+     * reads the csv rows and writes them with bulkWrite() in batches of
+     * params.batchSize rows; at most one batch is kept in memory since the
+     * next batch is read only after the previous one has been written
+     *
+     * @return the import counters
+     */
+    BsonDocument importCsv(HttpServerExchange exchange,
             CsvRequestParams params,
-            String rawContent) throws IOException {
-        List<BsonDocument> listOfBsonDocuments = new ArrayList<>();
+            CsvReader reader) throws IOException {
+        MongoCollection<BsonDocument> mcoll = null;
 
-        boolean isHeader = true;
+        var context = params.transformer != null
+                ? RequestContext.wrap(exchange)
+                : null;
 
-        List<String> cols = null;
+        var bulkWriteOptions = new BulkWriteOptions().ordered(params.ordered);
+        var updateOptions = new UpdateOptions().upsert(params.upsert);
 
-        try (Scanner scanner = new Scanner(rawContent)) {
-            while (scanner.hasNext()) {
-                String line = scanner.nextLine();
+        var batch = new ArrayList<WriteModel<BsonDocument>>(params.batchSize);
 
-                // split on the separator only if that comma has zero,
-                // or an even number of quotes ahead of it.
-                List<String> vals = Arrays.asList(line.split(params.sep + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1));
+        long rows = 0, inserted = 0, matched = 0, modified = 0, upserted = 0;
+        long start = System.nanoTime();
 
-                if (isHeader) {
-                    cols = vals;
-                } else {
-                    BsonDocument doc = new BsonDocument("_etag", new BsonObjectId());
+        // the first row is the header
+        List<String> cols = reader.readRow();
 
-                    int unnamedProps = 0;
+        while (true) {
+            List<String> vals = reader.readRow();
 
-                    for (int idx = 0; idx < vals.size(); idx++) {
-                        if (idx == params.idIdx) {
-                            doc.append("_id", getBsonValue(vals.get(params.idIdx)));
-                        } else {
-                            String propname;
+            if (vals != null) {
+                BsonDocument doc = toDocument(params, cols, vals);
 
-                            if (cols == null || cols.size() <= idx) {
-                                propname = "unnamed_" + unnamedProps;
-                                unnamedProps++;
-                            } else {
-                                propname = cols.get(idx);
-                            }
+                // apply transformer if defined
+                if (params.transformer != null) {
+                    params.transformer.transform(exchange, context, doc, null);
+                }
 
-                            doc.append(propname, getBsonValue(vals.get(idx)));
-                        }
-                    }
+                batch.add(toWriteModel(params, updateOptions, doc));
+                rows++;
+            }
+
+            if (batch.size() >= params.batchSize
+                    || (vals == null && !batch.isEmpty())) {
+                if (mcoll == null) {
+                    mcoll = dbsDAO.get().getCollection(params.db, params.coll);
+                }
 
-                    // add props specified via keys and values qparams
-                    addProps(params, doc);
+                final BulkWriteResult result;
 
-                    // apply transformer if defined
-                    if (params.transformer != null) {
-                        params.transformer.transform(exchange,
-                                RequestContext.wrap(exchange),
-                                doc,
-                                null);
+                try {
+                    result = mcoll.bulkWrite(batch, bulkWriteOptions);
+                } finally {
+                    // the updated documents get new etags, inserts don't
+                    // modify existing documents
+                    if (params.update) {
+                        EtagCache.invalidateCollection(params.db, params.coll);
                     }
+                }
+
+                inserted += result.getInsertedCount();
+                matched += result.getMatchedCount();
+                modified += result.getModifiedCount();
+                upserted += result.getUpserts().size();
+
+                batch.clear();
+
+                LOGGER.debug("csv import in {}.{}: {} rows written, {} rows/sec",
+                        params.db, params.coll, rows,
+                        throughput(rows, System.nanoTime() - start));
+            }
+
+            if (vals == null) {
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        if (rows > 0) {
+            LOGGER.debug("csv import in {}.{} completed: {} rows in {} msecs, {} rows/sec",
+                    params.db, params.coll, rows,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    throughput(rows, elapsed));
+        }
+
+        return new BsonDocument(ROWS_PROPERTY, new BsonInt64(rows))
+                .append("inserted", new BsonInt64(inserted))
+                .append("matched", new BsonInt64(matched))
+                .append("modified", new BsonInt64(modified))
+                .append("upserted", new BsonInt64(upserted))
+                .append("msecs", new BsonInt64(TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+    private static long throughput(long rows, long nanos) {
+        return nanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / nanos : rows;
+    }
+
+    private BsonDocument toDocument(CsvRequestParams params,
+            List<String> cols,
+            List<String> vals) {
+        BsonDocument doc = new BsonDocument("_etag", new BsonObjectId());
+
+        int unnamedProps = 0;
+
+        for (int idx = 0; idx < vals.size(); idx++) {
+            if (idx == params.idIdx) {
+                doc.append("_id", getBsonValue(vals.get(params.idIdx)));
+            } else {
+                String propname;
 
-                    listOfBsonDocuments.add(doc);
+                if (cols == null || cols.size() <= idx) {
+                    propname = "unnamed_" + unnamedProps;
+                    unnamedProps++;
+                } else {
+                    propname = cols.get(idx);
                 }
 
-                isHeader = false;
+                doc.append(propname, getBsonValue(vals.get(idx)));
+            }
+        }
+
+        // add props specified via keys and values qparams
+        addProps(params, doc);
+
+        return doc;
+    }
+
+    private WriteModel<BsonDocument> toWriteModel(CsvRequestParams params,
+            UpdateOptions updateOptions,
+            BsonDocument document) {
+        if (!params.update) {
+            return new InsertOneModel<>(document);
+        }
+
+        BsonDocument updateQuery = new BsonDocument("_id", document.remove("_id"));
+
+        if (!params.upsert) {
+            // for upate import, take _filter property into account
+            // for instance, a filter allows to use $ positional array operator
+            BsonValue _filter = document.remove(FILTER_PROPERTY);
+
+            if (_filter != null && _filter.isDocument()) {
+                updateQuery.putAll(_filter.asDocument());
             }
         }
 
-        return listOfBsonDocuments;
+        return new UpdateOneModel<>(updateQuery,
+                new BsonDocument("$set", document),
+                updateOptions);
     }
 
     private void addProps(CsvRequestParams params, BsonDocument doc) {
@@ -297,7 +399,21 @@ public class CsvLoader implements Service {
         }
     }
 
-    private BsonValue getBsonValue(String raw) {
+    /**
+     * parses a csv value as json. Plain strings and small integers, that are
+     * the most common values, are recognized without the json parser, that
+     * would fail with an exception on each plain string.
+     *
+     * @param raw
+     * @return the BsonValue
+     */
+    static BsonValue getBsonValue(String raw) {
+        if (isPlainString(raw)) {
+            return new BsonString(raw);
+        } else if (isInt32(raw)) {
+            return new BsonInt32(Integer.parseInt(raw));
+        }
+
         try {
             return JsonUtils.parse(raw);
         } catch (JsonParseException jpe) {
@@ -305,6 +421,69 @@ public class CsvLoader implements Service {
         }
     }
 
+    /**
+     * @return true if raw is made of ascii letters, digits, underscores and
+     * spaces, starts with a letter and does not start with a json keyword
+     */
+    private static boolean isPlainString(String raw) {
+        if (raw.isEmpty()) {
+            return true;
+        }
+
+        if (!isAsciiLetter(raw.charAt(0))) {
+            return false;
+        }
+
+        int firstWordEnd = -1;
+
+        for (int idx = 1; idx < raw.length(); idx++) {
+            char c = raw.charAt(idx);
+
+            if (c == ' ') {
+                if (firstWordEnd < 0) {
+                    firstWordEnd = idx;
+                }
+            } else if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+
+        return !JSON_KEYWORDS.contains(firstWordEnd < 0
+                ? raw
+                : raw.substring(0, firstWordEnd));
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * @return true if raw is an integer with at most 9 digits and without
+     * leading zeros
+     */
+    private static boolean isInt32(String raw) {
+        int start = raw.startsWith("-") ? 1 : 0;
+        int digits = raw.length() - start;
+
+        if (digits < 1 || digits > 9) {
+            return false;
+        }
+
+        if (raw.charAt(start) == '0') {
+            return digits == 1 && start == 0;
+        }
+
+        for (int idx = start; idx < raw.length(); idx++) {
+            char c = raw.charAt(idx);
+
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private boolean doesApply(BsonRequest request) {
         return request.isPost();
     }
@@ -327,6 +506,11 @@ class CsvRequestParams {
     private static final String PROP_VALUES_NAME = "values";
     private static final String UPDATE_QPARAM_NAME = "update";
     private static final String UPSERT_QPARAM_NAME = "upsert";
+    private static final String ORDERED_QPARAM_NAME = "ordered";
+    private static final String BATCH_SIZE_QPARAM_NAME = "batchsize";
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 100_000;
 
     public final int idIdx;
     public final String db;
@@ -335,6 +519,8 @@ class CsvRequestParams {
     public final Transformer transformer;
     public final boolean update;
     public final boolean upsert;
+    public final boolean ordered;
+    public final int batchSize;
 
     public final Deque<String> props;
     public final Deque<String> values;
@@ -347,6 +533,8 @@ class CsvRequestParams {
         Deque<String> _tranformer = exchange.getQueryParameters().get(TRANFORMER_QPARAM_NAME);
         Deque<String> _update = exchange.getQueryParameters().get(UPDATE_QPARAM_NAME);
         Deque<String> _upsert = exchange.getQueryParameters().get(UPSERT_QPARAM_NAME);
+        Deque<String> _ordered = exchange.getQueryParameters().get(ORDERED_QPARAM_NAME);
+        Deque<String> _batchSize = exchange.getQueryParameters().get(BATCH_SIZE_QPARAM_NAME);
 
         this.props = exchange.getQueryParameters().get(PROP_KEYS_NAME);
         this.values = exchange.getQueryParameters().get(PROP_VALUES_NAME);
@@ -374,14 +562,10 @@ class CsvRequestParams {
         String transformerName = _tranformer != null ? _tranformer.size() > 0 ? _tranformer.getFirst() : null : null;
 
         if (transformerName != null) {
-            var _transformer = pluginsRegistry
-                    .getTransformers()
-                    .stream()
-                    .filter(t -> transformerName.equals(t.getName()))
-                    .findFirst();
-
-            if (_transformer.isPresent()) {
-                transformer = _transformer.get().getInstance();
+            var _transformer = pluginsRegistry.getTransformer(transformerName);
+
+            if (_transformer != null) {
+                transformer = _transformer.getInstance();
             } else {
                 transformer = null;
             }
@@ -396,5 +580,88 @@ class CsvRequestParams {
                 || _update == null
                 || _update.isEmpty()
                 || "true".equalsIgnoreCase(_upsert.getFirst());
+
+        ordered = _ordered == null
+                || _ordered.isEmpty()
+                || "true".equalsIgnoreCase(_ordered.getFirst());
+
+        String __batchSize = _batchSize != null ? _batchSize.size() > 0 ? _batchSize.getFirst() : null : null;
+
+        try {
+            batchSize = __batchSize != null ? Integer.parseInt(__batchSize) : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(nfe);
+        }
+
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchsize must be between 1 and " + MAX_BATCH_SIZE);
+        }
+    }
+}
+
+/**
+ * reads the rows of a csv content line by line, splitting them on the
+ * separator when it is not between quotes. Values are not unquoted, so that
+ * quoted values are parsed as json strings.
+ */
+class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final String sep;
+
+    /**
+     *
+     * @param reader
+     * @param sep the separator, \t stands for the tab character; if empty
+     * rows are not split
+     */
+    CsvReader(Reader reader, String sep) {
+        this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        this.sep = "\\t".equals(sep) ? "\t" : sep;
+    }
+
+    /**
+     * @return the values of the next non empty row or null at the end of the
+     * content
+     * @throws IOException
+     */
+    List<String> readRow() throws IOException {
+        String line;
+
+        do {
+            line = reader.readLine();
+        } while (line != null && line.isEmpty());
+
+        return line == null ? null : split(line);
+    }
+
+    List<String> split(String line) {
+        var vals = new ArrayList<String>();
+
+        if (sep.isEmpty()) {
+            vals.add(line);
+            return vals;
+        }
+
+        boolean quoted = false;
+        int start = 0;
+
+        for (int idx = 0; idx < line.length(); idx++) {
+            char c = line.charAt(idx);
+
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && line.startsWith(sep, idx)) {
+                vals.add(line.substring(start, idx));
+                start = idx + sep.length();
+                idx = start - 1;
+            }
+        }
+
+        vals.add(line.substring(start));
+
+        return vals;
     }
 }
@@ -18,6 +18,9 @@
 package org.restheart.mongodb.plugins.transformers;
 
 import io.undertow.server.HttpServerExchange;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
@@ -93,4 +96,22 @@ public class FilterTransformer implements Transformer {
                     + "of string property names.");
         }
     }
+
+    /**
+     *
+     * @param args properties to filter out as an array of strings (["prop1",
+     * "prop2"]
+     * @return the properties to filter out
+     */
+    @Override
+    public Set<String> removedProperties(final BsonValue args) {
+        if (args == null || !args.isArray()) {
+            return Collections.emptySet();
+        }
+
+        return args.asArray().stream()
+                .filter(BsonValue::isString)
+                .map(prop -> prop.asString().getValue())
+                .collect(Collectors.toSet());
+    }
 }
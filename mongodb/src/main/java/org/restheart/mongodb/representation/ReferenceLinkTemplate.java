@@ -0,0 +1,111 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.representation;
+
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.restheart.handlers.exchange.ExchangeKeys.DOC_ID_TYPE;
+import static org.restheart.handlers.exchange.ExchangeKeys.DOC_ID_TYPE_QPARAM_KEY;
+import org.restheart.mongodb.utils.URLUtils;
+
+/**
+ * Generates the self links of the documents of a collection, as
+ * RepUtils.getReferenceLink(response, parentUrl, docId) does, from a prefix
+ * computed once per request.
+ *
+ * The _id is encoded switching on its bson type, so that the links of a page
+ * of documents are built with a single concatenation each.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ReferenceLinkTemplate {
+
+    private static final String STRING_ID_TYPE = "?" + DOC_ID_TYPE_QPARAM_KEY
+            + "=" + DOC_ID_TYPE.STRING.name();
+
+    private static final String NUMBER_ID_TYPE = "?" + DOC_ID_TYPE_QPARAM_KEY
+            + "=" + DOC_ID_TYPE.NUMBER.name();
+
+    private static final String DATE_ID_TYPE = "?" + DOC_ID_TYPE_QPARAM_KEY
+            + "=" + DOC_ID_TYPE.DATE.name();
+
+    private final String prefix;
+
+    /**
+     *
+     * @param parentUrl the url of the collection
+     */
+    public ReferenceLinkTemplate(String parentUrl) {
+        this.prefix = URLUtils.removeTrailingSlashes(parentUrl).concat("/");
+    }
+
+    /**
+     *
+     * @param docId
+     * @return the reference link of the document, null if the type of the
+     * _id is not supported
+     */
+    public String of(BsonValue docId) {
+        if (docId == null) {
+            return prefix.concat("_null");
+        }
+
+        switch (docId.getBsonType()) {
+            case OBJECT_ID:
+                return prefix.concat(docId.asObjectId().getValue().toHexString());
+            case STRING:
+                var id = docId.asString().getValue();
+
+                return ObjectId.isValid(id)
+                        ? link(id, STRING_ID_TYPE)
+                        : prefix.concat(id);
+            case INT32:
+                return link(Integer.toString(docId.asInt32().getValue()),
+                        NUMBER_ID_TYPE);
+            case INT64:
+                return link(Long.toString(docId.asInt64().getValue()),
+                        NUMBER_ID_TYPE);
+            case DOUBLE:
+                return link(Double.toString(docId.asDouble().getValue()),
+                        NUMBER_ID_TYPE);
+            case DATE_TIME:
+                return link(Long.toString(docId.asDateTime().getValue()),
+                        DATE_ID_TYPE);
+            case BOOLEAN:
+                return docId.asBoolean().getValue()
+                        ? prefix.concat("_true")
+                        : prefix.concat("_false");
+            case NULL:
+                return prefix.concat("_null");
+            case MAX_KEY:
+                return prefix.concat("_MaxKey");
+            case MIN_KEY:
+                return prefix.concat("_MinKey");
+            default:
+                return null;
+        }
+    }
+
+    private String link(String id, String idType) {
+        return new StringBuilder(prefix.length() + id.length() + idType.length())
+                .append(prefix)
+                .append(id)
+                .append(idType)
+                .toString();
+    }
+}
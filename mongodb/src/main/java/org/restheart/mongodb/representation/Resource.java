@@ -62,6 +62,12 @@ public class Resource {
      *
      */
     public static final String JAVACRIPT_MEDIA_TYPE = "application/javascript";
+
+    /**
+     *
+     */
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private static final String TYPE = "_type";
     private static final String EMBEDDED = "_embedded";
     private static final String LINKS = "_links";
@@ -265,10 +271,12 @@ public class Resource {
 
     /**
      * @param request
-     * @return true if representationFormat == STSNDARD or S
+     * @return true if representationFormat == STSNDARD or S or NDJSON (that
+     * is sent as STANDARD unless streamed)
      */
     public static boolean isStandardRep(BsonRequest request) {
         return request.getRepresentationFormat() == REPRESENTATION_FORMAT.STANDARD
-                || request.getRepresentationFormat() == REPRESENTATION_FORMAT.S;
+                || request.getRepresentationFormat() == REPRESENTATION_FORMAT.S
+                || request.getRepresentationFormat() == REPRESENTATION_FORMAT.NDJSON;
     }
 }
@@ -17,11 +17,12 @@
  */
 package org.restheart.mongodb.utils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.restheart.handlers.exchange.AbstractExchange.MAX_CONTENT_SIZE;
 import org.xnio.channels.Channels;
 import org.xnio.channels.StreamSourceChannel;
 
@@ -33,6 +34,8 @@ public class ChannelReader {
 
     final static Charset CHARSET = StandardCharsets.UTF_8;
 
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+
     /**
      *
      * @param channel
@@ -40,18 +43,95 @@ public class ChannelReader {
      * @throws IOException
      */
     public static String read(StreamSourceChannel channel) throws IOException {
-        final int capacity = 1024;
-
-        ByteArrayOutputStream os = new ByteArrayOutputStream(capacity);
-        
-        ByteBuffer buf = ByteBuffer.allocate(capacity);
-        
-        while (Channels.readBlocking(channel, buf) != -1) {
-            buf.flip();
-            os.write(buf.array(), 0, buf.remaining());
-            buf.clear();
+        return read(channel, -1);
+    }
+
+    /**
+     *
+     * @param channel
+     * @param contentLength the length of the content, if known, otherwise -1
+     * @return
+     * @throws IOException
+     */
+    public static String read(StreamSourceChannel channel, long contentLength)
+            throws IOException {
+        return new String(readBytes(channel, contentLength), CHARSET);
+    }
+
+    /**
+     * reads the content of the channel directly into a byte array, sized
+     * after the content length when it is known
+     *
+     * @param channel
+     * @param contentLength the length of the content, if known, otherwise -1
+     * @return
+     * @throws ContentTooLargeException if the content exceeds
+     * MAX_CONTENT_SIZE
+     * @throws IOException
+     */
+    public static byte[] readBytes(StreamSourceChannel channel,
+            long contentLength) throws IOException {
+        return readBytes(channel, contentLength, MAX_CONTENT_SIZE);
+    }
+
+    /**
+     * reads the content of the channel directly into a byte array, sized
+     * after the content length when it is known
+     *
+     * @param channel
+     * @param contentLength the length of the content, if known, otherwise -1
+     * @param maxSize the maximum size of the content
+     * @return
+     * @throws ContentTooLargeException if the content exceeds maxSize
+     * @throws IOException
+     */
+    public static byte[] readBytes(StreamSourceChannel channel,
+            long contentLength,
+            int maxSize) throws IOException {
+        if (contentLength > maxSize) {
+            throw new ContentTooLargeException(maxSize);
+        }
+
+        int capacity = contentLength >= 0
+                ? (int) contentLength
+                : Math.min(DEFAULT_CAPACITY, maxSize);
+
+        byte[] content = new byte[Math.max(capacity, 1)];
+        int count = 0;
+
+        var probe = ByteBuffer.allocate(1);
+
+        while (true) {
+            if (count == content.length) {
+                // check for the end of the content before growing the array
+                if (Channels.readBlocking(channel, probe) == -1) {
+                    break;
+                }
+
+                // the Content-Length header can be wrong or missing
+                if (count >= maxSize) {
+                    throw new ContentTooLargeException(maxSize);
+                }
+
+                content = Arrays.copyOf(content,
+                        (int) Math.min(2L * content.length, maxSize));
+                content[count++] = probe.get(0);
+                probe.clear();
+                continue;
+            }
+
+            var buf = ByteBuffer.wrap(content, count, content.length - count);
+
+            if (Channels.readBlocking(channel, buf) == -1) {
+                break;
+            }
+
+            count = buf.position();
         }
-        return new String(os.toByteArray(), CHARSET);
+
+        return count == content.length
+                ? content
+                : Arrays.copyOf(content, count);
     }
 
     private ChannelReader() {
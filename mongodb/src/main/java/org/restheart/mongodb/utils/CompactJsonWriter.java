@@ -0,0 +1,218 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.utils;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A Writer that minifies the json produced by org.bson.json.JsonWriter on the
+ * fly and encodes it as UTF-8 into a growable byte array.
+ *
+ * It applies the same rules of Minify to the output of JsonWriter: whitespaces
+ * outside string and regex literals are dropped unless they separate two
+ * alphanumeric chars (e.g. new Date(...) in SHELL mode). This allows to render
+ * a BsonValue in a single pass, without the intermediate String and the
+ * additional copies made by Minify.
+ *
+ * Not thread safe.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class CompactJsonWriter extends Writer {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private byte[] buf;
+    private int count = 0;
+
+    private boolean suppressed = false;
+    private boolean inString = false;
+    private boolean inRegex = false;
+    private boolean escaped = false;
+    private boolean pendingSpace = false;
+    private char last = 0;
+    private char highSurrogate = 0;
+
+    /**
+     *
+     */
+    public CompactJsonWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     *
+     * @param initialCapacity the initial size in bytes of the buffer
+     */
+    public CompactJsonWriter(int initialCapacity) {
+        this.buf = new byte[initialCapacity > 0
+                ? initialCapacity
+                : DEFAULT_CAPACITY];
+    }
+
+    /**
+     * when suppressed, chars written to this Writer are discarded. It is used
+     * to skip the wrapping document needed by JsonWriter to render values
+     * that are not documents.
+     *
+     * @param suppressed
+     */
+    void setSuppressed(boolean suppressed) {
+        this.suppressed = suppressed;
+    }
+
+    @Override
+    public void write(int c) {
+        put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            put(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            put(str.charAt(i));
+        }
+    }
+
+    private void put(char c) {
+        if (suppressed) {
+            return;
+        }
+
+        if (inString) {
+            emit(c);
+
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+            }
+        } else if (inRegex) {
+            emit(c);
+
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '/') {
+                inRegex = false;
+            }
+        } else if (Character.isWhitespace(c)) {
+            pendingSpace = isAlphanum(last);
+        } else {
+            if (pendingSpace && isAlphanum(c)) {
+                emit(' ');
+            }
+
+            pendingSpace = false;
+
+            if (c == '"') {
+                inString = true;
+            } else if (c == '/' && isRegexOpener(last)) {
+                inRegex = true;
+            }
+
+            emit(c);
+        }
+    }
+
+    private static boolean isAlphanum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || (c >= 'A' && c <= 'Z')
+                || c == '_' || c == '$' || c == '\\' || c > 126;
+    }
+
+    private static boolean isRegexOpener(char c) {
+        return c == '(' || c == ',' || c == '=' || c == ':' || c == '[';
+    }
+
+    private void emit(char c) {
+        last = c;
+
+        if (c < 0x80) {
+            ensureCapacity(1);
+            buf[count++] = (byte) c;
+        } else if (c < 0x800) {
+            ensureCapacity(2);
+            buf[count++] = (byte) (0xc0 | (c >> 6));
+            buf[count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+            int cp = Character.toCodePoint(highSurrogate, c);
+            highSurrogate = 0;
+            ensureCapacity(4);
+            buf[count++] = (byte) (0xf0 | (cp >> 18));
+            buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            buf[count++] = (byte) (0x80 | (cp & 0x3f));
+        } else {
+            ensureCapacity(3);
+            buf[count++] = (byte) (0xe0 | (c >> 12));
+            buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buf[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + n));
+        }
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return a ByteBuffer wrapping the written bytes, no copy is made
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * @return the written json as a String
+     */
+    @Override
+    public String toString() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
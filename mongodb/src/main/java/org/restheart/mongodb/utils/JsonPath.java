@@ -0,0 +1,232 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * A json path expression, as used by JsonUtils.getPropsFromPath(), split in
+ * tokens once so that it can be evaluated many times.
+ *
+ * The evaluation walks the json collecting the properties in a single list.
+ *
+ * @see org.restheart.mongodb.utils.JsonUtils#getPropsFromPath(BsonValue,
+ * String)
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class JsonPath {
+
+    private static final String DOLLAR = "$";
+    private static final String ANY_KEY = "*";
+    private static final String ANY_ELEMENT = "[*]";
+
+    private static final Pattern DOT = Pattern.compile(Pattern.quote("."));
+
+    private static final Optional<BsonValue> NULL_VALUE = Optional.empty();
+
+    private final String path;
+    private final String[] tokens;
+
+    private JsonPath(String path, String[] tokens) {
+        this.path = path;
+        this.tokens = tokens;
+    }
+
+    /**
+     * compiles the path expression, a wrong path does not throw here but when
+     * the path is evaluated, as JsonUtils.getPropsFromPath() does
+     *
+     * @param path the json path expression
+     * @return the compiled path
+     */
+    public static JsonPath compile(String path) {
+        return new JsonPath(path, DOT.split(path));
+    }
+
+    /**
+     * @return true if the path uses the . notation and starts with $
+     */
+    public boolean isValid() {
+        return tokens.length > 0 && tokens[0].equals(DOLLAR);
+    }
+
+    /**
+     *
+     * @param root the Bson to extract properties from
+     * @return the List of Optional&lt;Object&gt;s extracted from root ojbect
+     * and identified by the path or null if path does not exist
+     * @throws IllegalArgumentException if the path or the json is wrong
+     */
+    public List<Optional<BsonValue>> getPropsFrom(BsonValue root)
+            throws IllegalArgumentException {
+        if (!isValid()) {
+            throw new IllegalArgumentException(
+                    "wrong path. it must use the . notation and start with $");
+        } else if (!(root instanceof BsonDocument)) {
+            throw new IllegalArgumentException(
+                    "wrong json. it must be an object");
+        }
+
+        var ret = new ArrayList<Optional<BsonValue>>();
+
+        return collect(root, 0, ret) ? ret : null;
+    }
+
+    /**
+     * adds to props the properties identified by tokens[idx..]
+     *
+     * @return false if the path does not exist
+     */
+    private boolean collect(BsonValue json, int idx,
+            List<Optional<BsonValue>> props) {
+        if (idx == tokens.length) {
+            props.add(json.isNull() ? NULL_VALUE : Optional.of(json));
+            return true;
+        } else if (json == null) {
+            return false;
+        }
+
+        var token = tokens[idx];
+
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("wrong path "
+                    + Arrays.toString(remaining(idx))
+                    + " path tokens cannot be empty strings");
+        }
+
+        switch (token) {
+            case DOLLAR:
+                if (!(json.isDocument())) {
+                    throw new IllegalArgumentException("wrong path "
+                            + Arrays.toString(remaining(idx))
+                            + " at token "
+                            + token
+                            + "; it should be an object but found "
+                            + json.toString());
+                }
+
+                if (idx != 0) {
+                    throw new IllegalArgumentException("wrong path "
+                            + Arrays.toString(remaining(idx))
+                            + " at token "
+                            + token
+                            + "; $ can only start the expression");
+                }
+
+                return collect(json, idx + 1, props);
+            case ANY_KEY:
+                if (!(json.isDocument())) {
+                    return false;
+                }
+
+                for (var value : json.asDocument().values()) {
+                    collectNested(value, idx, props);
+                }
+
+                return true;
+            case ANY_ELEMENT:
+                if (json.isArray()) {
+                    for (var value : json.asArray()) {
+                        collectNested(value, idx, props);
+                    }
+
+                    return true;
+                } else if (json.isDocument() && allNumericKeys(json.asDocument())) {
+                    // this might be the case of PATCHING an element array using the dot notation
+                    // e.g. object.array.2
+                    // if so, the array comes as an BsonDocument with all numberic keys
+                    // in any case, it might also be the object { "object": { "array": {"2": xxx }}}
+                    for (var value : json.asDocument().values()) {
+                        collectNested(value, idx, props);
+                    }
+
+                    return true;
+                } else {
+                    return false;
+                }
+            default:
+                if (json.isArray()) {
+                    throw new IllegalArgumentException("wrong path "
+                            + pathFromTokens(remaining(idx))
+                            + " at token "
+                            + token
+                            + "; it should be '[*]'");
+                } else if (json.isDocument()) {
+                    var value = json.asDocument().get(token);
+
+                    return value != null && collect(value, idx + 1, props);
+                } else {
+                    return false;
+                }
+        }
+    }
+
+    /**
+     * collects the properties of an element of an array or of an object
+     * selected by the wildcard tokens[idx]
+     */
+    private void collectNested(BsonValue value, int idx,
+            List<Optional<BsonValue>> props) {
+        // only add null if tokens[idx] is the second last token
+        if (!collect(value, idx + 1, props) && idx == tokens.length - 2) {
+            props.add(null);
+        }
+    }
+
+    private static boolean allNumericKeys(BsonDocument doc) {
+        for (var key : doc.keySet()) {
+            try {
+                Integer.parseInt(key);
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String[] remaining(int idx) {
+        return Arrays.copyOfRange(tokens, idx, tokens.length);
+    }
+
+    private static String pathFromTokens(String[] pathTokens) {
+        var ret = new StringBuilder();
+
+        for (int cont = 1; cont < pathTokens.length; cont++) {
+            ret.append(pathTokens[cont]);
+
+            if (cont < pathTokens.length - 1) {
+                ret.append(".");
+            }
+        }
+
+        return ret.toString();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
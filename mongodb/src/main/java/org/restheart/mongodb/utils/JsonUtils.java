@@ -18,9 +18,12 @@
 package org.restheart.mongodb.utils;
 
 import com.mongodb.MongoClient;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,13 +39,17 @@ import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.codecs.BsonArrayCodec;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.BsonValueCodec;
 import org.bson.codecs.BsonValueCodecProvider;
 import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.json.Converter;
 import org.bson.json.JsonMode;
 import org.bson.json.JsonParseException;
 import org.bson.json.JsonReader;
+import org.bson.json.JsonWriter;
 import org.bson.json.JsonWriterSettings;
 import org.bson.json.StrictJsonWriter;
 import org.bson.types.ObjectId;
@@ -61,6 +68,39 @@ public class JsonUtils {
             CodecRegistries.fromProviders(
                     new BsonValueCodecProvider()));
 
+    private static final BsonDocumentCodec BSON_DOCUMENT_CODEC
+            = new BsonDocumentCodec();
+
+    private static final BsonValueCodec BSON_VALUE_CODEC
+            = new BsonValueCodec();
+
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext
+            .builder()
+            .build();
+
+    private static final JsonWriterSettings DEFAULT_JSON_WRITER_SETTINGS
+            = JsonWriterSettings.builder()
+                    .indent(false)
+                    .dateTimeConverter(new Converter<Long>() {
+                        @Override
+                        public void convert(Long t, StrictJsonWriter writer) {
+                            writer.writeRaw("{\"$date\": " + t + " }");
+                        }
+                    })
+                    .build();
+
+    private static final Map<JsonMode, JsonWriterSettings> JSON_WRITER_SETTINGS
+            = new EnumMap<>(JsonMode.class);
+
+    static {
+        for (var mode : JsonMode.values()) {
+            JSON_WRITER_SETTINGS.put(mode, JsonWriterSettings.builder()
+                    .outputMode(mode)
+                    .indent(false)
+                    .build());
+        }
+    }
+
     private static final String ESCAPED_DOLLAR = "_$";
     private static final String ESCAPED_DOT = "::";
     private static final String DOLLAR = "$";
@@ -230,180 +270,7 @@ public class JsonUtils {
             BsonValue root,
             String path)
             throws IllegalArgumentException {
-        String pathTokens[] = path.split(Pattern.quote("."));
-
-        if (pathTokens == null
-                || pathTokens.length == 0
-                || !pathTokens[0].equals(DOLLAR)) {
-            throw new IllegalArgumentException(
-                    "wrong path. it must use the . notation and start with $");
-        } else if (!(root instanceof BsonDocument)) {
-            throw new IllegalArgumentException(
-                    "wrong json. it must be an object");
-        } else {
-            return _getPropsFromPath(root, pathTokens, pathTokens.length);
-        }
-    }
-
-    private static List<Optional<BsonValue>> _getPropsFromPath(
-            BsonValue json,
-            String[] pathTokens,
-            int totalTokensLength)
-            throws IllegalArgumentException {
-        if (pathTokens == null) {
-            throw new IllegalArgumentException("pathTokens argument cannot be null");
-        }
-
-        String pathToken;
-
-        if (pathTokens.length > 0) {
-            if (json == null) {
-                return null;
-            } else {
-                pathToken = pathTokens[0];
-
-                if ("".equals(pathToken)) {
-                    throw new IllegalArgumentException("wrong path "
-                            + Arrays.toString(pathTokens)
-                            + " path tokens cannot be empty strings");
-                }
-            }
-        } else if (json.isNull()) {
-            // if value is null return an empty optional
-            ArrayList<Optional<BsonValue>> ret = new ArrayList<>();
-            ret.add(Optional.empty());
-            return ret;
-        } else {
-            ArrayList<Optional<BsonValue>> ret = new ArrayList<>();
-            ret.add(Optional.ofNullable(json));
-            return ret;
-        }
-
-        List<Optional<BsonValue>> nested;
-
-        switch (pathToken) {
-            case DOLLAR:
-                if (!(json.isDocument())) {
-                    throw new IllegalArgumentException("wrong path "
-                            + Arrays.toString(pathTokens)
-                            + " at token "
-                            + pathToken
-                            + "; it should be an object but found "
-                            + json.toString());
-                }
-
-                if (pathTokens.length != totalTokensLength) {
-                    throw new IllegalArgumentException("wrong path "
-                            + Arrays.toString(pathTokens)
-                            + " at token "
-                            + pathToken
-                            + "; $ can only start the expression");
-                }
-
-                return _getPropsFromPath(
-                        json,
-                        subpath(pathTokens),
-                        totalTokensLength);
-            case "*":
-                if (!(json.isDocument())) {
-                    return null;
-                } else {
-                    ArrayList<Optional<BsonValue>> ret = new ArrayList<>();
-
-                    for (String key : json.asDocument().keySet()) {
-                        nested = _getPropsFromPath(json.asDocument().get(key), subpath(pathTokens), totalTokensLength);
-
-                        // only add null if subpath(pathTokens) was the last token
-                        if (nested == null && pathTokens.length == 2) {
-                            ret.add(null);
-                        } else if (nested != null) {
-                            ret.addAll(nested);
-                        }
-                    }
-
-                    return ret;
-                }
-            case "[*]":
-                if (!(json.isArray())) {
-                    if (json.isDocument()) {
-                        // this might be the case of PATCHING an element array using the dot notation
-                        // e.g. object.array.2
-                        // if so, the array comes as an BsonDocument with all numberic keys
-                        // in any case, it might also be the object { "object": { "array": {"2": xxx }}}
-
-                        boolean allNumbericKeys = json.asDocument().keySet()
-                                .stream().allMatch(k -> {
-                                    try {
-                                        Integer.parseInt(k);
-                                        return true;
-                                    } catch (NumberFormatException nfe) {
-                                        return false;
-                                    }
-                                });
-
-                        if (allNumbericKeys) {
-                            ArrayList<Optional<BsonValue>> ret = new ArrayList<>();
-
-                            for (String key : json.asDocument().keySet()) {
-                                nested = _getPropsFromPath(
-                                        json.asDocument().get(key),
-                                        subpath(pathTokens),
-                                        totalTokensLength);
-
-                                // only add null if subpath(pathTokens) was the last token
-                                if (nested == null && pathTokens.length == 2) {
-                                    ret.add(null);
-                                } else if (nested != null) {
-                                    ret.addAll(nested);
-                                }
-                            }
-
-                            return ret;
-                        }
-                    }
-
-                    return null;
-                } else {
-                    ArrayList<Optional<BsonValue>> ret = new ArrayList<>();
-
-                    if (!json.asArray().isEmpty()) {
-                        for (int index = 0; index < json.asArray().size(); index++) {
-                            nested = _getPropsFromPath(
-                                    json.asArray().get(index),
-                                    subpath(pathTokens),
-                                    totalTokensLength);
-
-                            // only add null if subpath(pathTokens) was the last token
-                            if (nested == null && pathTokens.length == 2) {
-                                ret.add(null);
-                            } else if (nested != null) {
-                                ret.addAll(nested);
-                            }
-                        }
-                    }
-
-                    return ret;
-                }
-            default:
-                if (json.isArray()) {
-                    throw new IllegalArgumentException("wrong path "
-                            + pathFromTokens(pathTokens)
-                            + " at token "
-                            + pathToken
-                            + "; it should be '[*]'");
-                } else if (json.isDocument()) {
-                    if (json.asDocument().containsKey(pathToken)) {
-                        return _getPropsFromPath(
-                                json.asDocument().get(pathToken),
-                                subpath(pathTokens),
-                                totalTokensLength);
-                    } else {
-                        return null;
-                    }
-                } else {
-                    return null;
-                }
-        }
+        return JsonPath.compile(path).getPropsFrom(root);
     }
 
     /**
@@ -487,34 +354,6 @@ public class JsonUtils {
         return items.size();
     }
 
-    private static String pathFromTokens(String[] pathTokens) {
-        if (pathTokens == null) {
-            return null;
-        }
-
-        String ret = "";
-
-        for (int cont = 1; cont < pathTokens.length; cont++) {
-            ret = ret.concat(pathTokens[cont]);
-
-            if (cont < pathTokens.length - 1) {
-                ret = ret.concat(".");
-            }
-        }
-
-        return ret;
-    }
-
-    private static String[] subpath(String[] pathTokens) {
-        ArrayList<String> subpath = new ArrayList<>();
-
-        for (int cont = 1; cont < pathTokens.length; cont++) {
-            subpath.add(pathTokens[cont]);
-        }
-
-        return subpath.toArray(new String[subpath.size()]);
-    }
-
     /**
      *
      * @param o
@@ -690,49 +529,69 @@ public class JsonUtils {
             return null;
         }
 
-        var settings = mode != null
-                ? JsonWriterSettings.builder()
-                        .outputMode(mode)
-                        .indent(false)
-                        .build()
-                : JsonWriterSettings.builder()
-                        .indent(false)
-                        .dateTimeConverter(new Converter<Long>() {
-                            @Override
-                            public void convert(Long t, StrictJsonWriter writer) {
-                                writer.writeRaw("{\"$date\": " + t + " }");
-                            }
-                        })
-                        .build();
-
-        if (bson.isDocument()) {
-            return minify(bson.asDocument().toJson(settings));
-        } else if (bson.isArray()) {
-            BsonArray _array = bson.asArray();
+        return write(bson, mode).toString();
+    }
 
-            BsonDocument wrappedArray = new BsonDocument("wrapped", _array);
+    /**
+     * renders the bson value as minified json encoded in UTF-8 in a single
+     * pass, without creating intermediate Strings
+     *
+     * The returned buffer is read-only, this allows the response to be
+     * buffered without copying it when response interceptors require the
+     * content
+     *
+     * @param bson
+     * @param mode
+     * @return the UTF-8 bytes of the minified json representation of the bson
+     * value
+     */
+    public static ByteBuffer toJsonBytes(BsonValue bson, JsonMode mode) {
+        if (bson == null) {
+            return null;
+        }
 
-            String json = wrappedArray.toJson(settings);
+        return write(bson, mode).toByteBuffer().asReadOnlyBuffer();
+    }
 
-            json = json.substring(0, json.length() - 1); // removes closing }
-            json = json.replaceFirst("\\{", "");
-            json = json.replaceFirst("\"wrapped\"", "");
-            json = json.replaceFirst(":", "");
+    /**
+     * writes the minified json encoded in UTF-8 of the bson value to the
+     * stream
+     *
+     * @param bson
+     * @param mode
+     * @param os
+     * @throws IOException
+     */
+    public static void writeJson(BsonValue bson, JsonMode mode,
+            OutputStream os) throws IOException {
+        var bb = write(bson, mode).toByteBuffer();
 
-            return minify(json);
-        } else {
-            BsonDocument doc = new BsonDocument("x", bson);
+        os.write(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+    }
 
-            String ret = doc.toJson(settings);
+    private static CompactJsonWriter write(BsonValue bson, JsonMode mode) {
+        var out = new CompactJsonWriter();
 
-            ret = ret.replaceFirst("\\{", "");
-            ret = ret.replaceFirst("\"x\"", "");
-            ret = ret.replaceFirst(":", "");
-            int index = ret.lastIndexOf('}');
-            ret = ret.substring(0, index);
+        var writer = new JsonWriter(out, mode == null
+                ? DEFAULT_JSON_WRITER_SETTINGS
+                : JSON_WRITER_SETTINGS.get(mode));
 
-            return minify(ret);
+        if (bson.isDocument()) {
+            BSON_DOCUMENT_CODEC.encode(writer, bson.asDocument(),
+                    ENCODER_CONTEXT);
+        } else {
+            // JsonWriter requires a document at top level
+            // the wrapping document is not written to out
+            out.setSuppressed(true);
+            writer.writeStartDocument();
+            writer.writeName("x");
+            out.setSuppressed(false);
+            BSON_VALUE_CODEC.encode(writer, bson, ENCODER_CONTEXT);
+            out.setSuppressed(true);
+            writer.writeEndDocument();
         }
+
+        return out;
     }
 
     /**
@@ -385,18 +385,41 @@ public class URLUtils {
             return ret;
         }
 
+        var sb = new StringBuilder(ret.length());
+
+        // the params are compared literally, not as regular expressions
+        for (String param : ret.split("&")) {
+            if (!isParamToRemove(exchange, param, paramsToRemove)) {
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+
+                sb.append(param);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static boolean isParamToRemove(HttpServerExchange exchange,
+            String param,
+            String... paramsToRemove) {
         for (String key : paramsToRemove) {
+            if (!param.startsWith(key)
+                    || param.length() <= key.length()
+                    || param.charAt(key.length()) != '=') {
+                continue;
+            }
+
             Deque<String> values = exchange.getQueryParameters().get(key);
 
-            if (values != null) {
-                for (String value : values) {
-                    ret = ret.replaceAll(key + "=" + value + "&", "");
-                    ret = ret.replaceAll(key + "=" + value + "$", "");
-                }
+            if (values != null
+                    && values.contains(param.substring(key.length() + 1))) {
+                return true;
             }
         }
 
-        return ret;
+        return false;
     }
 
     private static BsonNumber getIdAsNumber(String id) throws IllegalArgumentException {
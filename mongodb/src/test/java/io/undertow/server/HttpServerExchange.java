@@ -22,12 +22,15 @@ import io.undertow.util.AbstractAttachable;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.HttpString;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
 
 /**
  * A mock for io.undertow.server.HttpServerExchange The original class is final
@@ -39,11 +42,16 @@ import java.util.TreeMap;
 public class HttpServerExchange extends AbstractAttachable {
 
     private int statusCode = 0;
+    private boolean complete = false;
+    private boolean dispatched = false;
     private String queryString;
     private String requestPath;
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap requestHeaders = new HeaderMap();
+    private final HeaderMap responseHeaders = new HeaderMap();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
     /**
      *
@@ -56,9 +64,18 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public HttpServerExchange endExchange() {
+        complete = true;
         return this;
     }
 
+    /**
+     *
+     * @return true if endExchange() was called
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
     /**
      * Returns a mutable map of query parameters.
      *
@@ -172,7 +189,23 @@ public class HttpServerExchange extends AbstractAttachable {
      * @return
      */
     public HeaderMap getRequestHeaders() {
-        return null;
+        return requestHeaders;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     *
+     * @return a ByteArrayOutputStream with the response content
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
     }
 
     /**
@@ -196,4 +229,41 @@ public class HttpServerExchange extends AbstractAttachable {
     public void setRelativePath(String relativePath) {
         this.relativePath = relativePath;
     }
+
+    /**
+     * runs the task immediately
+     *
+     * @param executor
+     * @param runnable
+     * @return
+     */
+    public HttpServerExchange dispatch(final Executor executor,
+            final Runnable runnable) {
+        dispatched = true;
+        runnable.run();
+        return this;
+    }
+
+    /**
+     * executes the handler immediately
+     *
+     * @param handler
+     * @return
+     */
+    public HttpServerExchange dispatch(final HttpHandler handler) {
+        try {
+            handler.handleRequest(this);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    /**
+     *
+     * @return true if dispatch() was called
+     */
+    public boolean isDispatched() {
+        return dispatched;
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertEquals;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CollectionDAOTest {
+
+    @BeforeClass
+    public static void setUpClass() {
+        if (MongoServiceConfiguration.get() == null) {
+            MongoServiceConfiguration.init(new HashMap<>());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportCollectionData() {
+        var filter = BsonDocument.parse("{'a': {'$gt': 1}}");
+        var docs = new BsonDocument[]{
+            BsonDocument.parse("{'_id': 1}"),
+            BsonDocument.parse("{'_id': 2}"),
+            BsonDocument.parse("{'_id': 3}")};
+
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+        FindIterable<BsonDocument> find = mock(FindIterable.class, RETURNS_SELF);
+        MongoCursor<BsonDocument> cursor = mock(MongoCursor.class);
+
+        when(coll.find(filter)).thenReturn(find);
+        when(find.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(docs[0], docs[1], docs[2]);
+
+        var exported = new ArrayList<BsonDocument>();
+
+        new CollectionDAO(null).exportCollectionData(null, coll, null,
+                filter, null, null, exported::add);
+
+        assertEquals(3, exported.size());
+
+        for (int cont = 0; cont < docs.length; cont++) {
+            assertEquals(docs[cont], exported.get(cont));
+        }
+
+        // a single cursor iterated to the end, without paging
+        verify(find, never()).skip(anyInt());
+        verify(find, never()).limit(anyInt());
+        verify(cursor).close();
+
+        // the export is not interrupted by the query time limit
+        verify(find, never()).maxTime(anyLong(), any());
+        verify(find).batchSize(anyInt());
+        verify(find).noCursorTimeout(true);
+    }
+}
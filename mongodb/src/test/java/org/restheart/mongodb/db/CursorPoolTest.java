@@ -0,0 +1,234 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.codahale.metrics.SharedMetricRegistries;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.restheart.handlers.exchange.ExchangeKeys.EAGER_CURSOR_ALLOCATION_POLICY;
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CursorPoolTest {
+
+    private static final BsonDocument SORT = BsonDocument.parse("{_id: 1}");
+    private static final BsonDocument FILTER = new BsonDocument();
+
+    private MongoCollection<BsonDocument> coll;
+
+    @BeforeClass
+    public static void setUpClass() {
+        if (MongoServiceConfiguration.get() == null) {
+            MongoServiceConfiguration.init(new HashMap<>());
+        }
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        coll = mock(MongoCollection.class);
+        when(coll.getNamespace()).thenReturn(new MongoNamespace("db", "coll"));
+    }
+
+    @Test
+    public void testFloorWithinSkipDistance() {
+        var pool = new CursorPool(null, 100, 60_000);
+
+        var c8000 = put(pool, 8_000);
+        var c9500 = put(pool, 9_500);
+        var c9800 = put(pool, 9_800);
+        var c10100 = put(pool, 10_100);
+
+        // the closest cursor with skips <= 10000
+        var found = get(pool, 10_000);
+        assertEquals(9_800, found.getAlreadySkipped());
+        assertSame(c9800, found.getFindIterable());
+
+        found = get(pool, 10_000);
+        assertEquals(9_500, found.getAlreadySkipped());
+        assertSame(c9500, found.getFindIterable());
+
+        // 8000 < 10000 - MIN_SKIP_DISTANCE_PERCENTAGE * 10000
+        assertNull(get(pool, 10_000));
+
+        assertSame(c8000, get(pool, 8_500).getFindIterable());
+        assertSame(c10100, get(pool, 11_000).getFindIterable());
+    }
+
+    @Test
+    public void testOtherQueryShape() {
+        var pool = new CursorPool(null, 100, 60_000);
+
+        put(pool, 9_800);
+
+        var key = new CursorPoolEntryKey(null, coll, SORT,
+                BsonDocument.parse("{a: 1}"), null, null, 10_000, -1);
+
+        assertNull(pool.get(key, EAGER_CURSOR_ALLOCATION_POLICY.LINEAR));
+    }
+
+    @Test
+    public void testCursorGivenToOneRequestOnly() throws Exception {
+        var pool = new CursorPool(null, 1_000, 60_000);
+
+        for (int cont = 0; cont < 100; cont++) {
+            put(pool, 9_000 + cont);
+        }
+
+        var executor = Executors.newFixedThreadPool(8);
+
+        var tasks = new ArrayList<Callable<SkippedFindIterable>>();
+
+        for (int cont = 0; cont < 400; cont++) {
+            tasks.add(() -> get(pool, 10_000));
+        }
+
+        var found = new IdentityHashMap<FindIterable<BsonDocument>, Boolean>();
+
+        try {
+            for (var result : executor.invokeAll(tasks)) {
+                var cursor = result.get();
+
+                if (cursor != null) {
+                    assertNull("cursor given twice",
+                            found.put(cursor.getFindIterable(), true));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, found.size());
+    }
+
+    @Test
+    public void testUnindexOnEviction() {
+        var pool = new CursorPool(null, 2, 60_000);
+
+        put(pool, 5_000);
+        put(pool, 6_000);
+        put(pool, 7_000);
+
+        // the least recently used cursor is evicted and removed from the index
+        assertEquals(0, pool.getSliceHeight(key(5_000, -1)));
+        assertEquals(1, pool.getSliceHeight(key(6_000, -1)));
+        assertEquals(1, pool.getSliceHeight(key(7_000, -1)));
+
+        get(pool, 7_000);
+
+        // a cursor taken from the pool is removed from the index
+        assertEquals(0, pool.getSliceHeight(key(7_000, -1)));
+    }
+
+    @Test
+    public void testNoPhantomKeysAfterConcurrentEvictions() throws Exception {
+        var pool = new CursorPool(null, 4, 60_000);
+        var ids = new AtomicLong();
+
+        var executor = Executors.newFixedThreadPool(8);
+
+        var tasks = new ArrayList<Callable<Void>>();
+
+        for (int cont = 0; cont < 8; cont++) {
+            tasks.add(() -> {
+                for (int n = 0; n < 1_000; n++) {
+                    pool.put(key(10_000, ids.incrementAndGet()),
+                            mock(FindIterable.class));
+                }
+
+                return null;
+            });
+        }
+
+        try {
+            for (var result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // the evicted cursors are not left in the index
+        var height = pool.getSliceHeight(key(10_000, -1));
+        assertTrue(height <= 4);
+
+        for (int cont = 0; cont < height; cont++) {
+            assertNotNull(get(pool, 10_000));
+        }
+
+        assertEquals(0, pool.getSliceHeight(key(10_000, -1)));
+    }
+
+    @Test
+    public void testMetrics() {
+        var pool = new CursorPool(null, 100, 60_000);
+        var registry = SharedMetricRegistries.tryGetDefault();
+
+        long hits = registry.counter("CURSOR_POOL.hits").getCount();
+        long misses = registry.counter("CURSOR_POOL.misses").getCount();
+        long savedSkips = registry.counter("CURSOR_POOL.saved-skips").getCount();
+
+        put(pool, 9_800);
+        get(pool, 10_000);
+        get(pool, 10_000);
+
+        assertEquals(hits + 1, registry.counter("CURSOR_POOL.hits").getCount());
+        assertEquals(misses + 1, registry.counter("CURSOR_POOL.misses").getCount());
+        assertEquals(savedSkips + 9_800,
+                registry.counter("CURSOR_POOL.saved-skips").getCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private FindIterable<BsonDocument> put(CursorPool pool, int skips) {
+        FindIterable<BsonDocument> cursor = mock(FindIterable.class);
+
+        pool.put(key(skips, System.nanoTime()), cursor);
+
+        return cursor;
+    }
+
+    private SkippedFindIterable get(CursorPool pool, int skips) {
+        return pool.get(key(skips, -1), EAGER_CURSOR_ALLOCATION_POLICY.LINEAR);
+    }
+
+    private CursorPoolEntryKey key(int skips, long cursorId) {
+        return new CursorPoolEntryKey(null, coll, SORT, FILTER, null, null,
+                skips, cursorId);
+    }
+}
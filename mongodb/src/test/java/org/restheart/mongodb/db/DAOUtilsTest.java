@@ -7,6 +7,7 @@ package org.restheart.mongodb.db;
 
 import org.restheart.mongodb.db.DAOUtils;
 import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.bson.BsonString;
 import static org.junit.Assert.*;
 import org.junit.Rule;
@@ -73,4 +74,24 @@ public class DAOUtilsTest {
         assertEquals(DAOUtils.validContent(dbo), dbo);
     }
 
+    /**
+     *
+     */
+    @Test
+    public void testReplacedDocument() {
+        var replacement = BsonDocument.parse("{'a':1,'_id':'x','b':{'c':2}}");
+
+        var replaced = DAOUtils.replacedDocument(new BsonString("x"),
+                replacement);
+
+        assertEquals(BsonDocument.parse("{'_id':'x','a':1,'b':{'c':2}}"),
+                replaced);
+        // _id is the first key, as in the stored document
+        assertEquals("_id", replaced.getFirstKey());
+
+        assertEquals(BsonDocument.parse("{'_id':1,'a':1}"),
+                DAOUtils.replacedDocument(new BsonInt32(1),
+                        BsonDocument.parse("{'a':1}")));
+    }
+
 }
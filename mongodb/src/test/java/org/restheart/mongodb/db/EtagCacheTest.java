@@ -0,0 +1,182 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.db;
+
+import com.mongodb.client.ClientSession;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class EtagCacheTest {
+
+    private static final BsonObjectId ETAG = new BsonObjectId();
+
+    @After
+    public void tearDown() {
+        EtagCache.init(0, 0);
+    }
+
+    @Test
+    public void testDisabled() {
+        EtagCache.init(0, 0);
+
+        put("db", "coll", new BsonString("a"), ETAG);
+
+        assertFalse(EtagCache.isEnabled());
+        assertNull(EtagCache.get("db", "coll", new BsonString("a")));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        EtagCache.init(100, 0);
+
+        put("db", "coll", new BsonString("a"), ETAG);
+        put("db", "coll", new BsonInt32(1), ETAG);
+        put("db", "coll", new BsonString("b"), new BsonString("x"));
+
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonString("a")));
+        // numeric ids of different types identify the same document
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonInt64(1)));
+        // only ObjectId etags are cached
+        assertNull(EtagCache.get("db", "coll", new BsonString("b")));
+        assertNull(EtagCache.get("db", "coll2", new BsonString("a")));
+    }
+
+    @Test
+    public void testNumericIds() {
+        EtagCache.init(100, 0);
+
+        var other = new BsonObjectId();
+
+        // distinct in a double, 2^53 + 1 is rounded to 2^53
+        put("db", "coll", new BsonInt64(9_007_199_254_740_992L), ETAG);
+        put("db", "coll", new BsonInt64(9_007_199_254_740_993L), other);
+
+        assertEquals(ETAG, EtagCache.get("db", "coll",
+                new BsonInt64(9_007_199_254_740_992L)));
+        assertEquals(other, EtagCache.get("db", "coll",
+                new BsonInt64(9_007_199_254_740_993L)));
+
+        put("db", "coll", new BsonDouble(1.5), ETAG);
+        put("db", "coll", new BsonDecimal128(Decimal128.parse("0.1")), other);
+
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonDouble(1.5)));
+        assertEquals(ETAG, EtagCache.get("db", "coll",
+                new BsonDecimal128(Decimal128.parse("1.50"))));
+        assertNull(EtagCache.get("db", "coll", new BsonDouble(2.5)));
+        // 0.1 is not exactly a double
+        assertEquals(other, EtagCache.get("db", "coll",
+                new BsonDecimal128(Decimal128.parse("0.10"))));
+        assertNull(EtagCache.get("db", "coll", new BsonDouble(0.1)));
+
+        put("db", "coll", new BsonInt32(2), ETAG);
+
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonInt64(2)));
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonDouble(2.0)));
+        assertEquals(ETAG, EtagCache.get("db", "coll",
+                new BsonDecimal128(Decimal128.parse("2.00"))));
+    }
+
+    @Test
+    public void testInvalidate() {
+        EtagCache.init(100, 0);
+
+        put("db", "coll", new BsonString("a"), ETAG);
+        put("db", "coll", new BsonString("b"), ETAG);
+        put("db", "coll2", new BsonString("a"), ETAG);
+        put("db2", "coll", new BsonString("a"), ETAG);
+
+        EtagCache.invalidate("db", "coll", new BsonString("a"));
+        assertNull(EtagCache.get("db", "coll", new BsonString("a")));
+        assertNotNull(EtagCache.get("db", "coll", new BsonString("b")));
+
+        EtagCache.invalidateCollection("db", "coll");
+        assertNull(EtagCache.get("db", "coll", new BsonString("b")));
+        assertNotNull(EtagCache.get("db", "coll2", new BsonString("a")));
+
+        EtagCache.invalidateDb("db");
+        assertNull(EtagCache.get("db", "coll2", new BsonString("a")));
+        assertNotNull(EtagCache.get("db2", "coll", new BsonString("a")));
+    }
+
+    @Test
+    public void testInvalidatedWhileReading() {
+        EtagCache.init(100, 0);
+
+        var id = new BsonString("a");
+
+        // a read gets the generation, then a write invalidates the document
+        var generation = EtagCache.generation("db", "coll", id);
+        EtagCache.invalidate("db", "coll", id);
+        EtagCache.put("db", "coll", id, ETAG, generation);
+
+        assertNull(EtagCache.get("db", "coll", id));
+
+        generation = EtagCache.generation("db", "coll", id);
+        EtagCache.invalidateCollection("db", "coll");
+        EtagCache.put("db", "coll", id, ETAG, generation);
+
+        assertNull(EtagCache.get("db", "coll", id));
+
+        put("db", "coll", id, ETAG);
+        assertEquals(ETAG, EtagCache.get("db", "coll", id));
+    }
+
+    @Test
+    public void testTransactionTombstones() {
+        EtagCache.init(100, 0);
+
+        var cs = mock(ClientSession.class);
+        when(cs.hasActiveTransaction()).thenReturn(true);
+
+        // until the commit the reads see the old version of the document
+        EtagCache.invalidate(cs, "db", "coll", new BsonString("a"));
+        put("db", "coll", new BsonString("a"), ETAG);
+        put("db", "coll", new BsonString("b"), ETAG);
+
+        assertNull(EtagCache.get("db", "coll", new BsonString("a")));
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonString("b")));
+
+        EtagCache.invalidateCollection(cs, "db", "coll");
+        put("db", "coll", new BsonString("b"), ETAG);
+        put("db", "coll2", new BsonString("b"), ETAG);
+
+        assertNull(EtagCache.get("db", "coll", new BsonString("b")));
+        assertEquals(ETAG, EtagCache.get("db", "coll2", new BsonString("b")));
+    }
+
+    private static void put(String dbName, String collName,
+            BsonValue documentId, BsonValue etag) {
+        EtagCache.put(dbName, collName, documentId, etag,
+                EtagCache.generation(dbName, collName, documentId));
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers.collection;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.handlers.injectors.RequestContextInjector;
+import org.restheart.mongodb.handlers.metadata.RequestTransformersExecutor;
+import org.restheart.mongodb.representation.Resource;
+import org.restheart.plugins.PluginsRegistry;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class GetCollectionHandlerTest {
+
+    private static final List<BsonDocument> DOCS = List.of(
+            BsonDocument.parse("{'_id': 1, 'a': 'x'}"),
+            BsonDocument.parse("{'_id': 2, 'a': 'y\\nz'}"),
+            BsonDocument.parse("{'_id': 3, 'b': {'c': [1, 2]}}"));
+
+    private Database dbsDAO;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MongoServiceConfiguration.init(new HashMap<>());
+
+        // no global transformers and hooks
+        new RequestTransformersExecutor()
+                .setPluginsRegistry(mock(PluginsRegistry.class));
+
+        dbsDAO = mock(Database.class);
+
+        doAnswer(invocation -> {
+            Consumer<BsonDocument> consumer = invocation.getArgument(6);
+            DOCS.forEach(consumer);
+            return null;
+        }).when(dbsDAO).exportCollectionData(any(), any(), any(), any(),
+                any(), any(), any());
+
+        doAnswer(invocation -> {
+            Consumer<BsonDocument> consumer = invocation.getArgument(9);
+            DOCS.forEach(consumer);
+            return null;
+        }).when(dbsDAO).getCollectionData(any(), any(), anyInt(), anyInt(),
+                any(), any(), any(), any(), any(), any(Consumer.class));
+    }
+
+    @After
+    public void tearDown() {
+        new RequestTransformersExecutor().setPluginsRegistry(null);
+    }
+
+    @Test
+    public void testNdjsonOneDocumentPerLine() throws Exception {
+        var exchange = exchange();
+        exchange.addQueryParam("rep", "ndjson");
+
+        handle(exchange, null);
+
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals(Resource.NDJSON_MEDIA_TYPE, exchange.getResponseHeaders()
+                .getFirst(Headers.CONTENT_TYPE));
+
+        var lines = ((ByteArrayOutputStream) exchange.getOutputStream())
+                .toString(StandardCharsets.UTF_8)
+                .split("\n", -1);
+
+        // each document followed by a newline
+        assertEquals(DOCS.size() + 1, lines.length);
+        assertEquals("", lines[DOCS.size()]);
+
+        for (int cont = 0; cont < DOCS.size(); cont++) {
+            assertEquals(DOCS.get(cont), BsonDocument.parse(lines[cont]));
+        }
+    }
+
+    @Test
+    public void testNdjsonWithTransformers() throws Exception {
+        var exchange = exchange();
+        exchange.getRequestHeaders().put(Headers.ACCEPT,
+                Resource.NDJSON_MEDIA_TYPE);
+
+        handle(exchange, BsonDocument.parse("{'rts': [{'name': 'filterProperties',"
+                + " 'phase': 'RESPONSE', 'scope': 'CHILDREN',"
+                + " 'args': ['secret']}]}"));
+
+        assertEquals(HttpStatus.SC_BAD_REQUEST,
+                BsonResponse.wrap(exchange).getStatusCode());
+        verify(dbsDAO, never()).exportCollectionData(any(), any(), any(),
+                any(), any(), any(), any());
+    }
+
+    @Test
+    public void testNdjsonWithHooks() throws Exception {
+        var exchange = exchange();
+        exchange.addQueryParam("rep", "ndjson");
+
+        handle(exchange, BsonDocument.parse("{'hooks': [{'name': 'snooper'}]}"));
+
+        assertEquals(HttpStatus.SC_BAD_REQUEST,
+                BsonResponse.wrap(exchange).getStatusCode());
+    }
+
+    @Test
+    public void testStreamingStandardRepresentation() throws Exception {
+        streamingResponses();
+
+        var exchange = exchange();
+
+        handle(exchange, null);
+
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals(Resource.JSON_MEDIA_TYPE, exchange.getResponseHeaders()
+                .getFirst(Headers.CONTENT_TYPE));
+        assertTrue(exchange.isComplete());
+
+        var content = output(exchange);
+
+        // the json array of the documents
+        assertEquals(new BsonArray(DOCS), BsonArray.parse(content));
+        // the count query is not executed
+        verify(dbsDAO, never()).getCollectionSize(any(), any(), any());
+    }
+
+    @Test
+    public void testStreamingEmptyPage() throws Exception {
+        streamingResponses();
+
+        doAnswer(invocation -> null).when(dbsDAO).getCollectionData(any(),
+                any(), anyInt(), anyInt(), any(), any(), any(), any(), any(),
+                any(Consumer.class));
+
+        var exchange = exchange();
+
+        handle(exchange, null);
+
+        // as the buffered representation, no content
+        assertEquals(HttpStatus.SC_OK, exchange.getStatusCode());
+        assertEquals(Resource.JSON_MEDIA_TYPE, exchange.getResponseHeaders()
+                .getFirst(Headers.CONTENT_TYPE));
+        assertTrue(exchange.isComplete());
+        assertEquals("", output(exchange));
+    }
+
+    @Test
+    public void testNotStreamableFallback() throws Exception {
+        streamingResponses();
+
+        when(dbsDAO.getCollectionData(any(), any(), anyInt(), anyInt(), any(),
+                any(), any(), any(), any()))
+                .thenReturn(new ArrayList<>(DOCS));
+
+        var exchange = exchange();
+
+        // the response transformers need the response content
+        handle(exchange, BsonDocument.parse("{'rts': [{'name': 'filterProperties',"
+                + " 'phase': 'RESPONSE', 'scope': 'CHILDREN',"
+                + " 'args': ['secret']}]}"));
+
+        var response = BsonResponse.wrap(exchange);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        assertNotNull(response.getContent());
+        assertFalse(exchange.isComplete());
+        assertEquals("", output(exchange));
+        verify(dbsDAO, never()).getCollectionData(any(), any(), anyInt(),
+                anyInt(), any(), any(), any(), any(), any(),
+                any(Consumer.class));
+    }
+
+    private static void streamingResponses() {
+        var conf = new HashMap<String, Object>();
+        conf.put("streaming-responses", true);
+
+        MongoServiceConfiguration.init(conf);
+    }
+
+    private static String output(HttpServerExchange exchange) {
+        return ((ByteArrayOutputStream) exchange.getOutputStream())
+                .toString(StandardCharsets.UTF_8);
+    }
+
+    private void handle(HttpServerExchange exchange, BsonDocument collProps)
+            throws Exception {
+        new RequestContextInjector(true, false).handleRequest(exchange);
+        BsonRequest.wrap(exchange).setCollectionProps(collProps);
+
+        new GetCollectionHandler(null, dbsDAO).handleRequest(exchange);
+    }
+
+    private static HttpServerExchange exchange() {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll");
+        exchange.setRelativePath("/db/coll");
+        exchange.setRequestMethod(new HttpString("GET"));
+
+        return exchange;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers.document;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.conversions.Bson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.db.EtagCache;
+import org.restheart.mongodb.handlers.injectors.RequestContextInjector;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class GetDocumentHandlerTest {
+
+    private static final BsonObjectId ETAG = new BsonObjectId();
+
+    private static final BsonDocument DOC = new BsonDocument("_id",
+            new BsonString("a")).append("_etag", ETAG);
+
+    private MongoCollection<BsonDocument> coll;
+    private Database dbsDAO;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MongoServiceConfiguration.init(new HashMap<>());
+        EtagCache.init(100, 0);
+
+        FindIterable<BsonDocument> found = mock(FindIterable.class);
+        when(found.projection(any())).thenReturn(found);
+        when(found.first()).thenReturn(DOC);
+
+        coll = mock(MongoCollection.class);
+        when(coll.find(any(Bson.class))).thenReturn(found);
+
+        dbsDAO = mock(Database.class);
+        when(dbsDAO.getCollection("db", "coll")).thenReturn(coll);
+    }
+
+    @After
+    public void tearDown() {
+        EtagCache.init(0, 0);
+    }
+
+    @Test
+    public void testNotModifiedFromEtagCache() throws Exception {
+        // the first conditional request reads the etag from the db
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, get(ETAG.getValue().toString()));
+        verify(coll, times(1)).find(any(Bson.class));
+
+        // the second one from the etag cache
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, get(ETAG.getValue().toString()));
+        verify(coll, times(1)).find(any(Bson.class));
+
+        assertEquals(ETAG, EtagCache.get("db", "coll", new BsonString("a")));
+    }
+
+    @Test
+    public void testInvalidatedEtag() throws Exception {
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, get(ETAG.getValue().toString()));
+
+        EtagCache.invalidate("db", "coll", new BsonString("a"));
+
+        // after a write the etag is read again from the db
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, get(ETAG.getValue().toString()));
+        verify(coll, times(2)).find(any(Bson.class));
+    }
+
+    @Test
+    public void testModified() throws Exception {
+        // the cached etag does not match, the document is fetched
+        EtagCache.put("db", "coll", new BsonString("a"), ETAG,
+                EtagCache.generation("db", "coll", new BsonString("a")));
+
+        var exchange = exchange(new BsonObjectId().getValue().toString());
+
+        assertEquals(HttpStatus.SC_OK,
+                BsonResponse.wrap(exchange).getStatusCode());
+        assertEquals(ETAG.getValue().toString(), exchange.getResponseHeaders()
+                .getFirst(Headers.ETAG));
+        // the etag only and the document queries
+        verify(coll, times(2)).find(any(Bson.class));
+    }
+
+    @Test
+    public void testAsyncDataPath() throws Exception {
+        MongoServiceConfiguration.init(Map.of("async-data-path", true));
+
+        var asyncDAO = mock(AsyncDocumentDAO.class);
+        when(asyncDAO.getDocument(eq("db"), eq("coll"), any(Bson.class),
+                any())).thenReturn(CompletableFuture.completedFuture(DOC));
+
+        var exchange = exchange(new BsonObjectId().getValue().toString(),
+                asyncDAO);
+
+        // the exchange is dispatched and resumed with the document
+        assertTrue(exchange.isDispatched());
+        assertEquals(HttpStatus.SC_OK,
+                BsonResponse.wrap(exchange).getStatusCode());
+        assertEquals(ETAG.getValue().toString(), exchange.getResponseHeaders()
+                .getFirst(Headers.ETAG));
+
+        // the etag only and the document queries
+        verify(asyncDAO, times(2)).getDocument(eq("db"), eq("coll"),
+                any(Bson.class), any());
+        verify(coll, never()).find(any(Bson.class));
+    }
+
+    @Test
+    public void testAsyncDataPathError() throws Exception {
+        MongoServiceConfiguration.init(Map.of("async-data-path", true));
+
+        var asyncDAO = mock(AsyncDocumentDAO.class);
+        when(asyncDAO.getDocument(eq("db"), eq("coll"), any(Bson.class),
+                any())).thenReturn(CompletableFuture.failedFuture(
+                        new MongoExecutionTimeoutException(50, "timeout")));
+
+        var exchange = exchange(new BsonObjectId().getValue().toString(),
+                asyncDAO);
+
+        // the error is replied by ErrorHandler
+        assertEquals(HttpStatus.SC_REQUEST_TIMEOUT,
+                BsonResponse.wrap(exchange).getStatusCode());
+    }
+
+    private int get(String ifNoneMatch) throws Exception {
+        return BsonResponse.wrap(exchange(ifNoneMatch)).getStatusCode();
+    }
+
+    private HttpServerExchange exchange(String ifNoneMatch) throws Exception {
+        return exchange(ifNoneMatch, mock(AsyncDocumentDAO.class));
+    }
+
+    private HttpServerExchange exchange(String ifNoneMatch,
+            AsyncDocumentDAO asyncDAO) throws Exception {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll/a");
+        exchange.setRelativePath("/db/coll/a");
+        exchange.setRequestMethod(new HttpString("GET"));
+        exchange.getRequestHeaders().put(Headers.IF_NONE_MATCH, ifNoneMatch);
+
+        new RequestContextInjector(true, false).handleRequest(exchange);
+        new GetDocumentHandler(null, dbsDAO, asyncDAO)
+                .handleRequest(exchange);
+
+        return exchange;
+    }
+}
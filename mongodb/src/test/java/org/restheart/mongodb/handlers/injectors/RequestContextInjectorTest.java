@@ -0,0 +1,120 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers.injectors;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.handlers.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.MongoServiceConfigurationKeys;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class RequestContextInjectorTest {
+
+    @Before
+    public void setUp() {
+        MongoServiceConfiguration.init(new HashMap<>());
+    }
+
+    @Test
+    public void testNdjsonRepParam() throws Exception {
+        var exchange = exchange("/db/coll", "GET");
+        exchange.addQueryParam("rep", "ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.NDJSON, handle(exchange));
+    }
+
+    @Test
+    public void testNdjsonAcceptHeader() throws Exception {
+        var exchange = exchange("/db/coll", "GET");
+        exchange.getRequestHeaders().put(Headers.ACCEPT,
+                "application/x-ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.NDJSON, handle(exchange));
+
+        var aggregation = exchange("/db/coll/_aggrs/test", "GET");
+        aggregation.getRequestHeaders().put(Headers.ACCEPT,
+                "application/json, application/x-ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.NDJSON, handle(aggregation));
+
+        // the rep query parameter takes precedence
+        var rep = exchange("/db/coll", "GET");
+        rep.addQueryParam("rep", "standard");
+        rep.getRequestHeaders().put(Headers.ACCEPT, "application/x-ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.STANDARD, handle(rep));
+    }
+
+    @Test
+    public void testNdjsonNotAvailable() throws Exception {
+        // the Accept header is ignored for documents
+        var document = exchange("/db/coll/doc", "GET");
+        document.getRequestHeaders().put(Headers.ACCEPT,
+                "application/x-ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.STANDARD, handle(document));
+
+        // the rep parameter falls back to the default with a warning
+        var post = exchange("/db/coll", "POST");
+        post.addQueryParam("rep", "ndjson");
+
+        assertEquals(REPRESENTATION_FORMAT.STANDARD, handle(post));
+        assertTrue(BsonResponse.wrap(post).getWarnings().stream()
+                .anyMatch(w -> w.contains("NDJSON")));
+    }
+
+    @Test
+    public void testNdjsonNotAllowedAsDefault() {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(MongoServiceConfigurationKeys.REPRESENTATION_FORMAT_KEY,
+                "NDJSON");
+
+        assertEquals(REPRESENTATION_FORMAT.STANDARD, MongoServiceConfiguration
+                .init(conf)
+                .getDefaultRepresentationFormat());
+    }
+
+    private static HttpServerExchange exchange(String path, String method) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRelativePath(path);
+        exchange.setRequestMethod(new HttpString(method));
+
+        return exchange;
+    }
+
+    private static REPRESENTATION_FORMAT handle(HttpServerExchange exchange)
+            throws Exception {
+        new RequestContextInjector(true, false).handleRequest(exchange);
+
+        return BsonRequest.wrap(exchange).getRepresentationFormat();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.handlers.metadata;
+
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.restheart.mongodb.handlers.metadata.ResponseTransformersExecutor.excludeFromProjection;
+import org.restheart.mongodb.plugins.transformers.FilterTransformer;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ResponseTransformersExecutorTest {
+
+    private static final Set<String> EXCLUDED = Set.of("history", "blob");
+
+    @Test
+    public void testExcludeFromNoProjection() {
+        assertEquals(BsonDocument.parse("{'history': 0, 'blob': 0}"),
+                excludeFromProjection(null, EXCLUDED));
+
+        assertEquals(BsonDocument.parse("{'history': 0, 'blob': 0}"),
+                excludeFromProjection(new BsonDocument(), EXCLUDED));
+
+        assertNull(excludeFromProjection(null, Set.of()));
+    }
+
+    @Test
+    public void testExcludeFromExclusionProjection() {
+        var projection = BsonDocument.parse("{'_id': 0, 'a': 0, 'history.x': false}");
+
+        assertEquals(BsonDocument.parse("{'_id': 0, 'a': 0, 'history': 0, 'blob': 0}"),
+                excludeFromProjection(projection, EXCLUDED));
+
+        // the projection is not modified
+        assertEquals(BsonDocument.parse("{'_id': 0, 'a': 0, 'history.x': false}"),
+                projection);
+    }
+
+    @Test
+    public void testExcludeFromInclusionProjection() {
+        assertEquals(BsonDocument.parse("{'_id': 0, 'a': 1}"),
+                excludeFromProjection(BsonDocument
+                        .parse("{'_id': 0, 'a': 1, 'history.x': 1, 'blob': true}"),
+                        EXCLUDED));
+
+        // without included properties all of them would be returned
+        var onlyExcluded = BsonDocument.parse("{'history': 1}");
+        assertSame(onlyExcluded, excludeFromProjection(onlyExcluded, EXCLUDED));
+
+        var onlyId = BsonDocument.parse("{'_id': 1}");
+        assertSame(onlyId, excludeFromProjection(onlyId, EXCLUDED));
+    }
+
+    @Test
+    public void testExcludeFromImmutableProjection() {
+        // the projection of the request is a RawBsonDocument
+        var exclusion = new RawBsonDocument(BsonDocument
+                .parse("{'a': 0, 'history.x': 0}"), new BsonDocumentCodec());
+
+        assertEquals(BsonDocument.parse("{'a': 0, 'history': 0, 'blob': 0}"),
+                excludeFromProjection(exclusion, EXCLUDED));
+
+        var inclusion = new RawBsonDocument(BsonDocument
+                .parse("{'a': 1, 'blob': 1}"), new BsonDocumentCodec());
+
+        assertEquals(BsonDocument.parse("{'a': 1}"),
+                excludeFromProjection(inclusion, EXCLUDED));
+    }
+
+    @Test
+    public void testExcludeFromProjectionWithOperators() {
+        var projection = BsonDocument.parse("{'a': {'$slice': 2}}");
+
+        assertSame(projection, excludeFromProjection(projection, EXCLUDED));
+    }
+
+    @Test
+    public void testFilterTransformerRemovedProperties() {
+        var filter = new FilterTransformer();
+
+        assertEquals(Set.of("a", "b"), filter.removedProperties(
+                BsonArray.parse("['a', 'b', 1]")));
+
+        assertTrue(filter.removedProperties(
+                BsonDocument.parse("{'a': 1}")).isEmpty());
+    }
+}
@@ -5,6 +5,7 @@ import org.restheart.mongodb.handlers.metrics.SharedMetricRegistryProxy;
 import com.codahale.metrics.MetricRegistry;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Methods;
+import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -91,5 +92,16 @@ public class MetricsInstrumentationHandlerTest {
         assertEquals(3, registry.getTimers().size());
         assertEquals(3, registryDb.getTimers().size());
         assertEquals(3, registryColl.getTimers().size());
+
+        assertEquals(2, registryColl.getTimers().get("COLLECTION.GET").getCount());
+        assertEquals(2, registryColl.getTimers().get("COLLECTION.GET.200").getCount());
+        assertEquals(2, registryColl.getTimers().get("COLLECTION.GET.2xx").getCount());
+
+        // durations are measured in nanoseconds
+        long start = System.nanoTime();
+        mih.addMetrics(start, httpServerExchange);
+
+        var snapshot = registry.getTimers().get("COLLECTION.GET").getSnapshot();
+        assertTrue(snapshot.getMin() < TimeUnit.MILLISECONDS.toNanos(1000));
     }
 }
\ No newline at end of file
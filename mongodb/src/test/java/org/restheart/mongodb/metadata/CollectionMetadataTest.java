@@ -0,0 +1,158 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.metadata;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.restheart.mongodb.handlers.aggregation.AggregationPipeline;
+import org.restheart.mongodb.handlers.metadata.InvalidMetadataException;
+import org.restheart.plugins.PluginRecord;
+import org.restheart.plugins.PluginsRegistry;
+import org.restheart.plugins.mongodb.Checker;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CollectionMetadataTest {
+
+    private static final String AGGRS = "{'aggrs': ["
+            + "{'type':'pipeline','uri':'a','stages':[{'$match':{}}]},"
+            + "{'type':'pipeline','uri':'b','stages':[{'$match':{}}]},"
+            + "{'type':'pipeline','uri':'a','stages':[{'$limit':1}]}]";
+
+    @Test
+    public void testCachedByEtag() throws Exception {
+        var v1 = BsonDocument.parse(AGGRS + ", '_etag': 1}");
+        var v2 = BsonDocument.parse(AGGRS + ", '_etag': 2}");
+
+        var md = CollectionMetadata.of("db", "testCachedByEtag", v1);
+
+        assertSame(md, CollectionMetadata.of("db", "testCachedByEtag", v1));
+        assertNotSame(md, CollectionMetadata.of("db", "testCachedByEtag", v2));
+        assertNotSame(md, CollectionMetadata.of("db", "anotherColl", v1));
+
+        // without _etag the metadata is not cached
+        var noEtag = BsonDocument.parse(AGGRS + "}");
+
+        assertNotSame(CollectionMetadata.of("db", "testCachedByEtag", noEtag),
+                CollectionMetadata.of("db", "testCachedByEtag", noEtag));
+    }
+
+    @Test
+    public void testGetAggregation() throws Exception {
+        var md = CollectionMetadata.of("db", "testGetAggregation",
+                BsonDocument.parse(AGGRS + "}"));
+
+        assertEquals(2, md.getAggregations().size());
+        assertSame(md.getAggregations(), md.getAggregations());
+
+        // in case of duplicate uris, the first one applies
+        var a = (AggregationPipeline) md.getAggregation("a");
+
+        assertEquals("a", a.getUri());
+        assertTrue(a.getStages().get(0).asDocument().containsKey("$match"));
+
+        assertNotNull(md.getAggregation("b"));
+        assertNull(md.getAggregation("c"));
+
+        assertNull(CollectionMetadata.of("db", "testGetAggregation", null)
+                .getAggregation("a"));
+    }
+
+    @Test
+    public void testCheckerInvocations() throws Exception {
+        var checker = (Checker) Proxy.newProxyInstance(
+                Checker.class.getClassLoader(),
+                new Class<?>[]{Checker.class},
+                (proxy, method, args) -> null);
+
+        var record = new PluginRecord<>("c1", "", true, "c1", checker,
+                Map.of("a", (Object) 1));
+
+        var lookups = new AtomicInteger();
+
+        var registry = (PluginsRegistry) Proxy.newProxyInstance(
+                PluginsRegistry.class.getClassLoader(),
+                new Class<?>[]{PluginsRegistry.class},
+                (proxy, method, args) -> {
+                    if ("getChecker".equals(method.getName())) {
+                        lookups.incrementAndGet();
+                        return "c1".equals(args[0]) ? record : null;
+                    }
+
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        var md = CollectionMetadata.of("db", "testCheckerInvocations",
+                BsonDocument.parse("{'checkers': ["
+                        + "{'name':'c1','args':{}},"
+                        + "{'name':'c2','args':{}}], '_etag': 1}"));
+
+        var invocations = md.getCheckerInvocations(registry);
+
+        assertEquals(2, invocations.size());
+        assertTrue(invocations.get(0).isRegistered());
+        assertSame(checker, invocations.get(0).getInstance());
+        assertEquals(BsonDocument.parse("{'a':1}"),
+                invocations.get(0).getConfArgs());
+
+        // the conf args modified by a plugin are not shared
+        invocations.get(0).getConfArgs().put("b", new BsonInt32(2));
+        assertEquals(BsonDocument.parse("{'a':1}"),
+                invocations.get(0).getConfArgs());
+        assertFalse(invocations.get(1).isRegistered());
+
+        // plugins are resolved once
+        assertSame(invocations, CollectionMetadata
+                .of("db", "testCheckerInvocations", BsonDocument.parse(
+                        "{'checkers': [], '_etag': 1}"))
+                .getCheckerInvocations(registry));
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testInvalidMetadata() throws Exception {
+        var md = CollectionMetadata.of("db", "testInvalidMetadata",
+                BsonDocument.parse("{'aggrs': 1, 'checkers': 1}"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                md.getAggregations();
+                fail("expected InvalidMetadataException");
+            } catch (InvalidMetadataException ime) {
+                // expected, also on following accesses
+            }
+        }
+
+        try {
+            md.getCheckers();
+            fail("expected InvalidMetadataException");
+        } catch (InvalidMetadataException ime) {
+            // expected
+        }
+
+        assertTrue(md.getRelationships().isEmpty());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.plugins.checkers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import org.restheart.handlers.exchange.RequestContext;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class JsonPathConditionsCheckerTest {
+
+    private static final BsonArray ARGS = BsonArray.parse("["
+            + "{'path':'$.name','type':'string','regex':'^[a-z]+$'},"
+            + "{'path':'$.tags','type':'array'},"
+            + "{'path':'$.tags.[*]','type':'string','count':[1,2]},"
+            + "{'path':'$.address','type':'object','optional':true,"
+            + "'mandatoryFields':['city'],'optionalFields':['zip']},"
+            + "{'path':'$.address.city','type':'string','count':1},"
+            + "{'path':'$.nick','type':'string','nullable':true},"
+            + "{'path':'$.age','optional':true},"
+            + "'not an object']");
+
+    private static final String[] DOCS = {
+        "{'name':'andrea','tags':['a'],'address':{'city':'rome'},'nick':'uji'}",
+        "{'name':'andrea','tags':['a','b'],'nick':'uji'}",
+        "{'name':'andrea','tags':['a'],'nick':null}",
+        "{'name':'andrea','tags':['a']}",
+        "{'name':'Andrea1','tags':['a'],'nick':'uji'}",
+        "{'name':'andrea','tags':['a',1]}",
+        "{'name':'andrea','tags':['a','b','c'],'nick':'uji'}",
+        "{'name':'andrea','tags':['a'],'address':{'zip':'00100'}}",
+        "{'name':'andrea','tags':['a'],'address':{'city':'rome','x':1},'nick':'uji'}",
+        "{'name':'andrea','tags':['a'],'address':{'city':1}}",
+        "{'name':'andrea','tags':{'0':'a'}}",
+        "{'tags':['a']}",
+        "{}"
+    };
+
+    private final JsonPathConditionsChecker checker
+            = new JsonPathConditionsChecker();
+
+    @Test
+    public void testCheck() {
+        assertTrue(check(DOCS[0], ARGS).isEmpty());
+        // $.address is optional, $.address.city is not checked
+        assertTrue(check(DOCS[1], ARGS).isEmpty());
+        // $.nick is nullable
+        assertTrue(check(DOCS[2], ARGS).isEmpty());
+
+        // $.nick is nullable but not optional
+        assertTrue(check(DOCS[3], ARGS).get(0)
+                .startsWith("checkType condition failed: path: $.nick"));
+
+        assertTrue(check(DOCS[4], ARGS).get(0)
+                .startsWith("checkRegex condition failed: path: $.name"));
+        assertTrue(check(DOCS[6], ARGS).get(0)
+                .startsWith("checkCount condition failed: path: $.tags.[*]"));
+        assertTrue(check(DOCS[8], ARGS).get(0)
+                .startsWith("checkType condition failed: path: $.address, "
+                        + "mandatory fields: [city]"));
+    }
+
+    @Test
+    public void testSameResultsAsUncompiled() {
+        for (var doc : DOCS) {
+            var compiled = new ArrayList<String>();
+            var uncompiled = new ArrayList<String>();
+
+            var json = BsonDocument.parse(doc);
+
+            var compiledResult = checker.check(null, context(compiled),
+                    json, ARGS);
+
+            var uncompiledResult = checker.applyConditions(
+                    checker.filterMissingOptionalAndNullNullableConditions(
+                            ARGS, json), json, context(uncompiled));
+
+            assertEquals(doc, uncompiledResult, compiledResult);
+            assertEquals(doc, uncompiled, compiled);
+        }
+    }
+
+    @Test
+    public void testWrongRegex() {
+        var args = BsonArray.parse("[{'path':'$.a','regex':'[','optional':true}]");
+
+        // the regex is not compiled if the path does not exist
+        assertTrue(check("{'b':1}", args).isEmpty());
+
+        try {
+            check("{'a':1}", args);
+            fail("expected PatternSyntaxException");
+        } catch (PatternSyntaxException pse) {
+            // expected
+        }
+    }
+
+    /**
+     * @return the warnings if the check fails, an empty list if it succeeds
+     */
+    private List<String> check(String doc, BsonArray args) {
+        var warnings = new ArrayList<String>();
+
+        if (checker.check(null, context(warnings), BsonDocument.parse(doc),
+                args)) {
+            assertTrue(warnings.toString(), warnings.isEmpty());
+        } else {
+            assertFalse(warnings.isEmpty());
+        }
+
+        return warnings;
+    }
+
+    private static RequestContext context(List<String> warnings) {
+        var context = mock(RequestContext.class);
+
+        doAnswer(invocation -> warnings.add(invocation.getArgument(0)))
+                .when(context).addWarning(anyString());
+
+        return context;
+    }
+}
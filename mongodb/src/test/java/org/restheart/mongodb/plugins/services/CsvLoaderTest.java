@@ -0,0 +1,172 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.plugins.services;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.restheart.handlers.exchange.BsonResponse;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.db.EtagCache;
+import org.restheart.mongodb.handlers.document.GetDocumentHandler;
+import org.restheart.mongodb.handlers.injectors.RequestContextInjector;
+import org.restheart.mongodb.utils.JsonUtils;
+import org.restheart.utils.HttpStatus;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CsvLoaderTest {
+
+    @Test
+    public void testGetBsonValue() {
+        String[] values = {"", "a", "hello world", "a_1 b2", "true", "false",
+            "null", "true story", "NaN", "Infinity", "MinKey", "new Date(0)",
+            "Date", "ObjectId", "0", "7", "-7", "007", "-0", "123456789",
+            "1234567890", "12345678901", "1.5", "-1e3", "\"quoted, value\"",
+            "{\"a\":1}", "[1,2]", " 1", "caff\u00e8", "a-b", "$x"};
+
+        for (String value : values) {
+            assertEquals(value, parse(value), CsvLoader.getBsonValue(value));
+        }
+    }
+
+    @Test
+    public void testReadRows() throws Exception {
+        var reader = new CsvReader(new StringReader(
+                "_id,name,tags\r\n"
+                + "1,\"Doe, John\",\"a,b\"\n"
+                + "\n"
+                + "2,,\n"), ",");
+
+        assertEquals(Arrays.asList("_id", "name", "tags"), reader.readRow());
+        assertEquals(Arrays.asList("1", "\"Doe, John\"", "\"a,b\""),
+                reader.readRow());
+        assertEquals(Arrays.asList("2", "", ""), reader.readRow());
+        assertNull(reader.readRow());
+    }
+
+    @Test
+    public void testSeparators() {
+        assertEquals(Arrays.asList("a", "b;c"),
+                new CsvReader(new StringReader(""), "\\t").split("a\tb;c"));
+
+        assertEquals(Arrays.asList("a", "b", "\"c::d\""),
+                new CsvReader(new StringReader(""), "::").split("a::b::\"c::d\""));
+
+        assertEquals(Arrays.asList("a,b"),
+                new CsvReader(new StringReader(""), "").split("a,b"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConditionalGetAfterImport() throws Exception {
+        MongoServiceConfiguration.init(new HashMap<>());
+        EtagCache.init(100, 0);
+
+        try {
+            var oldEtag = new BsonObjectId();
+            var newEtag = new BsonObjectId();
+
+            FindIterable<BsonDocument> found = mock(FindIterable.class);
+            when(found.projection(any())).thenReturn(found);
+            when(found.first()).thenReturn(
+                    new BsonDocument("_id", new BsonString("a1"))
+                            .append("_etag", oldEtag),
+                    new BsonDocument("_id", new BsonString("a1"))
+                            .append("_etag", newEtag));
+
+            MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+            when(coll.find(any(Bson.class))).thenReturn(found);
+            when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                    .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1,
+                            List.of()));
+
+            var dbsDAO = mock(Database.class);
+            when(dbsDAO.getCollection("db", "coll")).thenReturn(coll);
+
+            // the etag is cached by a conditional GET
+            assertEquals(HttpStatus.SC_NOT_MODIFIED, get(dbsDAO, oldEtag));
+
+            var exchange = new HttpServerExchange();
+            exchange.addQueryParam("db", "db");
+            exchange.addQueryParam("coll", "coll");
+            exchange.addQueryParam("id", "0");
+            exchange.addQueryParam("update", "true");
+
+            var result = new CsvLoader(null, () -> dbsDAO).importCsv(exchange,
+                    new CsvRequestParams(exchange, null),
+                    new CsvReader(new StringReader("_id,b\na1,x\n"), ","));
+
+            assertEquals(1, result.getInt64("modified").getValue());
+
+            // the import invalidated the cached etag
+            assertEquals(HttpStatus.SC_OK, get(dbsDAO, oldEtag));
+        } finally {
+            EtagCache.init(0, 0);
+        }
+    }
+
+    private static int get(Database dbsDAO, BsonObjectId ifNoneMatch)
+            throws Exception {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll/a1");
+        exchange.setRelativePath("/db/coll/a1");
+        exchange.setRequestMethod(new HttpString("GET"));
+        exchange.getRequestHeaders().put(Headers.IF_NONE_MATCH,
+                ifNoneMatch.getValue().toString());
+
+        new RequestContextInjector(true, false).handleRequest(exchange);
+        new GetDocumentHandler(null, dbsDAO).handleRequest(exchange);
+
+        return BsonResponse.wrap(exchange).getStatusCode();
+    }
+
+    /**
+     * the value parsed as CsvLoader did before the fast paths
+     */
+    private static BsonValue parse(String raw) {
+        try {
+            return JsonUtils.parse(raw);
+        } catch (JsonParseException jpe) {
+            return new BsonString(raw);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.mongodb.representation;
+
+import io.undertow.server.HttpServerExchange;
+import java.util.List;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonMaxKey;
+import org.bson.BsonMinKey;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.restheart.handlers.exchange.BsonResponse;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ReferenceLinkTemplateTest {
+
+    private static final List<BsonValue> IDS = List.of(
+            new BsonObjectId(),
+            new BsonString("doc"),
+            new BsonString(new ObjectId().toHexString()),
+            new BsonInt32(-1),
+            new BsonInt64(Long.MAX_VALUE),
+            new BsonDouble(1.5),
+            new BsonDateTime(1_577_836_800_000l),
+            BsonBoolean.TRUE,
+            BsonBoolean.FALSE,
+            BsonNull.VALUE,
+            new BsonMaxKey(),
+            new BsonMinKey());
+
+    @Test
+    public void testSameLinksOfGetReferenceLink() {
+        var response = BsonResponse.wrap(new HttpServerExchange());
+
+        for (var parent : List.of("/db/coll", "/db/coll/", "/")) {
+            var template = new ReferenceLinkTemplate(parent);
+
+            for (var id : IDS) {
+                assertEquals(id.toString(),
+                        RepUtils.getReferenceLink(response, parent, id),
+                        template.of(id));
+            }
+
+            assertEquals(RepUtils.getReferenceLink(response, parent, null),
+                    template.of(null));
+        }
+    }
+
+    @Test
+    public void testUnsupportedId() {
+        assertNull(new ReferenceLinkTemplate("/db/coll")
+                .of(new BsonDocument("a", new BsonInt32(1))));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import com.mongodb.MongoClientURI;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.mongodb.db.AsyncDocumentDAO;
+import org.restheart.mongodb.db.Database;
+import org.restheart.mongodb.db.DatabaseImpl;
+import org.restheart.mongodb.db.MongoDBClientSingleton;
+import org.restheart.mongodb.db.MongoDBReactiveClientSingleton;
+import static org.restheart.test.integration.AbstactIT.TEST_DB_PREFIX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the throughput and the threads of the GET document requests
+ * executed with the sync driver by the worker threads and with the reactive
+ * streams driver (async-data-path: true), when each query takes QUERY_TIME
+ * msecs on the server
+ *
+ * in the async mode the requests are issued by a single thread, as the IO
+ * thread does dispatching the exchanges, and CONCURRENT_REQUESTS are in flight
+ *
+ * the handlers are not executed by Undertow since the test classpath mocks
+ * HttpServerExchange, it needs a mongod running on localhost
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class AsyncDataPathTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(AsyncDataPathTest.class);
+
+    private static final MongoClientURI MONGO_URI = new MongoClientURI(
+            "mongodb://127.0.0.1/?maxPoolSize=500&waitQueueMultiple=10");
+
+    private static final String COLL = "asyncdatapath";
+
+    private static final int WORKER_THREADS = 16 * Runtime.getRuntime()
+            .availableProcessors();
+
+    private static final int CONCURRENT_REQUESTS = 500;
+
+    private static final int REQUESTS = 10_000;
+
+    private static final long QUERY_TIME = 20;
+
+    private static final BsonDocument QUERY = new BsonDocument("_id",
+            new BsonString("a"))
+            .append("$where", new BsonString("sleep(" + QUERY_TIME
+                    + ") || true"));
+
+    /**
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        MongoDBClientSingleton.init(MONGO_URI);
+        MongoDBReactiveClientSingleton.init(MONGO_URI);
+
+        new DatabaseImpl().getCollection(TEST_DB_PREFIX, COLL)
+                .insertOne(new BsonDocument("_id", new BsonString("a")));
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass() {
+        new DatabaseImpl().getCollection(TEST_DB_PREFIX, COLL).drop();
+    }
+
+    /**
+     *
+     */
+    public AsyncDataPathTest() {
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSyncDriver() throws Exception {
+        final Database dbsDAO = new DatabaseImpl();
+        var coll = dbsDAO.getCollection(TEST_DB_PREFIX, COLL);
+        var executor = Executors.newFixedThreadPool(WORKER_THREADS);
+
+        try {
+            run("sync driver", () -> {
+                var done = new CountDownLatch(REQUESTS);
+
+                for (int cont = 0; cont < REQUESTS; cont++) {
+                    executor.execute(() -> {
+                        try {
+                            coll.find(QUERY).first();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+
+                done.await();
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReactiveStreamsDriver() throws Exception {
+        var asyncDAO = new AsyncDocumentDAO();
+
+        run("reactive streams driver", () -> {
+            var inFlight = new Semaphore(CONCURRENT_REQUESTS);
+            var done = new CountDownLatch(REQUESTS);
+
+            for (int cont = 0; cont < REQUESTS; cont++) {
+                inFlight.acquire();
+
+                asyncDAO.getDocument(TEST_DB_PREFIX, COLL, QUERY, null)
+                        .whenComplete((doc, t) -> {
+                            inFlight.release();
+                            done.countDown();
+                        });
+            }
+
+            done.await();
+        });
+    }
+
+    private static void run(String mode, Load load) throws Exception {
+        var threads = ManagementFactory.getThreadMXBean();
+
+        // warm up
+        load.send();
+
+        threads.resetPeakThreadCount();
+
+        long start = System.currentTimeMillis();
+        load.send();
+        long time = System.currentTimeMillis() - start;
+
+        LOGGER.info("{}: {} requests/sec, peak threads {}",
+                mode,
+                REQUESTS * 1000L / Math.max(time, 1),
+                threads.getPeakThreadCount());
+    }
+
+    @FunctionalInterface
+    private interface Load {
+        void send() throws Exception;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.junit.Ignore;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import org.restheart.handlers.exchange.RequestContext;
+import org.restheart.mongodb.plugins.checkers.JsonPathConditionsChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the time needed to check a document against 24 conditions with the
+ * conditions parsed on every check (the former JsonPathConditionsChecker path)
+ * and with the conditions compiled once per args
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class CheckContentTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(CheckContentTimeTest.class);
+
+    private static final int N = 100_000;
+
+    /**
+     *
+     */
+    public CheckContentTimeTest() {
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testCheckContent() {
+        var checker = new UncompiledChecker();
+        var context = mock(RequestContext.class);
+        var args = args();
+        var doc = doc();
+
+        // warm up
+        for (int cont = 0; cont < N; cont++) {
+            checker.uncompiled(doc, args, context);
+            checker.check(null, context, doc, args);
+        }
+
+        long start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            checker.uncompiled(doc, args, context);
+        }
+        long uncompiledTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            checker.check(null, context, doc, args);
+        }
+        long compiledTime = System.nanoTime() - start;
+
+        LOGGER.info("uncompiled conditions: {} usecs/check",
+                uncompiledTime / N / 1_000d);
+        LOGGER.info("compiled conditions: {} usecs/check",
+                compiledTime / N / 1_000d);
+    }
+
+    private static BsonArray args() {
+        var args = new BsonArray();
+
+        for (int cont = 0; cont < 4; cont++) {
+            args.addAll(BsonArray.parse("["
+                    + "{'path':'$.s" + cont + "','type':'string','regex':'^[a-z ]+$'},"
+                    + "{'path':'$.n" + cont + "','type':'number'},"
+                    + "{'path':'$.sub" + cont + "','type':'object','mandatoryFields':['a','b']},"
+                    + "{'path':'$.sub" + cont + ".a','type':'array','count':1},"
+                    + "{'path':'$.sub" + cont + ".a.[*]','type':'number'},"
+                    + "{'path':'$.opt" + cont + "','type':'string','optional':true}"
+                    + "]"));
+        }
+
+        return args;
+    }
+
+    private static BsonDocument doc() {
+        var doc = new BsonDocument();
+
+        for (int cont = 0; cont < 4; cont++) {
+            doc.putAll(BsonDocument.parse("{"
+                    + "'s" + cont + "': 'a string with spaces', "
+                    + "'n" + cont + "': " + cont + ", "
+                    + "'sub" + cont + "': {'a': [1, 2, 3], 'b': {'c': true}}}"));
+        }
+
+        return doc;
+    }
+
+    private static class UncompiledChecker extends JsonPathConditionsChecker {
+        boolean uncompiled(BsonDocument doc, BsonArray args,
+                RequestContext context) {
+            return applyConditions(
+                    filterMissingOptionalAndNullNullableConditions(args, doc),
+                    doc,
+                    context);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Methods;
+import java.util.LinkedHashMap;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.handlers.exchange.AbstractExchange.METHOD;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.ExchangeKeys.TYPE;
+import org.restheart.mongodb.handlers.RequestDispatcherHandler;
+import org.restheart.mongodb.handlers.ResponseSenderHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * measures the dispatch overhead for each request type: resolving the
+ * request type as many times as a request does (the representation
+ * factories, injectors, etag policy and transformers call
+ * BsonRequest.getType() dozens of times) and looking up the handler
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class DispatchTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(DispatchTimeTest.class);
+
+    private static final int N = 1_000_000;
+
+    /**
+     * the getType() calls of a request
+     */
+    private static final int CALLS = 30;
+
+    /**
+     * keeps the results alive, so that the loops are not optimized away
+     */
+    private static long sink = 0;
+
+    private static final LinkedHashMap<String, String> PATHS
+            = new LinkedHashMap<>();
+
+    static {
+        PATHS.put("ROOT", "/");
+        PATHS.put("DB", "/db");
+        PATHS.put("COLLECTION", "/db/coll");
+        PATHS.put("DOCUMENT", "/db/coll/docid");
+        PATHS.put("BULK_DOCUMENTS", "/db/coll/*");
+        PATHS.put("COLLECTION_SIZE", "/db/coll/_size");
+        PATHS.put("COLLECTION_INDEXES", "/db/coll/_indexes");
+        PATHS.put("AGGREGATION", "/db/coll/_aggrs/aggr");
+        PATHS.put("FILES_BUCKET", "/db/bucket.files");
+        PATHS.put("FILE", "/db/bucket.files/fileid");
+        PATHS.put("FILE_BINARY", "/db/bucket.files/fileid/binary");
+        PATHS.put("SCHEMA", "/db/_schemas/schemaid");
+    }
+
+    /**
+     *
+     */
+    public DispatchTimeTest() {
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testDispatch() {
+        var dispatcher = new RequestDispatcherHandler(false);
+
+        for (var type : TYPE.values()) {
+            for (var method : METHOD.values()) {
+                dispatcher.putHandler(type, method, new ResponseSenderHandler());
+            }
+        }
+
+        // warm up
+        PATHS.values().forEach(path -> dispatch(dispatcher, request(path)));
+
+        PATHS.forEach((expected, path) -> {
+            var request = request(path);
+
+            if (!expected.equals(request.getType().name())) {
+                throw new IllegalStateException("wrong type "
+                        + request.getType() + " for " + path);
+            }
+
+            long start = System.nanoTime();
+            sink += dispatch(dispatcher, request);
+            long time = System.nanoTime() - start;
+
+            LOGGER.info("{}: {} nsecs/request", expected, time / N);
+        });
+
+        LOGGER.trace("sink {}", sink);
+    }
+
+    private static int dispatch(RequestDispatcherHandler dispatcher,
+            BsonRequest request) {
+        int found = 0;
+
+        for (int cont = 0; cont < N; cont++) {
+            for (int call = 0; call < CALLS; call++) {
+                found += request.getType().ordinal();
+            }
+
+            if (dispatcher.getPipedHttpHandler(request.getType(),
+                    request.getMethod()) != null) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    private static BsonRequest request(String path) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRequestMethod(Methods.GET);
+
+        return BsonRequest.init(exchange, "/", "*");
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Methods;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.handlers.exchange.BsonRequest;
+import org.restheart.handlers.exchange.ExchangeKeys.HAL_MODE;
+import org.restheart.handlers.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.mongodb.handlers.IllegalQueryParamenterException;
+import org.restheart.mongodb.handlers.collection.CollectionRepresentationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the time needed to build the representation of a page of
+ * documents of GET /db/coll in full HAL mode, i.e. with the links of the
+ * documents, and in the plain STANDARD representation
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class HalTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(HalTimeTest.class);
+
+    private static final int N = 500;
+    private static final int PAGESIZE = 1000;
+
+    /**
+     *
+     */
+    public HalTimeTest() {
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHal() throws Exception {
+        var page = page();
+
+        var hal = exchange(REPRESENTATION_FORMAT.HAL, HAL_MODE.FULL);
+        var plain = exchange(REPRESENTATION_FORMAT.STANDARD, HAL_MODE.COMPACT);
+
+        // warm up
+        for (int cont = 0; cont < N; cont++) {
+            represent(hal, page);
+            represent(plain, page);
+        }
+
+        long start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            represent(hal, page);
+        }
+        long halTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            represent(plain, page);
+        }
+        long plainTime = System.nanoTime() - start;
+
+        LOGGER.info("full HAL: {} msecs/page", halTime / N / 1_000_000d);
+        LOGGER.info("STANDARD: {} msecs/page", plainTime / N / 1_000_000d);
+    }
+
+    private static BsonDocument represent(HttpServerExchange exchange,
+            List<BsonDocument> page) throws IllegalQueryParamenterException {
+        return new CollectionRepresentationFactory()
+                .getRepresentation(exchange, page, -1)
+                .asBsonDocument();
+    }
+
+    private static HttpServerExchange exchange(REPRESENTATION_FORMAT rf,
+            HAL_MODE halMode) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll");
+        exchange.setRequestMethod(Methods.GET);
+        exchange.setQueryString("");
+
+        var request = BsonRequest.init(exchange, "/", "*");
+        request.setCollectionProps(new BsonDocument());
+        request.setRepresentationFormat(rf);
+        request.setHalMode(halMode);
+        request.setPagesize(PAGESIZE);
+
+        return exchange;
+    }
+
+    private static List<BsonDocument> page() {
+        var page = new ArrayList<BsonDocument>();
+
+        for (int cont = 0; cont < PAGESIZE; cont++) {
+            var doc = new BsonDocument();
+
+            switch (cont % 3) {
+                case 0:
+                    doc.append("_id", new BsonObjectId());
+                    break;
+                case 1:
+                    doc.append("_id", new BsonInt32(cont));
+                    break;
+                default:
+                    doc.append("_id", new BsonString("doc" + cont));
+            }
+
+            page.add(doc
+                    .append("name", new BsonString("name" + cont))
+                    .append("status", new BsonString("active")));
+        }
+
+        return page;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.json.JsonReader;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.mongodb.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the time needed to read and parse a bulk POST body of 20000
+ * documents:
+ *
+ * - copying it in 1Kbyte chunks to a ByteArrayOutputStream (the former
+ * ChannelReader path)
+ *
+ * - reading it into a byte array sized after the content length (the
+ * ChannelReader.readBytes() path)
+ *
+ * - parsing it as it is read with org.bson.json.JsonReader(Reader)
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class ParseTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ParseTimeTest.class);
+
+    private static final int N = 50;
+    private static final int DOCS = 20000;
+
+    /**
+     *
+     */
+    public ParseTimeTest() {
+    }
+
+    /**
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testParse() throws IOException {
+        var body = body();
+
+        // warm up
+        for (int cont = 0; cont < N; cont++) {
+            chunked(body);
+            sized(body);
+            streamed(body);
+        }
+
+        long start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            chunked(body);
+        }
+        long chunkedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            sized(body);
+        }
+        long sizedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            streamed(body);
+        }
+        long streamedTime = System.nanoTime() - start;
+
+        LOGGER.info("body size: {} bytes", body.length);
+        LOGGER.info("chunked: {} msecs/body, {} MB/sec",
+                chunkedTime / N / 1_000_000d,
+                throughput(body, chunkedTime));
+        LOGGER.info("sized: {} msecs/body, {} MB/sec",
+                sizedTime / N / 1_000_000d,
+                throughput(body, sizedTime));
+        LOGGER.info("streamed: {} msecs/body, {} MB/sec",
+                streamedTime / N / 1_000_000d,
+                throughput(body, streamedTime));
+    }
+
+    private static double throughput(byte[] body, long nanos) {
+        return (body.length * (double) N / (1024 * 1024)) / (nanos / 1e9);
+    }
+
+    private static byte[] body() {
+        var sb = new StringBuilder("[");
+
+        for (int cont = 0; cont < DOCS; cont++) {
+            if (cont > 0) {
+                sb.append(",\n");
+            }
+
+            sb.append("{\"n\": ").append(cont)
+                    .append(", \"s\": \"a string with spaces\", ")
+                    .append("\"d\": {\"$date\": 1571234567890}, ")
+                    .append("\"sub\": {\"a\": [1, 2, 3], \"b\": {\"c\": true}}}");
+        }
+
+        return sb.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static BsonValue chunked(byte[] body) {
+        var os = new ByteArrayOutputStream(1024);
+
+        for (int off = 0; off < body.length; off += 1024) {
+            os.write(body, off, Math.min(1024, body.length - off));
+        }
+
+        return JsonUtils.parse(new String(os.toByteArray(),
+                StandardCharsets.UTF_8));
+    }
+
+    private static BsonValue sized(byte[] body) {
+        var content = new byte[body.length];
+
+        System.arraycopy(body, 0, content, 0, body.length);
+
+        return JsonUtils.parse(new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static BsonValue streamed(byte[] body) {
+        var reader = new JsonReader(new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(body), StandardCharsets.UTF_8)));
+
+        reader.readBsonType();
+
+        return new BsonValueCodec().decode(reader,
+                DecoderContext.builder().build());
+    }
+}
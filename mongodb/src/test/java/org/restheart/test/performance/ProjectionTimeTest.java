@@ -0,0 +1,138 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the bytes and the time needed to decode a page of wide documents
+ * when the properties hidden by the filterProperties transformer are fetched
+ * and then removed (the former path) and when they are excluded by the query
+ * projection
+ *
+ * the documents are encoded as raw bson, as received from mongod; the time
+ * of the query execution is not measured, use LoadGetPT with a collection
+ * that defines the filterProperties transformer for that
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class ProjectionTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ProjectionTimeTest.class);
+
+    private static final int N = 200;
+    private static final int PAGESIZE = 100;
+
+    private static final Set<String> FILTERED = Set.of("history", "blob");
+
+    /**
+     *
+     */
+    public ProjectionTimeTest() {
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testProjection() {
+        var full = page(false);
+        var projected = page(true);
+
+        // warm up
+        for (int cont = 0; cont < N; cont++) {
+            decodeAndFilter(full);
+            decodeAndFilter(projected);
+        }
+
+        long start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            decodeAndFilter(full);
+        }
+        long fullTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            decodeAndFilter(projected);
+        }
+        long projectedTime = System.nanoTime() - start;
+
+        LOGGER.info("filtered after fetch: {} bytes/page, {} msecs/page",
+                bytes(full), fullTime / N / 1_000_000d);
+        LOGGER.info("excluded by projection: {} bytes/page, {} msecs/page",
+                bytes(projected), projectedTime / N / 1_000_000d);
+    }
+
+    private static void decodeAndFilter(List<RawBsonDocument> page) {
+        var codec = new BsonDocumentCodec();
+
+        for (var raw : page) {
+            var doc = raw.decode(codec);
+            FILTERED.forEach(doc::remove);
+        }
+    }
+
+    private static long bytes(List<RawBsonDocument> page) {
+        return page.stream()
+                .mapToLong(raw -> raw.getByteBuffer().remaining())
+                .sum();
+    }
+
+    private static List<RawBsonDocument> page(boolean projected) {
+        var page = new ArrayList<RawBsonDocument>();
+
+        for (int cont = 0; cont < PAGESIZE; cont++) {
+            var doc = new BsonDocument("_id", new BsonInt32(cont))
+                    .append("name", new BsonString("name" + cont))
+                    .append("status", new BsonString("active"));
+
+            if (!projected) {
+                var history = new BsonArray();
+
+                for (int h = 0; h < 200; h++) {
+                    history.add(new BsonDocument("n", new BsonInt32(h))
+                            .append("note", new BsonString("a note about "
+                                    + "the change number " + h)));
+                }
+
+                doc.append("history", history)
+                        .append("blob", new BsonString("x".repeat(16 * 1024)));
+            }
+
+            page.add(new RawBsonDocument(doc, new BsonDocumentCodec()));
+        }
+
+        return page;
+    }
+}
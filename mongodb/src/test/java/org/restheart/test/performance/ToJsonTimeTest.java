@@ -0,0 +1,123 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.test.performance;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.json.Converter;
+import org.bson.json.JsonWriterSettings;
+import org.bson.json.StrictJsonWriter;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.restheart.mongodb.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the time needed to render a page of 1000 documents with
+ * BsonDocument.toJson() plus Minify (the former JsonUtils.toJson() path) and
+ * with JsonUtils.toJsonBytes() that uses CompactJsonWriter
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class ToJsonTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ToJsonTimeTest.class);
+
+    private static final int N = 200;
+    private static final int PAGESIZE = 1000;
+
+    /**
+     *
+     */
+    public ToJsonTimeTest() {
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testToJson() {
+        var page = page();
+
+        // warm up
+        for (int cont = 0; cont < N; cont++) {
+            minified(page);
+            compact(page);
+        }
+
+        long start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            minified(page);
+        }
+        long minifiedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int cont = 0; cont < N; cont++) {
+            compact(page);
+        }
+        long compactTime = System.nanoTime() - start;
+
+        LOGGER.info("toJson() + minify(): {} msecs/page",
+                minifiedTime / N / 1_000_000d);
+        LOGGER.info("toJsonBytes(): {} msecs/page",
+                compactTime / N / 1_000_000d);
+    }
+
+    private static BsonDocument page() {
+        var docs = new BsonArray();
+
+        for (int cont = 0; cont < PAGESIZE; cont++) {
+            docs.add(BsonDocument.parse("{'_id': {'$oid': '5d0b3b2b9f1e2b0001a1b2c3'}, "
+                    + "'n': " + cont + ", 's': 'a string with spaces', "
+                    + "'d': {'$date': 1571234567890}, "
+                    + "'sub': {'a': [1, 2, 3], 'b': {'c': true}}, "
+                    + "'_etag': {'$oid': '5d0b3b2b9f1e2b0001a1b2c4'}}"));
+        }
+
+        return new BsonDocument("_embedded", docs)
+                .append("_returned", new BsonInt32(PAGESIZE));
+    }
+
+    private static final JsonWriterSettings SETTINGS = JsonWriterSettings
+            .builder()
+            .indent(false)
+            .dateTimeConverter(new Converter<Long>() {
+                @Override
+                public void convert(Long t, StrictJsonWriter writer) {
+                    writer.writeRaw("{\"$date\": " + t + " }");
+                }
+            })
+            .build();
+
+    private static ByteBuffer minified(BsonDocument page) {
+        return StandardCharsets.UTF_8.encode(
+                JsonUtils.minify(page.toJson(SETTINGS)));
+    }
+
+    private static ByteBuffer compact(BsonDocument page) {
+        return JsonUtils.toJsonBytes(page, null);
+    }
+}
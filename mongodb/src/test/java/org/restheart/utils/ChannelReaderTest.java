@@ -0,0 +1,168 @@
+/*
+ * RESTHeart - the Web API for MongoDB
+ * Copyright (C) SoftInstigate Srl
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.restheart.utils;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.restheart.mongodb.utils.ChannelReader;
+import org.restheart.mongodb.utils.ContentTooLargeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.channels.StreamSourceChannel;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ChannelReaderTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChannelReaderTest.class);
+
+    /**
+     *
+     */
+    @Rule
+    public TestRule watcher = new TestWatcher() {
+        @Override
+        protected void starting(Description description) {
+            LOG.info("executing test {}", description.toString());
+        }
+    };
+
+    /**
+     *
+     */
+    public ChannelReaderTest() {
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRead() throws Exception {
+        var content = "{\"a\":\"cafè\"}";
+        var length = content.getBytes(StandardCharsets.UTF_8).length;
+
+        // content length known, unknown and wrong
+        for (long contentLength : new long[]{length, -1, 1, length * 10, 0}) {
+            Assert.assertEquals(content, ChannelReader.read(
+                    channel(content, 3), contentLength));
+        }
+
+        Assert.assertEquals("", ChannelReader.read(channel("", 3), 0));
+        Assert.assertEquals("", ChannelReader.read(channel("", 3), -1));
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadBytesLargerThanDefaultCapacity() throws Exception {
+        var sb = new StringBuilder();
+
+        for (int cont = 0; cont < 10_000; cont++) {
+            sb.append("{\"n\":").append(cont).append("}");
+        }
+
+        var content = sb.toString();
+
+        Assert.assertEquals(content, ChannelReader.read(
+                channel(content, 1000), -1));
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadBytesUpToMaxSize() throws Exception {
+        var content = "0123456789";
+
+        for (long contentLength : new long[]{10, -1, 1, 0}) {
+            Assert.assertEquals(content, new String(ChannelReader.readBytes(
+                    channel(content, 3), contentLength, 10),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadBytesLargerThanMaxSize() throws Exception {
+        var content = "0123456789A";
+
+        // content length known, unknown and wrong
+        for (long contentLength : new long[]{11, -1, 1, 0}) {
+            try {
+                ChannelReader.readBytes(channel(content, 3), contentLength, 10);
+                Assert.fail("content larger than max size read");
+            } catch (ContentTooLargeException ex) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * @param content
+     * @param chunk the max number of bytes returned by each read
+     * @return a StreamSourceChannel that reads content
+     */
+    static StreamSourceChannel channel(String content, int chunk) {
+        var src = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+
+        return (StreamSourceChannel) Proxy.newProxyInstance(
+                ChannelReaderTest.class.getClassLoader(),
+                new Class<?>[]{StreamSourceChannel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "read":
+                            var dst = (ByteBuffer) args[0];
+
+                            if (!src.hasRemaining()) {
+                                return -1;
+                            }
+
+                            int n = Math.min(chunk,
+                                    Math.min(dst.remaining(), src.remaining()));
+
+                            var slice = src.slice();
+                            slice.limit(n);
+                            dst.put(slice);
+                            src.position(src.position() + n);
+
+                            return n;
+                        case "awaitReadable":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(
+                                    method.getName());
+                    }
+                });
+    }
+}
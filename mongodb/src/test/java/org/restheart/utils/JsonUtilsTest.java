@@ -18,14 +18,23 @@
 package org.restheart.utils;
 
 import org.restheart.mongodb.utils.JsonUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import org.bson.BsonDocument;
 import org.bson.BsonDouble;
+import org.bson.BsonInt32;
 import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
 import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.json.StrictJsonWriter;
 import org.bson.types.ObjectId;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -897,4 +906,106 @@ public class JsonUtilsTest {
                 JsonUtils.parse(
                         "{'n':{'$numberDouble':'11111111158873916063432424232349289023842309842039587209357329578573489573958734985753498573495743957349839'}}")));
     }
+
+    /**
+     *
+     */
+    @Test
+    public void testToJsonMatchesMinifiedBsonToJson() {
+        var doc = BsonDocument.parse("{'a': 1, 's': 'x  y \\\" z', "
+                + "'arr': [1, {'b': 'c d'}, []], "
+                + "'d': {'$date': 12345}, "
+                + "'l': {'$numberLong': '5999999999'}, "
+                + "'dec': {'$numberDecimal': '1.5'}, "
+                + "'r': {'$regex': 'a b', '$options': 'i'}, "
+                + "'o': {'$oid': '5d0b3b2b9f1e2b0001a1b2c3'}}");
+
+        var modes = new ArrayList<JsonMode>(Arrays.asList(JsonMode.values()));
+        modes.add(null);
+
+        for (JsonMode mode : modes) {
+            var settings = mode == null
+                    ? JsonWriterSettings.builder()
+                            .indent(false)
+                            .dateTimeConverter((Long t, StrictJsonWriter w)
+                                    -> w.writeRaw("{\"$date\": " + t + " }"))
+                            .build()
+                    : JsonWriterSettings.builder()
+                            .outputMode(mode)
+                            .indent(false)
+                            .build();
+
+            String expected = JsonUtils.minify(doc.toJson(settings));
+
+            Assert.assertEquals(expected, JsonUtils.toJson(doc, mode));
+
+            var bytes = JsonUtils.toJsonBytes(doc, mode);
+
+            Assert.assertEquals(expected, StandardCharsets.UTF_8
+                    .decode(bytes).toString());
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void testToJsonNotDocuments() {
+        Assert.assertEquals("[\"a\",{\"b\":\"c d\"},2]",
+                JsonUtils.toJson(JsonUtils.parse("['a', {'b': 'c d'}, 2]")));
+
+        Assert.assertEquals("\"a b\"",
+                JsonUtils.toJson(new BsonString("a b")));
+
+        Assert.assertEquals("1", JsonUtils.toJson(new BsonInt32(1)));
+
+        Assert.assertEquals("\"caf\u00e8\"",
+                JsonUtils.toJson(new BsonString("caf\u00e8")));
+
+        Assert.assertEquals("\"caf\u00e8\"", StandardCharsets.UTF_8
+                .decode(JsonUtils.toJsonBytes(new BsonString("caf\u00e8"),
+                        null)).toString());
+
+        Assert.assertEquals("{\"$oid\":\"5d0b3b2b9f1e2b0001a1b2c3\"}",
+                JsonUtils.toJson(new BsonObjectId(
+                        new ObjectId("5d0b3b2b9f1e2b0001a1b2c3"))));
+
+        Assert.assertEquals("ObjectId(\"5d0b3b2b9f1e2b0001a1b2c3\")",
+                JsonUtils.toJson(new BsonObjectId(
+                        new ObjectId("5d0b3b2b9f1e2b0001a1b2c3")),
+                        JsonMode.SHELL));
+    }
+
+    /**
+     * the streamed array, written one item at a time, is the same json of
+     * the array
+     *
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testWriteJsonAsArrayItems() throws IOException {
+        var array = JsonUtils.parse("[{'_id': {'$oid': '5d0b3b2b9f1e2b0001a1b2c3'}, "
+                + "'a': 'caf\u00e8', 'n': 1.5, 'sub': {'b': [1, null]}}, "
+                + "{'_id': 2, 'd': {'$date': 1}}]").asArray();
+
+        for (var mode : new JsonMode[]{null, JsonMode.RELAXED, JsonMode.SHELL}) {
+            var os = new ByteArrayOutputStream();
+
+            os.write('[');
+
+            for (int cont = 0; cont < array.size(); cont++) {
+                if (cont > 0) {
+                    os.write(',');
+                }
+
+                JsonUtils.writeJson(array.get(cont), mode, os);
+            }
+
+            os.write(']');
+
+            Assert.assertEquals(StandardCharsets.UTF_8
+                    .decode(JsonUtils.toJsonBytes(array, mode)).toString(),
+                    os.toString(StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -17,6 +17,10 @@
  */
 package org.restheart.security.plugins.authenticators;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.collect.Sets;
 import io.undertow.security.idm.Account;
 import io.undertow.security.idm.Credential;
@@ -25,28 +29,50 @@ import io.undertow.security.idm.PasswordCredential;
 import io.undertow.util.HexConverter;
 import java.io.FileNotFoundException;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.mindrot.jbcrypt.BCrypt;
 import org.restheart.ConfigurationException;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import static org.restheart.plugins.ConfigurablePlugin.argValue;
 import org.restheart.plugins.FileConfigurablePlugin;
 import org.restheart.plugins.InjectConfiguration;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.security.Authenticator;
 import org.restheart.utils.LambdaUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 /**
  *
  * Authenticator with permission defined in a yml configuration file
  *
  * supports PasswordCredentials and DigestCredentials
  *
+ * The password can be either in plain text or a bcrypt hash, e.g.
+ * $2a$12$... ($2b$ and $2y$ hashes are verified as $2a$ ones). Hashed
+ * passwords can only be verified from PasswordCredentials.
+ *
+ * Since verifying a bcrypt hash takes tens of milliseconds, the successful
+ * verifications are cached for cache-ttl milliseconds (default 60000). The
+ * cache holds up to cache-size entries (default 1000, 0 disables the cache)
+ * keyed by a HMAC of userid and password, with a random key generated at
+ * startup, so that the passwords are not kept in memory. The hits and misses
+ * are counted by AUTH.[name].cache-hits and AUTH.[name].cache-misses, and the
+ * gauge AUTH.[name].cache-hit-ratio of the default metrics registry.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 @RegisterPlugin(
@@ -57,8 +83,25 @@ public class SimpleFileAuthenticator
         extends FileConfigurablePlugin
         implements Authenticator {
 
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SimpleFileAuthenticator.class);
+
+    private static final String DEFAULT_REGISTRY = "default";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final long DEFAULT_CACHE_SIZE = 1_000;
+    private static final long DEFAULT_CACHE_TTL = 60_000;
+
     private final Map<String, PwdCredentialAccount> accounts = new HashMap<>();
 
+    private final Cache<String, Boolean> verified;
+
+    private final SecretKeySpec cacheKey;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
     /**
      *
      * @param confArgs
@@ -80,6 +123,66 @@ public class SimpleFileAuthenticator
     public SimpleFileAuthenticator(String name, Map<String, Object> confArgs)
             throws FileNotFoundException, ConfigurationException {
         init(confArgs, "users");
+
+        long cacheSize = optionalArgValue(confArgs, "cache-size",
+                DEFAULT_CACHE_SIZE);
+        long cacheTtl = optionalArgValue(confArgs, "cache-ttl",
+                DEFAULT_CACHE_TTL);
+
+        if (cacheSize > 0 && cacheTtl > 0) {
+            this.verified = CacheFactory.createLocalCache(cacheSize,
+                    Cache.EXPIRE_POLICY.AFTER_WRITE,
+                    cacheTtl);
+
+            var key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            this.cacheKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        } else {
+            this.verified = null;
+            this.cacheKey = null;
+        }
+
+        // initialize default metrics registry name, if not already set
+        if (SharedMetricRegistries.tryGetDefault() == null) {
+            SharedMetricRegistries.setDefault(DEFAULT_REGISTRY);
+        }
+
+        var registry = SharedMetricRegistries.tryGetDefault();
+
+        this.cacheHits = registry.counter(metricName(name, "cache-hits"));
+        this.cacheMisses = registry.counter(metricName(name, "cache-misses"));
+
+        registry.gauge(metricName(name, "cache-hit-ratio"),
+                () -> (Gauge<Double>) () -> hitRatio(registry, name));
+    }
+
+    private static long optionalArgValue(Map<String, Object> confArgs,
+            String argKey,
+            long defaultValue) throws ConfigurationException {
+        if (confArgs == null || !confArgs.containsKey(argKey)) {
+            return defaultValue;
+        }
+
+        Object value = argValue(confArgs, argKey);
+
+        if (!(value instanceof Number)) {
+            throw new ConfigurationException("Wrong type for argument '"
+                    + argKey + "', it must be a number");
+        }
+
+        return ((Number) value).longValue();
+    }
+
+    private static String metricName(String name, String metric) {
+        return MetricRegistry.name("AUTH", name, metric);
+    }
+
+    private static double hitRatio(MetricRegistry registry, String name) {
+        long hits = registry.counter(metricName(name, "cache-hits")).getCount();
+        long total = hits
+                + registry.counter(metricName(name, "cache-misses")).getCount();
+
+        return total == 0 ? 0d : (double) hits / total;
     }
 
     @Override
@@ -142,7 +245,78 @@ public class SimpleFileAuthenticator
         char[] password = ((PasswordCredential) credential).getPassword();
         char[] expectedPassword = accounts.get(account.getPrincipal().getName()).getCredentials().getPassword();
 
-        return Arrays.equals(password, expectedPassword);
+        if (!isHashed(expectedPassword)) {
+            return Arrays.equals(password, expectedPassword);
+        }
+
+        if (verified == null) {
+            return checkHash(password, expectedPassword);
+        }
+
+        var key = cacheKey(account.getPrincipal().getName(), password);
+
+        var cached = verified.get(key);
+
+        if (cached != null && cached.isPresent()) {
+            cacheHits.inc();
+            return true;
+        }
+
+        cacheMisses.inc();
+
+        if (checkHash(password, expectedPassword)) {
+            verified.put(key, Boolean.TRUE);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @param password
+     * @return true if the password is a bcrypt hash
+     */
+    static boolean isHashed(char[] password) {
+        return password.length == 60
+                && password[0] == '$'
+                && password[1] == '2'
+                && (password[2] == 'a' || password[2] == 'b' || password[2] == 'y')
+                && password[3] == '$';
+    }
+
+    private static boolean checkHash(char[] password, char[] hash) {
+        // jBCrypt only accepts the $2a$ revision; $2b$ (e.g. from Python
+        // bcrypt) and $2y$ (from htpasswd -B) hashes are computed the same
+        // way for passwords shorter than 256 bytes
+        var _hash = new String(hash);
+
+        if (hash[2] != 'a') {
+            _hash = "$2a".concat(_hash.substring(3));
+        }
+
+        try {
+            return BCrypt.checkpw(new String(password), _hash);
+        } catch (IllegalArgumentException iae) {
+            LOGGER.warn("Invalid bcrypt password hash", iae);
+            return false;
+        }
+    }
+
+    /**
+     * @return the HMAC of userid and password
+     */
+    private String cacheKey(String userid, char[] password) {
+        try {
+            var mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(cacheKey);
+            mac.update(userid.getBytes(UTF_8));
+            mac.update((byte) 0);
+            mac.update(new String(password).getBytes(UTF_8));
+
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+            throw new IllegalStateException(ex);
+        }
     }
 
     private boolean verifyDigestCredential(Account account, Credential credential) {
@@ -151,8 +325,16 @@ public class SimpleFileAuthenticator
 
             MessageDigest digest = dc.getAlgorithm().getMessageDigest();
 
-            String expectedPassword = new String(
-                    accounts.get(account.getPrincipal().getName()).getCredentials().getPassword());
+            char[] _expectedPassword = accounts
+                    .get(account.getPrincipal().getName())
+                    .getCredentials().getPassword();
+
+            // the digest requires the password in plain text
+            if (isHashed(_expectedPassword)) {
+                return false;
+            }
+
+            String expectedPassword = new String(_expectedPassword);
 
             digest.update(account.getPrincipal().getName().getBytes(UTF_8));
             digest.update((byte) ':');
@@ -0,0 +1,465 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.security.plugins.authorizers;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.util.HttpString;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * The permissions of RequestPredicatesAuthorizer compiled into a trie of the
+ * path segments of their path-prefix conditions.
+ *
+ * The predicates that are conjunctions of a path-prefix and a method
+ * condition, e.g. path-prefix[path="/"] and method[value="OPTIONS"], are
+ * decided by the trie without resolving them. The others are indexed by
+ * their path-prefix and method conditions, if any, and resolved only when
+ * those match; predicates without such conditions, e.g. using or, not or
+ * path-template, are always resolved.
+ *
+ * The plan of a request, i.e. whether a compiled predicate allows it or the
+ * predicates to resolve, only depends on the roles, the method and the
+ * deepest trie node matching the path, so it is cached by them.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+class AclIndex {
+
+    /**
+     * a condition with the arguments in square brackets or parenthesis,
+     * e.g. method[value="GET"] or method(GET)
+     */
+    private static final Pattern CONDITION = Pattern
+            .compile("^(path-prefix|method)(?:\\[(.*)\\]|\\((.*)\\))$",
+                    Pattern.DOTALL);
+
+    private static final Pattern ARG_NAME = Pattern
+            .compile("^(path|value)\\s*=\\s*", Pattern.DOTALL);
+
+    private static final Pattern LITERAL = Pattern
+            .compile("^[A-Za-z0-9/_.\\-]+$");
+
+    /**
+     * prefixes with a trailing slash are left to the predicate
+     */
+    private static final Pattern PREFIX = Pattern
+            .compile("^(/|(/[^/]+)+)$");
+
+    /**
+     * a permission
+     */
+    private static class Rule {
+        final String role;
+        final Predicate predicate;
+
+        /**
+         * null for any method
+         */
+        final Set<HttpString> methods;
+
+        /**
+         * true if the predicate is decided by the path prefix and the method
+         */
+        final boolean compiled;
+
+        Rule(String role,
+                Predicate predicate,
+                Set<HttpString> methods,
+                boolean compiled) {
+            this.role = role;
+            this.predicate = predicate;
+            this.methods = methods;
+            this.compiled = compiled;
+        }
+    }
+
+    private static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final List<Rule> rules = new ArrayList<>();
+    }
+
+    /**
+     * the permissions applicable to a request
+     */
+    static class Plan {
+        /**
+         * true if a compiled predicate allows the request
+         */
+        final boolean allowed;
+
+        /**
+         * the predicates to resolve if not allowed
+         */
+        final Predicate[] predicates;
+
+        Plan(boolean allowed, Predicate[] predicates) {
+            this.allowed = allowed;
+            this.predicates = predicates;
+        }
+    }
+
+    private static class Key {
+        final Set<String> roles;
+        final HttpString method;
+        final Node node;
+        final int hash;
+
+        Key(Set<String> roles, HttpString method, Node node) {
+            this.roles = roles;
+            this.method = method;
+            this.node = node;
+            this.hash = Objects.hash(roles, method, System.identityHashCode(node));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            var other = (Key) obj;
+
+            return node == other.node
+                    && Objects.equals(method, other.method)
+                    && Objects.equals(roles, other.roles);
+        }
+    }
+
+    private final Node root = new Node();
+
+    private final Cache<Key, Plan> plans;
+
+    /**
+     *
+     * @param cacheSize the maximum number of cached plans, 0 disables the
+     * cache
+     */
+    AclIndex(long cacheSize) {
+        this.plans = cacheSize > 0
+                ? CacheFactory.createLocalCache(cacheSize,
+                        Cache.EXPIRE_POLICY.NEVER, -1)
+                : null;
+    }
+
+    /**
+     * adds a permission, before requesting any plan
+     *
+     * @param role
+     * @param source the predicate as defined in the configuration
+     * @param predicate the parsed predicate
+     */
+    void add(String role, String source, Predicate predicate) {
+        List<String> prefixes = null;
+        Set<HttpString> methods = null;
+        boolean compiled = true;
+
+        var conditions = conjunction(source);
+
+        if (conditions == null) {
+            conditions = List.of();
+            compiled = false;
+        }
+
+        for (var condition : conditions) {
+            var m = CONDITION.matcher(condition);
+
+            if (!m.matches()) {
+                compiled = false;
+                continue;
+            }
+
+            var values = values(m.group(2) != null
+                    ? m.group(2)
+                    : m.group(3));
+
+            if (values == null) {
+                compiled = false;
+            } else if ("path-prefix".equals(m.group(1)) && prefixes == null) {
+                prefixes = prefixes(values);
+                compiled = compiled && prefixes != null;
+            } else if ("method".equals(m.group(1)) && methods == null) {
+                methods = new HashSet<>();
+
+                for (var value : values) {
+                    methods.add(HttpString.tryFromString(value));
+                }
+            } else {
+                // repeated conditions are left to the predicate
+                compiled = false;
+            }
+        }
+
+        var rule = new Rule(role, predicate, methods, compiled);
+
+        if (prefixes == null) {
+            root.rules.add(rule);
+        } else {
+            prefixes.forEach(prefix -> node(prefix).rules.add(rule));
+        }
+    }
+
+    /**
+     *
+     * @param roles
+     * @param method
+     * @param path
+     * @return the plan of the request
+     */
+    Plan plan(Set<String> roles, HttpString method, String path) {
+        var nodes = match(path);
+
+        if (plans == null) {
+            return plan(roles, method, nodes);
+        }
+
+        var deepest = nodes.get(nodes.size() - 1);
+
+        var cached = plans.get(new Key(roles, method, deepest));
+
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        var plan = plan(roles, method, nodes);
+
+        plans.put(new Key(Set.copyOf(roles), method, deepest), plan);
+
+        return plan;
+    }
+
+    private static Plan plan(Set<String> roles,
+            HttpString method,
+            List<Node> nodes) {
+        var predicates = new LinkedHashSet<Predicate>();
+
+        for (var node : nodes) {
+            for (var rule : node.rules) {
+                if (!roles.contains(rule.role)
+                        || (rule.methods != null
+                        && !rule.methods.contains(method))) {
+                    continue;
+                }
+
+                if (rule.compiled) {
+                    return new Plan(true, new Predicate[0]);
+                }
+
+                predicates.add(rule.predicate);
+            }
+        }
+
+        return new Plan(false, predicates.toArray(new Predicate[0]));
+    }
+
+    /**
+     * @param path
+     * @return the nodes matching the path, from the root to the deepest
+     */
+    private List<Node> match(String path) {
+        var nodes = new ArrayList<Node>();
+        nodes.add(root);
+
+        if (path == null || !path.startsWith("/")) {
+            return nodes;
+        }
+
+        var node = root;
+        int start = 1;
+
+        while (start <= path.length() && !node.children.isEmpty()) {
+            int end = path.indexOf('/', start);
+
+            if (end < 0) {
+                end = path.length();
+            }
+
+            node = node.children.get(path.substring(start, end));
+
+            if (node == null) {
+                break;
+            }
+
+            nodes.add(node);
+            start = end + 1;
+        }
+
+        return nodes;
+    }
+
+    private Node node(String prefix) {
+        var node = root;
+
+        for (var segment : prefix.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * @param values
+     * @return the normalized prefixes, null if a prefix cannot be compiled
+     */
+    private static List<String> prefixes(List<String> values) {
+        var prefixes = new ArrayList<String>();
+
+        for (var value : values) {
+            if (!PREFIX.matcher(value).matches()) {
+                return null;
+            }
+
+            prefixes.add(value);
+        }
+
+        return prefixes;
+    }
+
+    /**
+     * @param args the arguments of a path-prefix or method condition
+     * @return the literal values, null if not literal
+     */
+    private static List<String> values(String args) {
+        var _args = ARG_NAME.matcher(args.trim()).replaceFirst("").trim();
+
+        if (_args.startsWith("{") && _args.endsWith("}")) {
+            _args = _args.substring(1, _args.length() - 1);
+        }
+
+        var values = new ArrayList<String>();
+
+        for (var value : _args.split(",")) {
+            var _value = value.trim();
+
+            if (_value.length() > 1
+                    && (_value.startsWith("'") && _value.endsWith("'")
+                    || _value.startsWith("\"") && _value.endsWith("\""))) {
+                _value = _value.substring(1, _value.length() - 1);
+            }
+
+            if (!LITERAL.matcher(_value).matches()) {
+                return null;
+            }
+
+            values.add(_value);
+        }
+
+        return values;
+    }
+
+    /**
+     * @param source
+     * @return the conditions of the predicate if it is a conjunction, null if
+     * it uses or, not or parenthesis other than the arguments of a predicate
+     */
+    private static List<String> conjunction(String source) {
+        var conditions = new ArrayList<String>();
+        var condition = new StringBuilder();
+        var token = new StringBuilder();
+        int depth = 0;
+        char quote = 0;
+
+        for (int idx = 0; idx <= source.length(); idx++) {
+            char c = idx < source.length() ? source.charAt(idx) : ' ';
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                depth--;
+            } else if (c == '(' && (depth > 0 || isName(token))) {
+                // the arguments of a predicate, e.g. method(GET)
+                depth++;
+            } else if (c == ')' && depth > 0) {
+                depth--;
+            } else if (depth == 0 && (c == '(' || c == ')' || c == '!')) {
+                return null;
+            } else if (depth == 0 && Character.isWhitespace(c)) {
+                var word = token.toString();
+                token.setLength(0);
+
+                if ("and".equals(word)) {
+                    conditions.add(condition.toString().trim());
+                    condition.setLength(0);
+                    continue;
+                } else if ("or".equals(word) || "not".equals(word)) {
+                    return null;
+                }
+
+                condition.append(word).append(c);
+                continue;
+            }
+
+            token.append(c);
+        }
+
+        if (quote != 0 || depth != 0) {
+            return null;
+        }
+
+        conditions.add(condition.toString().trim());
+
+        return conditions;
+    }
+
+    /**
+     * @return true if the token is the name of a predicate, e.g. path-prefix,
+     * so that a following parenthesis opens its arguments rather than a group
+     */
+    private static boolean isName(CharSequence token) {
+        if (token.length() == 0 || "and".contentEquals(token)
+                || "or".contentEquals(token) || "not".contentEquals(token)) {
+            return false;
+        }
+
+        for (int idx = 0; idx < token.length(); idx++) {
+            var c = token.charAt(idx);
+
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -30,7 +30,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 import org.restheart.ConfigurationException;
 import org.restheart.handlers.exchange.ByteArrayRequest;
 import static org.restheart.plugins.ConfigurablePlugin.argValue;
@@ -41,6 +40,14 @@ import org.restheart.plugins.security.Authorizer;
 import org.restheart.utils.LambdaUtils;
 
 /**
+ * Authorizes the requests according to the permissions defined in a yml
+ * configuration file.
+ *
+ * The permissions are compiled into an AclIndex, so that the predicates that
+ * only check the path prefix and the method are not resolved on each request.
+ * The plans of the requests are cached for up to cache-size (default 1000, 0
+ * disables the cache) combinations of roles, method and path prefix.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 @RegisterPlugin(
@@ -51,8 +58,14 @@ public class RequestPredicatesAuthorizer
         extends FileConfigurablePlugin
         implements Authorizer {
 
+    private static final String UNAUTHENTICATED = "$unauthenticated";
+
+    private static final long DEFAULT_CACHE_SIZE = 1_000;
+
     private final HashMap<String, Set<Predicate>> acl = new HashMap<>();
 
+    private final AclIndex index;
+
     /**
      * @param confArgs
      * @throws java.io.FileNotFoundException
@@ -73,8 +86,25 @@ public class RequestPredicatesAuthorizer
     public RequestPredicatesAuthorizer(String name,
             Map<String, Object> confArgs)
             throws FileNotFoundException, ConfigurationException {
+        this.index = new AclIndex(cacheSize(confArgs));
         init(confArgs, "permissions");
     }
+
+    private static long cacheSize(Map<String, Object> confArgs)
+            throws ConfigurationException {
+        if (confArgs == null || !confArgs.containsKey("cache-size")) {
+            return DEFAULT_CACHE_SIZE;
+        }
+
+        Object value = argValue(confArgs, "cache-size");
+
+        if (!(value instanceof Number)) {
+            throw new ConfigurationException("Wrong type for argument "
+                    + "'cache-size', it must be a number");
+        }
+
+        return ((Number) value).longValue();
+    }
     
     @Override
     public Consumer<? super Map<String, Object>> consumeConfiguration() {
@@ -95,6 +125,7 @@ public class RequestPredicatesAuthorizer
                 }
 
                 aclForRole(role).add(predicate);
+                index.add(role, _predicate, predicate);
 
             } catch (ConfigurationException pce) {
                 LambdaUtils.throwsSneakyExcpetion(pce);
@@ -112,20 +143,40 @@ public class RequestPredicatesAuthorizer
             return false;
         }
 
+        return isAllowed(exchange, account(exchange).getRoles());
+    }
+
+    private boolean isAllowed(HttpServerExchange exchange, Set<String> roles) {
+        // Predicate.resolve() uses getRelativePath() that is the path relative to
+        // the last PathHandler We want to check against the full request path
+        // see https://issues.jboss.org/browse/UNDERTOW-1317
+        exchange.setRelativePath(exchange.getRequestPath());
+
+        var plan = index.plan(roles,
+                exchange.getRequestMethod(),
+                exchange.getRequestPath());
+
+        if (plan.allowed) {
+            return true;
+        }
+
+        if (plan.predicates.length == 0) {
+            return false;
+        }
+
         // this fixes undertow bug 377
         // https://issues.jboss.org/browse/UNDERTOW-377
         if (exchange.getAttachment(PREDICATE_CONTEXT) == null) {
             exchange.putAttachment(PREDICATE_CONTEXT, new TreeMap<>());
         }
 
-        // Predicate.resolve() uses getRelativePath() that is the path relative to
-        // the last PathHandler We want to check against the full request path
-        // see https://issues.jboss.org/browse/UNDERTOW-1317
-        exchange.setRelativePath(exchange.getRequestPath());
+        for (var predicate : plan.predicates) {
+            if (predicate.resolve(exchange)) {
+                return true;
+            }
+        }
 
-        return roles(exchange).anyMatch(role -> aclForRole(role)
-                .stream()
-                .anyMatch(p -> p.resolve(exchange)));
+        return false;
     }
 
     @Override
@@ -139,41 +190,19 @@ public class RequestPredicatesAuthorizer
             return true;
         }
 
-        Set<Predicate> ps = getAcl().get("$unauthenticated");
-
-        if (ps != null) {
-            // this fixes undertow bug 377
-            // https://issues.jboss.org/browse/UNDERTOW-377
-            if (exchange.getAttachment(PREDICATE_CONTEXT) == null) {
-                exchange.putAttachment(PREDICATE_CONTEXT, new TreeMap<>());
-            }
-
-            // Predicate.resolve() uses getRelativePath() that is the path 
-            // relative to the last PathHandler We want to check against the full 
-            // request path see https://issues.jboss.org/browse/UNDERTOW-1317
-            exchange.setRelativePath(exchange.getRequestPath());
-            return !ps.stream().anyMatch(p -> p.resolve(exchange));
+        if (getAcl().containsKey(UNAUTHENTICATED)) {
+            return !isAllowed(exchange, NotAuthenticatedAccount.ROLES);
         } else {
             return true;
         }
     }
 
-    private Stream<String> roles(HttpServerExchange exchange) {
-        return account(exchange).getRoles().stream();
-    }
-
     private boolean noAclDefined() {
         return getAcl() == null;
     }
 
     private Set<Predicate> aclForRole(String role) {
-        Set<Predicate> predicates = getAcl().get(role);
-        if (predicates == null) {
-            predicates = newHashSet();
-            getAcl().put(role, predicates);
-        }
-
-        return predicates;
+        return getAcl().computeIfAbsent(role, r -> newHashSet());
     }
 
     private Account account(HttpServerExchange exchange) {
@@ -197,6 +226,8 @@ public class RequestPredicatesAuthorizer
 
         private static final long serialVersionUID = 3124L;
 
+        private static final Set<String> ROLES = Set.of(UNAUTHENTICATED);
+
         @Override
         public Principal getPrincipal() {
             return null;
@@ -204,7 +235,7 @@ public class RequestPredicatesAuthorizer
 
         @Override
         public Set<String> getRoles() {
-            return newHashSet("$unauthenticated");
+            return ROLES;
         }
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.security.plugins.authenticators;
+
+import com.codahale.metrics.SharedMetricRegistries;
+import io.undertow.security.idm.DigestAlgorithm;
+import io.undertow.security.idm.DigestCredential;
+import io.undertow.security.idm.PasswordCredential;
+import io.undertow.util.HexConverter;
+import java.io.File;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class SimpleFileAuthenticatorTest {
+
+    private static final String PASSWORD = "secret";
+    private static final String REALM = "RESTHeart Realm";
+
+    private static File USERS;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        var hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(4));
+
+        USERS = File.createTempFile("users", ".yml");
+        USERS.deleteOnExit();
+
+        Files.writeString(USERS.toPath(), "users:\n"
+                + user("plain", PASSWORD)
+                + user("bcrypt", hash)
+                // the same hash with the $2b$ and $2y$ revisions
+                + user("bcrypt2b", "$2b" + hash.substring(3))
+                + user("bcrypt2y", "$2y" + hash.substring(3)));
+    }
+
+    @Test
+    public void testVerifyPassword() throws Exception {
+        var authenticator = authenticator("test-verify", 1_000);
+
+        for (var userid : new String[]{"plain", "bcrypt", "bcrypt2b", "bcrypt2y"}) {
+            assertNotNull(userid, authenticator.verify(userid, password(PASSWORD)));
+            assertNull(userid, authenticator.verify(userid, password("wrong")));
+        }
+
+        assertNull(authenticator.verify("unknown", password(PASSWORD)));
+    }
+
+    @Test
+    public void testIsHashed() {
+        assertTrue(SimpleFileAuthenticator.isHashed(BCrypt
+                .hashpw(PASSWORD, BCrypt.gensalt(4)).toCharArray()));
+        assertFalse(SimpleFileAuthenticator.isHashed(PASSWORD.toCharArray()));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        var authenticator = authenticator("test-cache", 1_000);
+
+        assertNull(authenticator.verify("bcrypt", password("wrong")));
+        assertNull(authenticator.verify("bcrypt", password("wrong")));
+
+        // the failed verifications are not cached
+        assertEquals(0, count("test-cache", "cache-hits"));
+        assertEquals(2, count("test-cache", "cache-misses"));
+
+        assertNotNull(authenticator.verify("bcrypt", password(PASSWORD)));
+        assertEquals(0, count("test-cache", "cache-hits"));
+        assertEquals(3, count("test-cache", "cache-misses"));
+
+        assertNotNull(authenticator.verify("bcrypt", password(PASSWORD)));
+        assertEquals(1, count("test-cache", "cache-hits"));
+        assertEquals(3, count("test-cache", "cache-misses"));
+
+        // the cache is keyed by userid and password
+        assertNull(authenticator.verify("bcrypt", password("wrong")));
+        assertNotNull(authenticator.verify("bcrypt2b", password(PASSWORD)));
+        assertEquals(1, count("test-cache", "cache-hits"));
+    }
+
+    @Test
+    public void testCacheDisabled() throws Exception {
+        var authenticator = authenticator("test-no-cache", 0);
+
+        assertNotNull(authenticator.verify("bcrypt", password(PASSWORD)));
+        assertNotNull(authenticator.verify("bcrypt", password(PASSWORD)));
+        assertNull(authenticator.verify("bcrypt", password("wrong")));
+
+        assertEquals(0, count("test-no-cache", "cache-hits"));
+        assertEquals(0, count("test-no-cache", "cache-misses"));
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        var authenticator = authenticator("test-digest", 1_000);
+
+        assertNotNull(authenticator.verify("plain", digest("plain", PASSWORD)));
+        assertNull(authenticator.verify("plain", digest("plain", "wrong")));
+
+        // the digest requires the password in plain text
+        assertNull(authenticator.verify("bcrypt", digest("bcrypt", PASSWORD)));
+    }
+
+    private static String user(String userid, String password) {
+        return "    - userid: " + userid + "\n"
+                + "      password: " + password + "\n"
+                + "      roles: [user]\n";
+    }
+
+    private static SimpleFileAuthenticator authenticator(String name,
+            long cacheSize) throws Exception {
+        Map<String, Object> args = new HashMap<>();
+        args.put("conf-file", USERS.getAbsolutePath());
+        args.put("cache-size", cacheSize);
+
+        return new SimpleFileAuthenticator(name, args);
+    }
+
+    private static long count(String name, String counter) {
+        return SharedMetricRegistries.tryGetDefault()
+                .counter("AUTH." + name + "." + counter)
+                .getCount();
+    }
+
+    private static PasswordCredential password(String password) {
+        return new PasswordCredential(password.toCharArray());
+    }
+
+    /**
+     * @return a DigestCredential verifying the HA1 computed by the client
+     * with the given password
+     */
+    private static DigestCredential digest(String userid, String password)
+            throws Exception {
+        var md = DigestAlgorithm.MD5.getMessageDigest();
+        md.update((userid + ":" + REALM + ":" + password).getBytes(UTF_8));
+        var expected = HexConverter.convertToHexBytes(md.digest());
+
+        return new DigestCredential() {
+            @Override
+            public DigestAlgorithm getAlgorithm() {
+                return DigestAlgorithm.MD5;
+            }
+
+            @Override
+            public boolean verifyHA1(byte[] ha1) {
+                return MessageDigest.isEqual(expected, ha1);
+            }
+
+            @Override
+            public String getRealm() {
+                return REALM;
+            }
+
+            @Override
+            public byte[] getSessionData() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.security.plugins.authorizers;
+
+import io.undertow.predicate.Predicate;
+import static io.undertow.predicate.Predicate.PREDICATE_CONTEXT;
+import io.undertow.predicate.PredicateParser;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class AclIndexTest {
+
+    private static final List<String[]> PERMISSIONS = List.of(
+            new String[]{"user", "path-prefix[path=\"/\"] and method[value=\"OPTIONS\"]"},
+            new String[]{"user", "path-prefix['/db/coll'] and method[GET]"},
+            new String[]{"user", "path-prefix[path={'/a/b', '/c'}]"},
+            new String[]{"user", "path-template[value=\"/{db}/public\"]"},
+            new String[]{"user", "path-prefix[path=\"/db\"] and path-template[value=\"/db/{coll}\"]"},
+            new String[]{"user", "method[value=\"DELETE\"] or path-prefix[\"/x\"]"},
+            new String[]{"user", "path-prefix[path=\"/adm/\"]"},
+            new String[]{"admin", "path-prefix[path=\"/\"]"},
+            // the syntax with parenthesis
+            new String[]{"paren", "path-prefix('/db') and method(GET)"},
+            new String[]{"paren", "path-prefix(path={'/a/b', '/c'}) and method(value=POST)"},
+            new String[]{"paren", "path-prefix('/x') and path-template('/x/{y}')"},
+            new String[]{"paren", "not(path-prefix('/db')) and method(DELETE)"},
+            new String[]{"paren", "(path-prefix('/adm') or method(OPTIONS))"});
+
+    private static final List<String> PATHS = List.of("/", "/db", "/db/",
+            "/db/coll", "/db/coll/doc", "/db/collection", "/a", "/a/b",
+            "/a/b/c", "/a/bc", "/c", "/cc", "/x", "/x/y", "/adm", "/adm/",
+            "/adm/z", "/db/public", "/other/public", "//db");
+
+    private static final List<String> METHODS = List.of("GET", "POST",
+            "OPTIONS", "DELETE");
+
+    private static final List<Set<String>> ROLES = List.of(Set.of("user"),
+            Set.of("admin"), Set.of("other"), Set.of("user", "admin"),
+            Set.of("paren"));
+
+    @Test
+    public void testSameDecisionsOfPredicates() {
+        var predicates = new ArrayList<Map.Entry<String, Predicate>>();
+
+        var cached = new AclIndex(1_000);
+        var notCached = new AclIndex(0);
+
+        PERMISSIONS.forEach(p -> {
+            var predicate = PredicateParser.parse(p[1],
+                    getClass().getClassLoader());
+
+            predicates.add(Map.entry(p[0], predicate));
+            cached.add(p[0], p[1], predicate);
+            notCached.add(p[0], p[1], predicate);
+        });
+
+        // twice, the second time the plans are cached
+        for (int cont = 0; cont < 2; cont++) {
+            for (var path : PATHS) {
+                for (var method : METHODS) {
+                    for (var roles : ROLES) {
+                        var expected = predicates.stream()
+                                .filter(e -> roles.contains(e.getKey()))
+                                .anyMatch(e -> e.getValue()
+                                        .resolve(exchange(path, method)));
+
+                        var message = roles + " " + method + " " + path;
+
+                        assertEquals(message, expected,
+                                isAllowed(cached, roles, path, method));
+                        assertEquals(message, expected,
+                                isAllowed(notCached, roles, path, method));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledPredicates() {
+        var index = new AclIndex(0);
+
+        PERMISSIONS.forEach(p -> index.add(p[0], p[1], PredicateParser
+                .parse(p[1], getClass().getClassLoader())));
+
+        var options = index.plan(Set.of("user"), HttpString.tryFromString("OPTIONS"), "/db");
+        assertTrue(options.allowed);
+
+        var get = index.plan(Set.of("user"), HttpString.tryFromString("GET"), "/db/coll/doc");
+        assertTrue(get.allowed);
+
+        // only the path-template, or and trailing slash predicates are resolved
+        var post = index.plan(Set.of("user"), HttpString.tryFromString("POST"), "/db/coll");
+        assertFalse(post.allowed);
+        assertEquals(4, post.predicates.length);
+
+        var admin = index.plan(Set.of("admin"), HttpString.tryFromString("POST"), "/db/coll");
+        assertTrue(admin.allowed);
+
+        var paren = index.plan(Set.of("paren"), HttpString.tryFromString("GET"), "/db/coll");
+        assertTrue(paren.allowed);
+
+        var parenPost = index.plan(Set.of("paren"), HttpString.tryFromString("POST"), "/c/d");
+        assertTrue(parenPost.allowed);
+
+        // only the not and or predicates are resolved
+        var parenDelete = index.plan(Set.of("paren"), HttpString.tryFromString("DELETE"), "/db/coll");
+        assertFalse(parenDelete.allowed);
+        assertEquals(2, parenDelete.predicates.length);
+    }
+
+    private static boolean isAllowed(AclIndex index,
+            Set<String> roles,
+            String path,
+            String method) {
+        var exchange = exchange(path, method);
+
+        var plan = index.plan(roles, exchange.getRequestMethod(), path);
+
+        if (plan.allowed) {
+            return true;
+        }
+
+        for (var predicate : plan.predicates) {
+            if (predicate.resolve(exchange)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static HttpServerExchange exchange(String path, String method) {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath(path);
+        exchange.setRelativePath(path);
+        exchange.setRequestMethod(HttpString.tryFromString(method));
+        exchange.putAttachment(PREDICATE_CONTEXT, new TreeMap<>());
+
+        return exchange;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * RESTHeart Security
+ *
+ * Copyright (C) SoftInstigate Srl
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.restheart.security.test.performance;
+
+import io.undertow.security.idm.PasswordCredential;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import org.restheart.security.plugins.authenticators.SimpleFileAuthenticator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compares the Basic Authentication verifications per second of
+ * simpleFileAuthenticator with a bcrypt hashed password, with and without
+ * the cache of the successful verifications
+ *
+ * remove @Ignore annotation to enabled it
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+@Ignore
+public class BasicAuthTimeTest {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(BasicAuthTimeTest.class);
+
+    private static final int N_WITHOUT_CACHE = 50;
+    private static final int N_WITH_CACHE = 1_000_000;
+
+    private static final String PASSWORD = "secret";
+
+    /**
+     *
+     */
+    public BasicAuthTimeTest() {
+    }
+
+    /**
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVerify() throws Exception {
+        var users = File.createTempFile("users", ".yml");
+        users.deleteOnExit();
+
+        Files.writeString(users.toPath(), "users:\n"
+                + "    - userid: user\n"
+                + "      password: " + BCrypt.hashpw(PASSWORD, BCrypt.gensalt(10)) + "\n"
+                + "      roles: [user]\n");
+
+        var withoutCache = authenticator(users, 0);
+        var withCache = authenticator(users, 1_000);
+
+        // warm up
+        verify(withoutCache, 5);
+        verify(withCache, 10_000);
+
+        LOGGER.info("without cache: {} requests/sec",
+                verify(withoutCache, N_WITHOUT_CACHE));
+        LOGGER.info("with cache: {} requests/sec",
+                verify(withCache, N_WITH_CACHE));
+    }
+
+    private static SimpleFileAuthenticator authenticator(File users,
+            long cacheSize) throws Exception {
+        Map<String, Object> args = new HashMap<>();
+        args.put("conf-file", users.getAbsolutePath());
+        args.put("cache-size", cacheSize);
+
+        return new SimpleFileAuthenticator("auth" + cacheSize, args);
+    }
+
+    private static long verify(SimpleFileAuthenticator authenticator, int n) {
+        long start = System.nanoTime();
+
+        for (int cont = 0; cont < n; cont++) {
+            if (authenticator.verify("user",
+                    new PasswordCredential(PASSWORD.toCharArray())) == null) {
+                throw new IllegalStateException("wrong credentials");
+            }
+        }
+
+        return n * 1_000_000_000l / (System.nanoTime() - start);
+    }
+}